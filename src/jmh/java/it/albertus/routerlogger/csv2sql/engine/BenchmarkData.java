@@ -0,0 +1,67 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * RouterLogger-like data for the benchmarks: the rows of a TP-Link ADSL modem
+ * logged every five seconds, with a varying response time.
+ */
+final class BenchmarkData {
+
+	static final String CSV_SEPARATOR = ";";
+	static final String CSV_TIMESTAMP_PATTERN = "dd/MM/yyyy HH:mm:ss.SSS";
+
+	static final String HEADER = "Data e ora;Tempo di risposta (ms);enable;status;modulationType;lineEncoding;dataPath;interleaveDepth;lineNumber;upstreamCurrRate;downstreamCurrRate;upstreamMaxRate;downstreamMaxRate;upstreamNoiseMargin;downstreamNoiseMargin;upstreamAttenuation;downstreamAttenuation;upstreamPower;downstreamPower;ATURVendor;ATURCountry;ATUCVendor;ATUCCountry;totalStart;showtimeStart;quarterHourStart;X_TPLINK_Bitswap;X_TPLINK_SRA;X_TPLINK_AdslModulationCfg;X_TPLINK_AnnexType;X_TPLINK_SupportAdslMode;X_TPLINK_NCPType;connectionStatus;possibleConnectionTypes;connectionType;PPPoESessionID;defaultGateway;name;uptime;lastConnectionError;idleDisconnectTime;RSIPAvailable;NATEnabled;X_TPLINK_FullconeNATEnabled;X_TPLINK_FirewallEnabled;X_TPLINK_IGMPProxyEnabled;username;password;PPPAuthenticationProtocol;X_TPLINK_IfName;X_TPLINK_L2IfName;X_TPLINK_BcastAddr;X_TPLINK_ConnectionId;X_TPLINK_UseStaticIP;externalIPAddress;remoteIPAddress;maxMRUSize;currentMRUSize;DNSEnabled;DNSOverrideAllowed;DNSServers;MACAddress;MACAddressOverride;X_TPLINK_ClonedMACAddress;transportType;PPPoEACName;PPPoEServiceName;connectionTrigger;routeProtocolRx;PPPLCPEcho;PPPLCPEchoRetry;portMappingNumberOfEntries";
+
+	private static final String FIELDS = "1;Up;ADSL_G.dmt;;;0;0;480;3072;836;3104;190;108;310;543;123;185;;;;;263162;8;0;On;On;Multimode;Annex A;T1.413:A,G.dmt:A,ADSL2:A,A/L,ADSL2+:A,M,A/L/M,Auto Sync-up:A,A/L,M,A/L/M;IPCP;Connected;;IP_Routed;0;192.168.100.1;pppoa_8_35_0_d;99760;ERROR_NONE;15;0;1;0;0;1;xxx;yyy;AUTO_AUTH;ppp0;nas0_1;;0;0;111.112.122.222;192.168.100.1;1480;0;0;0;111.112.122.222,111.112.122.222;;0;;PPPoA;;;AlwaysOn;Off;30;0;8";
+
+	private static final LocalDateTime START = LocalDateTime.of(2017, 9, 1, 0, 0, 3, 587000000);
+
+	/** Instantiation not permitted. */
+	private BenchmarkData() {
+		throw new IllegalAccessError();
+	}
+
+	static CsvToSqlEngine newEngine() {
+		return new CsvToSqlEngine(CSV_SEPARATOR, CSV_TIMESTAMP_PATTERN, "router_log", "rl_", "timestamp", "response_time_ms", 30);
+	}
+
+	/**
+	 * Generates the rows of a file.
+	 *
+	 * @param count the number of rows
+	 * @return the rows, without line terminators
+	 */
+	static String[] rows(final int count) {
+		final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(CSV_TIMESTAMP_PATTERN);
+		final String[] rows = new String[count];
+		for (int i = 0; i < count; i++) {
+			rows[i] = formatter.format(START.plusNanos(i * 5_075_000_000L)) + CSV_SEPARATOR + (60 + i * 7 % 90) + CSV_SEPARATOR + FIELDS;
+		}
+		return rows;
+	}
+
+	/**
+	 * Writes a CSV file with a header and the provided number of rows.
+	 *
+	 * @return the size of the file in bytes
+	 */
+	static long write(final File file, final int rowCount) throws IOException {
+		try (final BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.US_ASCII)) {
+			writer.write(HEADER);
+			writer.write("\r\n");
+			for (final String row : rows(rowCount)) {
+				writer.write(row);
+				writer.write("\r\n");
+			}
+		}
+		return file.length();
+	}
+
+}
@@ -0,0 +1,80 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts a whole RouterLogger file (about 40 MB) into a SQL script, as the
+ * application does; one operation is one row. The size of the file is printed
+ * at setup, so that the row rate can be turned into a byte rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ConvertBenchmark {
+
+	private static final int ROWS = 100_000;
+
+	@Param({ "INSERT", "COPY" })
+	public OutputFormat format;
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	private File directory;
+	private File csvFile;
+	private CsvToSqlEngine engine;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("csv2sql-benchmark").toFile();
+		csvFile = new File(directory, "routerlogger.csv");
+		final long size = BenchmarkData.write(csvFile, ROWS);
+		System.out.printf("%n%d rows, %d bytes (%d bytes per row)%n", ROWS, size, size / ROWS);
+		engine = BenchmarkData.newEngine();
+		engine.setOutputFormat(format);
+		engine.setCompressed(false);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void convert() throws IOException, InterruptedException {
+		engine.convert(csvFile, directory.getPath(), () -> false, threads);
+	}
+
+	@TearDown(Level.Invocation)
+	public void deleteScripts() throws IOException {
+		for (final File file : directory.listFiles()) {
+			if (!file.equals(csvFile)) {
+				Files.delete(file.toPath());
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(csvFile.toPath());
+		Files.delete(directory.toPath());
+	}
+
+}
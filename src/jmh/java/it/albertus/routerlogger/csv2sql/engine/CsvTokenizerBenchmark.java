@@ -0,0 +1,61 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Splits RouterLogger rows into fields; one operation is one row. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvTokenizerBenchmark {
+
+	private static final int ROWS = 1024;
+
+	private String[] rows;
+	private CsvTokenizer literal;
+	private CsvTokenizer regex;
+
+	@Setup
+	public void setup() {
+		rows = BenchmarkData.rows(ROWS);
+		literal = new CsvTokenizer(BenchmarkData.CSV_SEPARATOR);
+		regex = new CsvTokenizer("[;]");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void literalSeparator(final Blackhole blackhole) {
+		for (final String row : rows) {
+			blackhole.consume(literal.tokenize(row));
+			blackhole.consume(literal.getFieldCount());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void regexSeparator(final Blackhole blackhole) {
+		for (final String row : rows) {
+			blackhole.consume(regex.tokenize(row));
+			blackhole.consume(regex.getFieldCount());
+		}
+	}
+
+	/** The splitting done before the tokenizer was introduced, as a baseline. */
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void stringSplit(final Blackhole blackhole) {
+		for (final String row : rows) {
+			blackhole.consume(row.trim().split(BenchmarkData.CSV_SEPARATOR));
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Writes the text fields of a row as SQL string literals, doubling the single
+ * quotes; one operation is one row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EscapeBenchmark {
+
+	private static final int ROWS = 1024;
+
+	/** One field out of <tt>quotedEvery</tt> contains a quote, none if zero. */
+	@Param({ "0", "10" })
+	public int quotedEvery;
+
+	private CsvTokenizer[] tokenizers;
+	private final CharArrayWriter out = new CharArrayWriter();
+
+	@Setup
+	public void setup() {
+		final String[] rows = BenchmarkData.rows(ROWS);
+		tokenizers = new CsvTokenizer[rows.length];
+		int fields = 0;
+		for (int i = 0; i < rows.length; i++) {
+			final StringBuilder row = new StringBuilder();
+			for (final String field : rows[i].split(BenchmarkData.CSV_SEPARATOR, -1)) {
+				if (row.length() > 0) {
+					row.append(BenchmarkData.CSV_SEPARATOR);
+				}
+				row.append(quotedEvery > 0 && fields++ % quotedEvery == 0 ? field + "'s" : field);
+			}
+			tokenizers[i] = new CsvTokenizer(BenchmarkData.CSV_SEPARATOR);
+			tokenizers[i].tokenize(row);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int writeEscaped() throws IOException {
+		out.reset();
+		for (final CsvTokenizer tokenizer : tokenizers) {
+			for (int field = 2; field < tokenizer.getFieldCount(); field++) {
+				RowFormatter.writeEscaped(tokenizer, field, out);
+			}
+		}
+		return out.size();
+	}
+
+}
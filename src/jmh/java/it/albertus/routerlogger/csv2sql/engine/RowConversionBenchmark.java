@@ -0,0 +1,75 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import it.albertus.routerlogger.csv2sql.engine.CsvToSqlEngine.RowConversionException;
+
+/**
+ * Converts in-memory rows into SQL statements, from the decoding of the bytes
+ * to the statement written into a discarding writer, without any file I/O; one
+ * operation is one row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RowConversionBenchmark {
+
+	private static final int ROWS = 4096;
+
+	@Param({ "INSERT", "COPY" })
+	public OutputFormat format;
+
+	private CsvToSqlEngine engine;
+	private List<String> sqlColumnNames;
+	private byte[] body;
+
+	@Setup
+	public void setup() {
+		engine = BenchmarkData.newEngine();
+		engine.setOutputFormat(format);
+		sqlColumnNames = engine.getSqlColumnNames(BenchmarkData.HEADER);
+		body = (String.join("\r\n", BenchmarkData.rows(ROWS)) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void convertLines() throws IOException, InterruptedException, RowConversionException {
+		try (final ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(body), StandardCharsets.US_ASCII, 0, 0); final BufferedWriter writer = new BufferedWriter(NullWriter.INSTANCE)) {
+			engine.convertLines("benchmark.csv", reader, writer, sqlColumnNames, null, null, 0, (w, offset, lineNumber) -> {}, () -> false);
+		}
+	}
+
+	/** Discards the statements, leaving only the cost of the conversion. */
+	private static class NullWriter extends Writer {
+		private static final Writer INSTANCE = new NullWriter();
+
+		@Override
+		public void write(final char[] cbuf, final int off, final int len) {/* Discard */}
+
+		@Override
+		public void write(final String str, final int off, final int len) {/* Discard */}
+
+		@Override
+		public void flush() {/* Nothing to flush */}
+
+		@Override
+		public void close() {/* Nothing to close */}
+	}
+
+}
@@ -0,0 +1,70 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses the CSV timestamps of consecutive rows and formats them as SQL
+ * timestamps; one operation is one row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TimestampTranscoderBenchmark {
+
+	private static final int ROWS = 1024;
+
+	private char[][] timestamps;
+	private TimestampTranscoder transcoder;
+	private DateFormat parser;
+	private DateFormat formatter;
+	private final CharArrayWriter out = new CharArrayWriter();
+
+	@Setup
+	public void setup() {
+		final String[] rows = BenchmarkData.rows(ROWS);
+		timestamps = new char[rows.length][];
+		for (int i = 0; i < rows.length; i++) {
+			timestamps[i] = rows[i].substring(0, rows[i].indexOf(BenchmarkData.CSV_SEPARATOR)).toCharArray();
+		}
+		transcoder = new TimestampTranscoder(BenchmarkData.CSV_TIMESTAMP_PATTERN);
+		parser = new SimpleDateFormat(BenchmarkData.CSV_TIMESTAMP_PATTERN);
+		parser.setLenient(false);
+		formatter = new SimpleDateFormat(TimestampTranscoder.ANSI_SQL_TIMESTAMP_PATTERN);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int transcode() throws ParseException, IOException {
+		out.reset();
+		for (final char[] timestamp : timestamps) {
+			transcoder.transcode(timestamp, 0, timestamp.length, out);
+		}
+		return out.size();
+	}
+
+	/** The <tt>SimpleDateFormat</tt> round trip replaced by the transcoder, as a baseline. */
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int simpleDateFormat() throws ParseException {
+		out.reset();
+		for (final char[] timestamp : timestamps) {
+			out.append(formatter.format(parser.parse(new String(timestamp))));
+		}
+		return out.size();
+	}
+
+}
@@ -1,5 +1,6 @@
 package it.albertus.routerlogger.csv2sql;
 
+import it.albertus.routerlogger.csv2sql.cli.CsvToSqlCli;
 import it.albertus.routerlogger.csv2sql.engine.CsvToSqlConfig;
 import it.albertus.routerlogger.csv2sql.gui.CsvToSqlGui;
 import it.albertus.util.InitializationException;
@@ -30,8 +31,24 @@ public class CsvToSqlConverter {
 		throw new IllegalAccessError();
 	}
 
+	/**
+	 * Starts the graphical interface, or converts the files in batch mode if
+	 * any argument is given.
+	 *
+	 * @param args the arguments of the command-line mode
+	 * @see CsvToSqlCli
+	 */
 	public static void main(final String... args) {
-		CsvToSqlGui.run(initializationException);
+		if (args.length > 0) {
+			if (initializationException != null) {
+				System.err.println(initializationException.getMessage());
+				System.exit(CsvToSqlCli.EXIT_CONFIGURATION);
+			}
+			System.exit(new CsvToSqlCli(System.out, System.err).run(args));
+		}
+		else {
+			CsvToSqlGui.run(initializationException);
+		}
 	}
 
 	public static InitializationException getInitializationException() {
@@ -0,0 +1,82 @@
+package it.albertus.routerlogger.csv2sql.cli;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import it.albertus.routerlogger.csv2sql.engine.LoadMarker;
+
+/**
+ * Persists the checkpoints of the files converted in tail mode, one marker
+ * comment per file name, so that the conversion can continue from the last
+ * converted row after a restart. The file is replaced atomically every time a
+ * checkpoint is updated, so it is never left half-written.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class CheckpointStore {
+
+	private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+	private final Path file;
+	private final Map<String, LoadMarker> checkpoints = new TreeMap<>();
+
+	/**
+	 * Creates a new store, reading the checkpoints saved in the file, if it
+	 * exists.
+	 *
+	 * @param file the file of the checkpoints
+	 * @throws IOException if the file cannot be read or is not valid
+	 */
+	CheckpointStore(final Path file) throws IOException {
+		this.file = file;
+		if (Files.exists(file)) {
+			for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+				if (!line.trim().isEmpty()) {
+					try {
+						final LoadMarker checkpoint = LoadMarker.parse(line);
+						checkpoints.put(checkpoint.getFileName(), checkpoint);
+					}
+					catch (final IllegalArgumentException e) {
+						throw new IOException("Invalid checkpoint file " + file + ": " + e.getMessage(), e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the checkpoint of a file.
+	 *
+	 * @param fileName the name of the file
+	 * @return the checkpoint, or <code>null</code> if the file has not been
+	 *         converted yet
+	 */
+	LoadMarker get(final String fileName) {
+		return checkpoints.get(fileName);
+	}
+
+	/**
+	 * Updates the checkpoint of a file and saves all the checkpoints.
+	 *
+	 * @param checkpoint the new checkpoint
+	 * @throws IOException if the checkpoints cannot be saved
+	 */
+	void put(final LoadMarker checkpoint) throws IOException {
+		checkpoints.put(checkpoint.getFileName(), checkpoint);
+		final List<String> lines = new ArrayList<>(checkpoints.size());
+		for (final LoadMarker marker : checkpoints.values()) {
+			lines.add(marker.toString());
+		}
+		final Path temporaryFile = file.resolveSibling(file.getFileName() + TEMPORARY_FILE_SUFFIX);
+		Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+		Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
@@ -0,0 +1,587 @@
+package it.albertus.routerlogger.csv2sql.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import it.albertus.routerlogger.csv2sql.engine.CancellationStatus;
+import it.albertus.routerlogger.csv2sql.engine.CsvToSqlConfig;
+import it.albertus.routerlogger.csv2sql.engine.CsvToSqlConfig.Defaults;
+import it.albertus.routerlogger.csv2sql.engine.CsvToSqlEngine;
+import it.albertus.routerlogger.csv2sql.engine.JdbcSink;
+import it.albertus.routerlogger.csv2sql.engine.LoadMarker;
+import it.albertus.routerlogger.csv2sql.engine.OutputFormat;
+import it.albertus.routerlogger.csv2sql.resources.Messages;
+import it.albertus.util.ConfigurationException;
+import it.albertus.util.DaemonThreadFactory;
+import it.albertus.util.logging.LoggerFactory;
+
+/**
+ * Converts CSV files without the graphical interface, for scheduled batch
+ * jobs. The options that are not given on the command line are read from the
+ * configuration of the application, so the files are converted as they would
+ * be by the GUI; no SWT or JFace class is loaded. The files are converted by
+ * all the available processors, and a summary of the throughput is printed at
+ * the end.
+ * <p>
+ * The exit code is {@value #EXIT_SUCCESS} if all the files have been
+ * converted, {@value #EXIT_FAILURE} if some of them could not be converted,
+ * {@value #EXIT_USAGE} if the arguments are not valid,
+ * {@value #EXIT_CONFIGURATION} if the configuration cannot be read and
+ * {@value #EXIT_INTERRUPTED} if the conversion has been interrupted.
+ */
+public class CsvToSqlCli {
+
+	public static final int EXIT_SUCCESS = 0;
+	public static final int EXIT_FAILURE = 1;
+	public static final int EXIT_USAGE = 2;
+	public static final int EXIT_CONFIGURATION = 3;
+	public static final int EXIT_INTERRUPTED = 130;
+
+	/** Environment variable that can hold the JDBC password, to keep it off the command line. */
+	public static final String JDBC_PASSWORD_VARIABLE = "CSV2SQL_JDBC_PASSWORD";
+
+	private static final Collection<String> VALUE_OPTIONS = new HashSet<>(Arrays.asList("destination", "threads", "separator", "date-pattern", "table", "prefix", "max-column-length", "format", "rows-per-statement", "max-statement-size", "commit-rows", "commit-size", "type-inference-rows", "column-types", "columns", "charset", "output-charset", "buffer-size", "compression-threads", "chunk-size", "resume", "jdbc-url", "jdbc-user", "jdbc-password", "jdbc-batch-size", "jdbc-commit-interval", "jdbc-connections", "watch", "watch-pattern", "watch-quiet-period", "journal", "tail-interval", "checkpoints"));
+	private static final Collection<String> FLAG_OPTIONS = new HashSet<>(Arrays.asList("help", "response-time", "positional", "create-table", "memory-mapped", "compress", "compression-index", "jdbc", "jdbc-ordered-commit", "tail"));
+
+	private static final String GLOB_CHARACTERS = "*?[{";
+
+	private static final String DEFAULT_WATCH_PATTERN = "*.csv";
+	private static final int DEFAULT_WATCH_QUIET_PERIOD = 300; // seconds
+	private static final String DEFAULT_JOURNAL_FILE_NAME = ".csv2sql.journal";
+	private static final String DEFAULT_CHECKPOINTS_FILE_NAME = ".csv2sql.checkpoints";
+
+	private static final Logger logger = LoggerFactory.getLogger(CsvToSqlCli.class);
+
+	private final PrintStream out;
+	private final PrintStream err;
+
+	public CsvToSqlCli(final PrintStream out, final PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * Runs the conversion.
+	 *
+	 * @param args the options and the source files, that may be glob patterns
+	 *        (e.g. <tt>logs/2017-*.csv</tt>)
+	 * @return the exit code
+	 */
+	public int run(final String... args) {
+		final Map<String, String> options = new HashMap<>();
+		final List<String> sources = new ArrayList<>();
+		final CsvToSqlEngine engine;
+		final JdbcSink sink;
+		final String destination;
+		final LoadMarker from;
+		final List<File> files;
+		final int threads;
+		final DirectoryWatcher watcher;
+		final int tailInterval; // negative if not tailing
+		try {
+			parse(args, options, sources);
+			if (getFlag(options, "help", false)) {
+				out.println(Messages.get("msg.csv2sql.cli.usage"));
+				return EXIT_SUCCESS;
+			}
+			final CsvToSqlConfig configuration = CsvToSqlConfig.getInstance();
+			engine = newEngine(configuration, options);
+			if (options.containsKey("jdbc-url") || getFlag(options, "jdbc", !options.containsKey("destination") && configuration.getBoolean("database.jdbc", Defaults.DATABASE_JDBC))) {
+				sink = newSink(configuration, options);
+				destination = null;
+			}
+			else {
+				sink = null;
+				destination = options.containsKey("destination") ? options.get("destination") : configuration.getString("database.directory", "");
+				if (!new File(destination).isDirectory()) {
+					throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.destination", destination));
+				}
+			}
+			threads = getInt(options, "threads", Runtime.getRuntime().availableProcessors());
+			if (threads < 1) {
+				throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", "threads", threads));
+			}
+			if (options.containsKey("watch")) {
+				if (!sources.isEmpty() || options.containsKey("resume")) {
+					throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.watch"));
+				}
+				final Path directory = Paths.get(options.get("watch"));
+				if (!Files.isDirectory(directory)) {
+					throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.watch.directory", directory));
+				}
+				final Path journal = options.containsKey("journal") ? Paths.get(options.get("journal")) : directory.resolve(DEFAULT_JOURNAL_FILE_NAME);
+				final int quietPeriod = getInt(options, "watch-quiet-period", DEFAULT_WATCH_QUIET_PERIOD);
+				if (quietPeriod < 0) {
+					throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", "watch-quiet-period", quietPeriod));
+				}
+				watcher = new DirectoryWatcher(directory, getString(options, "watch-pattern", DEFAULT_WATCH_PATTERN), journal, TimeUnit.SECONDS.toMillis(quietPeriod), (file, status) -> {
+					if (sink != null) {
+						engine.convert(file, sink, status);
+					}
+					else {
+						engine.convert(file, destination, status, threads);
+					}
+				}, (file, failure) -> {
+					if (failure != null) {
+						err.println(Messages.get("err.csv2sql.cli.file", file, describe(failure)));
+					}
+					else {
+						out.println(Messages.get(sink != null ? "msg.csv2sql.load.success" : "msg.csv2sql.conversion.success", file));
+					}
+				});
+				files = null;
+				from = null;
+				tailInterval = -1;
+			}
+			else {
+				watcher = null;
+				files = expand(sources);
+				if (files.isEmpty()) {
+					throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.no.files"));
+				}
+				if (getFlag(options, "tail", false)) {
+					if (options.containsKey("resume")) {
+						throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.tail"));
+					}
+					tailInterval = getInt(options, "tail-interval", 0);
+					if (tailInterval < 0) {
+						throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", "tail-interval", tailInterval));
+					}
+				}
+				else {
+					tailInterval = -1;
+				}
+				if (options.containsKey("resume")) {
+					if (files.size() != 1 || sink != null) {
+						throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.resume"));
+					}
+					from = LoadMarker.parse(options.get("resume"));
+				}
+				else {
+					from = null;
+				}
+			}
+		}
+		catch (final ConfigurationException e) {
+			err.println(describe(e));
+			return EXIT_CONFIGURATION;
+		}
+		catch (final IllegalArgumentException | IOException e) {
+			err.println(e.getMessage());
+			err.println(Messages.get("err.csv2sql.cli.help"));
+			return EXIT_USAGE;
+		}
+		catch (final RuntimeException e) { // the configuration cannot be read
+			err.println(describe(e));
+			return EXIT_CONFIGURATION;
+		}
+		engine.registerMBean();
+		try {
+			if (watcher != null) {
+				return watch(watcher);
+			}
+			else if (tailInterval >= 0) {
+				return tail(engine, files, destination, sink, options.containsKey("checkpoints") ? Paths.get(options.get("checkpoints")) : null, tailInterval);
+			}
+			else {
+				return convert(engine, files, destination, sink, from, threads);
+			}
+		}
+		finally {
+			engine.unregisterMBean();
+		}
+	}
+
+	private int watch(final DirectoryWatcher watcher) {
+		return runCancellable(status -> {
+			watcher.run(status);
+			return EXIT_INTERRUPTED; // only cancellation stops the watcher
+		});
+	}
+
+	/**
+	 * Converts the rows appended to the files since their checkpoints, once or
+	 * periodically until the process is stopped. The checkpoints are saved in
+	 * the directory of each file, unless a checkpoint file is specified.
+	 */
+	private int tail(final CsvToSqlEngine engine, final List<File> files, final String destination, final JdbcSink sink, final Path checkpointsFile, final int intervalSeconds) {
+		return runCancellable(status -> {
+			final Map<Path, CheckpointStore> stores = new HashMap<>();
+			final long startTime = System.nanoTime();
+			int failures;
+			long bytes = 0;
+			while (true) {
+				failures = 0;
+				for (final File file : files) {
+					final Path storeFile = checkpointsFile != null ? checkpointsFile : file.getAbsoluteFile().toPath().resolveSibling(DEFAULT_CHECKPOINTS_FILE_NAME);
+					try {
+						CheckpointStore store = stores.get(storeFile);
+						if (store == null) {
+							store = new CheckpointStore(storeFile);
+							stores.put(storeFile, store);
+						}
+						final LoadMarker from = store.get(file.getName());
+						final LoadMarker next = sink != null ? engine.tail(file, sink, status, from) : engine.tail(file, destination, status, from);
+						if (next != null && (from == null || next.getOffset() != from.getOffset())) {
+							store.put(next);
+							bytes += next.getOffset() - (from != null ? from.getOffset() : 0);
+						}
+					}
+					catch (final IOException | RuntimeException e) {
+						failures++;
+						err.println(Messages.get("err.csv2sql.cli.file", file, describe(e)));
+					}
+				}
+				if (intervalSeconds == 0 || status.isCanceled()) {
+					break;
+				}
+				TimeUnit.SECONDS.sleep(intervalSeconds);
+			}
+			final double seconds = Math.max(1, System.nanoTime() - startTime) / 1e9;
+			final long rows = engine.getRowCount();
+			out.println(Messages.get("msg.csv2sql.cli.summary", files.size() - failures, files.size(), rows, String.format("%.1f", seconds), String.format("%.0f", rows / seconds), String.format("%.1f", bytes / 1e6 / seconds)));
+			if (status.isCanceled()) {
+				return EXIT_INTERRUPTED;
+			}
+			return failures == 0 ? EXIT_SUCCESS : EXIT_FAILURE;
+		});
+	}
+
+	/**
+	 * Runs a task on a worker thread. If the process is stopped, the task is
+	 * canceled and awaited, so that it can delete its incomplete files.
+	 */
+	private int runCancellable(final CancellableTask task) {
+		final AtomicBoolean canceled = new AtomicBoolean();
+		final ExecutorService executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+		final Thread shutdownHook = new Thread(() -> {
+			canceled.set(true);
+			executor.shutdown();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+		try {
+			return executor.submit(() -> task.run(canceled::get)).get();
+		}
+		catch (final ExecutionException e) {
+			if (e.getCause() instanceof InterruptedException) {
+				return EXIT_INTERRUPTED;
+			}
+			err.println(describe(e.getCause()));
+			return EXIT_FAILURE;
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			canceled.set(true);
+			return EXIT_INTERRUPTED;
+		}
+		finally {
+			executor.shutdown();
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			}
+			catch (final IllegalStateException e) { // already shutting down
+				logger.log(Level.FINE, e.toString(), e);
+			}
+		}
+	}
+
+	private int convert(final CsvToSqlEngine engine, final List<File> files, final String destination, final JdbcSink sink, final LoadMarker from, final int threads) {
+		final AtomicBoolean canceled = new AtomicBoolean();
+		final CancellationStatus status = canceled::get;
+		final int threadsPerFile = Math.max(1, threads / files.size()); // split big files when there are spare cores
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()), new DaemonThreadFactory());
+		final Thread shutdownHook = new Thread(() -> { // let the workers delete their incomplete files on Ctrl+C
+			canceled.set(true);
+			executor.shutdown();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+		final long startTime = System.nanoTime();
+		int converted = 0;
+		long bytes = 0;
+		boolean interrupted = false;
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (final File file : files) {
+				futures.add(executor.submit(() -> {
+					if (sink != null) {
+						engine.convert(file, sink, status);
+					}
+					else if (from != null) {
+						engine.convert(file, destination, status, from);
+					}
+					else {
+						engine.convert(file, destination, status, threadsPerFile);
+					}
+					return null;
+				}));
+			}
+			for (int i = 0; i < files.size(); i++) {
+				try {
+					futures.get(i).get();
+					converted++;
+					bytes += files.get(i).length();
+				}
+				catch (final ExecutionException e) {
+					if (e.getCause() instanceof InterruptedException) {
+						interrupted = true;
+					}
+					else {
+						err.println(Messages.get("err.csv2sql.cli.file", files.get(i), describe(e.getCause())));
+					}
+				}
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			canceled.set(true);
+			interrupted = true;
+		}
+		finally {
+			executor.shutdown();
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			}
+			catch (final IllegalStateException e) { // already shutting down
+				interrupted = true;
+			}
+		}
+
+		final double seconds = Math.max(1, System.nanoTime() - startTime) / 1e9;
+		final long rows = engine.getRowCount();
+		out.println(Messages.get("msg.csv2sql.cli.summary", converted, files.size(), rows, String.format("%.1f", seconds), String.format("%.0f", rows / seconds), String.format("%.1f", bytes / 1e6 / seconds)));
+		if (interrupted) {
+			return EXIT_INTERRUPTED;
+		}
+		else {
+			return converted == files.size() ? EXIT_SUCCESS : EXIT_FAILURE;
+		}
+	}
+
+	private static CsvToSqlEngine newEngine(final CsvToSqlConfig configuration, final Map<String, String> options) {
+		final String csvSeparator = getString(options, "separator", configuration.getString("csv.field.separator", Defaults.CSV_FIELD_SEPARATOR));
+		final String csvTimestampPattern = getString(options, "date-pattern", configuration.getString("csv.date.pattern", Defaults.CSV_DATE_PATTERN));
+		final boolean responseTime = getFlag(options, "response-time", configuration.getBoolean("csv.response.time", Defaults.CSV_RESPONSE_TIME));
+		final String sqlTableName = getString(options, "table", configuration.getString("database.table.name", Defaults.DATABASE_TABLE_NAME));
+		final String sqlColumnNamesPrefix = getString(options, "prefix", configuration.getString("database.column.name.prefix", Defaults.DATABASE_COLUMN_NAME_PREFIX));
+		final int sqlMaxLengthColumnNames = getInt(options, "max-column-length", configuration.getInt("database.column.name.max.length", Defaults.DATABASE_COLUMN_NAME_MAX_LENGTH));
+		if (sqlMaxLengthColumnNames < CsvToSqlConfig.DATABASE_COLUMN_NAME_MIN_LENGTH || sqlMaxLengthColumnNames > Byte.MAX_VALUE) {
+			throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", "max-column-length", sqlMaxLengthColumnNames));
+		}
+
+		final CsvToSqlEngine engine = new CsvToSqlEngine(csvSeparator, csvTimestampPattern, sqlTableName, sqlColumnNamesPrefix, CsvToSqlConfig.TIMESTAMP_BASE_COLUMN_NAME, responseTime ? CsvToSqlConfig.RESPONSE_TIME_BASE_COLUMN_NAME : null, sqlMaxLengthColumnNames);
+		try {
+			configuration.configure(engine);
+		}
+		catch (final IllegalArgumentException e) { // not a usage error
+			throw new ConfigurationException(Messages.get("err.csv2sql.cli.configuration"), e, null);
+		}
+
+		if (options.containsKey("format")) {
+			engine.setOutputFormat(OutputFormat.valueOf(options.get("format").toUpperCase().replace('-', '_')));
+		}
+		engine.setPositionalValues(getFlag(options, "positional", engine.isPositionalValues()));
+		engine.setRowsPerStatement(getInt(options, "rows-per-statement", engine.getRowsPerStatement()));
+		engine.setMaxStatementSize(getInt(options, "max-statement-size", engine.getMaxStatementSize() / 1024) * 1024);
+		engine.setCommitRows(getInt(options, "commit-rows", engine.getCommitRows()));
+		engine.setCommitBytes(getInt(options, "commit-size", (int) (engine.getCommitBytes() / 1024)) * 1024L);
+		engine.setTypeInferenceRows(getInt(options, "type-inference-rows", engine.getTypeInferenceRows()));
+		engine.setCreateTable(getFlag(options, "create-table", engine.isCreateTable()));
+		if (options.containsKey("column-types")) {
+			try {
+				engine.setColumnTypes(CsvToSqlConfig.parseColumnTypes(options.get("column-types")));
+			}
+			catch (final IllegalArgumentException e) {
+				throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", "column-types", options.get("column-types")), e);
+			}
+		}
+		if (options.containsKey("columns")) {
+			engine.setSelectedColumns(CsvToSqlConfig.parseSelectedColumns(options.get("columns")));
+		}
+		if (options.containsKey("charset")) {
+			engine.setCharset(Charset.forName(options.get("charset")));
+		}
+		if (options.containsKey("output-charset")) {
+			engine.setOutputCharset(Charset.forName(options.get("output-charset")));
+		}
+		engine.setMemoryMapped(getFlag(options, "memory-mapped", engine.isMemoryMapped()));
+		engine.setOutputBufferSize(getInt(options, "buffer-size", engine.getOutputBufferSize() / 1024) * 1024);
+		engine.setCompressed(getFlag(options, "compress", engine.isCompressed()));
+		engine.setCompressionIndex(getFlag(options, "compression-index", engine.isCompressionIndex()));
+		engine.setCompressionThreads(getInt(options, "compression-threads", engine.getCompressionThreads()));
+		engine.setChunkSize(getInt(options, "chunk-size", engine.getChunkSize() / 1024) * 1024);
+		return engine;
+	}
+
+	private static JdbcSink newSink(final CsvToSqlConfig configuration, final Map<String, String> options) {
+		final String url = getString(options, "jdbc-url", configuration.getString("database.jdbc.url", ""));
+		if (url.trim().isEmpty()) {
+			throw new IllegalArgumentException(Messages.get("err.csv2sql.destination.jdbc.url"));
+		}
+		final String user = getString(options, "jdbc-user", configuration.getString("database.jdbc.user", ""));
+		final String password = getString(options, "jdbc-password", System.getenv(JDBC_PASSWORD_VARIABLE) != null ? System.getenv(JDBC_PASSWORD_VARIABLE) : "");
+		final JdbcSink sink = new JdbcSink(url.trim(), user.trim(), password);
+		try {
+			configuration.configure(sink);
+		}
+		catch (final IllegalArgumentException e) {
+			throw new ConfigurationException(Messages.get("err.csv2sql.cli.configuration"), e, null);
+		}
+		sink.setBatchSize(getInt(options, "jdbc-batch-size", sink.getBatchSize()));
+		sink.setCommitInterval(getInt(options, "jdbc-commit-interval", sink.getCommitInterval()));
+		sink.setConnections(getInt(options, "jdbc-connections", sink.getConnections()));
+		sink.setOrderedCommit(getFlag(options, "jdbc-ordered-commit", sink.isOrderedCommit()));
+		return sink;
+	}
+
+	static void parse(final String[] args, final Map<String, String> options, final List<String> sources) {
+		boolean endOfOptions = false;
+		for (int i = 0; i < args.length; i++) {
+			final String arg = args[i];
+			if (endOfOptions || !arg.startsWith("-") || arg.length() == 1) {
+				sources.add(arg);
+			}
+			else if ("--".equals(arg)) {
+				endOfOptions = true;
+			}
+			else {
+				final int separatorIndex = arg.indexOf('=');
+				String name = separatorIndex > 0 ? arg.substring(0, separatorIndex) : arg;
+				String value = separatorIndex > 0 ? arg.substring(separatorIndex + 1) : null;
+				switch (name) {
+				case "-d":
+					name = "destination";
+					break;
+				case "-t":
+					name = "threads";
+					break;
+				case "-h":
+					name = "help";
+					break;
+				default:
+					name = name.startsWith("--") ? name.substring(2) : name;
+				}
+				if (VALUE_OPTIONS.contains(name)) {
+					if (value == null) {
+						if (i + 1 == args.length) {
+							throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", name, ""));
+						}
+						value = args[++i];
+					}
+				}
+				else if (FLAG_OPTIONS.contains(name)) {
+					if (value == null) {
+						value = Boolean.TRUE.toString();
+					}
+					else if (!Boolean.TRUE.toString().equalsIgnoreCase(value) && !Boolean.FALSE.toString().equalsIgnoreCase(value)) {
+						throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", name, value));
+					}
+				}
+				else {
+					throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.option", arg));
+				}
+				options.put(name, value);
+			}
+		}
+	}
+
+	/**
+	 * Expands the glob patterns of the sources; a pattern is matched against
+	 * the paths relative to its leading directory, that cannot contain glob
+	 * characters. The other sources are returned as they are.
+	 */
+	static List<File> expand(final List<String> sources) throws IOException {
+		final Set<File> files = new LinkedHashSet<>();
+		for (final String source : sources) {
+			int globIndex = -1;
+			for (int i = 0; i < source.length() && globIndex < 0; i++) {
+				if (GLOB_CHARACTERS.indexOf(source.charAt(i)) >= 0) {
+					globIndex = i;
+				}
+			}
+			if (globIndex < 0) {
+				files.add(new File(source));
+			}
+			else {
+				final int baseEnd = Math.max(source.lastIndexOf('/', globIndex), source.lastIndexOf(File.separatorChar, globIndex));
+				final Path base = Paths.get(baseEnd < 0 ? "" : source.substring(0, baseEnd + 1));
+				final String pattern = source.substring(baseEnd + 1);
+				final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+				final int depth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("[/\\\\]").length;
+				try (final Stream<Path> paths = Files.walk(base.toAbsolutePath(), depth)) {
+					files.addAll(paths.filter(path -> Files.isRegularFile(path) && matcher.matches(base.toAbsolutePath().relativize(path))).sorted().map(path -> baseEnd < 0 ? base.toAbsolutePath().relativize(path).toFile() : path.toFile()).collect(Collectors.toList()));
+				}
+			}
+		}
+		return new ArrayList<>(files);
+	}
+
+	private static String getString(final Map<String, String> options, final String name, final String defaultValue) {
+		return options.containsKey(name) ? options.get(name) : defaultValue;
+	}
+
+	private static int getInt(final Map<String, String> options, final String name, final int defaultValue) {
+		if (!options.containsKey(name)) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(options.get(name).trim());
+		}
+		catch (final NumberFormatException e) {
+			throw new IllegalArgumentException(Messages.get("err.csv2sql.cli.value", name, options.get(name)), e);
+		}
+	}
+
+	private static boolean getFlag(final Map<String, String> options, final String name, final boolean defaultValue) {
+		return options.containsKey(name) ? Boolean.parseBoolean(options.get(name)) : defaultValue;
+	}
+
+	@FunctionalInterface
+	private interface CancellableTask {
+		int run(CancellationStatus status) throws Exception;
+	}
+
+	private static String describe(final Throwable throwable) {
+		final String message = throwable.getMessage() != null ? throwable.getMessage() : throwable.toString();
+		return throwable.getCause() != null ? message + " (" + throwable.getCause() + ')' : message;
+	}
+
+}
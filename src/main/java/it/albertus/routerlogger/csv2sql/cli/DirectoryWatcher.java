@@ -0,0 +1,206 @@
+package it.albertus.routerlogger.csv2sql.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import it.albertus.routerlogger.csv2sql.engine.CancellationStatus;
+import it.albertus.util.logging.LoggerFactory;
+
+/**
+ * Watches a directory and converts the CSV files written into it, as soon as
+ * they are complete. RouterLogger appends to a file until the day ends and then
+ * starts a new one, so a file is considered complete when a file with a later
+ * name appears (the names contain the date), or when it has not changed for a
+ * quiet period. The names of the converted files are appended to a journal, so
+ * that they are not converted again when the watcher is restarted; the files
+ * that cannot be converted are retried only if they change.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class DirectoryWatcher {
+
+	@FunctionalInterface
+	interface FileConverter {
+		void convert(File file, CancellationStatus status) throws IOException, InterruptedException;
+	}
+
+	@FunctionalInterface
+	interface ConversionListener {
+		void converted(File file, Exception failure);
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+	private static final String JOURNAL_SEPARATOR = "\t";
+	private static final long MIN_POLL_INTERVAL_MILLIS = 100;
+	private static final long MAX_POLL_INTERVAL_MILLIS = 5000;
+
+	private final Path directory;
+	private final PathMatcher matcher;
+	private final Path journal;
+	private final long quietPeriodNanos;
+	private final FileConverter converter;
+	private final ConversionListener listener;
+
+	private final Set<String> processed = new HashSet<>();
+	private final Map<String, FileState> failed = new HashMap<>();
+	private final NavigableMap<String, FileState> candidates = new TreeMap<>();
+
+	/**
+	 * Creates a new watcher.
+	 *
+	 * @param directory the directory to watch
+	 * @param pattern the glob pattern of the names of the files to convert
+	 * @param journal the file that records the names of the converted files
+	 * @param quietPeriodMillis the time after which a file that does not change
+	 *        is considered complete
+	 * @param converter converts a complete file
+	 * @param listener notified after every conversion
+	 * @throws IOException if the journal cannot be read
+	 */
+	DirectoryWatcher(final Path directory, final String pattern, final Path journal, final long quietPeriodMillis, final FileConverter converter, final ConversionListener listener) throws IOException {
+		if (quietPeriodMillis < 0) {
+			throw new IllegalArgumentException("quietPeriodMillis must not be negative");
+		}
+		this.directory = directory;
+		this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		this.journal = journal;
+		this.quietPeriodNanos = TimeUnit.MILLISECONDS.toNanos(quietPeriodMillis);
+		this.converter = converter;
+		this.listener = listener;
+		if (Files.exists(journal)) {
+			for (final String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+				if (!line.isEmpty()) {
+					processed.add(line.split(JOURNAL_SEPARATOR, 2)[0]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts the complete files that are already in the directory, then waits
+	 * for new files until cancellation is requested.
+	 *
+	 * @param status the cancellation status, polled between the conversions and
+	 *        during them
+	 * @throws IOException if the directory cannot be watched
+	 * @throws InterruptedException if the thread has been interrupted, or a
+	 *         conversion has been canceled
+	 */
+	void run(final CancellationStatus status) throws IOException, InterruptedException {
+		final long pollIntervalMillis = Math.max(MIN_POLL_INTERVAL_MILLIS, Math.min(MAX_POLL_INTERVAL_MILLIS, TimeUnit.NANOSECONDS.toMillis(quietPeriodNanos) / 4));
+		try (final WatchService watchService = directory.getFileSystem().newWatchService()) {
+			directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			while (!status.isCanceled()) {
+				scan();
+				convertCompleteFiles(status);
+				final WatchKey key = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+				if (key != null) { // the events only wake the watcher up, the directory is scanned anyway
+					key.pollEvents();
+					if (!key.reset()) {
+						throw new NoSuchFileException(directory.toString());
+					}
+				}
+			}
+		}
+	}
+
+	/** Updates the state of the files that have not been converted yet. */
+	void scan() throws IOException {
+		final long now = System.nanoTime();
+		final Set<String> names = new HashSet<>();
+		try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (final Path path : stream) {
+				final String name = path.getFileName().toString();
+				if (matcher.matches(path.getFileName()) && !processed.contains(name) && Files.isRegularFile(path)) {
+					final FileState state;
+					try {
+						state = new FileState(path, now);
+					}
+					catch (final NoSuchFileException e) { // deleted in the meantime
+						continue;
+					}
+					names.add(name);
+					final FileState previous = candidates.get(name);
+					if (previous == null || !previous.sameAs(state)) {
+						candidates.put(name, state);
+					}
+				}
+			}
+		}
+		candidates.keySet().retainAll(names);
+	}
+
+	/** Converts, in name order, the files that are complete. */
+	void convertCompleteFiles(final CancellationStatus status) throws InterruptedException {
+		if (candidates.isEmpty()) {
+			return;
+		}
+		final long now = System.nanoTime();
+		final String latest = candidates.lastKey();
+		for (final String name : new ArrayList<>(candidates.keySet())) {
+			final FileState state = candidates.get(name);
+			final boolean complete = !name.equals(latest) || now - state.since >= quietPeriodNanos;
+			if (!complete || state.sameAs(failed.get(name))) {
+				continue;
+			}
+			final File file = directory.resolve(name).toFile();
+			try {
+				converter.convert(file, status);
+				Files.write(journal, (name + JOURNAL_SEPARATOR + state.size + JOURNAL_SEPARATOR + state.lastModified + System.lineSeparator()).getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+				processed.add(name);
+				candidates.remove(name);
+				failed.remove(name);
+				listener.converted(file, null);
+			}
+			catch (final IOException | RuntimeException e) {
+				logger.log(Level.FINE, e.toString(), e);
+				failed.put(name, state);
+				listener.converted(file, e);
+			}
+		}
+	}
+
+	/** Returns whether a file has been converted by this or a previous watcher. */
+	boolean isProcessed(final String fileName) {
+		return processed.contains(fileName);
+	}
+
+	private static class FileState {
+		private final long size;
+		private final long lastModified;
+		private final long since;
+
+		private FileState(final Path path, final long since) throws IOException {
+			this.size = Files.size(path);
+			this.lastModified = Files.getLastModifiedTime(path).toMillis();
+			this.since = since;
+		}
+
+		private boolean sameAs(final FileState other) {
+			return other != null && size == other.size && lastModified == other.lastModified;
+		}
+	}
+
+}
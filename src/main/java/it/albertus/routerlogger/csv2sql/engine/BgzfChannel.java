@@ -0,0 +1,271 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import it.albertus.util.DaemonThreadFactory;
+
+/**
+ * Compresses the bytes written to it in the BGZF format (the blocked gzip used
+ * by <tt>bgzip</tt>): the data is split into blocks of up to
+ * {@value #BLOCK_INPUT_SIZE} bytes that are compressed independently as gzip
+ * members, so they can be compressed in parallel and the file can be read by
+ * any gzip decompressor. The size of every block is stored in its header, and
+ * an optional index of the blocks, in the <tt>.gzi</tt> format of
+ * <tt>bgzip</tt>, allows to read or split the file from any block. Blocks are
+ * compressed by a private thread pool and written in order; the file ends with
+ * the standard empty block. The target channel is closed along with this one.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class BgzfChannel implements GatheringByteChannel {
+
+	static final int BLOCK_INPUT_SIZE = 0xFF00;
+
+	private static final int MAX_BLOCK_SIZE = 0x10000;
+	private static final int HEADER_SIZE = 18;
+	private static final int TRAILER_SIZE = 8;
+
+	private static final byte[] EOF_BLOCK = { 31, (byte) 139, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 6, 0, 'B', 'C', 2, 0, 27, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
+
+	private final FileChannel out;
+	private final FileChannel index;
+	private final ExecutorService executor;
+	private final int maxPending;
+	private final Deque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+	private final Deque<Deflater> deflaters = new ArrayDeque<>();
+
+	private byte[] block = new byte[BLOCK_INPUT_SIZE];
+	private int blockLength;
+	private long[] offsets = new long[64]; // compressed and uncompressed offset of each block
+	private int blockCount;
+	private long compressedOffset;
+	private long uncompressedOffset;
+	private boolean closed;
+
+	/**
+	 * Creates a new channel.
+	 *
+	 * @param out the channel of the compressed file
+	 * @param index the channel of the index file, or <code>null</code> if the
+	 *        index is not needed
+	 * @param threads the number of threads that compress the blocks
+	 */
+	BgzfChannel(final FileChannel out, final FileChannel index, final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be greater than zero");
+		}
+		this.out = out;
+		this.index = index;
+		this.executor = threads > 1 ? Executors.newFixedThreadPool(threads, new DaemonThreadFactory()) : null;
+		this.maxPending = threads * 2;
+	}
+
+	@Override
+	public int write(final ByteBuffer src) throws IOException {
+		ensureOpen();
+		final int length = src.remaining();
+		while (src.hasRemaining()) {
+			final int count = Math.min(src.remaining(), BLOCK_INPUT_SIZE - blockLength);
+			src.get(block, blockLength, count);
+			blockLength += count;
+			if (blockLength == BLOCK_INPUT_SIZE) {
+				submitBlock();
+			}
+		}
+		return length;
+	}
+
+	@Override
+	public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+		long count = 0;
+		for (int i = offset; i < offset + length; i++) {
+			count += write(srcs[i]);
+		}
+		return count;
+	}
+
+	@Override
+	public long write(final ByteBuffer[] srcs) throws IOException {
+		return write(srcs, 0, srcs.length);
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !closed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (blockLength > 0) {
+				submitBlock();
+			}
+			while (!pending.isEmpty()) {
+				writeBlock(pending.remove());
+			}
+			writeFully(out, ByteBuffer.wrap(EOF_BLOCK));
+			if (index != null) {
+				writeIndex();
+			}
+		}
+		finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+			synchronized (deflaters) {
+				for (final Deflater deflater : deflaters) {
+					deflater.end();
+				}
+			}
+			try {
+				out.close();
+			}
+			finally {
+				if (index != null) {
+					index.close();
+				}
+			}
+		}
+	}
+
+	/** Returns the number of compressed blocks written so far, excluding the final empty block. */
+	int getBlockCount() {
+		return blockCount;
+	}
+
+	private void submitBlock() throws IOException {
+		final byte[] input = block;
+		final int inputLength = blockLength;
+		if (executor == null) {
+			writeBlock(compress(input, inputLength));
+		}
+		else {
+			if (pending.size() >= maxPending) {
+				writeBlock(pending.remove());
+			}
+			pending.add(executor.submit(() -> compress(input, inputLength)));
+			block = new byte[BLOCK_INPUT_SIZE]; // the previous one is being compressed
+		}
+		blockLength = 0;
+	}
+
+	private void writeBlock(final Future<ByteBuffer> future) throws IOException {
+		try {
+			writeBlock(future.get());
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (final ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private void writeBlock(final ByteBuffer compressed) throws IOException {
+		if (blockCount * 2 == offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		offsets[blockCount * 2] = compressedOffset;
+		offsets[blockCount * 2 + 1] = uncompressedOffset;
+		blockCount++;
+		compressedOffset += compressed.remaining();
+		uncompressedOffset += compressed.getInt(compressed.limit() - 4) & 0xFFFFFFFFL;
+		writeFully(out, compressed);
+	}
+
+	private ByteBuffer compress(final byte[] input, final int inputLength) {
+		final Deflater deflater = takeDeflater();
+		try {
+			final ByteBuffer compressed = ByteBuffer.allocate(MAX_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			final byte[] array = compressed.array();
+			int deflatedLength = deflate(deflater, input, inputLength, array);
+			if (deflatedLength < 0) { // incompressible data, stored blocks always fit
+				final Deflater storer = new Deflater(Deflater.NO_COMPRESSION, true);
+				try {
+					deflatedLength = deflate(storer, input, inputLength, array);
+				}
+				finally {
+					storer.end();
+				}
+			}
+			final int blockSize = HEADER_SIZE + deflatedLength + TRAILER_SIZE;
+			compressed.put(new byte[] { 31, (byte) 139, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 6, 0, 'B', 'C', 2, 0 });
+			compressed.putShort((short) (blockSize - 1));
+			final CRC32 crc = new CRC32();
+			crc.update(input, 0, inputLength);
+			compressed.position(HEADER_SIZE + deflatedLength);
+			compressed.putInt((int) crc.getValue());
+			compressed.putInt(inputLength);
+			compressed.flip();
+			return compressed;
+		}
+		finally {
+			synchronized (deflaters) {
+				deflaters.add(deflater);
+			}
+		}
+	}
+
+	/** Returns the length of the raw deflated data, or <tt>-1</tt> if it does not fit into a block. */
+	private static int deflate(final Deflater deflater, final byte[] input, final int inputLength, final byte[] output) {
+		deflater.reset();
+		deflater.setInput(input, 0, inputLength);
+		deflater.finish();
+		final int capacity = MAX_BLOCK_SIZE - HEADER_SIZE - TRAILER_SIZE;
+		final int length = deflater.deflate(output, HEADER_SIZE, capacity);
+		return deflater.finished() ? length : -1;
+	}
+
+	private Deflater takeDeflater() {
+		synchronized (deflaters) {
+			final Deflater deflater = deflaters.poll();
+			return deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		}
+	}
+
+	/** Writes the block offsets, except the ones of the first block, as the <tt>.gzi</tt> files of <tt>bgzip</tt>. */
+	private void writeIndex() throws IOException {
+		final int entries = Math.max(0, blockCount - 1);
+		final ByteBuffer buffer = ByteBuffer.allocate(8 + entries * 16).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putLong(entries);
+		for (int i = 1; i < blockCount; i++) {
+			buffer.putLong(offsets[i * 2]);
+			buffer.putLong(offsets[i * 2 + 1]);
+		}
+		buffer.flip();
+		writeFully(index, buffer);
+	}
+
+	private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private void ensureOpen() throws ClosedChannelException {
+		if (closed) {
+			throw new ClosedChannelException();
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import it.albertus.routerlogger.csv2sql.engine.ProgressTracker.Stage;
+import it.albertus.routerlogger.csv2sql.resources.Messages;
+
+/**
+ * Writes the rows of a CSV file into a PostgreSQL binary <tt>COPY</tt> file,
+ * named after the script, and a <tt>psql</tt> script that loads it. The
+ * script refers to the data file by name, so it must be run from the
+ * directory that contains both.
+ */
+class BinaryCopyConversion {
+
+	private final CsvToSqlEngine engine;
+	private final String sourceFileName;
+	private final File scriptFile;
+	private final File dataFile;
+
+	BinaryCopyConversion(final CsvToSqlEngine engine, final String sourceFileName, final File scriptFile) {
+		this.engine = engine;
+		this.sourceFileName = sourceFileName;
+		this.scriptFile = scriptFile;
+		final String scriptFileName = scriptFile.getName();
+		this.dataFile = new File(scriptFile.getParentFile(), scriptFileName.substring(0, scriptFileName.length() - CsvToSqlEngine.SQL_FILE_EXTENSION.length()) + CsvToSqlEngine.BIN_FILE_EXTENSION);
+	}
+
+	/**
+	 * @param reader the reader of the file, from the header
+	 * @param tableWriter the writer of the <tt>CREATE TABLE</tt> statement,
+	 *        that also infers the types of the columns, invoked before the
+	 *        reader is read
+	 */
+	void convert(final LineReader reader, final TableWriter tableWriter, final CancellationStatus status) throws IOException, InterruptedException {
+		if (dataFile.exists()) {
+			throw new IOException(Messages.get("err.csv2sql.destination.exists", dataFile));
+		}
+		try (final BufferedWriter bw = engine.newWriter(scriptFile, engine.getOutputCharset())) {
+			final ColumnType[] columnTypes = tableWriter.write(bw);
+			final CharSequence firstLine = reader.readLine();
+			if (firstLine == null) {
+				return;
+			}
+			final String headerLine = firstLine.toString();
+			final List<String> sqlColumnNames = engine.getSqlColumnNames(headerLine);
+			final InsertStatementTemplate template = engine.newInsertStatementTemplate(sqlColumnNames);
+			try (final FileOutputStream fos = new FileOutputStream(dataFile); final BufferedOutputStream bos = new BufferedOutputStream(fos, engine.getOutputBufferSize())) {
+				final CopyBinaryWriter binaryWriter = new CopyBinaryWriter(bos, sqlColumnNames.size());
+				final CsvTokenizer tokenizer = engine.newTokenizer(engine.getSelectedFields(headerLine));
+				final RowFormatter formatter = new RowFormatter(engine, columnTypes);
+				final ProgressTracker progress = new ProgressTracker(engine, sourceFileName, reader, status);
+				CharSequence line;
+				while ((line = reader.readLine()) != null) {
+					progress.stage(Stage.READ);
+					try {
+						if (tokenizer.tokenize(line)) { // skip empty lines
+							progress.stage(Stage.TOKENIZE);
+							template.getPrefix(tokenizer.getFieldCount()); // validates the field count
+							binaryWriter.write(formatter.getParameters(tokenizer, false, progress)); // the text columns take the values as they are
+							progress.stage(Stage.WRITE);
+							progress.row();
+						}
+					}
+					catch (final Exception e) {
+						progress.error();
+						throw new IOException(Messages.get("err.csv2sql.runnable", sourceFileName, reader.getLineNumber()), e);
+					}
+					progress.line(line);
+				}
+				progress.flush();
+				binaryWriter.finish();
+			}
+			catch (final InterruptedException e) {
+				Files.deleteIfExists(dataFile.toPath());
+				throw e;
+			}
+			bw.write("\\copy ");
+			bw.write(engine.getSqlTableName());
+			if (!engine.isPositionalValues()) {
+				bw.write(' ');
+				bw.write(template.getColumnList(sqlColumnNames.size()));
+			}
+			bw.write(" FROM '");
+			bw.write(dataFile.getName().replace("'", "''"));
+			bw.write("' WITH (FORMAT binary)");
+			bw.newLine();
+			engine.writeCommit(bw);
+		}
+	}
+
+	/**
+	 * Writes the <tt>CREATE TABLE</tt> statement of a file, if enabled, and
+	 * infers the types of its columns.
+	 */
+	interface TableWriter {
+		/** @return the types of the columns, or <code>null</code> */
+		ColumnType[] write(BufferedWriter writer) throws IOException, InterruptedException;
+	}
+
+}
@@ -0,0 +1,56 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of direct byte buffers of the same size, shared by the conversions
+ * that run concurrently. Direct buffers are expensive to allocate and are
+ * written to channels without being copied, so they are reused across files;
+ * the pool never holds more buffers than the ones used at the same time.
+ * <p>
+ * This class is thread-safe.
+ */
+class ByteBufferPool {
+
+	private final int bufferSize;
+	private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+	ByteBufferPool(final int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("bufferSize must be greater than zero");
+		}
+		this.bufferSize = bufferSize;
+	}
+
+	int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Takes a buffer from the pool, allocating a new one if the pool is empty.
+	 *
+	 * @return a cleared buffer of {@link #getBufferSize()} bytes
+	 */
+	ByteBuffer acquire() {
+		final ByteBuffer buffer = buffers.poll();
+		if (buffer != null) {
+			buffer.clear();
+			return buffer;
+		}
+		else {
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+	}
+
+	/**
+	 * Returns a buffer to the pool. The buffer must not be used afterwards.
+	 *
+	 * @param buffer a buffer obtained from {@link #acquire()}
+	 */
+	void release(final ByteBuffer buffer) {
+		buffers.add(buffer);
+	}
+
+}
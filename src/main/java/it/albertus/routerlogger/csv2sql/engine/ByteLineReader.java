@@ -0,0 +1,151 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads the lines of a byte stream encoded with a charset in which line
+ * terminators are single ASCII bytes, keeping track of the byte offset of
+ * each line. Lines are split on bytes and then decoded one at a time into a
+ * reused buffer; malformed input is replaced like in
+ * {@link java.io.InputStreamReader InputStreamReader}.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @see ChunkedConversion#isSupported(Charset)
+ */
+class ByteLineReader implements LineReader, Closeable {
+
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final InputStream in;
+	private final CharsetDecoder decoder;
+
+	private byte[] buffer;
+	private ByteBuffer bytes;
+	private CharBuffer chars = CharBuffer.allocate(256);
+
+	private int position;
+	private int limit;
+	private boolean eof;
+
+	private long offset;
+	private int lineNumber;
+
+	/**
+	 * Creates a new reader.
+	 *
+	 * @param in the input stream
+	 * @param charset the charset of the stream
+	 * @param offset the byte offset of the first line of the stream
+	 * @param lineNumber the number of the line that precedes the first line
+	 *        of the stream
+	 */
+	ByteLineReader(final InputStream in, final Charset charset, final long offset, final int lineNumber) {
+		this.in = in;
+		this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+		this.bytes = ByteBuffer.wrap(buffer);
+		this.offset = offset;
+		this.lineNumber = lineNumber;
+	}
+
+	@Override
+	public CharSequence readLine() throws IOException {
+		int i = position;
+		while (true) {
+			if (i == limit) {
+				if (eof) {
+					return position < limit ? consume(limit, 0) : null;
+				}
+				i -= position;
+				fill();
+				i += position;
+			}
+			else if (buffer[i] == '\n') {
+				return consume(i, 1);
+			}
+			else if (buffer[i] == '\r') {
+				if (i + 1 == limit && !eof) { // the next byte may be a line feed
+					i -= position;
+					fill();
+					i += position;
+				}
+				else {
+					return consume(i, i + 1 < limit && buffer[i + 1] == '\n' ? 2 : 1);
+				}
+			}
+			else {
+				i++;
+			}
+		}
+	}
+
+	@Override
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public long getOffset() {
+		return offset;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private CharSequence consume(final int end, final int terminatorLength) {
+		final CharSequence line = decode(position, end);
+		offset += end + terminatorLength - position;
+		position = end + terminatorLength;
+		lineNumber++;
+		return line;
+	}
+
+	private CharSequence decode(final int start, final int end) {
+		bytes.limit(end).position(start);
+		chars.clear();
+		decoder.reset();
+		CoderResult result;
+		while ((result = decoder.decode(bytes, chars, true)).isOverflow() || (result = decoder.flush(chars)).isOverflow()) {
+			final CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+			chars.flip();
+			larger.put(chars);
+			chars = larger;
+		}
+		chars.flip();
+		return chars;
+	}
+
+	/** Reads more bytes, discarding the ones already consumed and growing the buffer if needed. */
+	private void fill() throws IOException {
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		if (limit == buffer.length) {
+			final byte[] larger = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, larger, 0, limit);
+			buffer = larger;
+			bytes = ByteBuffer.wrap(buffer);
+		}
+		final int count = in.read(buffer, limit, buffer.length - limit);
+		if (count < 0) {
+			eof = true;
+		}
+		else {
+			limit += count;
+		}
+	}
+
+}
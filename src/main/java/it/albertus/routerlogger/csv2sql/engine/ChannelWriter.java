@@ -0,0 +1,148 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writes text to a channel, encoding it directly into large pooled
+ * buffers that are written with a single gathering write when all of them are
+ * full, or when the writer is flushed. Unmappable characters and unpaired
+ * surrogates are replaced like in {@link java.io.OutputStreamWriter
+ * OutputStreamWriter}. The channel is closed along with the writer. The bytes
+ * written to the channel can be added to the statistics of a conversion.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class ChannelWriter extends Writer {
+
+	static final int GATHERED_BUFFERS = 4;
+
+	private final GatheringByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final ByteBufferPool pool;
+	private final ByteBuffer[] buffers = new ByteBuffer[GATHERED_BUFFERS];
+	private final CharBuffer carry = CharBuffer.allocate(2); // a high surrogate split between two writes
+	private final ConversionStatistics statistics;
+
+	private int current;
+	private boolean closed;
+
+	ChannelWriter(final GatheringByteChannel channel, final Charset charset, final ByteBufferPool pool) {
+		this(channel, charset, pool, null);
+	}
+
+	/**
+	 * @param statistics the statistics to which the bytes written are added,
+	 *        or <code>null</code>
+	 */
+	ChannelWriter(final GatheringByteChannel channel, final Charset charset, final ByteBufferPool pool, final ConversionStatistics statistics) {
+		this.statistics = statistics;
+		this.channel = channel;
+		this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		if (pool.getBufferSize() < 2 * Math.ceil(encoder.maxBytesPerChar())) {
+			throw new IllegalArgumentException("The buffers are too small for " + charset);
+		}
+		this.pool = pool;
+		this.buffers[0] = pool.acquire();
+	}
+
+	@Override
+	public void write(final char[] cbuf, int off, int len) throws IOException {
+		ensureOpen();
+		while (carry.position() > 0 && len > 0) {
+			carry.put(cbuf[off++]);
+			len--;
+			carry.flip();
+			encode(carry, false);
+			carry.compact();
+		}
+		if (len > 0) {
+			final CharBuffer chars = CharBuffer.wrap(cbuf, off, len);
+			encode(chars, false);
+			carry.put(chars);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		drain();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			carry.flip();
+			encode(carry, true);
+			while (encoder.flush(buffers[current]).isOverflow()) {
+				nextBuffer();
+			}
+			drain();
+		}
+		finally {
+			for (int i = 0; i < buffers.length && buffers[i] != null; i++) {
+				pool.release(buffers[i]);
+				buffers[i] = null;
+			}
+			channel.close();
+		}
+	}
+
+	private void encode(final CharBuffer chars, final boolean endOfInput) throws IOException {
+		CoderResult result;
+		while ((result = encoder.encode(chars, buffers[current], endOfInput)).isOverflow()) {
+			nextBuffer();
+		}
+		if (result.isError()) {
+			result.throwException(); // cannot happen with the replace actions
+		}
+	}
+
+	private void nextBuffer() throws IOException {
+		if (current + 1 < buffers.length) {
+			current++;
+			if (buffers[current] == null) {
+				buffers[current] = pool.acquire();
+			}
+		}
+		else {
+			drain();
+		}
+	}
+
+	/** Writes the content of the filled buffers and starts again from the first one. */
+	private void drain() throws IOException {
+		for (int i = 0; i <= current; i++) {
+			buffers[i].flip();
+		}
+		long written = 0;
+		while (buffers[current].hasRemaining()) {
+			written += channel.write(buffers, 0, current + 1);
+		}
+		if (statistics != null) {
+			statistics.addBytesWritten(written);
+		}
+		for (int i = 0; i <= current; i++) {
+			buffers[i].clear();
+		}
+		current = 0;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+}
@@ -0,0 +1,251 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import it.albertus.routerlogger.csv2sql.engine.CsvToSqlEngine.RowConversionException;
+import it.albertus.routerlogger.csv2sql.resources.Messages;
+import it.albertus.util.DaemonThreadFactory;
+
+/**
+ * Converts a single file splitting it into newline-aligned byte ranges that
+ * are converted in parallel. The results are written in the original order,
+ * and no more than two chunks per thread are kept in memory at once.
+ */
+class ChunkedConversion {
+
+	private static final int SCAN_BUFFER_SIZE = 4096;
+
+	private final CsvToSqlEngine engine;
+	private final String sourceFileName;
+	private final FileChannel channel;
+	private final Charset charset;
+	private final int chunkSize;
+	private final int threads;
+
+	private final ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+	ChunkedConversion(final CsvToSqlEngine engine, final String sourceFileName, final FileChannel channel, final Charset charset, final int chunkSize, final int threads) {
+		this.engine = engine;
+		this.sourceFileName = sourceFileName;
+		this.channel = channel;
+		this.charset = charset;
+		this.chunkSize = chunkSize;
+		this.threads = threads;
+	}
+
+	/**
+	 * Tells whether a file encoded with the provided charset can be split on
+	 * line feed bytes, i.e. whether line terminators are encoded as single
+	 * ASCII bytes.
+	 *
+	 * @param charset the charset of the file
+	 * @return <code>true</code> if the file can be split, otherwise
+	 *         <code>false</code>
+	 */
+	static boolean isSupported(final Charset charset) {
+		return Arrays.equals(new byte[] { '\n' }, "\n".getBytes(charset)) && Arrays.equals(new byte[] { '\r' }, "\r".getBytes(charset));
+	}
+
+	/**
+	 * @param knownTypes the types of the columns, if already inferred, or
+	 *        <code>null</code> to infer them from the first lines if the typed
+	 *        values are enabled
+	 */
+	void convert(final BufferedWriter writer, final ColumnType[] knownTypes, final CancellationStatus status) throws IOException, InterruptedException {
+		final long size = channel.size();
+		if (size == 0) {
+			return;
+		}
+
+		final long bodyStart = findHeaderEnd(size);
+		final String firstLine;
+		try (final LineNumberReader reader = new LineNumberReader(new StringReader(decode(0, bodyStart)))) {
+			firstLine = reader.readLine();
+		}
+		final List<String> sqlColumnNames = engine.getSqlColumnNames(firstLine);
+		final ColumnType[] columnTypes = knownTypes != null ? knownTypes : new TableDefinition(engine).getColumnTypes(firstLine, channel, charset, bodyStart, size, status);
+		final boolean[] selectedFields = engine.getSelectedFields(firstLine);
+		final String fileName = new File(sourceFileName).getName();
+		if (engine.isPeriodicCommit()) {
+			engine.writeMarker(writer, new LoadMarker(fileName, bodyStart, 2));
+		}
+
+		int lineNumber = 1; // header
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory());
+		try {
+			final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+			long position = bodyStart;
+			while (position < size || !pending.isEmpty()) {
+				while (position < size && pending.size() < threads * 2) {
+					final long start = position;
+					final long end = findChunkEnd(start + chunkSize, size);
+					pending.add(executor.submit(() -> convertChunk(start, end, bodyStart, sqlColumnNames, columnTypes, selectedFields, status)));
+					position = end;
+				}
+				final Chunk chunk = getChunk(pending.remove(), lineNumber);
+				int written = 0;
+				for (final CommitPoint commitPoint : chunk.commitPoints) {
+					writer.write(chunk.sql, written, commitPoint.position - written);
+					engine.writeMarker(writer, new LoadMarker(fileName, commitPoint.offset, lineNumber + commitPoint.lineNumber));
+					written = commitPoint.position;
+				}
+				writer.write(chunk.sql, written, chunk.sql.length() - written);
+				lineNumber += chunk.lines;
+				if (status != null && status.isCanceled()) {
+					throw new InterruptedException();
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		engine.writeCommit(writer);
+	}
+
+	private Chunk getChunk(final Future<Chunk> future, final int lineNumber) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		}
+		catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RowConversionException) {
+				throw new IOException(Messages.get("err.csv2sql.runnable", sourceFileName, lineNumber + ((RowConversionException) cause).getLineNumber()), cause.getCause());
+			}
+			else if (cause instanceof InterruptedException) {
+				throw (InterruptedException) cause;
+			}
+			else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			else {
+				throw new IOException(cause);
+			}
+		}
+	}
+
+	private Chunk convertChunk(final long start, final long end, final long bodyStart, final List<String> sqlColumnNames, final ColumnType[] columnTypes, final boolean[] selectedFields, final CancellationStatus status) throws IOException, InterruptedException, RowConversionException {
+		final StringWriter sw = new StringWriter();
+		final List<CommitPoint> commitPoints = new ArrayList<>();
+		try (final ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(read(start, end)), charset, start, 0); final BufferedWriter bw = new BufferedWriter(sw)) {
+			engine.convertLines(sourceFileName, reader, bw, sqlColumnNames, columnTypes, selectedFields, bodyStart, (w, offset, lineNumber) -> {
+				engine.writeCommit(w);
+				w.flush();
+				commitPoints.add(new CommitPoint(sw.getBuffer().length(), offset, lineNumber)); // the marker needs the absolute line number
+			}, status);
+			bw.flush();
+			return new Chunk(sw.toString(), reader.getLineNumber(), commitPoints);
+		}
+	}
+
+	private String decode(final long start, final long end) throws IOException {
+		return new String(read(start, end), charset);
+	}
+
+	private byte[] read(final long start, final long end) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, start + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+		return buffer.array();
+	}
+
+	/** Returns the position that follows the terminator of the first line. */
+	private long findHeaderEnd(final long size) throws IOException {
+		long position = 0;
+		while (position < size) {
+			final int length = scan(position);
+			for (int i = 0; i < length; i++) {
+				final byte b = scanBuffer.get(i);
+				if (b == '\n') {
+					return position + i + 1;
+				}
+				else if (b == '\r') {
+					final long next = position + i + 1;
+					if (next < size && (i + 1 < length ? scanBuffer.get(i + 1) : readByte(next)) == '\n') {
+						return next + 1;
+					}
+					return next;
+				}
+			}
+			position += length;
+		}
+		return size;
+	}
+
+	/** Returns the position that follows the first line feed found starting from the provided position. */
+	private long findChunkEnd(long position, final long size) throws IOException {
+		while (position < size) {
+			final int length = scan(position);
+			for (int i = 0; i < length; i++) {
+				if (scanBuffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += length;
+		}
+		return size;
+	}
+
+	private int scan(final long position) throws IOException {
+		scanBuffer.clear();
+		final int length = channel.read(scanBuffer, position);
+		if (length < 0) {
+			throw new EOFException();
+		}
+		return length;
+	}
+
+	private byte readByte(final long position) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(1);
+		if (channel.read(buffer, position) < 1) {
+			throw new EOFException();
+		}
+		return buffer.get(0);
+	}
+
+	private static class Chunk {
+		private final String sql;
+		private final int lines;
+		private final List<CommitPoint> commitPoints;
+
+		private Chunk(final String sql, final int lines, final List<CommitPoint> commitPoints) {
+			this.sql = sql;
+			this.lines = lines;
+			this.commitPoints = commitPoints;
+		}
+	}
+
+	private static class CommitPoint {
+		private final int position;
+		private final long offset;
+		private final int lineNumber;
+
+		private CommitPoint(final int position, final long offset, final int lineNumber) {
+			this.position = position;
+			this.offset = offset;
+			this.lineNumber = lineNumber;
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of the values of the columns of a file: the narrowest
+ * {@link ColumnType} that includes all the values of each column, the range
+ * of the integers, the digits of the decimals and the length of the longest
+ * value, from which the SQL types of a <tt>CREATE TABLE</tt> statement are
+ * derived. Blank values do not affect the type of a column.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class ColumnProfile {
+
+	/** The largest precision of a <tt>DECIMAL</tt> supported by the main databases. */
+	static final int MAX_DECIMAL_PRECISION = 38;
+
+	private final ColumnType[] types;
+	private final int[] lengths;
+	private final int[] integerDigits;
+	private final int[] scales;
+	private final long[] minimums;
+	private final long[] maximums;
+
+	ColumnProfile(final int columnCount) {
+		this.types = new ColumnType[columnCount];
+		this.lengths = new int[columnCount];
+		this.integerDigits = new int[columnCount];
+		this.scales = new int[columnCount];
+		this.minimums = new long[columnCount];
+		this.maximums = new long[columnCount];
+		Arrays.fill(minimums, Long.MAX_VALUE);
+		Arrays.fill(maximums, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Adds the values of a row; the fields that exceed the columns are
+	 * ignored.
+	 *
+	 * @param csv the tokenized row
+	 */
+	void add(final CsvTokenizer csv) {
+		final char[] buffer = csv.getBuffer();
+		for (int i = 0; i < Math.min(types.length, csv.getFieldCount()); i++) {
+			final int start = csv.getStart(i);
+			final int end = csv.getEnd(i);
+			lengths[i] = Math.max(lengths[i], end - start); // blank values too, when they are written as strings
+			final ColumnType valueType = ColumnType.of(buffer, start, end);
+			if (valueType != null) {
+				types[i] = valueType.widen(types[i]);
+				if (valueType != ColumnType.TEXT) {
+					addNumber(i, buffer, start, end);
+				}
+			}
+		}
+	}
+
+	private void addNumber(final int column, final char[] buffer, final int start, final int end) {
+		final boolean negative = buffer[start] == '-';
+		int point = end;
+		long value = 0;
+		for (int i = negative ? start + 1 : start; i < end; i++) {
+			if (buffer[i] == '.') {
+				point = i;
+				break;
+			}
+			value = value * 10 + buffer[i] - '0'; // only the values of up to 18 digits are used
+		}
+		final int digits = point - start - (negative ? 1 : 0);
+		integerDigits[column] = Math.max(integerDigits[column], digits);
+		if (point < end) {
+			scales[column] = Math.max(scales[column], end - point - 1);
+		}
+		else if (digits <= ColumnType.MAX_INTEGER_DIGITS) {
+			minimums[column] = Math.min(minimums[column], negative ? -value : value);
+			maximums[column] = Math.max(maximums[column], negative ? -value : value);
+		}
+	}
+
+	/**
+	 * Returns the type of a column.
+	 *
+	 * @return the narrowest type that includes all the values, or
+	 *         <code>null</code> if all the values are blank
+	 */
+	ColumnType getType(final int column) {
+		return types[column];
+	}
+
+	/** Returns the length in characters of the longest value of a column. */
+	int getLength(final int column) {
+		return lengths[column];
+	}
+
+	/**
+	 * Returns the SQL type that fits all the values of a column:
+	 * <tt>SMALLINT</tt>, <tt>INTEGER</tt> or <tt>BIGINT</tt> for the integers,
+	 * <tt>DECIMAL(p,s)</tt> for the decimal numbers and <tt>VARCHAR(n)</tt>
+	 * for text.
+	 *
+	 * @param type the type of the column, that may differ from the inferred one
+	 */
+	String getSqlType(final int column, final ColumnType type) {
+		switch (type) {
+		case TIMESTAMP:
+			return "TIMESTAMP";
+		case INTEGER:
+			if (minimums[column] > maximums[column]) { // no integers
+				return "INTEGER";
+			}
+			if (minimums[column] >= Short.MIN_VALUE && maximums[column] <= Short.MAX_VALUE) {
+				return "SMALLINT";
+			}
+			if (minimums[column] >= Integer.MIN_VALUE && maximums[column] <= Integer.MAX_VALUE) {
+				return "INTEGER";
+			}
+			return "BIGINT";
+		case DECIMAL:
+			final int precision = integerDigits[column] + scales[column];
+			if (precision == 0 || precision > MAX_DECIMAL_PRECISION) {
+				return "DECIMAL";
+			}
+			return "DECIMAL(" + precision + ',' + scales[column] + ')';
+		default:
+			return "VARCHAR(" + Math.max(1, lengths[column]) + ')';
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+/**
+ * SQL type of a column, inferred from a sample of the rows of a file or
+ * configured for a column name.
+ *
+ * @see CsvToSqlEngine#setTypeInferenceRows(int)
+ * @see CsvToSqlEngine#setColumnTypes(java.util.Map)
+ */
+public enum ColumnType {
+
+	/** The first column, converted from the timestamp pattern of the engine. */
+	TIMESTAMP,
+
+	/**
+	 * Integers of up to {@value #MAX_INTEGER_DIGITS} digits, written as bare
+	 * numeric literals.
+	 */
+	INTEGER,
+
+	/** Decimal numbers, written as bare numeric literals. */
+	DECIMAL,
+
+	/** Any other value, written as a string literal. */
+	TEXT;
+
+	static final int MAX_INTEGER_DIGITS = 18; // always fits a BIGINT
+
+	/**
+	 * Returns the most specific type that includes both this type and another
+	 * one.
+	 *
+	 * @param other the other type, or <code>null</code> if unknown
+	 * @return the wider type
+	 */
+	ColumnType widen(final ColumnType other) {
+		if (other == null || other == this) {
+			return this;
+		}
+		if (this == TEXT || other == TEXT || this == TIMESTAMP || other == TIMESTAMP) {
+			return TEXT;
+		}
+		return DECIMAL; // INTEGER and DECIMAL
+	}
+
+	/**
+	 * Tells whether a value of the provided type can be written as it is in a
+	 * column of this type.
+	 *
+	 * @param valueType the type of the value, as returned by
+	 *        {@link #of(char[], int, int)}
+	 */
+	boolean accepts(final ColumnType valueType) {
+		return valueType == this || this == DECIMAL && valueType == INTEGER;
+	}
+
+	/**
+	 * Classifies a value: a plain integer or decimal number, without leading
+	 * zeros, exponent or surrounding spaces, is numeric; anything else is
+	 * text.
+	 *
+	 * @return the type of the value, or <code>null</code> if the value is blank
+	 */
+	static ColumnType of(final char[] buffer, final int start, final int end) {
+		if (isBlank(buffer, start, end)) {
+			return null;
+		}
+		int i = start;
+		if (buffer[i] == '-') {
+			i++;
+		}
+		final int integerStart = i;
+		while (i < end && buffer[i] >= '0' && buffer[i] <= '9') {
+			i++;
+		}
+		final int integerDigits = i - integerStart;
+		if (integerDigits == 0 || integerDigits > 1 && buffer[integerStart] == '0') {
+			return TEXT;
+		}
+		if (i == end) {
+			return integerDigits <= MAX_INTEGER_DIGITS ? INTEGER : DECIMAL;
+		}
+		if (buffer[i++] != '.' || i == end) {
+			return TEXT;
+		}
+		while (i < end && buffer[i] >= '0' && buffer[i] <= '9') {
+			i++;
+		}
+		return i == end ? DECIMAL : TEXT;
+	}
+
+	static boolean isBlank(final char[] buffer, final int start, final int end) {
+		for (int i = start; i < end; i++) {
+			if (!Character.isWhitespace(buffer[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,69 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Writes a control script that loads a CSV file with the bulk loader of the
+ * database, reading only the header of the file.
+ *
+ * @see ControlScriptWriter
+ */
+class ControlScriptConversion {
+
+	private final CsvToSqlEngine engine;
+	private final File csvFile;
+
+	ControlScriptConversion(final CsvToSqlEngine engine, final File csvFile) {
+		this.engine = engine;
+		this.csvFile = csvFile;
+	}
+
+	void convert(final File scriptFile) throws IOException {
+		final OutputFormat outputFormat = engine.getOutputFormat();
+		final String separator = CsvTokenizer.toLiteral(engine.getCsvSeparator());
+		if (separator == null) {
+			throw new IllegalStateException("The " + outputFormat + " format requires a literal separator: " + engine.getCsvSeparator());
+		}
+		final Charset charset = engine.getCharset();
+		if (!ChunkedConversion.isSupported(charset)) {
+			throw new IOException("Unsupported charset: " + charset);
+		}
+		try (final FileInputStream fis = new FileInputStream(csvFile); final BufferedInputStream bis = new BufferedInputStream(fis); final BufferedWriter bw = engine.newWriter(scriptFile, engine.getOutputCharset())) {
+			final ByteArrayOutputStream header = new ByteArrayOutputStream();
+			String lineSeparator = null;
+			int b;
+			while (lineSeparator == null && (b = bis.read()) != -1) {
+				if (b == '\n') {
+					lineSeparator = "\n";
+				}
+				else if (b == '\r') {
+					bis.mark(1);
+					if (bis.read() == '\n') {
+						lineSeparator = "\r\n";
+					}
+					else {
+						bis.reset();
+						lineSeparator = "\r";
+					}
+				}
+				else {
+					header.write(b);
+				}
+			}
+			if (header.size() == 0 && lineSeparator == null) {
+				return; // empty file
+			}
+			final List<String> sqlColumnNames = engine.getSqlColumnNames(new String(header.toByteArray(), charset));
+			final ControlScriptWriter scriptWriter = new ControlScriptWriter(outputFormat, engine.getSqlTableName(), sqlColumnNames, engine.hasResponseTimeColumn(), separator, engine.getCsvTimestampPattern(), charset);
+			scriptWriter.write(bw, csvFile.getAbsolutePath(), lineSeparator != null ? lineSeparator : System.lineSeparator());
+		}
+	}
+
+}
@@ -0,0 +1,348 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the control scripts that let a database read a CSV file directly,
+ * with its own bulk loader, instead of executing converted rows. Only the
+ * header of the file is needed, so the cost of the conversion does not depend
+ * on the number of rows.
+ * <p>
+ * Like the converter, the scripts skip the header, trim the timestamp and the
+ * response time, convert the timestamp with the equivalent of the CSV
+ * pattern, and leave the missing trailing fields of shorter rows
+ * <tt>NULL</tt>. The separator must be a literal string, and the fields are
+ * not expected to contain it.
+ */
+class ControlScriptWriter {
+
+	private static final String LINE_COLUMN = "line";
+	private static final String FIELDS = "f";
+
+	private final OutputFormat format;
+	private final String sqlTableName;
+	private final List<String> sqlColumnNames;
+	private final boolean responseTime;
+	private final String separator;
+	private final String csvTimestampPattern;
+	private final Charset charset;
+
+	/**
+	 * @param format {@link OutputFormat#LOAD_DATA},
+	 *        {@link OutputFormat#SQL_LOADER} or {@link OutputFormat#FILE_FDW}
+	 * @param responseTime whether the second column is the integer response
+	 *        time
+	 * @param separator the literal field separator
+	 */
+	ControlScriptWriter(final OutputFormat format, final String sqlTableName, final List<String> sqlColumnNames, final boolean responseTime, final String separator, final String csvTimestampPattern, final Charset charset) {
+		this.format = format;
+		this.sqlTableName = sqlTableName;
+		this.sqlColumnNames = sqlColumnNames;
+		this.responseTime = responseTime;
+		this.separator = separator;
+		this.csvTimestampPattern = csvTimestampPattern;
+		this.charset = charset;
+	}
+
+	/**
+	 * Writes the script that loads a CSV file.
+	 *
+	 * @param out the destination
+	 * @param csvFilePath the absolute path of the CSV file
+	 * @param lineSeparator the line terminator of the CSV file
+	 * @throws IOException if an I/O error occurs
+	 */
+	void write(final BufferedWriter out, final String csvFilePath, final String lineSeparator) throws IOException {
+		switch (format) {
+		case LOAD_DATA:
+			writeLoadData(out, csvFilePath, lineSeparator);
+			break;
+		case SQL_LOADER:
+			writeSqlLoader(out, csvFilePath, lineSeparator);
+			break;
+		case FILE_FDW:
+			writeFileFdw(out, csvFilePath);
+			break;
+		default:
+			throw new IllegalStateException(String.valueOf(format));
+		}
+	}
+
+	/** MySQL <tt>LOAD DATA LOCAL INFILE</tt> statement, with user variables for the conversions. */
+	private void writeLoadData(final BufferedWriter out, final String csvFilePath, final String lineSeparator) throws IOException {
+		out.write("LOAD DATA LOCAL INFILE " + quote(csvFilePath.replace('\\', '/')));
+		out.newLine();
+		out.write("INTO TABLE " + sqlTableName);
+		out.newLine();
+		final String characterSet = getCharsetName("utf8mb4", "latin1", "latin1", "ascii");
+		if (characterSet != null) {
+			out.write("CHARACTER SET " + characterSet);
+			out.newLine();
+		}
+		out.write("FIELDS TERMINATED BY " + quote(escapeBackslashes(separator)) + " ESCAPED BY ''"); // backslashes and \N are data, as in the INSERT statements
+		out.newLine();
+		out.write("LINES TERMINATED BY " + quote(escapeBackslashes(lineSeparator)));
+		out.newLine();
+		out.write("IGNORE 1 LINES");
+		out.newLine();
+		final StringBuilder variables = new StringBuilder("(");
+		for (int i = 0; i < sqlColumnNames.size(); i++) {
+			if (i != 0) {
+				variables.append(", ");
+			}
+			variables.append('@').append(FIELDS).append(i + 1);
+		}
+		out.write(variables.append(')').toString());
+		out.newLine();
+		for (int i = 0; i < sqlColumnNames.size(); i++) {
+			final String field = "@" + FIELDS + (i + 1);
+			out.write(i == 0 ? "SET " : "    ");
+			out.write(sqlColumnNames.get(i) + " = ");
+			if (i == 0) {
+				out.write("STR_TO_DATE(TRIM(" + field + "), " + quote(translatePattern(csvTimestampPattern, format).replace("\\", "\\\\")) + ")");
+			}
+			else if (i == 1 && responseTime) {
+				out.write("NULLIF(TRIM(" + field + "), '')");
+			}
+			else {
+				out.write(field);
+			}
+			out.write(i == sqlColumnNames.size() - 1 ? ";" : ",");
+			out.newLine();
+		}
+		out.write("COMMIT;");
+		out.newLine();
+	}
+
+	/** Oracle SQL*Loader control file. */
+	private void writeSqlLoader(final BufferedWriter out, final String csvFilePath, final String lineSeparator) throws IOException {
+		out.write("OPTIONS (SKIP=1)");
+		out.newLine();
+		out.write("LOAD DATA");
+		out.newLine();
+		final String characterSet = getCharsetName("AL32UTF8", "WE8ISO8859P1", "WE8MSWIN1252", "US7ASCII");
+		if (characterSet != null) {
+			out.write("CHARACTERSET " + characterSet);
+			out.newLine();
+		}
+		out.write("INFILE " + quote(csvFilePath));
+		if (!"\n".equals(lineSeparator)) {
+			out.write(" \"STR X'" + toHex(lineSeparator) + "'\"");
+		}
+		out.newLine();
+		out.write("APPEND");
+		out.newLine();
+		out.write("INTO TABLE " + sqlTableName);
+		out.newLine();
+		out.write("FIELDS TERMINATED BY " + quote(separator));
+		out.newLine();
+		out.write("TRAILING NULLCOLS");
+		out.newLine();
+		out.write("(");
+		out.newLine();
+		for (int i = 0; i < sqlColumnNames.size(); i++) {
+			final String column = sqlColumnNames.get(i);
+			out.write("  " + column + " CHAR(4000)");
+			if (i == 0) {
+				out.write(" \"TO_TIMESTAMP(TRIM(:" + column + "), " + quote(translatePattern(csvTimestampPattern, format)).replace("\"", "\\\"") + ")\"");
+			}
+			else if (i == 1 && responseTime) {
+				out.write(" \"TO_NUMBER(TRIM(:" + column + "))\"");
+			}
+			out.write(i == sqlColumnNames.size() - 1 ? "" : ",");
+			out.newLine();
+		}
+		out.write(")");
+		out.newLine();
+	}
+
+	/**
+	 * PostgreSQL <tt>file_fdw</tt> foreign table, read as a single column of
+	 * whole lines and split by the <tt>INSERT ... SELECT</tt>, so that shorter
+	 * rows and empty lines are handled like the converter does.
+	 */
+	private void writeFileFdw(final BufferedWriter out, final String csvFilePath) throws IOException {
+		final String foreignTableName = sqlTableName + "_csv";
+		out.write("CREATE EXTENSION IF NOT EXISTS file_fdw;");
+		out.newLine();
+		out.write("CREATE SERVER IF NOT EXISTS csv2sql FOREIGN DATA WRAPPER file_fdw;");
+		out.newLine();
+		out.write("CREATE FOREIGN TABLE " + foreignTableName + " (" + LINE_COLUMN + " text) SERVER csv2sql OPTIONS (filename " + quote(csvFilePath) + ", format 'csv', header 'true', delimiter E'\\x01', quote E'\\x02'");
+		final String encoding = getCharsetName("UTF8", "LATIN1", "WIN1252", "SQL_ASCII");
+		if (encoding != null) {
+			out.write(", encoding " + quote(encoding));
+		}
+		out.write(");");
+		out.newLine();
+		out.write("INSERT INTO " + sqlTableName + " (" + String.join(",", sqlColumnNames) + ")");
+		out.newLine();
+		for (int i = 0; i < sqlColumnNames.size(); i++) {
+			final String field = FIELDS + "[" + (i + 1) + "]";
+			out.write(i == 0 ? "SELECT " : "     , ");
+			if (i == 0) {
+				out.write("to_timestamp(trim(" + field + "), " + quote(translatePattern(csvTimestampPattern, format)) + ")::timestamp");
+			}
+			else if (i == 1 && responseTime) {
+				out.write("nullif(trim(" + field + "), '')::integer");
+			}
+			else {
+				out.write(field);
+			}
+			out.newLine();
+		}
+		out.write("FROM (SELECT string_to_array(" + LINE_COLUMN + ", " + quote(separator) + ") AS " + FIELDS + " FROM " + foreignTableName + " WHERE trim(" + LINE_COLUMN + ") <> '') AS csv;");
+		out.newLine();
+		out.write("DROP FOREIGN TABLE " + foreignTableName + ";");
+		out.newLine();
+		out.write("COMMIT;");
+		out.newLine();
+	}
+
+	private String getCharsetName(final String utf8, final String iso88591, final String windows1252, final String usAscii) {
+		switch (charset.name()) {
+		case "UTF-8":
+			return utf8;
+		case "ISO-8859-1":
+			return iso88591;
+		case "windows-1252":
+			return windows1252;
+		case "US-ASCII":
+			return usAscii;
+		default:
+			return null; // database default
+		}
+	}
+
+	/**
+	 * Translates a {@link java.text.SimpleDateFormat} pattern into the format
+	 * of the <tt>STR_TO_DATE</tt> (MySQL) or <tt>TO_TIMESTAMP</tt> (Oracle,
+	 * PostgreSQL) functions of the target database. Milliseconds are expected
+	 * to be zero-padded to three digits, as in the default pattern.
+	 *
+	 * @param pattern the CSV timestamp pattern
+	 * @param format the target of the translation
+	 * @return the database format
+	 * @throws IllegalArgumentException if the pattern contains letters that
+	 *         have no equivalent
+	 */
+	static String translatePattern(final String pattern, final OutputFormat format) {
+		final boolean mysql = format == OutputFormat.LOAD_DATA;
+		final StringBuilder translated = new StringBuilder();
+		int i = 0;
+		while (i < pattern.length()) {
+			final char c = pattern.charAt(i);
+			if (c == '\'') { // quoted literal
+				final StringBuilder literal = new StringBuilder();
+				int j = i + 1;
+				while (j < pattern.length()) {
+					if (pattern.charAt(j) == '\'') {
+						if (j + 1 < pattern.length() && pattern.charAt(j + 1) == '\'') {
+							j++;
+						}
+						else {
+							break;
+						}
+					}
+					literal.append(pattern.charAt(j++));
+				}
+				appendLiteral(translated, literal.length() == 0 ? "'" : literal.toString(), mysql);
+				i = j + 1;
+			}
+			else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+				int count = 1;
+				while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+					count++;
+				}
+				translated.append(translateField(c, count, format));
+				i += count;
+			}
+			else {
+				appendLiteral(translated, String.valueOf(c), mysql);
+				i++;
+			}
+		}
+		return translated.toString();
+	}
+
+	private static String translateField(final char letter, final int count, final OutputFormat format) {
+		final boolean mysql = format == OutputFormat.LOAD_DATA;
+		final boolean oracle = format == OutputFormat.SQL_LOADER;
+		switch (letter) {
+		case 'y':
+			if (count == 2) {
+				return mysql ? "%y" : "YY";
+			}
+			return mysql ? "%Y" : "YYYY";
+		case 'M':
+			if (count == 3) {
+				return mysql ? "%b" : oracle ? "MON" : "Mon";
+			}
+			if (count > 3) {
+				return mysql ? "%M" : oracle ? "FMMONTH" : "FMMonth";
+			}
+			return mysql ? "%m" : "MM";
+		case 'd':
+			return mysql ? "%d" : "DD";
+		case 'H':
+			return mysql ? "%H" : "HH24";
+		case 'h':
+			return mysql ? "%h" : "HH12";
+		case 'm':
+			return mysql ? "%i" : "MI";
+		case 's':
+			return mysql ? "%s" : "SS";
+		case 'S':
+			return mysql ? "%f" : oracle ? "FF3" : "MS";
+		case 'a':
+			return mysql ? "%p" : "AM";
+		case 'E':
+			if (count > 3) {
+				return mysql ? "%W" : oracle ? "FMDAY" : "FMDay";
+			}
+			return mysql ? "%a" : oracle ? "DY" : "Dy";
+		default:
+			throw new IllegalArgumentException(String.format(Locale.ROOT, "Pattern letter '%c' is not supported by the %s format", letter, format));
+		}
+	}
+
+	private static void appendLiteral(final StringBuilder translated, final String literal, final boolean mysql) {
+		if (mysql) {
+			translated.append(literal.replace("%", "%%"));
+		}
+		else {
+			for (int i = 0; i < literal.length(); i++) {
+				final char c = literal.charAt(i);
+				if (c == '"') {
+					throw new IllegalArgumentException("Double quotes are not supported in the timestamp pattern");
+				}
+				else if (Character.isLetterOrDigit(c)) {
+					translated.append('"').append(c).append('"');
+				}
+				else {
+					translated.append(c);
+				}
+			}
+		}
+	}
+
+	private static String quote(final String value) {
+		return '\'' + value.replace("'", "''") + '\'';
+	}
+
+	private static String escapeBackslashes(final String value) {
+		return value.replace("\\", "\\\\").replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t");
+	}
+
+	private static String toHex(final String value) {
+		final StringBuilder hex = new StringBuilder();
+		for (final char c : value.toCharArray()) {
+			hex.append(String.format(Locale.ROOT, "%02X", (int) c));
+		}
+		return hex.toString();
+	}
+
+}
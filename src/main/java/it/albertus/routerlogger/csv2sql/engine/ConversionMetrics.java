@@ -0,0 +1,198 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import it.albertus.routerlogger.csv2sql.resources.Messages;
+import it.albertus.util.logging.LoggerFactory;
+
+/**
+ * Collects the statistics of the conversions of an engine, and exposes them as
+ * an MXBean. The rates are computed over a window of at least
+ * {@value #RATE_WINDOW_MILLIS} milliseconds, that ends when they are read, so
+ * that they follow the polling interval of the JMX client.
+ */
+class ConversionMetrics implements ConversionMetricsMXBean {
+
+	static final String OBJECT_NAME = "it.albertus.routerlogger.csv2sql:type=ConversionMetrics";
+
+	static final int MAX_FILES = 100;
+	static final long RATE_WINDOW_MILLIS = 1000;
+
+	private static final Logger logger = LoggerFactory.getLogger(ConversionMetrics.class);
+
+	private static ConversionMetrics registered; // guarded by ConversionMetrics.class
+
+	private final ConversionStatistics total = new ConversionStatistics(null);
+
+	private final Map<String, ConversionStatistics> files = new LinkedHashMap<String, ConversionStatistics>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Entry<String, ConversionStatistics> eldest) {
+			return size() > MAX_FILES;
+		}
+	};
+
+	// the rates and their samples are guarded by this
+	private long sampleTime = System.nanoTime();
+	private long sampleRows;
+	private long sampleBytes;
+	private long sampleBusyNanos;
+	private double rowsPerSecond;
+	private double bytesPerSecond;
+	private double workerUtilization;
+
+	/** Returns the totals of all the files. */
+	ConversionStatistics getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the statistics of a file, creating them if the file has not been
+	 * converted yet, or if it is no longer among the last {@value #MAX_FILES}.
+	 */
+	synchronized ConversionStatistics getFile(final String sourceFileName) {
+		return files.computeIfAbsent(sourceFileName, k -> new ConversionStatistics(total));
+	}
+
+	@Override
+	public synchronized Map<String, ConversionStatistics> getFiles() {
+		return new LinkedHashMap<>(files);
+	}
+
+	@Override
+	public long getRowCount() {
+		return total.getRowCount();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return total.getBytesRead();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return total.getBytesWritten();
+	}
+
+	@Override
+	public long getParseErrors() {
+		return total.getParseErrors();
+	}
+
+	@Override
+	public long getBusyMillis() {
+		return total.getBusyMillis();
+	}
+
+	@Override
+	public long getReadMillis() {
+		return total.getReadMillis();
+	}
+
+	@Override
+	public long getTokenizeMillis() {
+		return total.getTokenizeMillis();
+	}
+
+	@Override
+	public long getTimestampMillis() {
+		return total.getTimestampMillis();
+	}
+
+	@Override
+	public long getEscapeMillis() {
+		return total.getEscapeMillis();
+	}
+
+	@Override
+	public long getWriteMillis() {
+		return total.getWriteMillis();
+	}
+
+	@Override
+	public synchronized double getRowsPerSecond() {
+		updateRates();
+		return rowsPerSecond;
+	}
+
+	@Override
+	public synchronized double getBytesPerSecond() {
+		updateRates();
+		return bytesPerSecond;
+	}
+
+	@Override
+	public synchronized double getWorkerUtilization() {
+		updateRates();
+		return workerUtilization;
+	}
+
+	private void updateRates() {
+		final long now = System.nanoTime();
+		final long elapsed = now - sampleTime;
+		if (elapsed < TimeUnit.MILLISECONDS.toNanos(RATE_WINDOW_MILLIS)) {
+			return;
+		}
+		final long rows = total.getRowCount();
+		final long bytes = total.getBytesRead();
+		final long busyNanos = total.getBusyNanos();
+		final double seconds = elapsed / 1e9;
+		rowsPerSecond = (rows - sampleRows) / seconds;
+		bytesPerSecond = (bytes - sampleBytes) / seconds;
+		workerUtilization = (double) (busyNanos - sampleBusyNanos) / elapsed / Runtime.getRuntime().availableProcessors();
+		sampleTime = now;
+		sampleRows = rows;
+		sampleBytes = bytes;
+		sampleBusyNanos = busyNanos;
+	}
+
+	/**
+	 * Registers these metrics in the platform MBean server, replacing the ones
+	 * of any other engine. A failure is only logged, since the conversions do
+	 * not depend on it.
+	 */
+	void register() {
+		synchronized (ConversionMetrics.class) {
+			try {
+				final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				final ObjectName name = new ObjectName(OBJECT_NAME);
+				if (server.isRegistered(name)) {
+					server.unregisterMBean(name);
+				}
+				server.registerMBean(this, name);
+				registered = this;
+			}
+			catch (final JMException | RuntimeException e) {
+				logger.log(Level.WARNING, Messages.get("msg.csv2sql.mbean.failure", OBJECT_NAME), e);
+			}
+		}
+	}
+
+	/** Unregisters these metrics, unless they have been replaced by another engine. */
+	void unregister() {
+		synchronized (ConversionMetrics.class) {
+			if (registered != this) {
+				return;
+			}
+			registered = null;
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+			}
+			catch (final JMException | RuntimeException e) {
+				logger.log(Level.WARNING, Messages.get("msg.csv2sql.mbean.failure", OBJECT_NAME), e);
+			}
+		}
+	}
+
+}
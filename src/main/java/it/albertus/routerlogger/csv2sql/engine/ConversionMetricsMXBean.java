@@ -0,0 +1,52 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.util.Map;
+
+/**
+ * Live metrics of the conversions of an engine, registered in the platform
+ * MBean server as {@value ConversionMetrics#OBJECT_NAME} while the files are
+ * converted, so that they can be watched with JConsole or any other JMX
+ * client. The counters are the totals of all the files; the same counters are
+ * available for each of the last files in {@link #getFiles()}.
+ *
+ * @see ConversionStatistics
+ */
+public interface ConversionMetricsMXBean {
+
+	long getRowCount();
+
+	long getBytesRead();
+
+	long getBytesWritten();
+
+	long getParseErrors();
+
+	long getBusyMillis();
+
+	long getReadMillis();
+
+	long getTokenizeMillis();
+
+	long getTimestampMillis();
+
+	long getEscapeMillis();
+
+	long getWriteMillis();
+
+	/** Returns the rows converted per second, measured over the last seconds. */
+	double getRowsPerSecond();
+
+	/** Returns the bytes read per second, measured over the last seconds. */
+	double getBytesPerSecond();
+
+	/**
+	 * Returns the fraction of the available processors that were busy in the
+	 * conversion loops over the last seconds, between <tt>0</tt> and
+	 * <tt>1</tt>, unless more threads than processors are used.
+	 */
+	double getWorkerUtilization();
+
+	/** Returns the statistics of the last files, by source file name. */
+	Map<String, ConversionStatistics> getFiles();
+
+}
@@ -0,0 +1,134 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of the conversions of a file, or of all the files converted
+ * by an engine. The counters are updated by the conversion loops every
+ * {@value ProgressTracker#CHECK_INTERVAL} lines, and every counter added to
+ * the statistics of a file is added to the totals as well.
+ * <p>
+ * The time spent in each stage of the conversion is measured on a sample of
+ * the rows, one every {@value ProgressTracker#SAMPLE_INTERVAL}, so it is an
+ * estimate; the busy time is the time spent in the conversion loops,
+ * including the waits for the output.
+ * <p>
+ * Instances are thread-safe.
+ */
+public class ConversionStatistics {
+
+	private final ConversionStatistics total;
+
+	private final LongAdder rowCount = new LongAdder();
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder parseErrors = new LongAdder();
+	private final LongAdder busyNanos = new LongAdder();
+	private final LongAdder[] stageNanos = new LongAdder[ProgressTracker.Stage.values().length];
+
+	ConversionStatistics(final ConversionStatistics total) {
+		this.total = total;
+		for (int i = 0; i < stageNanos.length; i++) {
+			stageNanos[i] = new LongAdder();
+		}
+	}
+
+	/** Returns the number of rows converted or loaded. */
+	public long getRowCount() {
+		return rowCount.sum();
+	}
+
+	/**
+	 * Returns the number of bytes of CSV data read; the bytes of compressed
+	 * files are counted after decompression.
+	 */
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	/**
+	 * Returns the number of bytes of SQL scripts written, before any
+	 * compression. The loads into a database and the data files of the binary
+	 * <tt>COPY</tt> format are not counted.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	/** Returns the number of rows that could not be converted. */
+	public long getParseErrors() {
+		return parseErrors.sum();
+	}
+
+	/** Returns the time spent in the conversion loops, in milliseconds. */
+	public long getBusyMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(busyNanos.sum());
+	}
+
+	/** Returns the estimated time spent reading and decoding the lines, in milliseconds. */
+	public long getReadMillis() {
+		return getStageMillis(ProgressTracker.Stage.READ);
+	}
+
+	/** Returns the estimated time spent splitting the lines into fields, in milliseconds. */
+	public long getTokenizeMillis() {
+		return getStageMillis(ProgressTracker.Stage.TOKENIZE);
+	}
+
+	/** Returns the estimated time spent converting the timestamps, in milliseconds. */
+	public long getTimestampMillis() {
+		return getStageMillis(ProgressTracker.Stage.TIMESTAMP);
+	}
+
+	/**
+	 * Returns the estimated time spent escaping and converting the other
+	 * values, in milliseconds.
+	 */
+	public long getEscapeMillis() {
+		return getStageMillis(ProgressTracker.Stage.ESCAPE);
+	}
+
+	/**
+	 * Returns the estimated time spent writing the statements (or adding the
+	 * rows to the batches, when loading into a database), in milliseconds.
+	 */
+	public long getWriteMillis() {
+		return getStageMillis(ProgressTracker.Stage.WRITE);
+	}
+
+	private long getStageMillis(final ProgressTracker.Stage stage) {
+		return TimeUnit.NANOSECONDS.toMillis(stageNanos[stage.ordinal()].sum());
+	}
+
+	long getBusyNanos() {
+		return busyNanos.sum();
+	}
+
+	void addProgress(final long bytes, final long rows, final long busy, final long[] stages) {
+		bytesRead.add(bytes);
+		rowCount.add(rows);
+		busyNanos.add(busy);
+		for (int i = 0; i < stages.length; i++) {
+			stageNanos[i].add(stages[i]);
+		}
+		if (total != null) {
+			total.addProgress(bytes, rows, busy, stages);
+		}
+	}
+
+	void addBytesWritten(final long bytes) {
+		bytesWritten.add(bytes);
+		if (total != null) {
+			total.addBytesWritten(bytes);
+		}
+	}
+
+	void addParseError() {
+		parseErrors.increment();
+		if (total != null) {
+			total.addParseError();
+		}
+	}
+
+}
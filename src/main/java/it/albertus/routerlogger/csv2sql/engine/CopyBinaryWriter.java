@@ -0,0 +1,112 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Writes rows in the PostgreSQL binary <tt>COPY</tt> format. Every tuple has
+ * all the columns of the header; the missing trailing fields of shorter rows
+ * and the <code>null</code> values are written as <tt>NULL</tt>. The values
+ * are expected to be a {@link Timestamp} (sent as <tt>timestamp without time
+ * zone</tt>), an {@link Integer} (<tt>integer</tt>) and strings (<tt>text</tt>
+ * or <tt>varchar</tt>, UTF-8 encoded), as returned by
+ * {@link RowFormatter#getParameters}; any other value is sent as text.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class CopyBinaryWriter {
+
+	private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+	/** Seconds between 1970-01-01 and 2000-01-01, the PostgreSQL epoch. */
+	private static final long POSTGRES_EPOCH_SECONDS = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+	private final DataOutputStream out;
+	private final int columnCount;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+	private ByteBuffer encoded = ByteBuffer.allocate(256);
+
+	CopyBinaryWriter(final OutputStream out, final int columnCount) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.columnCount = columnCount;
+		this.out.write(SIGNATURE);
+		this.out.writeInt(0); // flags
+		this.out.writeInt(0); // header extension length
+	}
+
+	/**
+	 * Writes a tuple.
+	 *
+	 * @param values the values of the row, up to the number of columns
+	 * @throws IOException if an I/O error occurs
+	 */
+	void write(final Object[] values) throws IOException {
+		if (values.length > columnCount) {
+			throw new IndexOutOfBoundsException("Field count: " + values.length + ", columns: " + columnCount);
+		}
+		out.writeShort(columnCount);
+		for (final Object value : values) {
+			if (value == null) {
+				out.writeInt(-1);
+			}
+			else if (value instanceof Timestamp) {
+				out.writeInt(8);
+				out.writeLong(toPostgresMicros(((Timestamp) value).toLocalDateTime()));
+			}
+			else if (value instanceof Integer) {
+				out.writeInt(4);
+				out.writeInt((Integer) value);
+			}
+			else {
+				writeText(value.toString());
+			}
+		}
+		for (int i = values.length; i < columnCount; i++) {
+			out.writeInt(-1); // NULL
+		}
+	}
+
+	/**
+	 * Writes the file trailer and flushes the stream, without closing it.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	void finish() throws IOException {
+		out.writeShort(-1);
+		out.flush();
+	}
+
+	static long toPostgresMicros(final LocalDateTime dateTime) {
+		return (dateTime.toEpochSecond(ZoneOffset.UTC) - POSTGRES_EPOCH_SECONDS) * 1000000 + dateTime.getNano() / 1000;
+	}
+
+	private void writeText(final String value) throws IOException {
+		encoder.reset();
+		encoded.clear();
+		final CharBuffer chars = CharBuffer.wrap(value);
+		CoderResult result;
+		while ((result = encoder.encode(chars, encoded, true)).isOverflow()) {
+			final ByteBuffer larger = ByteBuffer.allocate(encoded.capacity() * 2);
+			encoded.flip();
+			larger.put(encoded);
+			encoded = larger;
+		}
+		if (result.isError()) {
+			result.throwException(); // unpaired surrogates
+		}
+		encoder.flush(encoded);
+		out.writeInt(encoded.position());
+		out.write(encoded.array(), 0, encoded.position());
+	}
+
+}
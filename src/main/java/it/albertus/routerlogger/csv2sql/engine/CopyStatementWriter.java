@@ -0,0 +1,79 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+
+/**
+ * Writes the rows of a file as PostgreSQL <tt>COPY table (...) FROM STDIN;</tt>
+ * blocks, terminated by <tt>\.</tt>, in the text format accepted by
+ * <tt>psql</tt>. A new block is started when the field count changes, because
+ * the column list of a <tt>COPY</tt> is fixed.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class CopyStatementWriter implements RowWriter {
+
+	private static final String COPY = "COPY ";
+	private static final String FROM_STDIN = " FROM STDIN;";
+	private static final String END_OF_DATA = "\\.";
+
+	private final BufferedWriter out;
+	private final String sqlTableName;
+	private final InsertStatementTemplate template;
+	private final boolean positional;
+	private final int columnCount;
+
+	private int fieldCount;
+
+	CopyStatementWriter(final BufferedWriter out, final String sqlTableName, final InsertStatementTemplate template, final boolean positional, final int columnCount) {
+		this.out = out;
+		this.sqlTableName = sqlTableName;
+		this.template = template;
+		this.positional = positional;
+		this.columnCount = columnCount;
+	}
+
+	/**
+	 * Writes a row.
+	 *
+	 * @param rowFieldCount the number of fields of the row
+	 * @param values the tab-separated, escaped values of the row
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void write(final int rowFieldCount, final CharArrayWriter values) throws IOException {
+		if (fieldCount != 0 && rowFieldCount != fieldCount) {
+			close();
+		}
+		if (fieldCount == 0) {
+			template.getPrefix(rowFieldCount); // validates the field count
+			out.write(COPY);
+			out.write(sqlTableName);
+			if (!positional || rowFieldCount != columnCount) {
+				out.write(' ');
+				out.write(template.getColumnList(rowFieldCount));
+			}
+			out.write(FROM_STDIN);
+			out.newLine();
+			fieldCount = rowFieldCount;
+		}
+		values.writeTo(out);
+		out.newLine();
+	}
+
+	/**
+	 * Terminates the current <tt>COPY</tt> block, if any.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (fieldCount != 0) {
+			out.write(END_OF_DATA);
+			out.newLine();
+			fieldCount = 0;
+		}
+	}
+
+}
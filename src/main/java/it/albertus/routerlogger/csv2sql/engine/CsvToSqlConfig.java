@@ -2,6 +2,12 @@ package it.albertus.routerlogger.csv2sql.engine;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +27,40 @@ public class CsvToSqlConfig extends LoggingConfig implements LanguageConfig {
 	private static final String CFG_FILE_NAME = "csv2sql.cfg";
 	private static final String LOG_FILE_NAME_PATTERN = "csv2sql.%g.log";
 
+	public static final byte DATABASE_COLUMN_NAME_MIN_LENGTH = 8;
+
+	public static final String TIMESTAMP_BASE_COLUMN_NAME = "timestamp";
+	public static final String RESPONSE_TIME_BASE_COLUMN_NAME = "response_time_ms";
+
+	public static class Defaults {
+		public static final String CSV_FIELD_SEPARATOR = ";";
+		public static final String CSV_DATE_PATTERN = "dd/MM/yyyy HH:mm:ss.SSS";
+		public static final boolean CSV_RESPONSE_TIME = true;
+		public static final boolean CSV_MEMORY_MAPPED = CsvToSqlEngine.DEFAULT_MEMORY_MAPPED;
+		public static final String DATABASE_TABLE_NAME = "router_log";
+		public static final String DATABASE_COLUMN_NAME_PREFIX = "rl_";
+		public static final byte DATABASE_COLUMN_NAME_MAX_LENGTH = 30;
+		public static final int DATABASE_OUTPUT_BUFFER_SIZE = CsvToSqlEngine.DEFAULT_OUTPUT_BUFFER_SIZE / 1024; // KiB
+		public static final OutputFormat DATABASE_OUTPUT_FORMAT = OutputFormat.INSERT;
+		public static final boolean DATABASE_COMPRESSED = false;
+		public static final boolean DATABASE_COMPRESSION_INDEX = false;
+		public static final int DATABASE_ROWS_PER_STATEMENT = CsvToSqlEngine.DEFAULT_ROWS_PER_STATEMENT;
+		public static final int DATABASE_MAX_STATEMENT_SIZE = CsvToSqlEngine.DEFAULT_MAX_STATEMENT_SIZE / 1024; // KiB
+		public static final int DATABASE_COMMIT_ROWS = 0;
+		public static final int DATABASE_COMMIT_SIZE = 0; // KiB
+		public static final int DATABASE_TYPE_INFERENCE_ROWS = 0;
+		public static final boolean DATABASE_CREATE_TABLE = false;
+		public static final boolean DATABASE_JDBC = false;
+		public static final int DATABASE_JDBC_BATCH_SIZE = JdbcSink.DEFAULT_BATCH_SIZE;
+		public static final int DATABASE_JDBC_COMMIT_INTERVAL = JdbcSink.DEFAULT_COMMIT_INTERVAL;
+		public static final int DATABASE_JDBC_CONNECTIONS = JdbcSink.DEFAULT_CONNECTIONS;
+		public static final boolean DATABASE_JDBC_ORDERED_COMMIT = JdbcSink.DEFAULT_ORDERED_COMMIT;
+
+		private Defaults() {
+			throw new IllegalAccessError("Constants class");
+		}
+	}
+
 	private static final Logger logger = LoggerFactory.getLogger(CsvToSqlConfig.class);
 
 	private static CsvToSqlConfig instance;
@@ -50,6 +90,91 @@ public class CsvToSqlConfig extends LoggingConfig implements LanguageConfig {
 		updateLanguage();
 	}
 
+	/**
+	 * Applies to an engine the configured options that are not part of the
+	 * conversion dialog, so that all the front ends convert the files in the
+	 * same way.
+	 *
+	 * @param engine the engine to configure
+	 */
+	public void configure(final CsvToSqlEngine engine) {
+		final String csvCharset = getString("csv.charset", "").trim();
+		if (!csvCharset.isEmpty()) {
+			engine.setCharset(Charset.forName(csvCharset));
+		}
+		final String sqlCharset = getString("database.charset", "").trim();
+		if (!sqlCharset.isEmpty()) {
+			engine.setOutputCharset(Charset.forName(sqlCharset));
+		}
+		engine.setMemoryMapped(getBoolean("csv.memory.mapped", Defaults.CSV_MEMORY_MAPPED));
+		engine.setOutputBufferSize(getInt("database.output.buffer.size", Defaults.DATABASE_OUTPUT_BUFFER_SIZE) * 1024);
+		engine.setOutputFormat(OutputFormat.valueOf(getString("database.output.format", Defaults.DATABASE_OUTPUT_FORMAT.name())));
+		engine.setCompressed(getBoolean("database.compressed", Defaults.DATABASE_COMPRESSED));
+		engine.setCompressionIndex(getBoolean("database.compression.index", Defaults.DATABASE_COMPRESSION_INDEX));
+		engine.setRowsPerStatement(getInt("database.rows.per.statement", Defaults.DATABASE_ROWS_PER_STATEMENT));
+		engine.setMaxStatementSize(getInt("database.max.statement.size", Defaults.DATABASE_MAX_STATEMENT_SIZE) * 1024);
+		engine.setCommitRows(getInt("database.commit.rows", Defaults.DATABASE_COMMIT_ROWS));
+		engine.setCommitBytes(getInt("database.commit.size", Defaults.DATABASE_COMMIT_SIZE) * 1024L);
+		engine.setTypeInferenceRows(getInt("database.type.inference.rows", Defaults.DATABASE_TYPE_INFERENCE_ROWS));
+		engine.setColumnTypes(parseColumnTypes(getString("database.column.types", "")));
+		engine.setCreateTable(getBoolean("database.create.table", Defaults.DATABASE_CREATE_TABLE));
+		engine.setSelectedColumns(parseSelectedColumns(getString("database.selected.columns", "")));
+	}
+
+	/**
+	 * Parses a comma-separated list of column names or patterns, like
+	 * <tt>uptime,*NoiseMargin*</tt>.
+	 *
+	 * @param value the list to parse, possibly empty
+	 * @return the names, without blanks
+	 */
+	public static List<String> parseSelectedColumns(final String value) {
+		final List<String> selectedColumns = new ArrayList<>();
+		for (final String entry : value.split(",")) {
+			if (!entry.trim().isEmpty()) {
+				selectedColumns.add(entry.trim());
+			}
+		}
+		return selectedColumns;
+	}
+
+	/**
+	 * Parses a comma-separated list of column types, like
+	 * <tt>upstreamPower:INTEGER,downstreamPower:DECIMAL</tt>, where the names
+	 * are the ones of the CSV header.
+	 *
+	 * @param value the list to parse, possibly empty
+	 * @return the types by column name
+	 * @throws IllegalArgumentException if the list is malformed or a type is
+	 *         unknown
+	 */
+	public static Map<String, ColumnType> parseColumnTypes(final String value) {
+		final Map<String, ColumnType> columnTypes = new LinkedHashMap<>();
+		for (final String entry : value.split(",")) {
+			if (!entry.trim().isEmpty()) {
+				final int colon = entry.lastIndexOf(':');
+				if (colon < 1) {
+					throw new IllegalArgumentException("Invalid column type: " + entry);
+				}
+				columnTypes.put(entry.substring(0, colon).trim(), ColumnType.valueOf(entry.substring(colon + 1).trim().toUpperCase(Locale.ROOT)));
+			}
+		}
+		return columnTypes;
+	}
+
+	/**
+	 * Applies to a database destination the configured options that are not
+	 * part of the conversion dialog.
+	 *
+	 * @param sink the destination to configure
+	 */
+	public void configure(final JdbcSink sink) {
+		sink.setBatchSize(getInt("database.jdbc.batch.size", Defaults.DATABASE_JDBC_BATCH_SIZE));
+		sink.setCommitInterval(getInt("database.jdbc.commit.interval", Defaults.DATABASE_JDBC_COMMIT_INTERVAL));
+		sink.setConnections(getInt("database.jdbc.connections", Defaults.DATABASE_JDBC_CONNECTIONS));
+		sink.setOrderedCommit(getBoolean("database.jdbc.ordered.commit", Defaults.DATABASE_JDBC_ORDERED_COMMIT));
+	}
+
 	@Override
 	public void updateLanguage() {
 		final String language = getString("language", Messages.DEFAULT_LANGUAGE);
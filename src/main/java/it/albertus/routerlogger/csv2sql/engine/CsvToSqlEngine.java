@@ -1,21 +1,50 @@
 package it.albertus.routerlogger.csv2sql.engine;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.CharArrayWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.text.DateFormat;
-import java.text.ParseException;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import it.albertus.routerlogger.csv2sql.engine.ProgressTracker.Stage;
 import it.albertus.routerlogger.csv2sql.resources.Messages;
+import it.albertus.util.DaemonThreadFactory;
 import it.albertus.util.logging.LoggerFactory;
 import it.albertus.util.sql.SqlUtils;
 
@@ -23,10 +52,30 @@ public class CsvToSqlEngine {
 
 	protected static final String CSV_FILE_EXTENSION = ".csv";
 	protected static final String SQL_FILE_EXTENSION = ".sql";
+	protected static final String BIN_FILE_EXTENSION = ".bin";
+	protected static final String CTL_FILE_EXTENSION = ".ctl";
+	protected static final String GZ_FILE_EXTENSION = ".gz";
+	protected static final String GZI_FILE_EXTENSION = ".gzi";
+	protected static final String ZIP_FILE_EXTENSION = ".zip";
+
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+	public static final int DEFAULT_ROWS_PER_STATEMENT = 1;
+	public static final int DEFAULT_MAX_STATEMENT_SIZE = 1024 * 1024;
+	public static final boolean DEFAULT_MEMORY_MAPPED = true;
+	public static final int DEFAULT_OUTPUT_BUFFER_SIZE = 256 * 1024;
+	public static final Charset DEFAULT_CHARSET = StandardCharsets.ISO_8859_1;
+	public static final long PROGRESS_INTERVAL_MILLIS = 250;
+
+	private static final Pattern ASCII_COMPATIBLE_CHARSETS = Pattern.compile("UTF-8|US-ASCII|ISO-8859-\\d+|windows-125\\d");
 
 	private final Logger logger = LoggerFactory.getLogger(CsvToSqlEngine.class);
 
-	private final DateFormat ansiSqlTimestampFormat = new SimpleDateFormat("yyyy-M-dd HH:mm:ss.SSS"); // '1998-3-24 04:21:23.456'
+	private final ConversionMetrics metrics = new ConversionMetrics();
+	private final AtomicLong nextProgressTime = new AtomicLong(System.nanoTime());
+	private final AtomicLong lookaheadBudget = new AtomicLong(LookaheadLineReader.MAX_CHARS); // shared by the files converted at the same time
+	private volatile ProgressListener progressListener;
 
 	private final String sqlTableName;
 	private final String sqlColumnNamesPrefix;
@@ -34,7 +83,27 @@ public class CsvToSqlEngine {
 	private final String sqlResponseTimeColumnName;
 	private final int sqlMaxLengthColumnNames;
 	private final String csvSeparator;
-	private final DateFormat csvDateFormat;
+	private final String csvTimestampPattern;
+
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private OutputFormat outputFormat = OutputFormat.INSERT;
+	private boolean memoryMapped = DEFAULT_MEMORY_MAPPED;
+	private Charset charset = DEFAULT_CHARSET;
+	private Charset outputCharset = DEFAULT_CHARSET;
+	private ByteBufferPool outputBuffers = new ByteBufferPool(DEFAULT_OUTPUT_BUFFER_SIZE);
+	private boolean compressed;
+	private boolean compressionIndex;
+	private int compressionThreads; // 0: the threads of the conversion of each file
+	private boolean positionalValues;
+	private int rowsPerStatement = DEFAULT_ROWS_PER_STATEMENT;
+	private int maxStatementSize = DEFAULT_MAX_STATEMENT_SIZE;
+	private int commitRows;
+	private long commitBytes;
+	private int typeInferenceRows;
+	private Map<String, ColumnType> columnTypes = Collections.emptyMap();
+	private boolean createTable;
+	private List<String> selectedColumns = Collections.emptyList();
+	private List<Pattern> selectedColumnPatterns = Collections.emptyList();
 
 	public CsvToSqlEngine(final String csvSeparator, final String csvTimestampPattern, final String sqlTableName, final String sqlColumnNamesPrefix, final String sqlTimestampColumnName, final String sqlResponseTimeColumnName, final int sqlMaxLengthColumnNames) {
 		if (sqlTableName == null || sqlTableName.trim().isEmpty()) {
@@ -43,8 +112,9 @@ public class CsvToSqlEngine {
 		if (csvSeparator == null || csvSeparator.isEmpty()) {
 			throw new IllegalArgumentException("csvSeparator must not be empty");
 		}
-		csvDateFormat = new SimpleDateFormat(csvTimestampPattern);
-		csvDateFormat.setLenient(false);
+		new CsvTokenizer(csvSeparator); // fail fast on invalid separators
+		new SimpleDateFormat(csvTimestampPattern); // fail fast on invalid patterns
+		this.csvTimestampPattern = csvTimestampPattern;
 		this.sqlTableName = sqlTableName;
 		this.sqlColumnNamesPrefix = sqlColumnNamesPrefix;
 		this.sqlTimestampColumnName = sqlTimestampColumnName;
@@ -54,11 +124,373 @@ public class CsvToSqlEngine {
 	}
 
 	public void convert(final File csvFile, final String destDir, final CancellationStatus status) throws IOException, InterruptedException {
-		boolean deleteIncompleteFile = false;
-		final File destinationFile = getDestinationFile(csvFile, destDir);
-		try (final FileReader fr = new FileReader(csvFile); final LineNumberReader lnr = new LineNumberReader(fr); final FileWriter fw = new FileWriter(destinationFile); final BufferedWriter bw = new BufferedWriter(fw)) {
-			convert(csvFile.getPath(), lnr, bw, status);
+		convert(csvFile, destDir, status, 1);
+	}
+
+	/**
+	 * Converts a CSV file into a SQL script. If more than one thread is
+	 * requested, the file is larger than the chunk size and each statement
+	 * holds a single row, the file is split into newline-aligned byte ranges that
+	 * are converted in parallel and written in their original order, so the
+	 * result is the same as the one of the sequential conversion.
+	 *
+	 * @param csvFile the CSV file to convert
+	 * @param destDir the directory in which the SQL script will be created
+	 * @param status the cancellation status, polled while converting
+	 * @param threads the maximum number of threads to use for this file
+	 * @throws IOException if an I/O or a conversion error occurs
+	 * @throws InterruptedException if the conversion has been canceled
+	 *
+	 * @see #setChunkSize(int)
+	 */
+	public void convert(final File csvFile, final String destDir, final CancellationStatus status, final int threads) throws IOException, InterruptedException {
+		if (outputFormat.isControlScript() && (isGzip(csvFile) || isZip(csvFile))) {
+			throw new IllegalStateException("The " + outputFormat + " format cannot read compressed files");
+		}
+		if (outputFormat.isControlScript() && !selectedColumns.isEmpty()) {
+			throw new IllegalStateException("Column selection is not supported by the " + outputFormat + " format");
+		}
+		if (isZip(csvFile)) {
+			convertZip(csvFile, destDir, status, threads);
+		}
+		else {
+			convert(csvFile, getDestinationFile(csvFile, destDir, ""), status, threads, null);
+		}
+	}
+
+	/**
+	 * Regenerates the part of the SQL script of a CSV file that starts from a
+	 * load marker, so that a failed load can be resumed from the last committed
+	 * chunk. The new script is named after the CSV file and the line number of
+	 * the marker (e.g. <tt>log_1234.sql</tt>), and is produced with the same
+	 * commit boundaries and markers of the original one, provided that the
+	 * settings of the engine have not been changed.
+	 *
+	 * @param csvFile the CSV file to convert
+	 * @param destDir the directory in which the SQL script will be created
+	 * @param status the cancellation status, polled while converting
+	 * @param from the marker from which the conversion starts
+	 * @throws IOException if an I/O or a conversion error occurs
+	 * @throws InterruptedException if the conversion has been canceled
+	 *
+	 * @see #setCommitRows(int)
+	 * @see #setCommitBytes(long)
+	 */
+	public void convert(final File csvFile, final String destDir, final CancellationStatus status, final LoadMarker from) throws IOException, InterruptedException {
+		if (outputFormat == OutputFormat.COPY_BINARY || outputFormat.isControlScript()) {
+			throw new IllegalStateException("Load markers are not supported by the " + outputFormat + " format");
+		}
+		if (isGzip(csvFile) || isZip(csvFile)) {
+			throw new IllegalStateException("Load markers are not supported for compressed files");
+		}
+		if (!csvFile.getName().equals(from.getFileName())) {
+			throw new IllegalArgumentException("The marker refers to a different file: " + from.getFileName());
+		}
+		convert(csvFile, getDestinationFile(csvFile, destDir, "_" + from.getLineNumber()), status, 1, from);
+	}
+
+	/**
+	 * Converts the rows appended to a growing CSV file since a checkpoint into
+	 * a new segment of SQL script, named after the CSV file and the number of
+	 * its first line (e.g. <tt>log_1234.sql</tt>), so that a file can be
+	 * loaded while it is being written without converting it again and again.
+	 * A last line without a line feed is left for the next invocation, since
+	 * it may be incomplete; no segment is created if there are no new rows.
+	 *
+	 * @param csvFile the CSV file to convert
+	 * @param destDir the directory in which the segment will be created
+	 * @param status the cancellation status, polled while converting
+	 * @param from the checkpoint returned by the previous invocation, or
+	 *        <code>null</code> to start from the first row
+	 * @return the checkpoint for the next invocation, that is
+	 *         <code>null</code> only if the header is not complete yet
+	 * @throws IOException if an I/O or a conversion error occurs, or if the
+	 *         file is shorter than the checkpoint
+	 * @throws InterruptedException if the conversion has been canceled
+	 */
+	public LoadMarker tail(final File csvFile, final String destDir, final CancellationStatus status, final LoadMarker from) throws IOException, InterruptedException {
+		if (outputFormat == OutputFormat.COPY_BINARY || outputFormat.isControlScript()) {
+			throw new IllegalStateException("Tail mode is not supported by the " + outputFormat + " format");
+		}
+		checkTail(csvFile, from);
+		final boolean byteTransparent;
+		try (final FileInputStream fis = new FileInputStream(csvFile)) {
+			byteTransparent = isByteTransparent(csvFile.getName(), fis);
+		}
+		final Charset readCharset = byteTransparent ? StandardCharsets.ISO_8859_1 : charset;
+		final Charset writeCharset = byteTransparent ? StandardCharsets.ISO_8859_1 : outputCharset;
+		try (final FileChannel fc = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+			final TailRange range = newTailRange(csvFile, fc, readCharset, from, status);
+			if (range == null || range.isEmpty()) {
+				return range != null ? range.start : from;
+			}
+			final LineReader reader = range.newReader(fc, readCharset);
+			final File destinationFile = getDestinationFile(csvFile, destDir, "_" + range.start.getLineNumber());
+			convert(destinationFile, () -> {
+				try (final BufferedWriter bw = newScriptWriter(destinationFile, writeCharset, getStatistics(csvFile.getPath()), 1)) {
+					convertBody(csvFile.getPath(), reader, bw, range.sqlColumnNames, range.columnTypes, range.selectedFields, range.bodyOffset, status);
+				}
+			});
+			logger.log(Level.INFO, Messages.get("msg.csv2sql.conversion.success"), destinationFile);
+			return new LoadMarker(csvFile.getName(), reader.getOffset(), reader.getLineNumber() + 1);
+		}
+	}
+
+	/**
+	 * Loads into a database the rows appended to a growing CSV file since a
+	 * checkpoint. A last line without a line feed is left for the next
+	 * invocation, since it may be incomplete.
+	 *
+	 * @param csvFile the CSV file to load
+	 * @param sink the database destination
+	 * @param status the cancellation status, polled while loading
+	 * @param from the checkpoint returned by the previous invocation, or
+	 *        <code>null</code> to start from the first row
+	 * @return the checkpoint for the next invocation, that is
+	 *         <code>null</code> only if the header is not complete yet
+	 * @throws IOException if an I/O, a conversion or a database error occurs,
+	 *         or if the file is shorter than the checkpoint; the transactions
+	 *         already committed are not rolled back
+	 * @throws InterruptedException if the load has been canceled
+	 *
+	 * @see #tail(File, String, CancellationStatus, LoadMarker)
+	 */
+	public LoadMarker tail(final File csvFile, final JdbcSink sink, final CancellationStatus status, final LoadMarker from) throws IOException, InterruptedException {
+		checkTail(csvFile, from);
+		try (final FileChannel fc = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+			final TailRange range = newTailRange(csvFile, fc, charset, from, status);
+			if (range == null || range.isEmpty()) {
+				return range != null ? range.start : from;
+			}
+			final LineReader reader = range.newReader(fc, charset);
+			new JdbcLoad(this, sink, csvFile.getPath()).load(range.sqlColumnNames, range.columnTypes, range.selectedFields, reader, status);
+			logger.log(Level.INFO, Messages.get("msg.csv2sql.load.success"), csvFile);
+			return new LoadMarker(csvFile.getName(), reader.getOffset(), reader.getLineNumber() + 1);
+		}
+	}
+
+	private void checkTail(final File csvFile, final LoadMarker from) throws IOException {
+		if (isGzip(csvFile) || isZip(csvFile)) {
+			throw new IllegalStateException("Tail mode is not supported for compressed files");
+		}
+		if (!ChunkedConversion.isSupported(charset)) {
+			throw new IOException("Unsupported charset: " + charset);
+		}
+		if (from != null && !csvFile.getName().equals(from.getFileName())) {
+			throw new IllegalArgumentException("The checkpoint refers to a different file: " + from.getFileName());
+		}
+	}
+
+	/**
+	 * Reads the header of a growing file and finds the complete lines that
+	 * follow the checkpoint.
+	 *
+	 * @return the range, or <code>null</code> if the header is not complete
+	 */
+	private TailRange newTailRange(final File csvFile, final FileChannel channel, final Charset readCharset, final LoadMarker from, final CancellationStatus status) throws IOException, InterruptedException {
+		final long size = channel.size();
+		final long end = findLastLineEnd(channel, size);
+		final LineReader headerReader = LineReader.bounded(newLineReader(channel, readCharset, 0, 0), end);
+		final CharSequence firstLine = headerReader.readLine();
+		if (firstLine == null) {
+			return null;
+		}
+		final List<String> sqlColumnNames = getSqlColumnNames(firstLine.toString());
+		final long bodyOffset = headerReader.getOffset();
+		final ColumnType[] columnTypes = new TableDefinition(this).getColumnTypes(firstLine.toString(), channel, readCharset, bodyOffset, end, status);
+		final boolean[] selectedFields = getSelectedFields(firstLine.toString());
+		if (from == null) {
+			return new TailRange(sqlColumnNames, columnTypes, selectedFields, bodyOffset, new LoadMarker(csvFile.getName(), bodyOffset, headerReader.getLineNumber() + 1), end);
+		}
+		if (from.getOffset() > size) {
+			throw new IOException("The file is shorter than the checkpoint, it may have been replaced: " + csvFile);
+		}
+		if (from.getOffset() < bodyOffset) {
+			throw new IllegalArgumentException("The checkpoint offset is outside the file body: " + from.getOffset());
+		}
+		return new TailRange(sqlColumnNames, columnTypes, selectedFields, bodyOffset, from, end);
+	}
+
+	/** Returns the offset that follows the last line feed of a file, or <tt>0</tt> if there is none. */
+	private static long findLastLineEnd(final FileChannel channel, final long size) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long position = size;
+		while (position > 0) {
+			final int length = (int) Math.min(buffer.capacity(), position);
+			position -= length;
+			buffer.clear().limit(length);
+			int read = 0;
+			while (buffer.hasRemaining() && read >= 0) { // positional reads may be short
+				read = channel.read(buffer, position + buffer.position());
+			}
+			for (int i = buffer.position() - 1; i >= 0; i--) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+		}
+		return 0;
+	}
+
+	private void convert(final File csvFile, final File destinationFile, final CancellationStatus status, final int threads, final LoadMarker from) throws IOException, InterruptedException {
+		convert(destinationFile, () -> {
+			if (isGzip(csvFile)) {
+				convert(csvFile.getPath(), () -> new GZIPInputStream(new FileInputStream(csvFile), GZIP_BUFFER_SIZE), destinationFile, status, threads);
+			}
+			else if (outputFormat == OutputFormat.COPY_BINARY) {
+				try (final FileChannel fc = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+					new BinaryCopyConversion(this, csvFile.getPath(), destinationFile).convert(newLineReader(fc), w -> new TableDefinition(this).write(fc, charset, w, status), status);
+				}
+			}
+			else if (outputFormat.isControlScript()) {
+				new ControlScriptConversion(this, csvFile).convert(destinationFile);
+			}
+			else {
+				final boolean byteTransparent;
+				try (final FileInputStream fis = new FileInputStream(csvFile)) {
+					byteTransparent = isByteTransparent(csvFile.getName(), fis);
+				}
+				final Charset readCharset = byteTransparent ? StandardCharsets.ISO_8859_1 : charset;
+				final Charset writeCharset = byteTransparent ? StandardCharsets.ISO_8859_1 : outputCharset;
+				if (!ChunkedConversion.isSupported(charset)) {
+					if (from != null) {
+						throw new IOException("Unsupported charset: " + charset);
+					}
+					try (final FileInputStream fis = new FileInputStream(csvFile); final LineNumberReader lnr = new LineNumberReader(new InputStreamReader(fis, charset)); final BufferedWriter bw = newScriptWriter(destinationFile, writeCharset, getStatistics(csvFile.getPath()), threads)) {
+						final ColumnType[] columnTypes = new TableDefinition(this).write(() -> new FileInputStream(csvFile), charset, bw, status);
+						convert(csvFile.getPath(), LineReader.of(lnr), bw, columnTypes, status);
+					}
+				}
+				else if (from == null && threads > 1 && commitRows == 0 && isSingleRowStatements() && csvFile.length() > chunkSize) {
+					try (final FileChannel fc = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ); final BufferedWriter bw = newScriptWriter(destinationFile, writeCharset, getStatistics(csvFile.getPath()), threads)) {
+						final ColumnType[] columnTypes = new TableDefinition(this).write(fc, readCharset, bw, status);
+						new ChunkedConversion(this, csvFile.getPath(), fc, readCharset, chunkSize, threads).convert(bw, columnTypes, status);
+					}
+				}
+				else {
+					try (final FileChannel fc = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ); final BufferedWriter bw = newScriptWriter(destinationFile, writeCharset, getStatistics(csvFile.getPath()), threads)) {
+						if (from == null) {
+							final ColumnType[] columnTypes = new TableDefinition(this).write(fc, readCharset, bw, status);
+							convert(csvFile.getPath(), newLineReader(fc, readCharset, 0, 0), bw, columnTypes, status);
+						}
+						else { // the table already exists
+							resume(csvFile.getPath(), newLineReader(fc, readCharset, 0, 0), fc, readCharset, bw, status, from);
+						}
+					}
+				}
+			}
 			logger.log(Level.INFO, Messages.get("msg.csv2sql.conversion.success"), csvFile);
+		});
+	}
+
+	/**
+	 * Converts a CSV file that can only be read sequentially, like a compressed
+	 * file or an entry of an archive. The stream is opened once more to read
+	 * the header when the byte-transparent conversion may be possible, and
+	 * once more to infer the types of the columns.
+	 *
+	 * @param threads the maximum number of threads to use for this file
+	 */
+	private void convert(final String sourceFileName, final InputStreamSource source, final File destinationFile, final CancellationStatus status, final int threads) throws IOException, InterruptedException {
+		if (outputFormat == OutputFormat.COPY_BINARY) {
+			try (final InputStream is = source.open()) {
+				new BinaryCopyConversion(this, sourceFileName, destinationFile).convert(newLineReader(is), w -> new TableDefinition(this).write(source, charset, w, status), status);
+			}
+		}
+		else {
+			final boolean byteTransparent;
+			try (final InputStream is = source.open()) {
+				byteTransparent = isByteTransparent(new File(sourceFileName).getName(), is);
+			}
+			final Charset readCharset = byteTransparent ? StandardCharsets.ISO_8859_1 : charset;
+			final Charset writeCharset = byteTransparent ? StandardCharsets.ISO_8859_1 : outputCharset;
+			try (final BufferedWriter bw = newScriptWriter(destinationFile, writeCharset, getStatistics(sourceFileName), threads)) {
+				final ColumnType[] columnTypes = new TableDefinition(this).write(source, readCharset, bw, status);
+				try (final InputStream is = source.open()) {
+					convert(sourceFileName, newLineReader(is, readCharset), bw, columnTypes, status);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts the CSV entries of a zip archive, each one into its own script
+	 * named after the entry, using up to the provided number of threads. The
+	 * entries are decompressed while they are converted; the other entries of
+	 * the archive are ignored. If an entry cannot be converted, the conversion
+	 * of the other ones is canceled.
+	 */
+	private void convertZip(final File zipFile, final String destDir, final CancellationStatus status, final int threads) throws IOException, InterruptedException {
+		try (final ZipFile zip = new ZipFile(zipFile)) {
+			final Map<ZipEntry, File> destinationFiles = new LinkedHashMap<>();
+			for (final Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+				final ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(CSV_FILE_EXTENSION)) {
+					final File destinationFile = getDestinationFile(new File(entry.getName()), destDir, "");
+					if (destinationFiles.containsValue(destinationFile)) { // same name in different directories
+						throw new IOException(Messages.get("err.csv2sql.destination.exists", destinationFile));
+					}
+					destinationFiles.put(entry, destinationFile);
+				}
+			}
+			final AtomicBoolean failed = new AtomicBoolean();
+			final CancellationStatus entryStatus = () -> failed.get() || status != null && status.isCanceled();
+			final int poolSize = Math.max(1, Math.min(threads, destinationFiles.size()));
+			final int threadsPerEntry = Math.max(1, threads / poolSize);
+			final ExecutorService executor = Executors.newFixedThreadPool(poolSize, new DaemonThreadFactory());
+			try {
+				final List<Future<?>> futures = new ArrayList<>();
+				for (final Entry<ZipEntry, File> entry : destinationFiles.entrySet()) {
+					final String sourceFileName = zipFile.getPath() + "!/" + entry.getKey().getName();
+					futures.add(executor.submit(() -> {
+						try {
+							convert(entry.getValue(), () -> {
+								convert(sourceFileName, () -> zip.getInputStream(entry.getKey()), entry.getValue(), entryStatus, threadsPerEntry);
+								logger.log(Level.INFO, Messages.get("msg.csv2sql.conversion.success"), sourceFileName);
+							});
+						}
+						catch (final IOException | RuntimeException e) {
+							failed.set(true); // the other entries are canceled, and their scripts deleted
+							throw e;
+						}
+						return null;
+					}));
+				}
+				Throwable failure = null;
+				for (final Future<?> future : futures) {
+					try {
+						future.get();
+					}
+					catch (final ExecutionException e) {
+						if (failure == null || failure instanceof InterruptedException) { // an interruption may be caused by the failure of another entry
+							failure = e.getCause();
+						}
+					}
+				}
+				if (failure instanceof IOException) {
+					throw (IOException) failure;
+				}
+				else if (failure instanceof InterruptedException) {
+					throw (InterruptedException) failure;
+				}
+				else if (failure instanceof RuntimeException) {
+					throw (RuntimeException) failure;
+				}
+				else if (failure != null) {
+					throw new IOException(failure);
+				}
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/** Runs a conversion, deleting the incomplete script if it is canceled. */
+	private void convert(final File destinationFile, final Conversion conversion) throws IOException, InterruptedException {
+		boolean deleteIncompleteFile = false;
+		try {
+			conversion.run();
 		}
 		catch (final InterruptedException e) {
 			deleteIncompleteFile = true;
@@ -73,86 +505,1082 @@ public class CsvToSqlEngine {
 				catch (final IOException e) {
 					logger.log(Level.WARNING, Messages.get("msg.csv2sql.interrupted.delete.failure", destinationFile), e);
 				}
+				final File indexFile = getIndexFile(destinationFile);
+				if (isCompressedScript() && compressionIndex && indexFile.exists()) {
+					try {
+						Files.delete(indexFile.toPath());
+					}
+					catch (final IOException e) {
+						logger.log(Level.WARNING, Messages.get("msg.csv2sql.interrupted.delete.failure", indexFile), e);
+					}
+				}
 			}
 		}
 	}
 
 	void convert(final String sourceFileName, final LineNumberReader reader, final BufferedWriter writer, final CancellationStatus status) throws IOException, InterruptedException {
-		final String firstLine = reader.readLine();
+		convert(sourceFileName, LineReader.of(reader), writer, status);
+	}
+
+	/**
+	 * Converts a CSV file that can be read only once. The lines sampled to
+	 * infer the types of the columns are read ahead, within the budget shared
+	 * by the files converted at the same time.
+	 */
+	void convert(final String sourceFileName, final LineReader reader, final BufferedWriter writer, final CancellationStatus status) throws IOException, InterruptedException {
+		final CharSequence firstLine = reader.readLine();
 		if (firstLine != null) {
-			final String[] csvColumnNames = firstLine.trim().split(csvSeparator);
-			final List<String> sqlColumnNames = getSqlColumnNames(csvColumnNames);
-			String line;
-			while ((line = reader.readLine()) != null) {
-				line = line.trim();
-				if (!line.isEmpty()) { // skip empty lines
-					try {
-						writeLine(line, writer, sqlColumnNames);
+			final String headerLine = firstLine.toString();
+			final long bodyOffset = reader.getOffset();
+			try (final LookaheadLineReader body = new LookaheadLineReader(reader, isTypedValues() ? typeInferenceRows : 0, lookaheadBudget)) {
+				convertBody(sourceFileName, body, writer, getSqlColumnNames(headerLine), new TableDefinition(this).getColumnTypes(headerLine, body.getLines()), getSelectedFields(headerLine), bodyOffset, status);
+			}
+		}
+	}
+
+	/**
+	 * @param columnTypes the types of the columns, or <code>null</code> if the
+	 *        typed values are disabled
+	 */
+	private void convert(final String sourceFileName, final LineReader reader, final BufferedWriter writer, final ColumnType[] columnTypes, final CancellationStatus status) throws IOException, InterruptedException {
+		final CharSequence firstLine = reader.readLine();
+		if (firstLine != null) {
+			final String headerLine = firstLine.toString();
+			convertBody(sourceFileName, reader, writer, getSqlColumnNames(headerLine), columnTypes, getSelectedFields(headerLine), reader.getOffset(), status);
+		}
+	}
+
+	private void resume(final String sourceFileName, final LineReader headerReader, final FileChannel channel, final Charset readCharset, final BufferedWriter writer, final CancellationStatus status, final LoadMarker from) throws IOException, InterruptedException {
+		final CharSequence firstLine = headerReader.readLine();
+		if (firstLine != null) {
+			final List<String> sqlColumnNames = getSqlColumnNames(firstLine.toString());
+			final long bodyOffset = headerReader.getOffset();
+			if (from.getOffset() < bodyOffset || from.getOffset() > channel.size()) {
+				throw new IllegalArgumentException("The marker offset is outside the file body: " + from.getOffset());
+			}
+			final ColumnType[] columnTypes = new TableDefinition(this).getColumnTypes(firstLine.toString(), channel, readCharset, bodyOffset, channel.size(), status); // the types of the whole file, as in the first run
+			convertBody(sourceFileName, newLineReader(channel, readCharset, from.getOffset(), from.getLineNumber() - 1), writer, sqlColumnNames, columnTypes, getSelectedFields(firstLine.toString()), bodyOffset, status);
+		}
+	}
+
+	private void convertBody(final String sourceFileName, final LineReader reader, final BufferedWriter writer, final List<String> sqlColumnNames, final ColumnType[] columnTypes, final boolean[] selectedFields, final long bodyOffset, final CancellationStatus status) throws IOException, InterruptedException {
+		final String fileName = new File(sourceFileName).getName();
+		final long startOffset = reader.getOffset();
+		if (isPeriodicCommit() && startOffset >= 0) {
+			writeMarker(writer, new LoadMarker(fileName, startOffset, reader.getLineNumber() + 1));
+		}
+		try {
+			convertLines(sourceFileName, reader, writer, sqlColumnNames, columnTypes, selectedFields, bodyOffset, (w, offset, lineNumber) -> {
+				if (offset >= 0 && offset == startOffset) {
+					return; // resuming from this marker
+				}
+				writeCommit(w);
+				if (offset >= 0) {
+					writeMarker(w, new LoadMarker(fileName, offset, lineNumber));
+				}
+			}, status);
+		}
+		catch (final RowConversionException e) {
+			throw new IOException(Messages.get("err.csv2sql.runnable", sourceFileName, e.getLineNumber()), e.getCause());
+		}
+		writeCommit(writer);
+	}
+
+	/**
+	 * Converts all the remaining lines of the reader. The line numbers carried
+	 * by a {@link RowConversionException} and passed to the
+	 * {@link CommitHandler} are relative to the reader, so that the caller can
+	 * translate them when the reader covers only a part of the file.
+	 *
+	 * @param sourceFileName the name of the file, to which the statistics of
+	 *        the conversion are attributed
+	 * @param columnTypes the types of the columns, or <code>null</code> to
+	 *        write every value except the response time as a string
+	 * @param selectedFields the fields to convert, or <code>null</code> for
+	 *        all
+	 * @param bodyOffset the byte offset of the line that follows the header,
+	 *        used to compute the commit points
+	 */
+	void convertLines(final String sourceFileName, final LineReader reader, final BufferedWriter writer, final List<String> sqlColumnNames, final ColumnType[] columnTypes, final boolean[] selectedFields, final long bodyOffset, final CommitHandler commitHandler, final CancellationStatus status) throws IOException, InterruptedException, RowConversionException {
+		final CsvTokenizer tokenizer = newTokenizer(selectedFields);
+		final RowFormatter formatter = new RowFormatter(this, columnTypes);
+		final InsertStatementTemplate template = newInsertStatementTemplate(sqlColumnNames);
+		final RowWriter statementWriter;
+		if (outputFormat == OutputFormat.COPY) {
+			statementWriter = new CopyStatementWriter(writer, sqlTableName, template, positionalValues, sqlColumnNames.size());
+		}
+		else {
+			statementWriter = new InsertStatementWriter(writer, template, rowsPerStatement, maxStatementSize, outputCharset);
+		}
+		final CharArrayWriter values = new CharArrayWriter();
+		final boolean periodicCommit = isPeriodicCommit();
+		final ProgressTracker progress = new ProgressTracker(this, sourceFileName, reader, status);
+		long lineOffset = reader.getOffset();
+		CharSequence line;
+		while ((line = reader.readLine()) != null) {
+			progress.stage(Stage.READ);
+			final long lineEnd = reader.getOffset();
+			if (periodicCommit && isCommitPoint(reader.getLineNumber(), lineOffset - bodyOffset, lineEnd - bodyOffset, lineOffset >= 0)) {
+				statementWriter.close();
+				commitHandler.commit(writer, lineOffset, reader.getLineNumber());
+				progress.stage(Stage.WRITE);
+			}
+			try {
+				if (tokenizer.tokenize(line)) { // skip empty lines
+					progress.stage(Stage.TOKENIZE);
+					values.reset();
+					if (outputFormat == OutputFormat.COPY) {
+						formatter.writeCopyValues(tokenizer, values, progress);
 					}
-					catch (final Exception e) {
-						throw new IOException(Messages.get("err.csv2sql.runnable", sourceFileName, reader.getLineNumber()), e);
+					else {
+						formatter.writeValues(tokenizer, values, progress);
 					}
+					statementWriter.write(tokenizer.getFieldCount(), values);
+					progress.stage(Stage.WRITE);
+					progress.row();
 				}
-				if (status != null && status.isCanceled()) {
-					throw new InterruptedException();
+			}
+			catch (final Exception e) {
+				progress.error();
+				throw new RowConversionException(reader.getLineNumber(), e);
+			}
+			progress.line(line);
+			lineOffset = lineEnd;
+		}
+		progress.flush();
+		statementWriter.close();
+	}
+
+	/**
+	 * Loads a CSV file into a database, instead of converting it into a SQL
+	 * script.
+	 *
+	 * @param csvFile the CSV file to load
+	 * @param sink the database destination
+	 * @param status the cancellation status, polled while loading
+	 * @throws IOException if an I/O, a conversion or a database error occurs
+	 * @throws InterruptedException if the load has been canceled; the rows of
+	 *         the transactions not yet committed are rolled back
+	 */
+	public void convert(final File csvFile, final JdbcSink sink, final CancellationStatus status) throws IOException, InterruptedException {
+		if (isZip(csvFile)) {
+			try (final ZipFile zip = new ZipFile(csvFile)) {
+				for (final Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+					final ZipEntry entry = entries.nextElement();
+					if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(CSV_FILE_EXTENSION)) {
+						final String sourceFileName = csvFile.getPath() + "!/" + entry.getName();
+						final ColumnType[] columnTypes = new TableDefinition(this).inferColumnTypes(() -> zip.getInputStream(entry), charset, status);
+						try (final InputStream is = zip.getInputStream(entry)) {
+							new JdbcLoad(this, sink, sourceFileName).load(newLineReader(is), columnTypes, status);
+						}
+						logger.log(Level.INFO, Messages.get("msg.csv2sql.load.success"), sourceFileName);
+					}
 				}
 			}
-			writer.write("COMMIT;");
-			writer.newLine();
 		}
+		else if (isGzip(csvFile)) {
+			final InputStreamSource source = () -> new GZIPInputStream(new FileInputStream(csvFile), GZIP_BUFFER_SIZE);
+			final ColumnType[] columnTypes = new TableDefinition(this).inferColumnTypes(source, charset, status);
+			try (final InputStream is = source.open()) {
+				new JdbcLoad(this, sink, csvFile.getPath()).load(newLineReader(is), columnTypes, status);
+			}
+			logger.log(Level.INFO, Messages.get("msg.csv2sql.load.success"), csvFile);
+		}
+		else {
+			try (final FileChannel fc = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+				final ColumnType[] columnTypes = new TableDefinition(this).inferColumnTypes(fc, charset, status);
+				new JdbcLoad(this, sink, csvFile.getPath()).load(newLineReader(fc), columnTypes, status);
+			}
+			logger.log(Level.INFO, Messages.get("msg.csv2sql.load.success"), csvFile);
+		}
+	}
+
+	private LineReader newLineReader(final FileChannel channel) throws IOException {
+		return newLineReader(channel, charset);
+	}
+
+	/** Returns a reader of a file from its beginning, in any charset. */
+	LineReader newLineReader(final FileChannel channel, final Charset charset) throws IOException {
+		if (ChunkedConversion.isSupported(charset)) {
+			return newLineReader(channel, charset, 0, 0);
+		}
+		else {
+			channel.position(0);
+			return newLineReader(Channels.newInputStream(channel), charset);
+		}
+	}
+
+	private LineReader newLineReader(final InputStream in) {
+		return newLineReader(in, charset);
+	}
+
+	static LineReader newLineReader(final InputStream in, final Charset charset) {
+		if (ChunkedConversion.isSupported(charset)) {
+			return new ByteLineReader(in, charset, 0, 0);
+		}
+		else {
+			return LineReader.of(new LineNumberReader(new InputStreamReader(in, charset)));
+		}
+	}
+
+	/**
+	 * Tells whether a file is a gzip compressed CSV file, that is decompressed
+	 * while it is converted.
+	 *
+	 * @param file the file
+	 * @return <code>true</code> if the name of the file ends with <tt>.gz</tt>
+	 */
+	public static boolean isGzip(final File file) {
+		return file.getName().toLowerCase().endsWith(GZ_FILE_EXTENSION);
+	}
+
+	/**
+	 * Tells whether a file is a zip archive, whose CSV entries are converted
+	 * into separate scripts.
+	 *
+	 * @param file the file
+	 * @return <code>true</code> if the name of the file ends with <tt>.zip</tt>
+	 */
+	public static boolean isZip(final File file) {
+		return file.getName().toLowerCase().endsWith(ZIP_FILE_EXTENSION);
+	}
+
+	/**
+	 * Returns a reader of the lines of a file encoded with a charset supported
+	 * by {@link ChunkedConversion#isSupported(Charset)}, starting from the
+	 * provided offset.
+	 *
+	 * @param lineNumber the number of the line that precedes the offset
+	 */
+	LineReader newLineReader(final FileChannel channel, final Charset charset, final long offset, final int lineNumber) throws IOException {
+		if (memoryMapped) {
+			return new MappedLineReader(channel, charset, offset, lineNumber, MappedLineReader.DEFAULT_WINDOW_SIZE);
+		}
+		else {
+			channel.position(offset);
+			return new ByteLineReader(Channels.newInputStream(channel), charset, offset, lineNumber);
+		}
+	}
+
+	/**
+	 * Opens the writer of an <tt>INSERT</tt> or <tt>COPY</tt> script, that is
+	 * compressed in the BGZF format if compression is enabled.
+	 *
+	 * @param statistics the statistics to which the bytes written are added
+	 * @param threads the threads of the conversion of the file, that compress
+	 *        the script unless the compression threads are set
+	 */
+	private BufferedWriter newScriptWriter(final File file, final Charset charset, final ConversionStatistics statistics, final int threads) throws IOException {
+		if (!isCompressedScript()) {
+			return newWriter(openForWriting(file), charset, statistics);
+		}
+		final FileChannel out = openForWriting(file);
+		FileChannel index = null;
+		final BgzfChannel channel;
+		try {
+			if (compressionIndex) {
+				index = openForWriting(getIndexFile(file));
+			}
+			channel = new BgzfChannel(out, index, compressionThreads > 0 ? compressionThreads : threads);
+		}
+		catch (final IOException | RuntimeException e) {
+			if (index != null) {
+				closeAfterFailure(index, e);
+			}
+			closeAfterFailure(out, e);
+			throw e;
+		}
+		return newWriter(channel, charset, statistics);
+	}
+
+	private boolean isCompressedScript() {
+		return compressed && (outputFormat == OutputFormat.INSERT || outputFormat == OutputFormat.COPY);
+	}
+
+	private static File getIndexFile(final File compressedFile) {
+		return new File(compressedFile.getPath() + GZI_FILE_EXTENSION);
+	}
+
+	BufferedWriter newWriter(final File file, final Charset charset) throws IOException {
+		return newWriter(openForWriting(file), charset, null);
+	}
+
+	/** Wraps a channel in a writer, closing the channel if the writer cannot be created. */
+	private BufferedWriter newWriter(final GatheringByteChannel channel, final Charset charset, final ConversionStatistics statistics) throws IOException {
+		try {
+			return new BufferedWriter(new ChannelWriter(channel, charset, outputBuffers, statistics));
+		}
+		catch (final RuntimeException e) {
+			closeAfterFailure(channel, e);
+			throw e;
+		}
+	}
+
+	private static FileChannel openForWriting(final File file) throws IOException {
+		return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	/** Closes a resource whose initialization failed, without hiding the original exception. */
+	private static void closeAfterFailure(final Closeable closeable, final Exception failure) {
+		try {
+			closeable.close();
+		}
+		catch (final IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+
+	/**
+	 * Tells whether the rows of a file can be converted byte by byte: the
+	 * input and the output charsets must be the same ASCII-compatible charset,
+	 * and all the text generated by the engine (table and column names, file
+	 * name and the header of the file) must be ASCII. In that case the file is
+	 * read and the script is written as ISO-8859-1, that maps every byte to
+	 * the char with the same value and back, so the field bytes are copied
+	 * unchanged from the CSV file to the script, while the syntax of the
+	 * script, the separator and the timestamps are plain ASCII.
+	 */
+	private boolean isByteTransparent(final String fileName, final InputStream csvStream) throws IOException {
+		if (!charset.equals(outputCharset) || !isAsciiCompatible(charset)) {
+			return false;
+		}
+		for (final String text : new String[] { csvSeparator, csvTimestampPattern, sqlTableName, sqlColumnNamesPrefix, sqlTimestampColumnName, sqlResponseTimeColumnName, fileName }) {
+			if (text != null && !isAscii(text)) {
+				return false;
+			}
+		}
+		final BufferedInputStream bis = new BufferedInputStream(csvStream);
+		int b;
+		while ((b = bis.read()) != -1 && b != '\n' && b != '\r') {
+			if (b >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Tells whether ASCII characters are encoded as single bytes that never appear in the encoding of other characters. */
+	static boolean isAsciiCompatible(final Charset charset) {
+		return ASCII_COMPATIBLE_CHARSETS.matcher(charset.name()).matches();
+	}
+
+	private static boolean isAscii(final String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tells whether a commit must precede a line: every {@link #commitRows}
+	 * lines of the body, and before each line that contains a multiple of
+	 * {@link #commitBytes} (relative to the start of the body). Both rules
+	 * depend only on the position of the line in the file, so a regenerated or
+	 * chunked script has the same commit points of the sequential one.
+	 */
+	private boolean isCommitPoint(final int lineNumber, final long start, final long end, final boolean offsetKnown) {
+		if (commitRows > 0 && lineNumber > 2 && (lineNumber - 2) % commitRows == 0) {
+			return true;
+		}
+		return commitBytes > 0 && offsetKnown && start > 0 && (end - 1) / commitBytes > (start - 1) / commitBytes;
+	}
+
+	boolean isPeriodicCommit() {
+		return commitRows > 0 || commitBytes > 0;
+	}
+
+	void writeCommit(final BufferedWriter writer) throws IOException {
+		writer.write("COMMIT;");
+		writer.newLine();
+	}
+
+	void writeMarker(final BufferedWriter writer, final LoadMarker marker) throws IOException {
+		writer.write(marker.toString());
+		writer.newLine();
+	}
+
+	public int getCommitRows() {
+		return commitRows;
+	}
+
+	/**
+	 * Sets the number of CSV lines after which a <tt>COMMIT</tt> is written,
+	 * followed by a {@link LoadMarker} comment. Files are never split into
+	 * parallel chunks when this interval is set, because the line numbers of a
+	 * chunk are known only after the preceding chunks have been converted.
+	 *
+	 * @param commitRows the number of lines per transaction, or <tt>0</tt> to
+	 *        commit only at the end of the script
+	 */
+	public void setCommitRows(final int commitRows) {
+		if (commitRows < 0) {
+			throw new IllegalArgumentException("commitRows must not be negative");
+		}
+		this.commitRows = commitRows;
+	}
+
+	public long getCommitBytes() {
+		return commitBytes;
+	}
+
+	/**
+	 * Sets the number of CSV bytes after which a <tt>COMMIT</tt> is written,
+	 * followed by a {@link LoadMarker} comment.
+	 *
+	 * @param commitBytes the number of bytes per transaction, or <tt>0</tt> to
+	 *        commit only at the end of the script
+	 */
+	public void setCommitBytes(final long commitBytes) {
+		if (commitBytes < 0) {
+			throw new IllegalArgumentException("commitBytes must not be negative");
+		}
+		this.commitBytes = commitBytes;
+	}
+
+	/**
+	 * Returns the number of rows converted or loaded by this engine so far,
+	 * including the ones of the files whose conversion did not complete. The
+	 * rows of the formats that let the database read the CSV files are not
+	 * counted. The count is updated every {@value ProgressTracker#CHECK_INTERVAL}
+	 * lines and at the end of each file.
+	 *
+	 * @return the number of rows
+	 */
+	public long getRowCount() {
+		return metrics.getRowCount();
+	}
+
+	/**
+	 * Returns the number of bytes of CSV data read by this engine so far, in
+	 * the same way as {@link #getRowCount()}. The bytes of compressed files are
+	 * counted after decompression.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getByteCount() {
+		return metrics.getBytesRead();
+	}
+
+	/**
+	 * Returns the live metrics of the conversions of this engine: the totals,
+	 * the statistics of each file, the time spent in each stage of the
+	 * conversion, the current throughput and the utilization of the workers.
+	 *
+	 * @return the metrics
+	 * @see #registerMBean()
+	 */
+	public ConversionMetricsMXBean getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Registers the metrics of this engine in the platform MBean server, so
+	 * that the conversions can be watched with JConsole, replacing the metrics
+	 * of any other engine. A failure is logged, and does not prevent the
+	 * conversions.
+	 *
+	 * @see #getMetrics()
+	 * @see #unregisterMBean()
+	 */
+	public void registerMBean() {
+		metrics.register();
+	}
+
+	/**
+	 * Unregisters the metrics of this engine from the platform MBean server,
+	 * unless they have been replaced by the ones of another engine.
+	 */
+	public void unregisterMBean() {
+		metrics.unregister();
+	}
+
+	ConversionStatistics getStatistics(final String sourceFileName) {
+		return metrics.getFile(sourceFileName);
+	}
+
+	public ProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	/**
+	 * Sets the listener notified of the progress of the conversions, at most
+	 * every {@value #PROGRESS_INTERVAL_MILLIS} milliseconds.
+	 *
+	 * @param progressListener the listener, or <code>null</code>
+	 */
+	public void setProgressListener(final ProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/** Notifies the listener of the progress of the conversions, if it is time to. */
+	void progressChanged() {
+		final ProgressListener listener = progressListener;
+		if (listener != null) {
+			final long now = System.nanoTime();
+			final long next = nextProgressTime.get();
+			if (now - next >= 0 && nextProgressTime.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MILLIS))) {
+				listener.progress(metrics.getBytesRead(), metrics.getRowCount());
+			}
+		}
+	}
+
+	public OutputFormat getOutputFormat() {
+		return outputFormat;
+	}
+
+	/**
+	 * Sets the format of the generated scripts. The {@link OutputFormat#COPY}
+	 * and {@link OutputFormat#COPY_BINARY} formats are specific to PostgreSQL
+	 * and are much faster to load than <tt>INSERT</tt> statements; the
+	 * multi-row statement settings do not apply to them. The binary format
+	 * requires the timestamp column to be a <tt>timestamp</tt>, the response
+	 * time column an <tt>integer</tt> and the other columns <tt>text</tt> or
+	 * <tt>varchar</tt>; periodic commits and load markers are not supported
+	 * by it, because the whole file is loaded by a single <tt>COPY</tt>.
+	 * <p>
+	 * The {@link OutputFormat#isControlScript() control script} formats do not
+	 * convert the rows at all: only the header is read, and the generated
+	 * script lets the database load the original CSV file with its own bulk
+	 * loader. They require a literal separator and a timestamp pattern made of
+	 * numeric fields, month and day names, <tt>AM/PM</tt> markers and
+	 * literals; the script of {@link OutputFormat#SQL_LOADER} is a
+	 * <tt>.ctl</tt> file.
+	 *
+	 * @param outputFormat the script format
+	 */
+	public void setOutputFormat(final OutputFormat outputFormat) {
+		if (outputFormat == null) {
+			throw new NullPointerException("outputFormat cannot be null");
+		}
+		this.outputFormat = outputFormat;
+	}
+
+	public boolean isPositionalValues() {
+		return positionalValues;
+	}
+
+	/**
+	 * Enables or disables positional <tt>INSERT INTO table VALUES (...)</tt>
+	 * statements, without the column list. Use only when the columns of the
+	 * target table are in the same order as the ones of the CSV header. Rows
+	 * with fewer fields than the header keep the column list.
+	 *
+	 * @param positionalValues <code>true</code> to omit the column list
+	 */
+	public void setPositionalValues(final boolean positionalValues) {
+		this.positionalValues = positionalValues;
+	}
+
+	public int getRowsPerStatement() {
+		return rowsPerStatement;
+	}
+
+	/**
+	 * Sets the maximum number of rows packed in a single multi-row
+	 * <tt>INSERT INTO table (...) VALUES (...),(...),...;</tt> statement. Rows
+	 * with a different number of fields always start a new statement. Since a
+	 * statement cannot span the chunks of a file, multi-row statements disable
+	 * the conversion of a single file by more than one thread.
+	 *
+	 * @param rowsPerStatement the number of rows per statement; <tt>1</tt> for
+	 *        the classic one-statement-per-row script
+	 *
+	 * @see #setMaxStatementSize(int)
+	 */
+	public void setRowsPerStatement(final int rowsPerStatement) {
+		if (rowsPerStatement < 1) {
+			throw new IllegalArgumentException("rowsPerStatement must be greater than zero");
+		}
+		this.rowsPerStatement = rowsPerStatement;
+	}
+
+	public int getMaxStatementSize() {
+		return maxStatementSize;
+	}
+
+	/**
+	 * Sets the maximum size in bytes of a multi-row statement, encoded in the
+	 * output charset, so that it stays below the packet or statement length
+	 * limits of the database server. A row that alone exceeds the limit is
+	 * written in a statement of its own.
+	 *
+	 * @param maxStatementSize the maximum statement size in bytes
+	 */
+	public void setMaxStatementSize(final int maxStatementSize) {
+		if (maxStatementSize < 1) {
+			throw new IllegalArgumentException("maxStatementSize must be greater than zero");
+		}
+		this.maxStatementSize = maxStatementSize;
+	}
+
+	public int getTypeInferenceRows() {
+		return typeInferenceRows;
+	}
+
+	/**
+	 * Enables the inference of the column types from the first lines of the
+	 * body of each file. The values of the numeric columns are then written as
+	 * bare numeric literals, and the blank values of all the columns but the
+	 * timestamp and the response time as <tt>NULL</tt>; the values that do not
+	 * match the type of their column, like the ones of the lines that follow
+	 * the sample, are still written as strings. The database loads bind the
+	 * numbers as {@link Long} or {@link BigDecimal} parameters, while the
+	 * binary <tt>COPY</tt> format, whose columns are <tt>text</tt>, only
+	 * writes the <tt>NULL</tt> values. The control script formats are not
+	 * affected.
+	 *
+	 * @param typeInferenceRows the number of lines sampled; <tt>0</tt> (the
+	 *        default) disables the inference
+	 *
+	 * @see #setColumnTypes(Map)
+	 */
+	public void setTypeInferenceRows(final int typeInferenceRows) {
+		if (typeInferenceRows < 0) {
+			throw new IllegalArgumentException("typeInferenceRows must not be negative");
+		}
+		this.typeInferenceRows = typeInferenceRows;
+	}
+
+	public Map<String, ColumnType> getColumnTypes() {
+		return columnTypes;
+	}
+
+	/**
+	 * Sets the types of some columns, identified by their trimmed name in the
+	 * CSV header, overriding the inferred ones. Any type enables the typed values
+	 * even if the inference is disabled, in which case the other columns are
+	 * text. The types of the timestamp and of the response time columns cannot
+	 * be changed.
+	 *
+	 * @param columnTypes the types by column name, except
+	 *        {@link ColumnType#TIMESTAMP}
+	 *
+	 * @see #setTypeInferenceRows(int)
+	 */
+	public void setColumnTypes(final Map<String, ColumnType> columnTypes) {
+		if (columnTypes == null) {
+			throw new NullPointerException("columnTypes cannot be null");
+		}
+		if (columnTypes.containsValue(ColumnType.TIMESTAMP)) {
+			throw new IllegalArgumentException("columnTypes must not contain " + ColumnType.TIMESTAMP);
+		}
+		this.columnTypes = Collections.unmodifiableMap(new HashMap<>(columnTypes));
+	}
+
+	public boolean isCreateTable() {
+		return createTable;
+	}
+
+	/**
+	 * Enables a <tt>CREATE TABLE</tt> statement at the beginning of the
+	 * scripts, with the column types and the <tt>VARCHAR</tt> widths that fit
+	 * the values of the file, found by reading the whole file once before
+	 * converting it. The numeric types are used only if the typed values are
+	 * enabled, and then the types of the whole file replace the ones inferred
+	 * from the first lines. The statement is not written by the resumed and
+	 * tail conversions, by the database loads and by the control script
+	 * formats.
+	 *
+	 * @param createTable <code>true</code> to write the statement
+	 *
+	 * @see #setTypeInferenceRows(int)
+	 */
+	public void setCreateTable(final boolean createTable) {
+		this.createTable = createTable;
+	}
+
+	public List<String> getSelectedColumns() {
+		return selectedColumns;
+	}
+
+	/**
+	 * Restricts the conversion to some columns, identified by their name in
+	 * the CSV header or by a pattern in which <tt>*</tt> matches any sequence
+	 * of characters and <tt>?</tt> any single character (e.g.
+	 * <tt>*NoiseMargin*</tt>), ignoring case. The timestamp and the response
+	 * time are always converted. The other fields are skipped by the tokenizer
+	 * without being copied, and the lines are not split past the last selected
+	 * field, so the fields that exceed the header are ignored instead of
+	 * failing the conversion. The control script formats, that load the CSV
+	 * files as they are, do not support the selection.
+	 *
+	 * @param selectedColumns the names or patterns of the columns to convert;
+	 *        an empty list (the default) converts all the columns
+	 */
+	public void setSelectedColumns(final List<String> selectedColumns) {
+		if (selectedColumns == null) {
+			throw new NullPointerException("selectedColumns cannot be null");
+		}
+		final List<Pattern> patterns = new ArrayList<>(selectedColumns.size());
+		for (final String selectedColumn : selectedColumns) {
+			if (selectedColumn == null) {
+				throw new NullPointerException("selectedColumns cannot contain null");
+			}
+			patterns.add(toColumnPattern(selectedColumn.trim()));
+		}
+		this.selectedColumns = Collections.unmodifiableList(new ArrayList<>(selectedColumns));
+		this.selectedColumnPatterns = patterns;
+	}
+
+	/**
+	 * Tells whether a column is converted according to the column selection.
+	 *
+	 * @param csvColumnName the name of the column in the CSV header
+	 * @return <code>true</code> if the name matches one of the selected names
+	 *         or patterns, or if no column is selected
+	 *
+	 * @see #setSelectedColumns(List)
+	 */
+	public boolean isSelectedColumn(final String csvColumnName) {
+		if (selectedColumnPatterns.isEmpty()) {
+			return true;
+		}
+		for (final Pattern pattern : selectedColumnPatterns) {
+			if (pattern.matcher(csvColumnName).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the names of the columns from the header of a CSV file, possibly
+	 * compressed, so that they can be selected. The header of a zip archive is
+	 * the one of its first CSV entry.
+	 *
+	 * @param csvFile the CSV file
+	 * @return the names of the columns, or an empty list if the file is empty
+	 * @throws IOException if an I/O error occurs
+	 *
+	 * @see #setSelectedColumns(List)
+	 */
+	public List<String> getCsvColumnNames(final File csvFile) throws IOException {
+		if (isZip(csvFile)) {
+			try (final ZipFile zip = new ZipFile(csvFile)) {
+				for (final Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+					final ZipEntry entry = entries.nextElement();
+					if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(CSV_FILE_EXTENSION)) {
+						try (final InputStream is = zip.getInputStream(entry)) {
+							return getCsvColumnNames(is);
+						}
+					}
+				}
+			}
+			return Collections.emptyList();
+		}
+		try (final InputStream is = isGzip(csvFile) ? new GZIPInputStream(new FileInputStream(csvFile), GZIP_BUFFER_SIZE) : new FileInputStream(csvFile)) {
+			return getCsvColumnNames(is);
+		}
+	}
+
+	private List<String> getCsvColumnNames(final InputStream in) throws IOException {
+		final List<String> csvColumnNames = new ArrayList<>();
+		final CharSequence firstLine = newLineReader(in).readLine();
+		if (firstLine != null) {
+			final CsvTokenizer header = newTokenizer();
+			header.tokenize(firstLine);
+			for (int i = 0; i < header.getFieldCount(); i++) {
+				csvColumnNames.add(header.getString(i).trim());
+			}
+		}
+		return csvColumnNames;
+	}
+
+	/**
+	 * Tells whether each statement holds a single row, so that the chunks of a
+	 * file can be converted independently; a multi-row <tt>INSERT</tt> or a
+	 * <tt>COPY</tt> block would be broken at each chunk.
+	 */
+	private boolean isSingleRowStatements() {
+		return outputFormat == OutputFormat.INSERT && rowsPerStatement == 1;
+	}
+
+	boolean isTypedValues() {
+		return typeInferenceRows > 0 || !columnTypes.isEmpty();
+	}
+
+	boolean hasResponseTimeColumn() {
+		return sqlResponseTimeColumnName != null;
+	}
+
+	String getSqlTableName() {
+		return sqlTableName;
+	}
+
+	String getCsvSeparator() {
+		return csvSeparator;
+	}
+
+	String getCsvTimestampPattern() {
+		return csvTimestampPattern;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Sets the charset of the CSV files. It defaults to ISO-8859-1, whatever
+	 * the platform charset, so that with the default output charset the bytes
+	 * of any ASCII-compatible file are written as they are.
+	 *
+	 * @param charset the charset of the CSV files
+	 *
+	 * @see #setOutputCharset(Charset)
+	 */
+	public void setCharset(final Charset charset) {
+		if (charset == null) {
+			throw new NullPointerException("charset cannot be null");
+		}
+		this.charset = charset;
+	}
+
+	public Charset getOutputCharset() {
+		return outputCharset;
+	}
+
+	/**
+	 * Sets the charset of the generated scripts. It defaults to ISO-8859-1,
+	 * whatever the platform charset. When it is the same of the CSV files and
+	 * is ASCII-compatible (UTF-8, ISO-8859-x, windows-125x), the
+	 * <tt>INSERT</tt> and <tt>COPY</tt> scripts are written copying the bytes
+	 * of the fields as they are, without decoding and encoding them; malformed
+	 * input is then copied too, instead of being replaced.
+	 *
+	 * @param outputCharset the charset of the scripts
+	 */
+	public void setOutputCharset(final Charset outputCharset) {
+		if (outputCharset == null) {
+			throw new NullPointerException("outputCharset cannot be null");
+		}
+		this.outputCharset = outputCharset;
+	}
+
+	public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+
+	/**
+	 * Enables or disables the memory-mapped reading of the CSV files that are
+	 * converted by a single thread. The files are mapped in sliding windows of
+	 * a few megabytes, so the heap usage does not depend on their size; when
+	 * disabled, they are read through a small heap buffer instead.
+	 *
+	 * @param memoryMapped <code>true</code> to map the files in memory
+	 */
+	public void setMemoryMapped(final boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public int getOutputBufferSize() {
+		return outputBuffers.getBufferSize();
+	}
+
+	/**
+	 * Sets the size in bytes of the buffers in which the scripts are encoded.
+	 * Up to {@value ChannelWriter#GATHERED_BUFFERS} buffers per file are
+	 * filled before being written with a single system call; the buffers are
+	 * allocated outside of the heap and reused across files.
+	 *
+	 * @param outputBufferSize the size of the output buffers
+	 */
+	public void setOutputBufferSize(final int outputBufferSize) {
+		if (outputBufferSize < 16) {
+			throw new IllegalArgumentException("outputBufferSize must be at least 16");
+		}
+		if (outputBufferSize != outputBuffers.getBufferSize()) {
+			this.outputBuffers = new ByteBufferPool(outputBufferSize);
+		}
+	}
+
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	/**
+	 * Enables or disables the compression of the <tt>INSERT</tt> and
+	 * <tt>COPY</tt> scripts, that are written as <tt>.sql.gz</tt> files in the
+	 * BGZF format: a sequence of independently compressed gzip blocks of less
+	 * than 64 KiB, that is compressed in parallel and can be read by any gzip
+	 * decompressor. The other formats are never compressed.
+	 *
+	 * @param compressed <code>true</code> to compress the scripts
+	 *
+	 * @see #setCompressionIndex(boolean)
+	 * @see #setCompressionThreads(int)
+	 */
+	public void setCompressed(final boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	public boolean isCompressionIndex() {
+		return compressionIndex;
+	}
+
+	/**
+	 * Enables or disables the writing of the index of the compressed blocks,
+	 * next to each compressed script (e.g. <tt>log.sql.gz.gzi</tt>, the format
+	 * of <tt>bgzip -i</tt>), so that the scripts can be read or split in
+	 * parallel.
+	 *
+	 * @param compressionIndex <code>true</code> to write the indexes
+	 */
+	public void setCompressionIndex(final boolean compressionIndex) {
+		this.compressionIndex = compressionIndex;
+	}
+
+	public int getCompressionThreads() {
+		return compressionThreads;
+	}
+
+	/**
+	 * Sets the number of threads that compress each script. By default each
+	 * script is compressed by as many threads as the ones given to the
+	 * conversion of its file, so that the files converted in parallel do not
+	 * start a full set of compression threads each; the conversions that do
+	 * not take a number of threads, like the resumed and the tailed ones, are
+	 * compressed by a single thread.
+	 *
+	 * @param compressionThreads the number of compression threads per file, or
+	 *        <tt>0</tt> to restore the default
+	 */
+	public void setCompressionThreads(final int compressionThreads) {
+		if (compressionThreads < 0) {
+			throw new IllegalArgumentException("compressionThreads cannot be negative");
+		}
+		this.compressionThreads = compressionThreads;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Sets the nominal size in bytes of the ranges in which a file is split
+	 * when it is converted by more than one thread. Each range is extended up
+	 * to the end of its last line.
+	 *
+	 * @param chunkSize the chunk size in bytes
+	 */
+	public void setChunkSize(final int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be greater than zero");
+		}
+		this.chunkSize = chunkSize;
 	}
 
 	File getDestinationFile(final File csvFile, final String destDir) throws IOException {
-		final String csvFileName = csvFile.getName();
+		return getDestinationFile(csvFile, destDir, "");
+	}
+
+	private File getDestinationFile(final File csvFile, final String destDir, final String suffix) throws IOException {
+		final String csvFileName = isGzip(csvFile) ? csvFile.getName().substring(0, csvFile.getName().length() - GZ_FILE_EXTENSION.length()) : csvFile.getName();
 		final String sqlFileName;
+		final String extension = outputFormat == OutputFormat.SQL_LOADER ? CTL_FILE_EXTENSION : isCompressedScript() ? SQL_FILE_EXTENSION + GZ_FILE_EXTENSION : SQL_FILE_EXTENSION;
 		if (csvFileName.toLowerCase().endsWith(CSV_FILE_EXTENSION)) {
-			sqlFileName = csvFileName.substring(0, csvFileName.lastIndexOf('.')) + SQL_FILE_EXTENSION;
+			sqlFileName = csvFileName.substring(0, csvFileName.lastIndexOf('.')) + suffix + extension;
 		}
 		else {
-			sqlFileName = csvFileName + SQL_FILE_EXTENSION;
+			sqlFileName = csvFileName + suffix + extension;
 		}
 		final File sqlFile = new File(destDir + File.separator + sqlFileName);
 		if (sqlFile.exists() || sqlFile.isDirectory()) {
 			throw new IOException(Messages.get("err.csv2sql.destination.exists", sqlFile));
 		}
+		if (isCompressedScript() && compressionIndex) {
+			final File indexFile = getIndexFile(sqlFile);
+			if (indexFile.exists() || indexFile.isDirectory()) {
+				throw new IOException(Messages.get("err.csv2sql.destination.exists", indexFile));
+			}
+		}
 		return sqlFile;
 	}
 
-	private List<String> getSqlColumnNames(final String[] csvColumnNames) {
+	/**
+	 * Returns the SQL names of the columns of a file, restricted to the
+	 * selected ones.
+	 */
+	List<String> getSqlColumnNames(final String headerLine) {
+		final CsvTokenizer csvColumnNames = newTokenizer(getSelectedFields(headerLine));
+		csvColumnNames.tokenize(headerLine);
 		final List<String> sqlColumnNames = new ArrayList<>();
 		sqlColumnNames.add(getSqlColumnName(sqlTimestampColumnName, sqlColumnNamesPrefix, sqlMaxLengthColumnNames));
-		for (int i = 1; i < csvColumnNames.length; i++) {
+		for (int i = 1; i < csvColumnNames.getFieldCount(); i++) {
 			if (i == 1 && sqlResponseTimeColumnName != null) {
 				sqlColumnNames.add(getSqlColumnName(sqlResponseTimeColumnName, sqlColumnNamesPrefix, sqlMaxLengthColumnNames));
 			}
 			else {
-				sqlColumnNames.add(getSqlColumnName(csvColumnNames[i], sqlColumnNamesPrefix, sqlMaxLengthColumnNames));
+				sqlColumnNames.add(getSqlColumnName(csvColumnNames.getString(i), sqlColumnNamesPrefix, sqlMaxLengthColumnNames));
 			}
 		}
 		return sqlColumnNames;
 	}
 
-	private void writeLine(final String csv, final BufferedWriter sql, final List<? extends CharSequence> tableColumnNames) throws IOException, ParseException {
-		sql.append("INSERT INTO ").append(sqlTableName).append(" (");
-		final String[] values = csv.split(csvSeparator);
-		for (int i = 0; i < values.length; i++) {
-			sql.append(tableColumnNames.get(i));
-			if (i != values.length - 1) {
-				sql.write(',');
-			}
+	CsvTokenizer newTokenizer() {
+		return new CsvTokenizer(csvSeparator);
+	}
+
+	/**
+	 * @param selectedFields the fields to tokenize, or <code>null</code> for
+	 *        all
+	 *
+	 * @see #getSelectedFields(String)
+	 */
+	CsvTokenizer newTokenizer(final boolean[] selectedFields) {
+		final CsvTokenizer tokenizer = newTokenizer();
+		tokenizer.setSelectedFields(selectedFields);
+		return tokenizer;
+	}
+
+	/**
+	 * Returns the fields of a file that match the column selection: the
+	 * timestamp, the response time (if configured) and the columns whose name
+	 * in the header matches one of the selected names or patterns.
+	 *
+	 * @return the selected fields, or <code>null</code> if all the columns are
+	 *         selected
+	 */
+	boolean[] getSelectedFields(final String headerLine) {
+		if (selectedColumnPatterns.isEmpty()) {
+			return null;
 		}
-		sql.append(") VALUES (TIMESTAMP '").append(ansiSqlTimestampFormat.format(csvDateFormat.parse(values[0].trim()))).write('\'');
-		for (int i = 1; i < values.length; i++) {
-			sql.write(',');
-			if (i == 1 && sqlResponseTimeColumnName != null) {
-				sql.append(Integer.toString(Integer.parseInt(values[i].trim())));
-			}
-			else {
-				sql.append('\'').append(values[i].replace("'", "''")).write('\'');
+		final CsvTokenizer header = newTokenizer();
+		header.tokenize(headerLine);
+		final boolean[] selectedFields = new boolean[header.getFieldCount()];
+		for (int i = 0; i < selectedFields.length; i++) {
+			selectedFields[i] = i == 0 || i == 1 && sqlResponseTimeColumnName != null || isSelectedColumn(header.getString(i).trim());
+		}
+		return selectedFields;
+	}
+
+	/** Translates a name with the <tt>*</tt> and <tt>?</tt> wildcards into a case-insensitive pattern. */
+	private static Pattern toColumnPattern(final String selectedColumn) {
+		final StringBuilder regex = new StringBuilder();
+		int literalStart = 0;
+		for (int i = 0; i < selectedColumn.length(); i++) {
+			final char c = selectedColumn.charAt(i);
+			if (c == '*' || c == '?') {
+				if (i > literalStart) {
+					regex.append(Pattern.quote(selectedColumn.substring(literalStart, i)));
+				}
+				regex.append(c == '*' ? ".*" : ".");
+				literalStart = i + 1;
 			}
 		}
-		sql.append(");");
-		sql.newLine();
+		if (literalStart < selectedColumn.length()) {
+			regex.append(Pattern.quote(selectedColumn.substring(literalStart)));
+		}
+		return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+	}
+
+	TimestampTranscoder newTimestampTranscoder() {
+		return new TimestampTranscoder(csvTimestampPattern);
+	}
+
+	InsertStatementTemplate newInsertStatementTemplate(final List<String> sqlColumnNames) {
+		return new InsertStatementTemplate(sqlTableName, sqlColumnNames, positionalValues);
 	}
 
 	private String getSqlColumnName(final String name, final String prefix, final int maxLength) {
@@ -163,4 +1591,68 @@ public class CsvToSqlEngine {
 		return completeName;
 	}
 
+	/** A conversion that writes a script. */
+	private interface Conversion {
+		void run() throws IOException, InterruptedException;
+	}
+
+	/** Opens a new stream on the same CSV data each time. */
+	interface InputStreamSource {
+		InputStream open() throws IOException;
+	}
+
+	/** Writes a periodic commit, and possibly a marker for the next chunk. */
+	interface CommitHandler {
+		/**
+		 * @param writer the SQL script
+		 * @param offset the byte offset of the next line, or <tt>-1</tt> if
+		 *        unknown
+		 * @param lineNumber the number of the next line, relative to the reader
+		 */
+		void commit(BufferedWriter writer, long offset, int lineNumber) throws IOException;
+	}
+
+	/** The complete lines of a growing file that follow a checkpoint. */
+	private class TailRange {
+		private final List<String> sqlColumnNames;
+		private final ColumnType[] columnTypes;
+		private final boolean[] selectedFields;
+		private final long bodyOffset;
+		private final LoadMarker start;
+		private final long end;
+
+		private TailRange(final List<String> sqlColumnNames, final ColumnType[] columnTypes, final boolean[] selectedFields, final long bodyOffset, final LoadMarker start, final long end) {
+			this.sqlColumnNames = sqlColumnNames;
+			this.columnTypes = columnTypes;
+			this.selectedFields = selectedFields;
+			this.bodyOffset = bodyOffset;
+			this.start = start;
+			this.end = end;
+		}
+
+		private boolean isEmpty() {
+			return start.getOffset() >= end;
+		}
+
+		private LineReader newReader(final FileChannel channel, final Charset readCharset) throws IOException {
+			return LineReader.bounded(newLineReader(channel, readCharset, start.getOffset(), start.getLineNumber() - 1), end);
+		}
+	}
+
+	static class RowConversionException extends Exception {
+
+		private static final long serialVersionUID = -3546420811413327447L;
+
+		private final int lineNumber;
+
+		RowConversionException(final int lineNumber, final Throwable cause) {
+			super(cause);
+			this.lineNumber = lineNumber;
+		}
+
+		int getLineNumber() {
+			return lineNumber;
+		}
+	}
+
 }
@@ -0,0 +1,400 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits CSV lines into fields without allocating objects per line or per
+ * field. Each line is copied into a reusable buffer and the fields are
+ * exposed as offsets into that buffer.
+ * <p>
+ * When the separator is a literal string (or a regular expression that only
+ * matches a literal string, like <tt>\|</tt>), fields enclosed in double
+ * quotes are handled as described by RFC 4180: the separator is allowed
+ * inside them and doubled quotes are unescaped in place. Since the lines are
+ * split by the readers before being tokenized, a quoted field cannot contain
+ * line breaks, and a field whose closing quote is missing is rejected.
+ * Unquoted fields are simply scanned up to the next separator. Any other
+ * regular expression is matched with a reusable {@link Matcher}, without
+ * quote handling.
+ * <p>
+ * Like {@link String#split(String)}, trailing empty fields are discarded.
+ * <p>
+ * A {@link #setSelectedFields(boolean[]) selection} of fields can be set to
+ * project the lines: the other fields are scanned only to find the
+ * separators, are never stored and do not count in the indexes of the
+ * selected ones, and a literal separator is no longer searched past the last
+ * selected field. The result is the same as splitting the whole line and then
+ * removing the fields not selected.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class CsvTokenizer {
+
+	private static final String REGEX_METACHARACTERS = ".$|()[]{}^?*+\\";
+
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	private static final int INITIAL_FIELD_COUNT = 128;
+
+	private final char[] separator;
+	private final Pattern pattern;
+
+	private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+	private int length;
+
+	private int[] starts = new int[INITIAL_FIELD_COUNT];
+	private int[] ends = new int[INITIAL_FIELD_COUNT];
+	private boolean[] quoted = new boolean[INITIAL_FIELD_COUNT];
+	private int fieldCount;
+
+	private boolean[] selectedFields;
+	private int lastSelectedField = Integer.MAX_VALUE;
+	private int lineFieldCount; // selected or not
+	private int nonEmptyFieldCount; // stored fields up to the last non-empty field of the line
+
+	private CharBuffer charBuffer;
+	private Matcher matcher;
+
+	/**
+	 * Creates a new tokenizer.
+	 *
+	 * @param csvSeparator the separator, as a regular expression (see
+	 *        {@link String#split(String)})
+	 */
+	CsvTokenizer(final String csvSeparator) {
+		final String literal = toLiteral(csvSeparator);
+		if (literal != null) {
+			separator = literal.toCharArray();
+			pattern = null;
+		}
+		else {
+			separator = null;
+			pattern = Pattern.compile(csvSeparator);
+		}
+	}
+
+	/**
+	 * Sets the fields to keep, by their index in the line. The fields after
+	 * the end of the array are not selected.
+	 *
+	 * @param selectedFields the selected fields, or <code>null</code> to keep
+	 *        all the fields
+	 */
+	void setSelectedFields(final boolean[] selectedFields) {
+		this.selectedFields = selectedFields;
+		lastSelectedField = Integer.MAX_VALUE;
+		if (selectedFields != null) {
+			lastSelectedField = -1;
+			for (int i = 0; i < selectedFields.length; i++) {
+				if (selectedFields[i]) {
+					lastSelectedField = i;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits a line. Leading and trailing whitespace is ignored.
+	 *
+	 * @param line the line to split
+	 * @return <code>false</code> if the line is blank, otherwise
+	 *         <code>true</code>
+	 * @throws IllegalArgumentException if a quoted field is not terminated
+	 */
+	boolean tokenize(final CharSequence line) {
+		int begin = 0;
+		int end = line.length();
+		while (begin < end && line.charAt(begin) <= ' ') {
+			begin++;
+		}
+		while (end > begin && line.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		fieldCount = 0;
+		lineFieldCount = 0;
+		nonEmptyFieldCount = 0;
+		length = end - begin;
+		if (length == 0) {
+			return false;
+		}
+		ensureBufferCapacity(length);
+		if (line instanceof String) {
+			((String) line).getChars(begin, end, buffer, 0);
+		}
+		else if (line instanceof CharBuffer && ((CharBuffer) line).hasArray()) {
+			final CharBuffer chars = (CharBuffer) line;
+			System.arraycopy(chars.array(), chars.arrayOffset() + chars.position() + begin, buffer, 0, length);
+		}
+		else {
+			for (int i = 0; i < length; i++) {
+				buffer[i] = line.charAt(begin + i);
+			}
+		}
+		if (separator != null) {
+			splitLiteral();
+		}
+		else {
+			splitRegex();
+		}
+		fieldCount = nonEmptyFieldCount; // discard trailing empty fields
+		return true;
+	}
+
+	int getFieldCount() {
+		return fieldCount;
+	}
+
+	/** Returns the buffer holding the fields of the current line. Valid until the next call to {@link #tokenize(CharSequence)}. */
+	char[] getBuffer() {
+		return buffer;
+	}
+
+	int getStart(final int field) {
+		return starts[checkIndex(field)];
+	}
+
+	int getEnd(final int field) {
+		return ends[checkIndex(field)];
+	}
+
+	int getLength(final int field) {
+		return ends[checkIndex(field)] - starts[field];
+	}
+
+	boolean isQuoted(final int field) {
+		return quoted[checkIndex(field)];
+	}
+
+	String getString(final int field) {
+		return new String(buffer, getStart(field), getLength(field));
+	}
+
+	/**
+	 * Parses a field as a signed decimal integer, ignoring leading and
+	 * trailing whitespace, exactly like
+	 * <code>Integer.parseInt(field.trim())</code> but without allocating.
+	 *
+	 * @param field the index of the field
+	 * @return the parsed value
+	 * @throws NumberFormatException if the field is not a valid integer
+	 */
+	int parseInt(final int field) {
+		int begin = getStart(field);
+		int end = ends[field];
+		while (begin < end && buffer[begin] <= ' ') {
+			begin++;
+		}
+		while (end > begin && buffer[end - 1] <= ' ') {
+			end--;
+		}
+		if (begin == end) {
+			throw new NumberFormatException("For input string: \"\"");
+		}
+		boolean negative = false;
+		int i = begin;
+		if (buffer[i] == '-' || buffer[i] == '+') {
+			negative = buffer[i] == '-';
+			if (++i == end) {
+				throw newNumberFormatException(begin, end);
+			}
+		}
+		final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int result = 0;
+		for (; i < end; i++) {
+			final int digit = buffer[i] - '0';
+			if (digit < 0 || digit > 9 || result < limit / 10) {
+				throw newNumberFormatException(begin, end);
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw newNumberFormatException(begin, end);
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	private void splitLiteral() {
+		int position = 0;
+		while (true) {
+			if (position < length && buffer[position] == '"') {
+				position = readQuotedField(position);
+			}
+			else {
+				final int next = indexOfSeparator(position);
+				addField(position, next < 0 ? length : next, false);
+				position = next;
+			}
+			if (position < 0) {
+				return;
+			}
+			if (lineFieldCount > lastSelectedField) {
+				if (!isEmptyFields(position)) {
+					nonEmptyFieldCount = fieldCount;
+				}
+				return; // no more selected fields
+			}
+			position += separator.length;
+		}
+	}
+
+	/** Tells whether the rest of the line, from a separator, contains only empty fields. */
+	private boolean isEmptyFields(final int from) {
+		for (int i = from; i < length; i += separator.length) {
+			for (int j = 0; j < separator.length; j++) {
+				if (i + j >= length || buffer[i + j] != separator[j]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a field enclosed in double quotes, unescaping doubled quotes in
+	 * place. Any text between the closing quote and the next separator is
+	 * kept as part of the value.
+	 *
+	 * @return the position of the next separator, or -1 if the line ends
+	 * @throws IllegalArgumentException if the closing quote is missing
+	 */
+	private int readQuotedField(final int start) {
+		int read = start + 1;
+		int write = start;
+		boolean closed = false;
+		while (read < length) {
+			final char c = buffer[read++];
+			if (c == '"') {
+				if (read < length && buffer[read] == '"') {
+					read++;
+				}
+				else {
+					closed = true;
+					break;
+				}
+			}
+			buffer[write++] = c;
+		}
+		if (!closed) {
+			throw new IllegalArgumentException("Unterminated quoted field: " + (lineFieldCount + 1));
+		}
+		final int next = indexOfSeparator(read);
+		final int end = next < 0 ? length : next;
+		while (read < end) {
+			buffer[write++] = buffer[read++];
+		}
+		addField(start, write, true);
+		return next;
+	}
+
+	private int indexOfSeparator(final int from) {
+		final char first = separator[0];
+		final int max = length - separator.length;
+		for (int i = from; i <= max; i++) {
+			if (buffer[i] == first) {
+				int j = 1;
+				while (j < separator.length && buffer[i + j] == separator[j]) {
+					j++;
+				}
+				if (j == separator.length) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private void splitRegex() {
+		if (charBuffer == null || charBuffer.array() != buffer) {
+			charBuffer = CharBuffer.wrap(buffer);
+			matcher = pattern.matcher(charBuffer);
+		}
+		charBuffer.clear();
+		charBuffer.limit(length);
+		matcher.reset(charBuffer);
+		int index = 0;
+		while (matcher.find()) {
+			if (index == 0 && matcher.start() == 0 && matcher.end() == 0) {
+				continue; // no leading empty field for a zero-width match at the beginning
+			}
+			addField(index, matcher.start(), false);
+			index = matcher.end();
+		}
+		addField(index, length, false);
+	}
+
+	private void addField(final int start, final int end, final boolean quotedField) {
+		final int field = lineFieldCount++;
+		if (selectedFields != null && (field >= selectedFields.length || !selectedFields[field])) {
+			if (end > start || quotedField) {
+				nonEmptyFieldCount = fieldCount; // keeps the empty selected fields that precede it
+			}
+			return;
+		}
+		if (fieldCount == starts.length) {
+			final int newLength = fieldCount * 2;
+			starts = Arrays.copyOf(starts, newLength);
+			ends = Arrays.copyOf(ends, newLength);
+			quoted = Arrays.copyOf(quoted, newLength);
+		}
+		starts[fieldCount] = start;
+		ends[fieldCount] = end;
+		quoted[fieldCount] = quotedField;
+		fieldCount++;
+		if (end > start || quotedField) {
+			nonEmptyFieldCount = fieldCount;
+		}
+	}
+
+	private void ensureBufferCapacity(final int capacity) {
+		if (buffer.length < capacity) {
+			buffer = new char[Math.max(capacity, buffer.length * 2)];
+		}
+	}
+
+	private int checkIndex(final int field) {
+		if (field < 0 || field >= fieldCount) {
+			throw new ArrayIndexOutOfBoundsException(field);
+		}
+		return field;
+	}
+
+	private NumberFormatException newNumberFormatException(final int begin, final int end) {
+		return new NumberFormatException("For input string: \"" + new String(buffer, begin, end - begin) + '"');
+	}
+
+	/**
+	 * Returns the literal string matched by a regular expression made only of
+	 * ordinary characters and escaped non-alphanumeric characters.
+	 *
+	 * @param regex the regular expression
+	 * @return the literal string, or <code>null</code> if the expression is
+	 *         not a literal
+	 */
+	static String toLiteral(final String regex) {
+		final StringBuilder literal = new StringBuilder(regex.length());
+		for (int i = 0; i < regex.length(); i++) {
+			final char c = regex.charAt(i);
+			if (c == '\\') {
+				if (++i == regex.length()) {
+					return null;
+				}
+				final char escaped = regex.charAt(i);
+				if (escaped < 128 && Character.isLetterOrDigit(escaped)) {
+					return null; // \d, \s, \t, \1, ...
+				}
+				literal.append(escaped);
+			}
+			else if (REGEX_METACHARACTERS.indexOf(c) != -1 || Character.isHighSurrogate(c)) {
+				return null;
+			}
+			else {
+				literal.append(c);
+			}
+		}
+		return literal.length() > 0 ? literal.toString() : null;
+	}
+
+}
@@ -0,0 +1,96 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.util.List;
+
+/**
+ * Precompiled <tt>INSERT INTO ... VALUES</tt> prefixes for the rows of a
+ * file. The column list depends only on the header and on the number of
+ * fields of the row (trailing empty fields are discarded), so each prefix is
+ * built the first time a row with that field count is found.
+ * <p>
+ * In positional mode the column list is omitted for the rows that have a
+ * value for every column, relying on the target table having the columns in
+ * the same order as the CSV header; shorter rows keep the column list.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class InsertStatementTemplate {
+
+	private static final String INSERT_INTO = "INSERT INTO ";
+	private static final String VALUES = "VALUES ";
+
+	private final String sqlTableName;
+	private final List<String> sqlColumnNames;
+	private final boolean positional;
+
+	private final char[][] prefixes;
+
+	InsertStatementTemplate(final String sqlTableName, final List<String> sqlColumnNames, final boolean positional) {
+		this.sqlTableName = sqlTableName;
+		this.sqlColumnNames = sqlColumnNames;
+		this.positional = positional;
+		this.prefixes = new char[sqlColumnNames.size() + 1][];
+	}
+
+	/**
+	 * Returns the statement prefix for a row, up to and including the
+	 * <tt>VALUES</tt> keyword and the following space.
+	 *
+	 * @param fieldCount the number of fields of the row
+	 * @return the prefix (must not be modified)
+	 * @throws IndexOutOfBoundsException if the row has more fields than the
+	 *         header
+	 */
+	char[] getPrefix(final int fieldCount) {
+		if (fieldCount < 1 || fieldCount >= prefixes.length) {
+			throw new IndexOutOfBoundsException("Field count: " + fieldCount + ", columns: " + sqlColumnNames.size());
+		}
+		char[] prefix = prefixes[fieldCount];
+		if (prefix == null) {
+			prefix = buildPrefix(fieldCount).toCharArray();
+			prefixes[fieldCount] = prefix;
+		}
+		return prefix;
+	}
+
+	/**
+	 * Returns a complete statement with a <tt>?</tt> placeholder for each
+	 * value, suitable for a {@link java.sql.PreparedStatement}.
+	 *
+	 * @param fieldCount the number of fields of the row
+	 * @return the statement, without the trailing semicolon
+	 * @throws IndexOutOfBoundsException if the row has more fields than the
+	 *         header
+	 */
+	String getParameterizedStatement(final int fieldCount) {
+		final StringBuilder statement = new StringBuilder().append(getPrefix(fieldCount)).append('(');
+		for (int i = 0; i < fieldCount; i++) {
+			if (i != 0) {
+				statement.append(',');
+			}
+			statement.append('?');
+		}
+		return statement.append(')').toString();
+	}
+
+	/** Returns the column list, enclosed in parentheses, for the provided number of fields. */
+	String getColumnList(final int fieldCount) {
+		final StringBuilder columns = new StringBuilder("(");
+		for (int i = 0; i < fieldCount; i++) {
+			if (i != 0) {
+				columns.append(',');
+			}
+			columns.append(sqlColumnNames.get(i));
+		}
+		return columns.append(')').toString();
+	}
+
+	private String buildPrefix(final int fieldCount) {
+		final StringBuilder prefix = new StringBuilder(INSERT_INTO).append(sqlTableName).append(' ');
+		if (!positional || fieldCount != sqlColumnNames.size()) {
+			prefix.append(getColumnList(fieldCount)).append(' ');
+		}
+		return prefix.append(VALUES).toString();
+	}
+
+}
@@ -0,0 +1,135 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the rows of a file as <tt>INSERT</tt> statements. Up to a
+ * configurable number of rows are packed in a single multi-row statement
+ * (<tt>INSERT INTO t (...) VALUES (...),(...),...;</tt>); a new statement is
+ * started when the field count changes or when the next row would exceed the
+ * maximum statement size. With one row per statement the output is the
+ * classic one-statement-per-row script.
+ * <p>
+ * The statement size is measured in bytes of the output charset: exactly for
+ * the single-byte charsets and UTF-8, and with the maximum number of bytes
+ * per character of the charset for the others.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class InsertStatementWriter implements RowWriter {
+
+	private static final int LINE_SEPARATOR_LENGTH = System.lineSeparator().length();
+
+	private final BufferedWriter out;
+	private final InsertStatementTemplate template;
+	private final int rowsPerStatement;
+	private final int maxStatementSize;
+	private final boolean utf8;
+	private final int asciiBytes; // bytes of an ASCII character
+	private final int maxBytesPerChar;
+
+	private int fieldCount;
+	private int rows;
+	private long size;
+
+	/**
+	 * @param maxStatementSize the maximum size of a statement in bytes
+	 * @param charset the charset in which the statements are encoded
+	 */
+	InsertStatementWriter(final BufferedWriter out, final InsertStatementTemplate template, final int rowsPerStatement, final int maxStatementSize, final Charset charset) {
+		this.out = out;
+		this.template = template;
+		this.rowsPerStatement = rowsPerStatement;
+		this.maxStatementSize = maxStatementSize;
+		this.utf8 = StandardCharsets.UTF_8.equals(charset);
+		this.maxBytesPerChar = (int) Math.ceil(charset.newEncoder().maxBytesPerChar());
+		this.asciiBytes = CsvToSqlEngine.isAsciiCompatible(charset) ? 1 : maxBytesPerChar;
+	}
+
+	/**
+	 * Writes a row.
+	 *
+	 * @param rowFieldCount the number of fields of the row
+	 * @param values the comma-separated SQL literals of the row
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void write(final int rowFieldCount, final CharArrayWriter values) throws IOException {
+		final long tupleSize = getEncodedLength(values) + 2L * asciiBytes;
+		final int separatorSize = (1 + LINE_SEPARATOR_LENGTH) * asciiBytes;
+		if (rows > 0 && (rowFieldCount != fieldCount || size + separatorSize + tupleSize + asciiBytes > maxStatementSize)) {
+			close();
+		}
+		if (rows == 0) {
+			final char[] prefix = template.getPrefix(rowFieldCount);
+			out.write(prefix);
+			size = getEncodedLength(prefix, prefix.length);
+			fieldCount = rowFieldCount;
+		}
+		else {
+			out.write(',');
+			out.newLine();
+			size += separatorSize;
+		}
+		out.write('(');
+		values.writeTo(out);
+		out.write(')');
+		size += tupleSize;
+		if (++rows >= rowsPerStatement) {
+			close();
+		}
+	}
+
+	private long getEncodedLength(final CharArrayWriter values) {
+		if (maxBytesPerChar == 1) {
+			return values.size();
+		}
+		return getEncodedLength(values.toCharArray(), values.size());
+	}
+
+	/**
+	 * Returns the number of bytes of some characters in the output charset, or
+	 * an upper bound of it if the charset is neither single-byte nor UTF-8.
+	 */
+	private long getEncodedLength(final char[] chars, final int length) {
+		if (maxBytesPerChar == 1) {
+			return length;
+		}
+		long bytes = 0;
+		for (int i = 0; i < length; i++) {
+			final char c = chars[i];
+			if (c < 0x80) {
+				bytes += asciiBytes;
+			}
+			else if (!utf8) {
+				bytes += maxBytesPerChar;
+			}
+			else if (c < 0x800 || Character.isSurrogate(c)) {
+				bytes += 2; // a surrogate pair takes 4 bytes
+			}
+			else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Terminates the current statement, if any.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (rows > 0) {
+			out.write(';');
+			out.newLine();
+			rows = 0;
+		}
+	}
+
+}
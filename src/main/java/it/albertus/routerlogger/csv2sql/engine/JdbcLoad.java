@@ -0,0 +1,339 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import it.albertus.routerlogger.csv2sql.engine.ProgressTracker.Stage;
+import it.albertus.routerlogger.csv2sql.resources.Messages;
+import it.albertus.util.DaemonThreadFactory;
+import it.albertus.util.logging.LoggerFactory;
+
+/**
+ * Loads a single file into a database through a {@link JdbcSink}. The lines
+ * are parsed by the calling thread, while the batches are executed by one
+ * thread per connection, so that parsing and database round trips overlap.
+ * Each transaction is bound to a single connection, and no more than two
+ * batches per connection are kept in memory at once.
+ */
+class JdbcLoad {
+
+	private static final Logger logger = LoggerFactory.getLogger(JdbcLoad.class);
+
+	private final CsvToSqlEngine engine;
+	private final JdbcSink sink;
+	private final String sourceFileName;
+
+	JdbcLoad(final CsvToSqlEngine engine, final JdbcSink sink, final String sourceFileName) {
+		this.engine = engine;
+		this.sink = sink;
+		this.sourceFileName = sourceFileName;
+	}
+
+	/**
+	 * Loads the rows of a reader positioned at the header.
+	 *
+	 * @param columnTypes the types of the columns, inferred before the load,
+	 *        or <code>null</code>
+	 */
+	void load(final LineReader reader, final ColumnType[] columnTypes, final CancellationStatus status) throws IOException, InterruptedException {
+		final CharSequence firstLine = reader.readLine();
+		if (firstLine == null) {
+			return;
+		}
+		final String headerLine = firstLine.toString();
+		load(engine.getSqlColumnNames(headerLine), columnTypes, engine.getSelectedFields(headerLine), reader, status);
+	}
+
+	/**
+	 * Loads the rows of a reader positioned after the header, or after any
+	 * line of the body.
+	 *
+	 * @param columnTypes the types of the columns, or <code>null</code>
+	 * @param selectedFields the fields to load, or <code>null</code> for all
+	 */
+	void load(final List<String> sqlColumnNames, final ColumnType[] columnTypes, final boolean[] selectedFields, final LineReader reader, final CancellationStatus status) throws IOException, InterruptedException {
+		final InsertStatementTemplate template = engine.newInsertStatementTemplate(sqlColumnNames); // validates the field count
+
+		final Worker[] workers = new Worker[sink.getCommitInterval() > 0 ? sink.getConnections() : 1];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(sqlColumnNames, columnTypes);
+		}
+		final Deque<Future<?>> pending = new ArrayDeque<>();
+		boolean completed = false;
+		try {
+			final CsvTokenizer tokenizer = engine.newTokenizer(selectedFields);
+			final RowFormatter formatter = new RowFormatter(engine, columnTypes);
+			final ProgressTracker progress = new ProgressTracker(engine, sourceFileName, reader, status);
+
+			Future<?> lastCommit = null;
+			int transaction = 0;
+			int transactionRows = 0;
+			int transactionFirstLine = 0;
+			Batch batch = new Batch();
+			CharSequence line;
+			while ((line = reader.readLine()) != null) {
+				progress.stage(Stage.READ);
+				final boolean row;
+				try {
+					row = tokenizer.tokenize(line);
+				}
+				catch (final IllegalArgumentException e) {
+					progress.error();
+					throw new IOException(Messages.get("err.csv2sql.runnable", sourceFileName, reader.getLineNumber()), e);
+				}
+				if (row) { // skip empty lines
+					progress.stage(Stage.TOKENIZE);
+					try {
+						template.getPrefix(tokenizer.getFieldCount());
+						batch.add(formatter.getParameters(tokenizer, true, progress), reader.getLineNumber());
+						progress.row();
+					}
+					catch (final Exception e) {
+						progress.error();
+						throw new IOException(Messages.get("err.csv2sql.runnable", sourceFileName, reader.getLineNumber()), e);
+					}
+					if (transactionRows++ == 0) {
+						transactionFirstLine = reader.getLineNumber();
+					}
+					final Worker worker = workers[transaction % workers.length];
+					final boolean endOfTransaction = transactionRows == sink.getCommitInterval();
+					if (batch.size() == sink.getBatchSize() || endOfTransaction) {
+						final Batch full = batch;
+						pending.add(worker.submit(() -> worker.execute(full)));
+						batch = new Batch();
+					}
+					if (endOfTransaction) {
+						lastCommit = commit(worker, lastCommit, transactionFirstLine, reader.getLineNumber());
+						pending.add(lastCommit);
+						transaction++;
+						transactionRows = 0;
+					}
+					while (pending.size() > workers.length * 2) {
+						get(pending.remove());
+					}
+					progress.stage(Stage.WRITE);
+				}
+				progress.line(line);
+			}
+			progress.flush();
+			if (transactionRows > 0) {
+				final Worker worker = workers[transaction % workers.length];
+				if (batch.size() > 0) {
+					final Batch last = batch;
+					pending.add(worker.submit(() -> worker.execute(last)));
+				}
+				pending.add(commit(worker, lastCommit, transactionFirstLine, reader.getLineNumber()));
+			}
+			while (!pending.isEmpty()) {
+				get(pending.remove());
+			}
+			completed = true;
+		}
+		finally {
+			for (final Worker worker : workers) {
+				worker.close(!completed);
+			}
+		}
+	}
+
+	private Future<?> commit(final Worker worker, final Future<?> previous, final int firstLine, final int lastLine) {
+		final boolean ordered = sink.isOrderedCommit();
+		return worker.submit(() -> {
+			if (ordered && previous != null) {
+				previous.get(); // fails if any preceding transaction failed
+			}
+			if (worker.failure != null) {
+				throw worker.failure; // never commit a transaction with a failed batch
+			}
+			try {
+				worker.getConnection().commit();
+			}
+			catch (final SQLException e) {
+				throw new LoadException(firstLine, lastLine, e);
+			}
+			return null;
+		});
+	}
+
+	private void get(final Future<?> future) throws IOException, InterruptedException {
+		try {
+			future.get();
+		}
+		catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof LoadException) {
+				final LoadException le = (LoadException) cause;
+				throw new IOException(Messages.get("err.csv2sql.jdbc", sourceFileName, le.firstLine, le.lastLine), le.getCause());
+			}
+			else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			else {
+				throw new IOException(cause);
+			}
+		}
+	}
+
+	/** Rows of a batch, with the line numbers of the first and of the last one. */
+	private static class Batch {
+		private final List<Object[]> rows = new ArrayList<>();
+		private int firstLine;
+		private int lastLine;
+
+		private void add(final Object[] row, final int lineNumber) {
+			if (rows.isEmpty()) {
+				firstLine = lineNumber;
+			}
+			rows.add(row);
+			lastLine = lineNumber;
+		}
+
+		private int size() {
+			return rows.size();
+		}
+	}
+
+	/** Returns the {@link Types JDBC type} of the parameters of a column. */
+	private static int getSqlType(final ColumnType columnType) {
+		switch (columnType) {
+		case TIMESTAMP:
+			return Types.TIMESTAMP;
+		case INTEGER:
+			return Types.BIGINT; // bound as Long
+		case DECIMAL:
+			return Types.DECIMAL;
+		default:
+			return Types.VARCHAR;
+		}
+	}
+
+	/** Connection with its own thread and its statements, one per field count. */
+	private class Worker {
+		private final ExecutorService executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+		private final InsertStatementTemplate template;
+		private final PreparedStatement[] statements;
+		private final ColumnType[] columnTypes;
+		private Connection connection;
+		private LoadException failure;
+
+		private Worker(final List<String> sqlColumnNames, final ColumnType[] columnTypes) {
+			this.template = engine.newInsertStatementTemplate(sqlColumnNames); // templates are not thread-safe
+			this.columnTypes = columnTypes;
+			this.statements = new PreparedStatement[sqlColumnNames.size() + 1];
+		}
+
+		private Future<?> submit(final Callable<?> task) {
+			return executor.submit(task);
+		}
+
+		private Connection getConnection() throws SQLException {
+			if (connection == null) {
+				connection = sink.getConnection();
+			}
+			return connection;
+		}
+
+		private Void execute(final Batch batch) throws LoadException {
+			try {
+				final Connection c = getConnection();
+				for (final Object[] row : batch.rows) {
+					PreparedStatement statement = statements[row.length];
+					if (statement == null) {
+						statement = c.prepareStatement(template.getParameterizedStatement(row.length));
+						statements[row.length] = statement;
+					}
+					for (int i = 0; i < row.length; i++) {
+						if (row[i] != null) {
+							statement.setObject(i + 1, row[i]);
+						}
+						else { // not every driver accepts an untyped null
+							statement.setNull(i + 1, getSqlType(columnTypes != null ? columnTypes[i] : ColumnType.TEXT));
+						}
+					}
+					statement.addBatch();
+				}
+				for (final PreparedStatement statement : statements) {
+					if (statement != null) {
+						statement.executeBatch();
+					}
+				}
+				return null;
+			}
+			catch (final SQLException e) {
+				failure = new LoadException(batch.firstLine, batch.lastLine, e);
+				throw failure;
+			}
+		}
+
+		/** Waits for the pending tasks, then closes the connection, rolling back the uncommitted rows if requested. */
+		private void close(final boolean rollback) {
+			if (rollback) {
+				executor.shutdownNow(); // interrupts ordered commits still waiting
+			}
+			else {
+				executor.shutdown();
+			}
+			awaitTermination(executor);
+			if (connection != null) {
+				try {
+					if (rollback) {
+						connection.rollback();
+					}
+					for (final PreparedStatement statement : statements) {
+						if (statement != null) {
+							statement.close();
+						}
+					}
+					connection.close();
+				}
+				catch (final SQLException e) {
+					logger.log(Level.WARNING, Messages.get("err.csv2sql.jdbc.close"), e);
+				}
+			}
+		}
+	}
+
+	private static void awaitTermination(final ExecutorService executor) {
+		boolean interrupted = false;
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(1, TimeUnit.SECONDS);
+			}
+			catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class LoadException extends Exception {
+		private static final long serialVersionUID = 4376405950766462837L;
+
+		private final int firstLine;
+		private final int lastLine;
+
+		private LoadException(final int firstLine, final int lastLine, final SQLException cause) {
+			super(cause);
+			this.firstLine = firstLine;
+			this.lastLine = lastLine;
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Database destination for the rows of the CSV files, loaded through JDBC
+ * with <tt>PreparedStatement</tt> batches instead of being written in a SQL
+ * script. The JDBC driver must be available in the class path (e.g. in the
+ * <tt>lib</tt> directory of the application).
+ * <p>
+ * The rows of a file are split into <em>transactions</em> of
+ * {@link #setCommitInterval(int) commitInterval} rows, each of which is
+ * executed in batches of {@link #setBatchSize(int) batchSize} rows on one of
+ * up to {@link #setConnections(int) connections} connections. When commits are
+ * {@link #setOrderedCommit(boolean) ordered}, a transaction is committed only
+ * after all the preceding ones, so the committed rows are always a prefix of
+ * the file; otherwise each transaction is committed as soon as it has been
+ * executed.
+ *
+ * @see CsvToSqlEngine#convert(java.io.File, JdbcSink, CancellationStatus)
+ */
+public class JdbcSink {
+
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	public static final int DEFAULT_COMMIT_INTERVAL = 0;
+	public static final int DEFAULT_CONNECTIONS = 1;
+	public static final boolean DEFAULT_ORDERED_COMMIT = true;
+
+	/** Opens the connections to the database. */
+	@FunctionalInterface
+	public interface ConnectionFactory {
+		Connection getConnection() throws SQLException;
+	}
+
+	private final ConnectionFactory connectionFactory;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+	private int connections = DEFAULT_CONNECTIONS;
+	private boolean orderedCommit = DEFAULT_ORDERED_COMMIT;
+
+	/**
+	 * Creates a new sink that opens its connections through the
+	 * {@link DriverManager}.
+	 *
+	 * @param url the JDBC URL of the database
+	 * @param user the database user, or <code>null</code> to connect without
+	 *        credentials
+	 * @param password the password of the user
+	 */
+	public JdbcSink(final String url, final String user, final String password) {
+		if (url == null || url.trim().isEmpty()) {
+			throw new IllegalArgumentException("url must not be blank");
+		}
+		this.connectionFactory = () -> user == null || user.isEmpty() ? DriverManager.getConnection(url) : DriverManager.getConnection(url, user, password);
+	}
+
+	/**
+	 * Creates a new sink that opens its connections through the provided
+	 * factory (e.g. a <tt>DataSource</tt>).
+	 *
+	 * @param connectionFactory the connection factory
+	 */
+	public JdbcSink(final ConnectionFactory connectionFactory) {
+		if (connectionFactory == null) {
+			throw new NullPointerException("connectionFactory cannot be null");
+		}
+		this.connectionFactory = connectionFactory;
+	}
+
+	Connection getConnection() throws SQLException {
+		final Connection connection = connectionFactory.getConnection();
+		connection.setAutoCommit(false);
+		return connection;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the number of rows sent to the database with a single
+	 * <tt>executeBatch</tt>.
+	 *
+	 * @param batchSize the number of rows per batch
+	 */
+	public void setBatchSize(final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be greater than zero");
+		}
+		this.batchSize = batchSize;
+	}
+
+	public int getCommitInterval() {
+		return commitInterval;
+	}
+
+	/**
+	 * Sets the number of rows of each transaction. A file is loaded by more
+	 * than one connection only when this interval is set.
+	 *
+	 * @param commitInterval the number of rows per transaction, or <tt>0</tt>
+	 *        to load each file in a single transaction
+	 */
+	public void setCommitInterval(final int commitInterval) {
+		if (commitInterval < 0) {
+			throw new IllegalArgumentException("commitInterval must not be negative");
+		}
+		this.commitInterval = commitInterval;
+	}
+
+	public int getConnections() {
+		return connections;
+	}
+
+	/**
+	 * Sets the maximum number of connections used to load a file.
+	 *
+	 * @param connections the number of connections
+	 */
+	public void setConnections(final int connections) {
+		if (connections < 1) {
+			throw new IllegalArgumentException("connections must be greater than zero");
+		}
+		this.connections = connections;
+	}
+
+	public boolean isOrderedCommit() {
+		return orderedCommit;
+	}
+
+	/**
+	 * Enables or disables the ordered commit of the transactions.
+	 *
+	 * @param orderedCommit <code>true</code> to commit the transactions in the
+	 *        order of the file
+	 */
+	public void setOrderedCommit(final boolean orderedCommit) {
+		this.orderedCommit = orderedCommit;
+	}
+
+}
@@ -0,0 +1,81 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+
+/**
+ * Source of the lines of a CSV file, keeping track of the line number and,
+ * when available, of the byte offset of the next line.
+ */
+interface LineReader {
+
+	/**
+	 * Reads the next line. A line is terminated by a line feed, a carriage
+	 * return or a carriage return followed by a line feed.
+	 *
+	 * @return the line without its terminator, or <code>null</code> if the end
+	 *         of the input has been reached; the returned sequence is valid
+	 *         until the next invocation
+	 * @throws IOException if an I/O error occurs
+	 */
+	CharSequence readLine() throws IOException;
+
+	/** Returns the number of the last line read. */
+	int getLineNumber();
+
+	/** Returns the byte offset of the next line, or <tt>-1</tt> if unknown. */
+	long getOffset();
+
+	/**
+	 * Adapts a {@link LineNumberReader}, whose byte offsets are unknown.
+	 *
+	 * @param reader the reader to adapt
+	 * @return the line reader
+	 */
+	static LineReader of(final LineNumberReader reader) {
+		return new LineReader() {
+			@Override
+			public CharSequence readLine() throws IOException {
+				return reader.readLine();
+			}
+
+			@Override
+			public int getLineNumber() {
+				return reader.getLineNumber();
+			}
+
+			@Override
+			public long getOffset() {
+				return -1;
+			}
+		};
+	}
+
+	/**
+	 * Limits a reader with known offsets to the lines that start before a byte
+	 * offset, that must be the offset of a line.
+	 *
+	 * @param reader the reader to limit
+	 * @param end the offset at which the reader stops
+	 * @return the line reader
+	 */
+	static LineReader bounded(final LineReader reader, final long end) {
+		return new LineReader() {
+			@Override
+			public CharSequence readLine() throws IOException {
+				return reader.getOffset() < end ? reader.readLine() : null;
+			}
+
+			@Override
+			public int getLineNumber() {
+				return reader.getLineNumber();
+			}
+
+			@Override
+			public long getOffset() {
+				return reader.getOffset();
+			}
+		};
+	}
+
+}
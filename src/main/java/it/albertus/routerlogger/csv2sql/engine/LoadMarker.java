@@ -0,0 +1,88 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Position in the source CSV file of a chunk of a SQL script. When periodic
+ * commits are enabled, each chunk of the script starts with a marker comment
+ * like:
+ *
+ * <pre>
+ * -- csv2sql: offset=1234, line=56, file=log.csv
+ * </pre>
+ *
+ * If loading the script fails, the script can be regenerated starting from
+ * the marker that follows the last committed chunk.
+ *
+ * @see CsvToSqlEngine#convert(java.io.File, String, CancellationStatus,
+ *      LoadMarker)
+ */
+public class LoadMarker {
+
+	private static final String PREFIX = "-- csv2sql: ";
+
+	private static final Pattern PATTERN = Pattern.compile("^\\s*" + Pattern.quote(PREFIX.trim()) + "\\s*offset=(\\d+), line=(\\d+), file=(.*)$");
+
+	private final String fileName;
+	private final long offset;
+	private final int lineNumber;
+
+	/**
+	 * Creates a new marker.
+	 *
+	 * @param fileName the name of the CSV file
+	 * @param offset the byte offset of the first line of the chunk
+	 * @param lineNumber the number of the first line of the chunk
+	 */
+	public LoadMarker(final String fileName, final long offset, final int lineNumber) {
+		if (offset < 0) {
+			throw new IllegalArgumentException("offset must not be negative");
+		}
+		if (lineNumber < 2) {
+			throw new IllegalArgumentException("lineNumber must be greater than one");
+		}
+		this.fileName = fileName;
+		this.offset = offset;
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * Parses a marker comment.
+	 *
+	 * @param comment the comment line, as written in the SQL script
+	 * @return the marker
+	 * @throws IllegalArgumentException if the text is not a marker comment
+	 */
+	public static LoadMarker parse(final String comment) {
+		final Matcher matcher = PATTERN.matcher(comment);
+		if (!matcher.matches()) {
+			throw new IllegalArgumentException("Invalid marker: " + comment);
+		}
+		try {
+			return new LoadMarker(matcher.group(3), Long.parseLong(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+		}
+		catch (final NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid marker: " + comment, e);
+		}
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/** Returns the marker comment, as written in the SQL script. */
+	@Override
+	public String toString() {
+		return PREFIX + "offset=" + offset + ", line=" + lineNumber + ", file=" + fileName;
+	}
+
+}
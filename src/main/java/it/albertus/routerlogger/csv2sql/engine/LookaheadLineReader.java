@@ -0,0 +1,112 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads ahead the first lines of another reader, so that they can be
+ * inspected before the conversion, and then returns them again followed by
+ * the remaining lines. The line numbers and the offsets are the ones of the
+ * underlying reader.
+ * <p>
+ * The lines are kept in memory until they are returned again, so their
+ * characters are drawn from a budget shared by all the readers of an engine,
+ * that bounds the memory used by the files converted at the same time: a
+ * reader stops reading ahead when the budget runs out, whatever the number of
+ * lines requested, and gives the characters back as it returns the lines, or
+ * when it is closed.
+ */
+class LookaheadLineReader implements LineReader, Closeable {
+
+	/** The default budget of characters read ahead, 256 KB of lines. */
+	static final int MAX_CHARS = 128 * 1024;
+
+	private final LineReader reader;
+	private final AtomicLong budget;
+	private final int initialLineNumber;
+
+	private String[] lines;
+	private long[] offsets; // of each line read ahead
+	private int[] lineNumbers; // after each line read ahead
+	private int count;
+	private int next;
+
+	/**
+	 * Creates a new reader, reading ahead a number of lines while the budget
+	 * of characters lasts (the line that exhausts it is included).
+	 *
+	 * @param reader the underlying reader
+	 * @param maxLines the maximum number of lines to read ahead
+	 * @param budget the characters that can still be read ahead, decreased by
+	 *        the length of the lines read and increased again as they are
+	 *        returned
+	 * @throws IOException if an I/O error occurs
+	 */
+	LookaheadLineReader(final LineReader reader, final int maxLines, final AtomicLong budget) throws IOException {
+		this.reader = reader;
+		this.budget = budget;
+		this.initialLineNumber = reader.getLineNumber();
+		this.lines = new String[Math.min(maxLines, 64)];
+		this.offsets = new long[lines.length];
+		this.lineNumbers = new int[lines.length];
+		long offset = reader.getOffset();
+		CharSequence line;
+		while (count < maxLines && budget.get() > 0 && (line = reader.readLine()) != null) {
+			if (count == lines.length) {
+				lines = Arrays.copyOf(lines, count * 2);
+				offsets = Arrays.copyOf(offsets, lines.length);
+				lineNumbers = Arrays.copyOf(lineNumbers, lines.length);
+			}
+			lines[count] = line.toString();
+			offsets[count] = offset;
+			lineNumbers[count] = reader.getLineNumber();
+			budget.addAndGet(-line.length());
+			count++;
+			offset = reader.getOffset();
+		}
+	}
+
+	/** Returns the lines read ahead, that must be inspected before reading. */
+	List<String> getLines() {
+		return Collections.unmodifiableList(Arrays.asList(lines).subList(0, count));
+	}
+
+	@Override
+	public CharSequence readLine() throws IOException {
+		if (next < count) {
+			final String line = lines[next];
+			lines[next++] = null;
+			budget.addAndGet(line.length());
+			return line;
+		}
+		next = count + 1; // past the lines read ahead
+		return reader.readLine();
+	}
+
+	@Override
+	public int getLineNumber() {
+		if (next == 0) {
+			return initialLineNumber;
+		}
+		return next <= count ? lineNumbers[next - 1] : reader.getLineNumber();
+	}
+
+	@Override
+	public long getOffset() {
+		return next < count ? offsets[next] : reader.getOffset();
+	}
+
+	/** Gives back the characters of the lines not yet returned. */
+	@Override
+	public void close() {
+		while (next < count) {
+			budget.addAndGet(lines[next].length());
+			lines[next++] = null;
+		}
+	}
+
+}
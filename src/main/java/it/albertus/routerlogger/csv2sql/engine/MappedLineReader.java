@@ -0,0 +1,155 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads the lines of a file through a sliding memory-mapped window, like
+ * {@link ByteLineReader} does with a stream. Line terminators are found by
+ * scanning the mapped bytes, and each line is decoded directly from the
+ * mapping into a reused buffer, so the file content is never copied into the
+ * heap: only the window of the file being read is mapped, and the Java heap
+ * usage does not depend on the size of the file (the application runs with a
+ * very small heap). A line that does not fit into the window is read by
+ * mapping a larger one.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @see ChunkedConversion#isSupported(Charset)
+ */
+class MappedLineReader implements LineReader {
+
+	static final int DEFAULT_WINDOW_SIZE = 8 * 1024 * 1024;
+
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+	private final CharsetDecoder decoder;
+
+	private MappedByteBuffer window;
+	private long windowStart;
+	private int windowLength;
+	private CharBuffer chars = CharBuffer.allocate(256);
+
+	private long offset;
+	private int lineNumber;
+
+	/**
+	 * Creates a new reader.
+	 *
+	 * @param channel the file channel, that must not be modified while reading
+	 * @param charset the charset of the file
+	 * @param offset the byte offset of the first line to read
+	 * @param lineNumber the number of the line that precedes the first line to
+	 *        read
+	 * @param windowSize the size in bytes of the mapped window
+	 * @throws IOException if an I/O error occurs
+	 */
+	MappedLineReader(final FileChannel channel, final Charset charset, final long offset, final int lineNumber, final int windowSize) throws IOException {
+		if (windowSize < 2) {
+			throw new IllegalArgumentException("windowSize must be greater than one");
+		}
+		this.channel = channel;
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.offset = offset;
+		this.lineNumber = lineNumber;
+	}
+
+	@Override
+	public CharSequence readLine() throws IOException {
+		if (offset >= size) {
+			return null;
+		}
+		if (window == null || offset >= windowStart + windowLength) {
+			map(offset, windowSize);
+		}
+		int i = (int) (offset - windowStart);
+		while (true) {
+			if (i == windowLength) {
+				if (windowStart + windowLength == size) {
+					return consume(i, 0);
+				}
+				i = remap(i);
+			}
+			else {
+				final byte b = window.get(i);
+				if (b == '\n') {
+					return consume(i, 1);
+				}
+				else if (b == '\r') {
+					if (i + 1 == windowLength && windowStart + windowLength < size) { // the next byte may be a line feed
+						i = remap(i);
+					}
+					else {
+						return consume(i, i + 1 < windowLength && window.get(i + 1) == '\n' ? 2 : 1);
+					}
+				}
+				else {
+					i++;
+				}
+			}
+		}
+	}
+
+	@Override
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Maps a new window starting from the current line, large enough to
+	 * contain more of it.
+	 *
+	 * @param index the index of the next byte to scan in the current window
+	 * @return the index of the same byte in the new window
+	 */
+	private int remap(final int index) throws IOException {
+		final int scanned = (int) (windowStart + index - offset);
+		map(offset, (int) Math.min(Integer.MAX_VALUE, Math.max(windowSize, (windowStart + windowLength - offset) * 2)));
+		return scanned;
+	}
+
+	private void map(final long position, final int length) throws IOException {
+		windowStart = position;
+		windowLength = (int) Math.min(length, size - position);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength); // the previous one is unmapped when garbage collected
+	}
+
+	private CharSequence consume(final int end, final int terminatorLength) {
+		final int start = (int) (offset - windowStart);
+		final CharSequence line = decode(start, end);
+		offset += end + terminatorLength - start;
+		lineNumber++;
+		return line;
+	}
+
+	private CharSequence decode(final int start, final int end) {
+		window.limit(end).position(start);
+		chars.clear();
+		decoder.reset();
+		CoderResult result;
+		while ((result = decoder.decode(window, chars, true)).isOverflow() || (result = decoder.flush(chars)).isOverflow()) {
+			final CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+			chars.flip();
+			larger.put(chars);
+			chars = larger;
+		}
+		window.limit(windowLength); // for the absolute reads
+		chars.flip();
+		return chars;
+	}
+
+}
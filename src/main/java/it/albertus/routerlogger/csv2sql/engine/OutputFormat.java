@@ -0,0 +1,48 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+/** Format of the scripts generated by the {@link CsvToSqlEngine}. */
+public enum OutputFormat {
+
+	/** Portable <tt>INSERT</tt> statements. */
+	INSERT,
+
+	/**
+	 * PostgreSQL <tt>COPY ... FROM STDIN</tt> blocks with tab-separated data,
+	 * for <tt>psql</tt>.
+	 */
+	COPY,
+
+	/**
+	 * PostgreSQL binary <tt>COPY</tt> file (<tt>.bin</tt>), with a
+	 * <tt>psql</tt> script that loads it through <tt>\copy</tt>.
+	 */
+	COPY_BINARY,
+
+	/**
+	 * MySQL <tt>LOAD DATA LOCAL INFILE</tt> statement that reads the CSV file
+	 * directly.
+	 */
+	LOAD_DATA,
+
+	/**
+	 * Oracle SQL*Loader control file (<tt>.ctl</tt>) that reads the CSV file
+	 * directly.
+	 */
+	SQL_LOADER,
+
+	/**
+	 * PostgreSQL script that reads the CSV file directly through a
+	 * <tt>file_fdw</tt> foreign table.
+	 */
+	FILE_FDW;
+
+	/**
+	 * Returns <code>true</code> if the script only controls the bulk loader of
+	 * the database, that reads the CSV file itself, instead of containing the
+	 * converted rows.
+	 */
+	public boolean isControlScript() {
+		return this == LOAD_DATA || this == SQL_LOADER || this == FILE_FDW;
+	}
+
+}
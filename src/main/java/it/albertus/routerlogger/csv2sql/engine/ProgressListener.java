@@ -0,0 +1,19 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+@FunctionalInterface
+public interface ProgressListener {
+
+	/**
+	 * Reports the progress of all the conversions run by an engine. It is
+	 * invoked at most every {@value CsvToSqlEngine#PROGRESS_INTERVAL_MILLIS}
+	 * milliseconds, by one of the threads that are converting, so it must be
+	 * thread-safe and return quickly.
+	 *
+	 * @param bytes the number of bytes of CSV data read so far
+	 * @param rows the number of rows converted or loaded so far
+	 *
+	 * @see CsvToSqlEngine#setProgressListener(ProgressListener)
+	 */
+	void progress(long bytes, long rows);
+
+}
@@ -0,0 +1,122 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+/**
+ * Counts the lines and the rows read by a single conversion loop, and passes
+ * them to the engine in batches of {@value #CHECK_INTERVAL} lines, checking
+ * for cancellation at the same time, so that neither the shared counters nor
+ * the cancellation status are accessed for every row. When the reader does
+ * not know its byte offsets, the bytes are estimated from the length of the
+ * lines.
+ * <p>
+ * The time spent in each {@link Stage} is measured only for one line every
+ * {@value #SAMPLE_INTERVAL}, and multiplied by the interval, so that the
+ * clock is not read several times for every row.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class ProgressTracker {
+
+	static final int CHECK_INTERVAL = 256;
+	static final int SAMPLE_INTERVAL = 32;
+
+	/** The stages of the conversion of a row, in the order they are run. */
+	enum Stage {
+		READ,
+		TOKENIZE,
+		TIMESTAMP,
+		ESCAPE,
+		WRITE
+	}
+
+	private final CsvToSqlEngine engine;
+	private final ConversionStatistics statistics;
+	private final LineReader reader;
+	private final CancellationStatus status;
+	private final long[] stageNanos = new long[Stage.values().length];
+
+	private long reportedOffset;
+	private long estimatedBytes;
+	private int lines;
+	private int rows;
+	private long busySince = System.nanoTime();
+	private int linesToSample = SAMPLE_INTERVAL;
+	private boolean sampling;
+	private long stageStart;
+
+	ProgressTracker(final CsvToSqlEngine engine, final String sourceFileName, final LineReader reader, final CancellationStatus status) {
+		this.engine = engine;
+		this.statistics = engine.getStatistics(sourceFileName);
+		this.reader = reader;
+		this.status = status;
+		this.reportedOffset = reader.getOffset();
+	}
+
+	/** Counts a converted row. */
+	void row() {
+		rows++;
+	}
+
+	/** Counts a row that could not be converted. */
+	void error() {
+		statistics.addParseError();
+	}
+
+	/**
+	 * Marks the end of a stage of the current line, that started at the end
+	 * of the previous stage, or of the previous line.
+	 */
+	void stage(final Stage stage) {
+		if (sampling) {
+			final long now = System.nanoTime();
+			stageNanos[stage.ordinal()] += (now - stageStart) * SAMPLE_INTERVAL;
+			stageStart = now;
+		}
+	}
+
+	/**
+	 * Counts a line that has been read, whether it contained a row or not.
+	 *
+	 * @param line the line, without its terminator
+	 * @throws InterruptedException if cancellation has been requested
+	 */
+	void line(final CharSequence line) throws InterruptedException {
+		if (reportedOffset < 0) {
+			estimatedBytes += line.length() + 1;
+		}
+		if (++lines == CHECK_INTERVAL) {
+			flush();
+			if (status != null && status.isCanceled()) {
+				throw new InterruptedException();
+			}
+		}
+		sampling = --linesToSample == 0;
+		if (sampling) {
+			linesToSample = SAMPLE_INTERVAL;
+			stageStart = System.nanoTime();
+		}
+	}
+
+	/** Passes the counted lines and rows to the engine. */
+	void flush() {
+		final long bytes;
+		if (reportedOffset < 0) {
+			bytes = estimatedBytes;
+			estimatedBytes = 0;
+		}
+		else {
+			final long offset = reader.getOffset();
+			bytes = offset - reportedOffset;
+			reportedOffset = offset;
+		}
+		final long now = System.nanoTime();
+		statistics.addProgress(bytes, rows, now - busySince, stageNanos);
+		engine.progressChanged();
+		busySince = now;
+		lines = 0;
+		rows = 0;
+		for (int i = 0; i < stageNanos.length; i++) {
+			stageNanos[i] = 0;
+		}
+	}
+
+}
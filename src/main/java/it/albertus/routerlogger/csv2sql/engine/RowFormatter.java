@@ -0,0 +1,197 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.ParseException;
+
+import it.albertus.routerlogger.csv2sql.engine.ProgressTracker.Stage;
+
+/**
+ * Formats the values of the tokenized rows of a file: as SQL literals for the
+ * <tt>INSERT</tt> statements, in the text format of <tt>COPY</tt>, or as the
+ * parameters of the JDBC loads and of the binary <tt>COPY</tt>. The timestamp
+ * is converted with the pattern of the engine, the response time (if present)
+ * is an integer, and the other fields are written according to the types of
+ * the columns.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class RowFormatter {
+
+	private final TimestampTranscoder timestampTranscoder;
+	private final ColumnType[] columnTypes;
+	private final boolean responseTimeColumn;
+
+	private final CharArrayWriter timestamp = new CharArrayWriter();
+
+	/**
+	 * @param engine the engine, whose timestamp pattern and response time
+	 *        column are used
+	 * @param columnTypes the types of the columns, or <code>null</code> to
+	 *        write every value except the response time as a string
+	 */
+	RowFormatter(final CsvToSqlEngine engine, final ColumnType[] columnTypes) {
+		this.timestampTranscoder = engine.newTimestampTranscoder();
+		this.columnTypes = columnTypes;
+		this.responseTimeColumn = engine.hasResponseTimeColumn();
+	}
+
+	/**
+	 * Returns the JDBC parameters of a row: a {@link Timestamp}, the response
+	 * time as an {@link Integer} (if present) and the other fields as strings
+	 * or, if the columns are typed, as <code>null</code>, {@link Long} or
+	 * {@link BigDecimal} values.
+	 *
+	 * @param numbers <code>true</code> to return the numeric values as numbers,
+	 *        <code>false</code> to return them as their original text (e.g.
+	 *        <tt>0.00000001</tt> and <tt>-0</tt>, that the numbers would turn
+	 *        into <tt>1E-8</tt> and <tt>0</tt>)
+	 * @param progress the tracker that measures the stages of the conversion
+	 */
+	Object[] getParameters(final CsvTokenizer csv, final boolean numbers, final ProgressTracker progress) throws IOException, ParseException {
+		final Object[] parameters = new Object[csv.getFieldCount()];
+		timestamp.reset();
+		timestampTranscoder.transcode(csv.getBuffer(), csv.getStart(0), csv.getEnd(0), timestamp);
+		parameters[0] = Timestamp.valueOf(timestamp.toString());
+		progress.stage(Stage.TIMESTAMP);
+		for (int i = 1; i < parameters.length; i++) {
+			if (i == 1 && responseTimeColumn) {
+				parameters[i] = csv.parseInt(i);
+			}
+			else {
+				final ColumnType valueType = getValueType(csv, i);
+				if (valueType == null) {
+					parameters[i] = null;
+				}
+				else if (valueType == ColumnType.TEXT || !numbers) {
+					parameters[i] = csv.getString(i);
+				}
+				else if (columnTypes[i] == ColumnType.INTEGER) {
+					parameters[i] = Long.valueOf(csv.getString(i));
+				}
+				else {
+					parameters[i] = new BigDecimal(csv.getString(i));
+				}
+			}
+		}
+		progress.stage(Stage.ESCAPE);
+		return parameters;
+	}
+
+	/** Writes the comma-separated SQL literals of a row. */
+	void writeValues(final CsvTokenizer csv, final Writer sql, final ProgressTracker progress) throws IOException, ParseException {
+		final int fieldCount = csv.getFieldCount();
+		sql.write("TIMESTAMP '");
+		timestampTranscoder.transcode(csv.getBuffer(), csv.getStart(0), csv.getEnd(0), sql);
+		sql.write('\'');
+		progress.stage(Stage.TIMESTAMP);
+		for (int i = 1; i < fieldCount; i++) {
+			sql.write(',');
+			if (i == 1 && responseTimeColumn) {
+				sql.write(Integer.toString(csv.parseInt(i)));
+			}
+			else {
+				final ColumnType valueType = getValueType(csv, i);
+				if (valueType == null) {
+					sql.write("NULL");
+				}
+				else if (valueType != ColumnType.TEXT) {
+					sql.write(csv.getBuffer(), csv.getStart(i), csv.getEnd(i) - csv.getStart(i));
+				}
+				else {
+					sql.write('\'');
+					writeEscaped(csv, i, sql);
+					sql.write('\'');
+				}
+			}
+		}
+		progress.stage(Stage.ESCAPE);
+	}
+
+	/** Writes the tab-separated values of a row in the text format of <tt>COPY</tt>. */
+	void writeCopyValues(final CsvTokenizer csv, final Writer copy, final ProgressTracker progress) throws IOException, ParseException {
+		final int fieldCount = csv.getFieldCount();
+		timestampTranscoder.transcode(csv.getBuffer(), csv.getStart(0), csv.getEnd(0), copy);
+		progress.stage(Stage.TIMESTAMP);
+		for (int i = 1; i < fieldCount; i++) {
+			copy.write('\t');
+			if (i == 1 && responseTimeColumn) {
+				copy.write(Integer.toString(csv.parseInt(i)));
+			}
+			else if (columnTypes != null && getValueType(csv, i) == null) {
+				copy.write("\\N");
+			}
+			else {
+				writeCopyEscaped(csv, i, copy); // numbers need no escaping
+			}
+		}
+		progress.stage(Stage.ESCAPE);
+	}
+
+	/**
+	 * Returns the type with which the value of a field is written: a numeric
+	 * type for a number in a column of a compatible type, <code>null</code>
+	 * for a blank value of a typed column, and {@link ColumnType#TEXT}
+	 * otherwise.
+	 */
+	private ColumnType getValueType(final CsvTokenizer csv, final int field) {
+		if (columnTypes == null) {
+			return ColumnType.TEXT;
+		}
+		final ColumnType valueType = ColumnType.of(csv.getBuffer(), csv.getStart(field), csv.getEnd(field));
+		if (valueType == null || field < columnTypes.length && columnTypes[field].accepts(valueType)) {
+			return valueType;
+		}
+		return ColumnType.TEXT;
+	}
+
+	/** Writes the value of a field escaping backslashes and control characters with backslash sequences. */
+	private static void writeCopyEscaped(final CsvTokenizer csv, final int field, final Writer copy) throws IOException {
+		final char[] buffer = csv.getBuffer();
+		final int end = csv.getEnd(field);
+		int start = csv.getStart(field);
+		for (int i = start; i < end; i++) {
+			final char escape;
+			switch (buffer[i]) {
+			case '\\':
+				escape = '\\';
+				break;
+			case '\t':
+				escape = 't';
+				break;
+			case '\n':
+				escape = 'n';
+				break;
+			case '\r':
+				escape = 'r';
+				break;
+			default:
+				continue;
+			}
+			copy.write(buffer, start, i - start);
+			copy.write('\\');
+			copy.write(escape);
+			start = i + 1;
+		}
+		copy.write(buffer, start, end - start);
+	}
+
+	/** Writes the value of a field doubling the single quotes. */
+	static void writeEscaped(final CsvTokenizer csv, final int field, final Writer sql) throws IOException {
+		final char[] buffer = csv.getBuffer();
+		final int end = csv.getEnd(field);
+		int start = csv.getStart(field);
+		for (int i = start; i < end; i++) {
+			if (buffer[i] == '\'') {
+				sql.write(buffer, start, i + 1 - start);
+				sql.write('\'');
+				start = i + 1;
+			}
+		}
+		sql.write(buffer, start, end - start);
+	}
+
+}
@@ -0,0 +1,25 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+
+/** Writes the already converted values of the rows of a file into a script. */
+interface RowWriter {
+
+	/**
+	 * Writes a row.
+	 *
+	 * @param rowFieldCount the number of fields of the row
+	 * @param values the converted values of the row
+	 * @throws IOException if an I/O error occurs
+	 */
+	void write(int rowFieldCount, CharArrayWriter values) throws IOException;
+
+	/**
+	 * Terminates the current statement, if any.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	void close() throws IOException;
+
+}
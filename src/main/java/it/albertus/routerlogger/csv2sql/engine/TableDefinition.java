@@ -0,0 +1,214 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import it.albertus.routerlogger.csv2sql.engine.CsvToSqlEngine.InputStreamSource;
+
+/**
+ * Defines the table into which the files are converted: infers the types of
+ * the columns of a file from its lines and, if enabled, writes the
+ * <tt>CREATE TABLE</tt> statement. The files are read again from the start
+ * when needed, without changing the position of the reader of the
+ * conversion.
+ *
+ * @see TypeInference
+ */
+class TableDefinition {
+
+	private final CsvToSqlEngine engine;
+
+	TableDefinition(final CsvToSqlEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Returns the types of the columns of a file, inferred from a sample of the
+	 * lines that follow the header and overridden by the configured ones, or
+	 * <code>null</code> if the typed values are disabled.
+	 */
+	ColumnType[] getColumnTypes(final String headerLine, final List<String> sample) {
+		if (!engine.isTypedValues()) {
+			return null;
+		}
+		final TypeInference inference = new TypeInference(engine, headerLine);
+		for (final String line : sample) {
+			inference.add(line);
+		}
+		return inference.getColumnTypes();
+	}
+
+	/**
+	 * Returns the types of the columns of a file, inferred from the lines that
+	 * follow the header, up to the number of lines sampled, or
+	 * <code>null</code> if the typed values are disabled. The lines are read
+	 * without being kept.
+	 *
+	 * @param body the reader of the lines that follow the header
+	 * @param status the cancellation status, polled while reading; may be
+	 *        <code>null</code>
+	 */
+	ColumnType[] getColumnTypes(final String headerLine, final LineReader body, final CancellationStatus status) throws IOException, InterruptedException {
+		if (!engine.isTypedValues()) {
+			return null;
+		}
+		final TypeInference inference = new TypeInference(engine, headerLine);
+		inference.add(body, engine.getTypeInferenceRows(), status);
+		return inference.getColumnTypes();
+	}
+
+	/**
+	 * Returns the types of the columns of a file that can be read from any
+	 * offset, sampling the lines that follow the header.
+	 *
+	 * @param bodyOffset the byte offset of the line that follows the header
+	 * @param end the offset at which the sample stops
+	 *
+	 * @see #getColumnTypes(String, LineReader, CancellationStatus)
+	 */
+	ColumnType[] getColumnTypes(final String headerLine, final FileChannel channel, final Charset readCharset, final long bodyOffset, final long end, final CancellationStatus status) throws IOException, InterruptedException {
+		if (!engine.isTypedValues()) {
+			return null;
+		}
+		return getColumnTypes(headerLine, LineReader.bounded(engine.newLineReader(channel, readCharset, bodyOffset, 1), end), status);
+	}
+
+	/**
+	 * Returns the types of the columns of a file that can only be read
+	 * sequentially, opening the stream once more.
+	 *
+	 * @see #inferColumnTypes(LineReader, CancellationStatus)
+	 */
+	ColumnType[] inferColumnTypes(final InputStreamSource source, final Charset readCharset, final CancellationStatus status) throws IOException, InterruptedException {
+		if (!engine.isTypedValues()) {
+			return null;
+		}
+		try (final InputStream is = source.open()) {
+			return inferColumnTypes(CsvToSqlEngine.newLineReader(is, readCharset), status);
+		}
+	}
+
+	/**
+	 * Returns the types of the columns of a file, restoring the position of
+	 * the channel.
+	 *
+	 * @see #inferColumnTypes(LineReader, CancellationStatus)
+	 */
+	ColumnType[] inferColumnTypes(final FileChannel channel, final Charset readCharset, final CancellationStatus status) throws IOException, InterruptedException {
+		if (!engine.isTypedValues()) {
+			return null;
+		}
+		final long position = channel.position();
+		try {
+			return inferColumnTypes(engine.newLineReader(channel, readCharset), status);
+		}
+		finally {
+			channel.position(position); // for a stream reader created before, that has not read yet
+		}
+	}
+
+	/**
+	 * Writes the <tt>CREATE TABLE</tt> statement of a file that can only be
+	 * read sequentially, if enabled, and infers the types of its columns,
+	 * opening the stream once more.
+	 *
+	 * @return the types of the columns, inferred from all the rows if the
+	 *         statement is written, otherwise from the sample; or
+	 *         <code>null</code> if the typed values are disabled
+	 *
+	 * @see #writeCreateTable(LineReader, BufferedWriter, CancellationStatus)
+	 */
+	ColumnType[] write(final InputStreamSource source, final Charset readCharset, final BufferedWriter writer, final CancellationStatus status) throws IOException, InterruptedException {
+		if (!engine.isCreateTable()) {
+			return inferColumnTypes(source, readCharset, status);
+		}
+		try (final InputStream is = source.open()) {
+			return writeCreateTable(CsvToSqlEngine.newLineReader(is, readCharset), writer, status);
+		}
+	}
+
+	/**
+	 * Writes the <tt>CREATE TABLE</tt> statement of a file, if enabled, and
+	 * infers the types of its columns, restoring the position of the channel.
+	 *
+	 * @return the types of the columns, inferred from all the rows if the
+	 *         statement is written, otherwise from the sample; or
+	 *         <code>null</code> if the typed values are disabled
+	 *
+	 * @see #writeCreateTable(LineReader, BufferedWriter, CancellationStatus)
+	 */
+	ColumnType[] write(final FileChannel channel, final Charset readCharset, final BufferedWriter writer, final CancellationStatus status) throws IOException, InterruptedException {
+		if (!engine.isCreateTable()) {
+			return inferColumnTypes(channel, readCharset, status);
+		}
+		final long position = channel.position();
+		try {
+			return writeCreateTable(engine.newLineReader(channel, readCharset), writer, status);
+		}
+		finally {
+			channel.position(position); // for a stream reader created before, that has not read yet
+		}
+	}
+
+	/**
+	 * Returns the types of the columns of a file, read from the header.
+	 *
+	 * @return the types of the columns, or <code>null</code> if the file is
+	 *         empty or the typed values are disabled
+	 *
+	 * @see #getColumnTypes(String, LineReader, CancellationStatus)
+	 */
+	private ColumnType[] inferColumnTypes(final LineReader reader, final CancellationStatus status) throws IOException, InterruptedException {
+		final CharSequence firstLine = reader.readLine();
+		return firstLine != null ? getColumnTypes(firstLine.toString(), reader, status) : null;
+	}
+
+	/**
+	 * Reads a whole file and writes a <tt>CREATE TABLE</tt> statement whose
+	 * column types and sizes fit all its values. If the typed values are
+	 * disabled, or the format is the binary <tt>COPY</tt>, the columns other
+	 * than the timestamp and the response time are <tt>VARCHAR</tt>.
+	 *
+	 * @param reader the reader of the file, from the header
+	 * @param status the cancellation status, polled while reading
+	 * @return the types of the columns, inferred from all the rows, or
+	 *         <code>null</code> if the typed values are disabled
+	 */
+	private ColumnType[] writeCreateTable(final LineReader reader, final BufferedWriter writer, final CancellationStatus status) throws IOException, InterruptedException {
+		final CharSequence firstLine = reader.readLine();
+		if (firstLine == null) {
+			return null;
+		}
+		final String headerLine = firstLine.toString();
+		final TypeInference inference = new TypeInference(engine, headerLine);
+		inference.add(reader, Long.MAX_VALUE, status);
+		final List<String> sqlColumnNames = engine.getSqlColumnNames(headerLine);
+		final ColumnProfile profile = inference.getProfile();
+		final ColumnType[] types = inference.getColumnTypes();
+		final boolean typedColumns = engine.isTypedValues() && engine.getOutputFormat() != OutputFormat.COPY_BINARY;
+		writer.write("CREATE TABLE ");
+		writer.write(engine.getSqlTableName());
+		writer.write(" (");
+		for (int i = 0; i < types.length; i++) {
+			if (i > 0) {
+				writer.write(", ");
+			}
+			writer.write(sqlColumnNames.get(i));
+			writer.write(' ');
+			if (i == 1 && engine.hasResponseTimeColumn()) {
+				writer.write("INTEGER"); // as sent by the binary COPY
+			}
+			else {
+				writer.write(profile.getSqlType(i, typedColumns || i == 0 ? types[i] : ColumnType.TEXT));
+			}
+		}
+		writer.write(");");
+		writer.newLine();
+		return engine.isTypedValues() ? types : null;
+	}
+
+}
@@ -0,0 +1,340 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts CSV timestamps into the <tt>yyyy-M-dd HH:mm:ss.SSS</tt> format
+ * used by ANSI SQL timestamp literals, without creating <tt>Date</tt> or
+ * <tt>Calendar</tt> objects.
+ * <p>
+ * The CSV pattern is compiled once. Patterns made only of numeric year (at
+ * least 3 letters), month, day, hour, minute, second and millisecond fields
+ * and of literals are transcoded field by field; the same validation of a
+ * non-lenient {@link SimpleDateFormat} is applied, including the rejection of
+ * local times skipped by daylight saving time transitions. The formatted date
+ * is reused while consecutive rows belong to the same day, and the formatted
+ * time while they belong to the same second. Any other pattern, and any date
+ * before the Gregorian calendar cutover, is handled by a pair of
+ * {@link SimpleDateFormat}s.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class TimestampTranscoder {
+
+	static final String ANSI_SQL_TIMESTAMP_PATTERN = "yyyy-M-dd HH:mm:ss.SSS"; // '1998-3-24 04:21:23.456'
+
+	private static final int GREGORIAN_CUTOVER_YEAR = 1582;
+
+	private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+	private static final int YEAR = 0;
+	private static final int MONTH = 1;
+	private static final int DAY = 2;
+	private static final int HOUR = 3;
+	private static final int MINUTE = 4;
+	private static final int SECOND = 5;
+	private static final int MILLISECOND = 6;
+
+	private static final String FIELD_LETTERS = "yMdHmsS";
+	private static final int[] DEFAULT_VALUES = { 1970, 1, 1, 0, 0, 0, 0 };
+	private static final int[] MIN_VALUES = { 1, 1, 1, 0, 0, 0, 0 };
+	private static final int[] MAX_VALUES = { 292278994, 12, 31, 23, 59, 59, 999 };
+
+	private final String csvTimestampPattern;
+	private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+
+	/* Compiled pattern: field index (>= 0) or literal (-1). */
+	private final int[] elementFields;
+	private final char[][] elementLiterals;
+	private final boolean[] elementAbutting;
+	private final int[] elementCounts;
+
+	private final int[] values = new int[DEFAULT_VALUES.length];
+
+	/* Cache */
+	private final char[] output = new char[32];
+	private int dateLength;
+	private int cachedYear = -1;
+	private int cachedMonth = -1;
+	private int cachedDay = -1;
+	private int cachedSecondOfDay = -1;
+	private int gapStart = -1; // seconds of day
+	private int gapEnd = -1;
+
+	private DateFormat csvDateFormat;
+	private DateFormat ansiSqlTimestampFormat;
+
+	TimestampTranscoder(final String csvTimestampPattern) {
+		this.csvTimestampPattern = csvTimestampPattern;
+		final List<Object> elements = compile(csvTimestampPattern);
+		if (elements == null) {
+			elementFields = null;
+			elementLiterals = null;
+			elementAbutting = null;
+			elementCounts = null;
+		}
+		else {
+			final int size = elements.size();
+			elementFields = new int[size];
+			elementLiterals = new char[size][];
+			elementAbutting = new boolean[size];
+			elementCounts = new int[size];
+			for (int i = 0; i < size; i++) {
+				final Object element = elements.get(i);
+				if (element instanceof String) {
+					elementFields[i] = -1;
+					elementLiterals[i] = ((String) element).toCharArray();
+				}
+				else {
+					final int[] field = (int[]) element;
+					elementFields[i] = field[0];
+					elementCounts[i] = field[1];
+					elementAbutting[i] = i + 1 < size && !(elements.get(i + 1) instanceof String);
+				}
+			}
+		}
+	}
+
+	/** Returns <code>true</code> if the pattern is transcoded without {@link SimpleDateFormat}. */
+	boolean isCompiled() {
+		return elementFields != null;
+	}
+
+	/**
+	 * Parses a CSV timestamp and writes it in the ANSI SQL format.
+	 *
+	 * @param text the buffer that contains the timestamp
+	 * @param start the start index of the timestamp (inclusive)
+	 * @param end the end index of the timestamp (exclusive)
+	 * @param out the writer
+	 * @throws ParseException if the timestamp is not valid
+	 * @throws IOException if an I/O error occurs
+	 */
+	void transcode(final char[] text, int start, int end, final Writer out) throws ParseException, IOException {
+		while (start < end && text[start] <= ' ') {
+			start++;
+		}
+		while (end > start && text[end - 1] <= ' ') {
+			end--;
+		}
+		if (!isCompiled() || !parse(text, start, end)) {
+			out.write(fallback(new String(text, start, end - start)));
+			return;
+		}
+
+		if (values[YEAR] != cachedYear || values[MONTH] != cachedMonth || values[DAY] != cachedDay) {
+			validateDate(text, start, end);
+			dateLength = formatDate();
+			cachedYear = values[YEAR];
+			cachedMonth = values[MONTH];
+			cachedDay = values[DAY];
+			cachedSecondOfDay = -1;
+			findGap();
+		}
+		final int secondOfDay = values[HOUR] * 3600 + values[MINUTE] * 60 + values[SECOND];
+		if (secondOfDay != cachedSecondOfDay) {
+			if (secondOfDay >= gapStart && secondOfDay < gapEnd) {
+				throw newParseException(text, start, end);
+			}
+			int i = dateLength;
+			i = appendPadded(values[HOUR], 2, i);
+			output[i++] = ':';
+			i = appendPadded(values[MINUTE], 2, i);
+			output[i++] = ':';
+			i = appendPadded(values[SECOND], 2, i);
+			output[i] = '.';
+			cachedSecondOfDay = secondOfDay;
+		}
+		final int length = appendPadded(values[MILLISECOND], 3, dateLength + 9);
+		out.write(output, 0, length);
+	}
+
+	/**
+	 * Parses the fields of the timestamp.
+	 *
+	 * @return <code>false</code> if the date must be handled by the fallback
+	 *         formats
+	 */
+	private boolean parse(final char[] text, final int start, final int end) throws ParseException {
+		System.arraycopy(DEFAULT_VALUES, 0, values, 0, values.length);
+		int position = start;
+		for (int e = 0; e < elementFields.length; e++) {
+			final int field = elementFields[e];
+			if (field < 0) {
+				final char[] literal = elementLiterals[e];
+				if (end - position < literal.length) {
+					throw newParseException(text, start, end);
+				}
+				for (final char c : literal) {
+					if (text[position++] != c) {
+						throw newParseException(text, start, end);
+					}
+				}
+			}
+			else {
+				final int fieldStart = position;
+				if (elementAbutting[e] && fieldStart + elementCounts[e] > end) {
+					throw newParseException(text, start, end);
+				}
+				final int limit = elementAbutting[e] ? fieldStart + elementCounts[e] : end; // leading whitespace counts, like in SimpleDateFormat
+				while (position < limit && (text[position] == ' ' || text[position] == '\t')) {
+					position++;
+				}
+				final int digitsStart = position;
+				long value = 0;
+				while (position < limit && text[position] >= '0' && text[position] <= '9') {
+					value = value * 10 + (text[position++] - '0');
+					if (value > MAX_VALUES[field]) {
+						throw newParseException(text, start, end);
+					}
+				}
+				if (position == digitsStart || value < MIN_VALUES[field]) {
+					throw newParseException(text, start, end);
+				}
+				values[field] = (int) value;
+			}
+		}
+		return values[YEAR] > GREGORIAN_CUTOVER_YEAR;
+	}
+
+	private void validateDate(final char[] text, final int start, final int end) throws ParseException {
+		final int year = values[YEAR];
+		final int maxDay;
+		switch (values[MONTH]) {
+		case 2:
+			maxDay = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+			break;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			maxDay = 30;
+			break;
+		default:
+			maxDay = 31;
+		}
+		if (values[DAY] > maxDay) {
+			throw newParseException(text, start, end);
+		}
+	}
+
+	/** Looks for a daylight saving time gap in the cached day. */
+	private void findGap() {
+		gapStart = -1;
+		gapEnd = -1;
+		final LocalDate date = LocalDate.of(cachedYear, cachedMonth, cachedDay);
+		final LocalDateTime dayStart = date.atStartOfDay();
+		final LocalDateTime dayEnd = dayStart.plusDays(1);
+		ZoneOffsetTransition transition = zoneRules.nextTransition(dayStart.minusDays(1).toInstant(zoneRules.getOffset(dayStart.minusDays(1))));
+		while (transition != null && transition.getDateTimeBefore().isBefore(dayEnd)) {
+			if (transition.isGap() && transition.getDateTimeAfter().isAfter(dayStart)) {
+				gapStart = transition.getDateTimeBefore().isAfter(dayStart) ? transition.getDateTimeBefore().toLocalTime().toSecondOfDay() : 0;
+				gapEnd = transition.getDateTimeAfter().isBefore(dayEnd) ? transition.getDateTimeAfter().toLocalTime().toSecondOfDay() : SECONDS_PER_DAY;
+				return;
+			}
+			transition = zoneRules.nextTransition(transition.getInstant());
+		}
+	}
+
+	private int formatDate() {
+		int i = appendPadded(values[YEAR], 4, 0);
+		output[i++] = '-';
+		i = appendPadded(values[MONTH], 1, i);
+		output[i++] = '-';
+		i = appendPadded(values[DAY], 2, i);
+		output[i++] = ' ';
+		return i;
+	}
+
+	private int appendPadded(final int value, final int minDigits, final int offset) {
+		int digits = 1;
+		for (int v = value; v >= 10; v /= 10) {
+			digits++;
+		}
+		final int length = Math.max(digits, minDigits);
+		int v = value;
+		for (int i = offset + length - 1; i >= offset; i--) {
+			output[i] = (char) ('0' + v % 10);
+			v /= 10;
+		}
+		return offset + length;
+	}
+
+	private String fallback(final String text) throws ParseException {
+		if (csvDateFormat == null) {
+			csvDateFormat = new SimpleDateFormat(csvTimestampPattern);
+			csvDateFormat.setLenient(false);
+			ansiSqlTimestampFormat = new SimpleDateFormat(ANSI_SQL_TIMESTAMP_PATTERN);
+		}
+		return ansiSqlTimestampFormat.format(csvDateFormat.parse(text));
+	}
+
+	private static ParseException newParseException(final char[] text, final int start, final int end) {
+		return new ParseException("Unparseable date: \"" + new String(text, start, end - start) + '"', 0);
+	}
+
+	/**
+	 * Compiles a {@link SimpleDateFormat} pattern.
+	 *
+	 * @return a list of literals (<tt>String</tt>) and fields (<tt>int[]</tt>
+	 *         holding field index and letter count), or <code>null</code> if
+	 *         the pattern cannot be transcoded directly
+	 */
+	private static List<Object> compile(final String pattern) {
+		final List<Object> elements = new ArrayList<>();
+		final boolean[] seen = new boolean[FIELD_LETTERS.length()];
+		final StringBuilder literal = new StringBuilder();
+		boolean inQuote = false;
+		for (int i = 0; i < pattern.length(); i++) {
+			final char c = pattern.charAt(i);
+			if (c == '\'') {
+				if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+					literal.append(c);
+					i++;
+				}
+				else {
+					inQuote = !inQuote;
+				}
+			}
+			else if (inQuote || !(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+				literal.append(c);
+			}
+			else {
+				final int field = FIELD_LETTERS.indexOf(c);
+				int count = 1;
+				while (i + 1 < pattern.length() && pattern.charAt(i + 1) == c) {
+					count++;
+					i++;
+				}
+				if (field < 0 || seen[field] || field == YEAR && count <= 2 || field == MONTH && count >= 3) {
+					return null; // text fields, two-digit years, ...
+				}
+				seen[field] = true;
+				if (literal.length() > 0) {
+					elements.add(literal.toString());
+					literal.setLength(0);
+				}
+				elements.add(new int[] { field, count });
+			}
+		}
+		if (inQuote) {
+			return null;
+		}
+		if (literal.length() > 0) {
+			elements.add(literal.toString());
+		}
+		return elements;
+	}
+
+}
@@ -0,0 +1,112 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Infers the types of the columns of a file from the lines that follow the
+ * header. The lines are profiled one at a time, and only the statistics of
+ * the columns are kept, so that any number of lines can be sampled in a
+ * constant amount of memory. The configured types override the inferred
+ * ones, while the timestamp and the response time have fixed types.
+ * <p>
+ * Instances are not thread-safe.
+ */
+class TypeInference {
+
+	private final CsvTokenizer header;
+	private final CsvTokenizer tokenizer;
+	private final ColumnProfile profile;
+	private final Map<String, ColumnType> columnTypes;
+	private final boolean responseTimeColumn;
+
+	/**
+	 * Creates a new inference for the columns of a file.
+	 *
+	 * @param engine the engine, whose column selection and configured types
+	 *        are used
+	 * @param headerLine the header of the file
+	 */
+	TypeInference(final CsvToSqlEngine engine, final String headerLine) {
+		final boolean[] selectedFields = engine.getSelectedFields(headerLine);
+		this.header = engine.newTokenizer(selectedFields);
+		header.tokenize(headerLine);
+		this.tokenizer = engine.newTokenizer(selectedFields);
+		this.profile = new ColumnProfile(header.getFieldCount());
+		this.columnTypes = engine.getColumnTypes();
+		this.responseTimeColumn = engine.hasResponseTimeColumn();
+	}
+
+	/**
+	 * Profiles a line. The blank and the malformed lines are ignored here, and
+	 * reported by the conversion.
+	 *
+	 * @param line the line to profile
+	 */
+	void add(final CharSequence line) {
+		try {
+			if (tokenizer.tokenize(line)) {
+				profile.add(tokenizer);
+			}
+		}
+		catch (final IllegalArgumentException e) {
+			// malformed line
+		}
+	}
+
+	/**
+	 * Profiles the lines of a reader, up to a maximum number of lines.
+	 *
+	 * @param reader the reader, positioned after the header or after any line
+	 *        of the body
+	 * @param maxLines the maximum number of lines to read
+	 * @param status the cancellation status, polled while reading; may be
+	 *        <code>null</code>
+	 * @throws IOException if an I/O error occurs
+	 * @throws InterruptedException if the inference has been canceled
+	 */
+	void add(final LineReader reader, final long maxLines, final CancellationStatus status) throws IOException, InterruptedException {
+		CharSequence line;
+		for (long i = 0; i < maxLines && (line = reader.readLine()) != null; i++) {
+			add(line);
+			if (reader.getLineNumber() % ProgressTracker.CHECK_INTERVAL == 0 && status != null && status.isCanceled()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	/** Returns the statistics of the lines profiled. */
+	ColumnProfile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Returns the types of the columns: the fixed ones of the timestamp and of
+	 * the response time, the configured ones and then the inferred ones. A
+	 * column is numeric only if all its profiled values are numbers or blank,
+	 * and at least one is a number.
+	 */
+	ColumnType[] getColumnTypes() {
+		final ColumnType[] types = new ColumnType[header.getFieldCount()];
+		for (int i = 0; i < types.length; i++) {
+			final ColumnType configured = columnTypes.get(header.getString(i).trim());
+			if (i == 0) {
+				types[i] = ColumnType.TIMESTAMP;
+			}
+			else if (i == 1 && responseTimeColumn) {
+				types[i] = ColumnType.INTEGER;
+			}
+			else if (configured != null) {
+				types[i] = configured;
+			}
+			else if (profile.getType(i) != null) {
+				types[i] = profile.getType(i);
+			}
+			else {
+				types[i] = ColumnType.TEXT;
+			}
+		}
+		return types;
+	}
+
+}
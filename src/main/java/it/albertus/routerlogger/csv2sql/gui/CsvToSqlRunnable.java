@@ -1,48 +1,192 @@
 package it.albertus.routerlogger.csv2sql.gui;
 
 import java.io.File;
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 
+import it.albertus.routerlogger.csv2sql.engine.CancellationStatus;
 import it.albertus.routerlogger.csv2sql.engine.CsvToSqlEngine;
+import it.albertus.routerlogger.csv2sql.engine.JdbcSink;
+import it.albertus.routerlogger.csv2sql.engine.ProgressListener;
 import it.albertus.routerlogger.csv2sql.resources.Messages;
+import it.albertus.util.DaemonThreadFactory;
 
+/**
+ * Converts the selected files using a bounded pool of worker threads. The
+ * largest files are scheduled first, so that the pool does not end up waiting
+ * for a single big file started last. Compressed files and zip archives are
+ * converted while they are decompressed, and the CSV entries of an archive
+ * share the threads of the archive. All the calls to the progress monitor are
+ * made by the thread that runs this operation: the progress reported by the
+ * engine is scaled to the total size of the files, and shown along with the
+ * throughput and the estimated time to completion. The metrics of the engine
+ * are registered as an MBean while the files are converted.
+ */
 public class CsvToSqlRunnable implements IRunnableWithProgress {
 
+	private static final long POLL_INTERVAL_MILLIS = 100;
+	private static final int TOTAL_WORK = 1000;
+	private static final int COMPRESSION_RATIO = 10; // typical for RouterLogger CSV files
+
 	private final CsvToSqlEngine converter;
 	private final String[] sourceFiles;
 	private final String destinationPath;
+	private final JdbcSink jdbcSink;
+	private final int maxThreads;
 
 	CsvToSqlRunnable(final CsvToSqlEngine converter, final String[] sourceFiles, final String destinationPath) {
+		this(converter, sourceFiles, destinationPath, Runtime.getRuntime().availableProcessors());
+	}
+
+	CsvToSqlRunnable(final CsvToSqlEngine converter, final String[] sourceFiles, final String destinationPath, final int maxThreads) {
+		this(converter, sourceFiles, destinationPath, null, maxThreads);
+	}
+
+	CsvToSqlRunnable(final CsvToSqlEngine converter, final String[] sourceFiles, final JdbcSink jdbcSink) {
+		this(converter, sourceFiles, null, jdbcSink, Runtime.getRuntime().availableProcessors());
+	}
+
+	private CsvToSqlRunnable(final CsvToSqlEngine converter, final String[] sourceFiles, final String destinationPath, final JdbcSink jdbcSink, final int maxThreads) {
+		if (maxThreads < 1) {
+			throw new IllegalArgumentException("maxThreads must be greater than zero");
+		}
 		this.converter = converter;
 		this.sourceFiles = sourceFiles;
 		this.destinationPath = destinationPath;
+		this.jdbcSink = jdbcSink;
+		this.maxThreads = maxThreads;
 	}
 
 	@Override
 	public void run(final IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
-		monitor.beginTask(Messages.get("lbl.csv2sql.runnable.task.name", sourceFiles.length), sourceFiles.length);
+		monitor.beginTask(Messages.get("lbl.csv2sql.runnable.task.name", sourceFiles.length), TOTAL_WORK);
 
-		for (int i = 0; i < sourceFiles.length; i++) {
-			final String sourceFile = sourceFiles[i];
-			monitor.subTask(Messages.get("lbl.csv2sql.runnable.subtask.name", i + 1, sourceFiles.length, sourceFile));
-			try {
-				converter.convert(new File(sourceFile), destinationPath, monitor::isCanceled);
-			}
-			catch (final IOException e) {
-				throw new InvocationTargetException(e);
+		final File[] files = Arrays.stream(sourceFiles).map(File::new).sorted(Comparator.comparingLong(CsvToSqlRunnable::estimateSize).reversed()).toArray(File[]::new);
+		final long totalBytes = Math.max(1, Arrays.stream(files).mapToLong(CsvToSqlRunnable::estimateSize).sum());
+		final AtomicLong bytes = new AtomicLong();
+		final AtomicLong rows = new AtomicLong();
+		final ProgressListener previousListener = converter.getProgressListener();
+		converter.setProgressListener((b, r) -> {
+			bytes.set(b);
+			rows.set(r);
+		});
+		converter.registerMBean();
+		final long startTime = System.nanoTime();
+		final long startBytes = converter.getByteCount();
+		final long startRows = converter.getRowCount();
+		int worked = 0;
+		final Collection<File> runningFiles = ConcurrentHashMap.newKeySet();
+		final AtomicBoolean aborted = new AtomicBoolean();
+		final CancellationStatus status = () -> aborted.get() || monitor.isCanceled();
+
+		final int threadsPerFile = Math.max(1, maxThreads / Math.max(1, files.length)); // split big files when there are spare cores
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(maxThreads, files.length)), new DaemonThreadFactory());
+		try {
+			final CompletionService<File> completionService = new ExecutorCompletionService<>(executor);
+			for (final File file : files) {
+				completionService.submit(() -> {
+					if (status.isCanceled()) {
+						throw new InterruptedException(); // do not even create the destination file
+					}
+					runningFiles.add(file);
+					try {
+						if (jdbcSink != null) {
+							converter.convert(file, jdbcSink, status);
+						}
+						else {
+							converter.convert(file, destinationPath, status, threadsPerFile);
+						}
+					}
+					finally {
+						runningFiles.remove(file);
+					}
+					return file;
+				});
 			}
-			monitor.worked(1);
 
-			if (monitor.isCanceled()) {
-				throw new InterruptedException();
+			int completed = 0;
+			while (completed < files.length) {
+				final Future<File> future = completionService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if (future != null) {
+					try {
+						future.get();
+					}
+					catch (final ExecutionException e) {
+						aborted.set(true);
+						if (e.getCause() instanceof InterruptedException) {
+							throw (InterruptedException) e.getCause();
+						}
+						throw new InvocationTargetException(e.getCause());
+					}
+					completed++;
+				}
+				final long processedBytes = Math.max(0, bytes.get() - startBytes);
+				final int work = (int) Math.min(TOTAL_WORK - 1, processedBytes * TOTAL_WORK / totalBytes); // compressed sizes are estimated
+				if (work > worked) {
+					monitor.worked(work - worked);
+					worked = work;
+				}
+				if (!runningFiles.isEmpty()) {
+					final String subTask = Messages.get("lbl.csv2sql.runnable.subtask.name", Math.min(completed + 1, files.length), files.length, runningFiles.stream().map(File::getPath).collect(Collectors.joining(", ")));
+					if (processedBytes > 0) {
+						final double seconds = (System.nanoTime() - startTime) / 1e9;
+						final long remainingSeconds = (long) (Math.max(0, totalBytes - processedBytes) * seconds / processedBytes);
+						monitor.subTask(Messages.get("lbl.csv2sql.runnable.subtask.progress", subTask, String.format("%.1f", processedBytes / 1e6 / seconds), String.format("%.0f", (rows.get() - startRows) / seconds), String.format("%d:%02d:%02d", remainingSeconds / 3600, remainingSeconds / 60 % 60, remainingSeconds % 60)));
+					}
+					else {
+						monitor.subTask(subTask);
+					}
+				}
+				if (monitor.isCanceled()) {
+					throw new InterruptedException();
+				}
 			}
 		}
+		finally {
+			aborted.set(true);
+			executor.shutdown();
+			awaitTermination(executor); // let the workers delete their incomplete files
+			converter.setProgressListener(previousListener);
+			converter.unregisterMBean();
+		}
 
 		monitor.done();
 	}
 
+	/** Estimates the size of the CSV data of a file, that may be compressed. */
+	private static long estimateSize(final File file) {
+		return CsvToSqlEngine.isGzip(file) || CsvToSqlEngine.isZip(file) ? file.length() * COMPRESSION_RATIO : file.length();
+	}
+
+	private static void awaitTermination(final ExecutorService executor) {
+		boolean interrupted = false;
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 }
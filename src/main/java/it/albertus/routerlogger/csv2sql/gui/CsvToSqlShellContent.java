@@ -5,9 +5,13 @@ import static it.albertus.jface.decoration.ControlValidatorDecoration.DEFAULT_ST
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Level;
@@ -23,6 +27,8 @@ import org.eclipse.jface.operation.IRunnableContext;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTException;
 import org.eclipse.swt.custom.ScrolledComposite;
+import org.eclipse.swt.events.FocusAdapter;
+import org.eclipse.swt.events.FocusEvent;
 import org.eclipse.swt.events.KeyAdapter;
 import org.eclipse.swt.events.KeyEvent;
 import org.eclipse.swt.events.MenuDetectEvent;
@@ -44,6 +50,8 @@ import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 
 import it.albertus.jface.EnhancedErrorDialog;
@@ -59,30 +67,13 @@ import it.albertus.jface.validation.StringTextValidator;
 import it.albertus.jface.validation.Validator;
 import it.albertus.routerlogger.csv2sql.engine.CsvToSqlConfig;
 import it.albertus.routerlogger.csv2sql.engine.CsvToSqlEngine;
+import it.albertus.routerlogger.csv2sql.engine.JdbcSink;
 import it.albertus.routerlogger.csv2sql.gui.preference.Preference;
 import it.albertus.routerlogger.csv2sql.resources.Messages;
 import it.albertus.util.logging.LoggerFactory;
 
 public class CsvToSqlShellContent implements Multilanguage {
 
-	public static final byte DATABASE_COLUMN_NAME_MIN_LENGTH = 8;
-
-	public static final String TIMESTAMP_BASE_COLUMN_NAME = "timestamp";
-	public static final String RESPONSE_TIME_BASE_COLUMN_NAME = "response_time_ms";
-
-	public static class Defaults {
-		public static final String CSV_FIELD_SEPARATOR = ";";
-		public static final String CSV_DATE_PATTERN = "dd/MM/yyyy HH:mm:ss.SSS";
-		public static final boolean CSV_RESPONSE_TIME = true;
-		public static final String DATABASE_TABLE_NAME = "router_log";
-		public static final String DATABASE_COLUMN_NAME_PREFIX = "rl_";
-		public static final byte DATABASE_COLUMN_NAME_MAX_LENGTH = 30;
-
-		private Defaults() {
-			throw new IllegalAccessError("Constants class");
-		}
-	}
-
 	public static final String LBL_CSV2SQL_TITLE = "lbl.csv2sql.title";
 
 	private static final String LBL_CSV2SQL_SOURCE_MENU_DELETE_KEY = "lbl.csv2sql.source.menu.delete.key";
@@ -109,12 +100,22 @@ public class CsvToSqlShellContent implements Multilanguage {
 	private Label csvTimestampPatternLabel;
 	private Text csvTimestampPatternText;
 	private Button csvResponseTimeFlag;
+	private Label csvColumnsLabel;
+	private Table csvColumnsTable;
 
 	// Destination group
 	private Group destinationGroup;
+	private Button scriptDestinationButton;
+	private Button jdbcDestinationButton;
 	private Label destinationDirectoryLabel;
 	private Text destinationDirectoryText;
 	private Button browseDirectoryButton;
+	private Label jdbcUrlLabel;
+	private Text jdbcUrlText;
+	private Label jdbcUserLabel;
+	private Text jdbcUserText;
+	private Label jdbcPasswordLabel;
+	private Text jdbcPasswordText;
 	private Label sqlTableNameLabel;
 	private Text sqlTableNameText;
 	private Label sqlColumnNamesPrefixLabel;
@@ -200,6 +201,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 		createCsvSeparatorField(sourceGroup);
 		createCsvDatePatternField(sourceGroup);
 		createCsvResponseTimeFlag(sourceGroup);
+		createCsvColumnsTable(sourceGroup);
 	}
 
 	private void createSourceFilesList(final Composite parent) {
@@ -340,12 +342,18 @@ public class CsvToSqlShellContent implements Multilanguage {
 		csvSeparatorText = new Text(parent, SWT.BORDER);
 		csvSeparatorText.setTextLimit(Byte.MAX_VALUE);
 		csvSeparatorText.addModifyListener(textModifyListener);
+		csvSeparatorText.addFocusListener(new FocusAdapter() {
+			@Override
+			public void focusLost(final FocusEvent e) {
+				director.csvSeparatorFocusLost(e);
+			}
+		});
 		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).applyTo(csvSeparatorText);
 
 		final ControlValidator<Text> validator = new StringTextValidator(csvSeparatorText, false);
 		new ControlValidatorDecoration(validator, () -> Messages.get("err.csv2sql.source.csv.separator"), DEFAULT_STYLE, FieldDecorationRegistry.DEC_REQUIRED);
 		validators.add(validator);
-		csvSeparatorText.setText(configuration.getString(Preference.CSV_FIELD_SEPARATOR, Defaults.CSV_FIELD_SEPARATOR));
+		csvSeparatorText.setText(configuration.getString(Preference.CSV_FIELD_SEPARATOR, CsvToSqlConfig.Defaults.CSV_FIELD_SEPARATOR));
 	}
 
 	private void createCsvDatePatternField(final Composite parent) {
@@ -376,29 +384,71 @@ public class CsvToSqlShellContent implements Multilanguage {
 		};
 		new ControlValidatorDecoration(validator, () -> Messages.get("err.csv2sql.source.csv.date.pattern"));
 		validators.add(validator);
-		csvTimestampPatternText.setText(configuration.getString(Preference.CSV_DATE_PATTERN, Defaults.CSV_DATE_PATTERN));
+		csvTimestampPatternText.setText(configuration.getString(Preference.CSV_DATE_PATTERN, CsvToSqlConfig.Defaults.CSV_DATE_PATTERN));
 	}
 
 	private void createCsvResponseTimeFlag(final Composite parent) {
 		csvResponseTimeFlag = new Button(parent, SWT.CHECK);
 		csvResponseTimeFlag.setData("lbl.csv2sql.source.csv.responseTime");
 		csvResponseTimeFlag.setText(Messages.get(csvResponseTimeFlag.getData().toString()));
-		csvResponseTimeFlag.setSelection(configuration.getBoolean(Preference.CSV_RESPONSE_TIME, Defaults.CSV_RESPONSE_TIME));
+		csvResponseTimeFlag.setSelection(configuration.getBoolean(Preference.CSV_RESPONSE_TIME, CsvToSqlConfig.Defaults.CSV_RESPONSE_TIME));
 		GridDataFactory.swtDefaults().span(2, 1).applyTo(csvResponseTimeFlag);
 	}
 
+	private void createCsvColumnsTable(final Composite parent) {
+		csvColumnsLabel = new Label(parent, SWT.NONE);
+		csvColumnsLabel.setData("lbl.csv2sql.source.csv.columns");
+		csvColumnsLabel.setText(Messages.get(csvColumnsLabel.getData().toString()));
+		GridDataFactory.fillDefaults().span(2, 1).applyTo(csvColumnsLabel);
+
+		csvColumnsTable = new Table(parent, SWT.CHECK | SWT.V_SCROLL | SWT.BORDER);
+		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).hint(SWT.DEFAULT, csvColumnsTable.getItemHeight() * 6).applyTo(csvColumnsTable);
+		csvColumnsTable.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(final SelectionEvent e) {
+				director.csvColumnsTableSelected(e);
+			}
+		});
+	}
+
 	private void createDestinationGroup(final Composite shell) {
 		destinationGroup = new Group(shell, SWT.NONE);
 		destinationGroup.setData("lbl.csv2sql.destination");
 		destinationGroup.setText(Messages.get(destinationGroup.getData().toString()));
 		GridDataFactory.fillDefaults().grab(true, false).span(2, 1).applyTo(destinationGroup);
 		GridLayoutFactory.swtDefaults().numColumns(2).applyTo(destinationGroup);
+		createDestinationTypeButtons(destinationGroup);
 		createDestinationDirectoryField(destinationGroup);
+		createJdbcFields(destinationGroup);
 		createDatabaseTableNameField(destinationGroup);
 		createDatabaseColumnNamePrefixField(destinationGroup);
 		createDatabaseMaxLengthColumnNamesField(destinationGroup);
 	}
 
+	private void createDestinationTypeButtons(final Composite parent) {
+		final boolean jdbc = configuration.getBoolean(Preference.DATABASE_JDBC, CsvToSqlConfig.Defaults.DATABASE_JDBC);
+		final SelectionListener listener = new SelectionAdapter() {
+			@Override
+			public void widgetSelected(final SelectionEvent e) {
+				director.destinationTypeSelected(e);
+			}
+		};
+
+		scriptDestinationButton = new Button(parent, SWT.RADIO);
+		scriptDestinationButton.setData("lbl.csv2sql.destination.type.script");
+		scriptDestinationButton.setText(Messages.get(scriptDestinationButton.getData().toString()));
+		scriptDestinationButton.setSelection(!jdbc);
+		scriptDestinationButton.addSelectionListener(listener);
+		GridDataFactory.swtDefaults().applyTo(scriptDestinationButton);
+
+		jdbcDestinationButton = new Button(parent, SWT.RADIO);
+		jdbcDestinationButton.setData("lbl.csv2sql.destination.type.jdbc");
+		jdbcDestinationButton.setText(Messages.get(jdbcDestinationButton.getData().toString()));
+		jdbcDestinationButton.setSelection(jdbc);
+		jdbcDestinationButton.addSelectionListener(listener);
+		GridDataFactory.swtDefaults().applyTo(jdbcDestinationButton);
+	}
+
 	private void createDestinationDirectoryField(final Composite parent) {
 		destinationDirectoryLabel = new Label(parent, SWT.NONE);
 		destinationDirectoryLabel.setData("lbl.csv2sql.destination.directory");
@@ -413,7 +463,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 		final ControlValidator<Text> validator = new StringTextValidator(destinationDirectoryText, false) {
 			@Override
 			public boolean isValid() {
-				return super.isValid() && new File(destinationDirectoryText.getText()).isDirectory();
+				return jdbcDestinationButton.getSelection() || super.isValid() && new File(destinationDirectoryText.getText()).isDirectory();
 			}
 		};
 		validators.add(validator);
@@ -432,6 +482,55 @@ public class CsvToSqlShellContent implements Multilanguage {
 		});
 	}
 
+	private void createJdbcFields(final Composite parent) {
+		jdbcUrlLabel = new Label(parent, SWT.NONE);
+		jdbcUrlLabel.setData("lbl.csv2sql.destination.jdbc.url");
+		jdbcUrlLabel.setText(Messages.get(jdbcUrlLabel.getData().toString()));
+		GridDataFactory.fillDefaults().span(2, 1).applyTo(jdbcUrlLabel);
+
+		jdbcUrlText = new Text(parent, SWT.BORDER);
+		jdbcUrlText.setText(configuration.getString(Preference.DATABASE_JDBC_URL, ""));
+		jdbcUrlText.addModifyListener(textModifyListener);
+		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).applyTo(jdbcUrlText);
+
+		final ControlValidator<Text> validator = new StringTextValidator(jdbcUrlText, false) {
+			@Override
+			public boolean isValid() {
+				return scriptDestinationButton.getSelection() || super.isValid() && jdbcUrlText.getText().trim().startsWith("jdbc:");
+			}
+		};
+		validators.add(validator);
+		new ControlValidatorDecoration(validator, () -> Messages.get("err.csv2sql.destination.jdbc.url"));
+
+		jdbcUserLabel = new Label(parent, SWT.NONE);
+		jdbcUserLabel.setData("lbl.csv2sql.destination.jdbc.user");
+		jdbcUserLabel.setText(Messages.get(jdbcUserLabel.getData().toString()));
+		GridDataFactory.fillDefaults().span(2, 1).applyTo(jdbcUserLabel);
+
+		jdbcUserText = new Text(parent, SWT.BORDER);
+		jdbcUserText.setText(configuration.getString(Preference.DATABASE_JDBC_USER, ""));
+		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).applyTo(jdbcUserText);
+
+		jdbcPasswordLabel = new Label(parent, SWT.NONE);
+		jdbcPasswordLabel.setData("lbl.csv2sql.destination.jdbc.password");
+		jdbcPasswordLabel.setText(Messages.get(jdbcPasswordLabel.getData().toString()));
+		GridDataFactory.fillDefaults().span(2, 1).applyTo(jdbcPasswordLabel);
+
+		jdbcPasswordText = new Text(parent, SWT.BORDER | SWT.PASSWORD);
+		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).applyTo(jdbcPasswordText);
+
+		updateDestinationFields();
+	}
+
+	private void updateDestinationFields() {
+		final boolean jdbc = jdbcDestinationButton.getSelection();
+		destinationDirectoryText.setEnabled(!jdbc);
+		browseDirectoryButton.setEnabled(!jdbc);
+		jdbcUrlText.setEnabled(jdbc);
+		jdbcUserText.setEnabled(jdbc);
+		jdbcPasswordText.setEnabled(jdbc);
+	}
+
 	private void createDatabaseTableNameField(final Composite parent) {
 		sqlTableNameLabel = new Label(parent, SWT.NONE);
 		sqlTableNameLabel.setData("lbl.csv2sql.destination.table.name");
@@ -451,7 +550,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 		};
 		new ControlValidatorDecoration(validator, () -> Messages.get("err.csv2sql.destination.table.name"), DEFAULT_STYLE, FieldDecorationRegistry.DEC_REQUIRED);
 		validators.add(validator);
-		sqlTableNameText.setText(configuration.getString(Preference.DATABASE_TABLE_NAME, Defaults.DATABASE_TABLE_NAME));
+		sqlTableNameText.setText(configuration.getString(Preference.DATABASE_TABLE_NAME, CsvToSqlConfig.Defaults.DATABASE_TABLE_NAME));
 	}
 
 	private void createDatabaseColumnNamePrefixField(final Composite parent) {
@@ -462,7 +561,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 
 		sqlColumnNamesPrefixText = new Text(parent, SWT.BORDER);
 		sqlColumnNamesPrefixText.setTextLimit(Byte.MAX_VALUE);
-		sqlColumnNamesPrefixText.setText(configuration.getString(Preference.DATABASE_COLUMN_NAME_PREFIX, Defaults.DATABASE_COLUMN_NAME_PREFIX));
+		sqlColumnNamesPrefixText.setText(configuration.getString(Preference.DATABASE_COLUMN_NAME_PREFIX, CsvToSqlConfig.Defaults.DATABASE_COLUMN_NAME_PREFIX));
 		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).applyTo(sqlColumnNamesPrefixText);
 	}
 
@@ -478,10 +577,10 @@ public class CsvToSqlShellContent implements Multilanguage {
 		sqlMaxLengthColumnNamesText.addVerifyListener(new ByteVerifyListener(false));
 		GridDataFactory.fillDefaults().span(2, 1).grab(true, false).applyTo(sqlMaxLengthColumnNamesText);
 
-		final ControlValidator<Text> validator = new ByteTextValidator(sqlMaxLengthColumnNamesText, false, DATABASE_COLUMN_NAME_MIN_LENGTH, null);
+		final ControlValidator<Text> validator = new ByteTextValidator(sqlMaxLengthColumnNamesText, false, CsvToSqlConfig.DATABASE_COLUMN_NAME_MIN_LENGTH, null);
 		new ControlValidatorDecoration(validator, () -> Messages.get("err.preferences.integer.range", 8, 99));
 		validators.add(validator);
-		sqlMaxLengthColumnNamesText.setText(Integer.toString(configuration.getInt(Preference.DATABASE_COLUMN_NAME_MAX_LENGTH, Defaults.DATABASE_COLUMN_NAME_MAX_LENGTH)));
+		sqlMaxLengthColumnNamesText.setText(Integer.toString(configuration.getInt(Preference.DATABASE_COLUMN_NAME_MAX_LENGTH, CsvToSqlConfig.Defaults.DATABASE_COLUMN_NAME_MAX_LENGTH)));
 	}
 
 	private void createButtonBar(final Composite parent) {
@@ -532,10 +631,16 @@ public class CsvToSqlShellContent implements Multilanguage {
 		csvSeparatorLabel.setText(Messages.get(csvSeparatorLabel.getData().toString()));
 		csvTimestampPatternLabel.setText(Messages.get(csvTimestampPatternLabel.getData().toString()));
 		csvResponseTimeFlag.setText(Messages.get(csvResponseTimeFlag.getData().toString()));
+		csvColumnsLabel.setText(Messages.get(csvColumnsLabel.getData().toString()));
 
 		destinationGroup.setText(Messages.get(destinationGroup.getData().toString()));
+		scriptDestinationButton.setText(Messages.get(scriptDestinationButton.getData().toString()));
+		jdbcDestinationButton.setText(Messages.get(jdbcDestinationButton.getData().toString()));
 		destinationDirectoryLabel.setText(Messages.get(destinationDirectoryLabel.getData().toString()));
 		browseDirectoryButton.setText(Messages.get(browseDirectoryButton.getData().toString()));
+		jdbcUrlLabel.setText(Messages.get(jdbcUrlLabel.getData().toString()));
+		jdbcUserLabel.setText(Messages.get(jdbcUserLabel.getData().toString()));
+		jdbcPasswordLabel.setText(Messages.get(jdbcPasswordLabel.getData().toString()));
 		sqlTableNameLabel.setText(Messages.get(sqlTableNameLabel.getData().toString()));
 		sqlColumnNamesPrefixLabel.setText(Messages.get(sqlColumnNamesPrefixLabel.getData().toString()));
 		sqlMaxLengthColumnNamesLabel.setText(Messages.get(sqlMaxLengthColumnNamesLabel.getData().toString()));
@@ -547,6 +652,9 @@ public class CsvToSqlShellContent implements Multilanguage {
 	/* Mediator */
 	private class GuiDirector implements IGuiDirector {
 
+		private final Map<String, Boolean> checkedColumns = new HashMap<>(); // choices of the user, that survive the reload of the columns
+		private String listedCsvSeparator; // of the columns in the table
+
 		@Override
 		public void sourceFilesListKeyPressed(final KeyEvent e) {
 			if (e != null) {
@@ -582,6 +690,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 					final String lastItem = sourceFilesList.getItem(sourceFilesList.getItemCount() - 1);
 					destinationDirectoryText.setText(new File(lastItem).getParent());
 				}
+				updateCsvColumns();
 			}
 			updateProcessButtonStatus();
 		}
@@ -627,6 +736,12 @@ public class CsvToSqlShellContent implements Multilanguage {
 			}
 		}
 
+		@Override
+		public void destinationTypeSelected(final SelectionEvent e) {
+			updateDestinationFields();
+			updateProcessButtonStatus();
+		}
+
 		@Override
 		public void processButtonSelected(final SelectionEvent e) {
 			process(shell);
@@ -642,6 +757,76 @@ public class CsvToSqlShellContent implements Multilanguage {
 			updateProcessButtonStatus();
 		}
 
+		@Override
+		public void csvSeparatorFocusLost(final FocusEvent e) {
+			if (!csvSeparatorText.getText().equals(listedCsvSeparator)) { // the header is read once the separator has been typed
+				updateCsvColumns();
+			}
+		}
+
+		@Override
+		public void csvColumnsTableSelected(final SelectionEvent e) {
+			if (e.detail == SWT.CHECK && e.item instanceof TableItem) {
+				final TableItem item = (TableItem) e.item;
+				checkedColumns.put(item.getText(), item.getChecked());
+			}
+		}
+
+		/**
+		 * Lists the columns of the first source file, checking the ones chosen
+		 * by the user or, if not chosen yet, the ones of the configured
+		 * selection. The timestamp, that is always converted, is not listed.
+		 */
+		private void updateCsvColumns() {
+			if (csvColumnsTable == null || csvColumnsTable.isDisposed()) {
+				return;
+			}
+			csvColumnsTable.removeAll();
+			listedCsvSeparator = csvSeparatorText.getText();
+			if (sourceFilesList.getItemCount() == 0 || csvSeparatorText.getText().isEmpty()) {
+				return;
+			}
+			try {
+				final CsvToSqlEngine engine = new CsvToSqlEngine(csvSeparatorText.getText(), CsvToSqlConfig.Defaults.CSV_DATE_PATTERN, CsvToSqlConfig.Defaults.DATABASE_TABLE_NAME, "", CsvToSqlConfig.TIMESTAMP_BASE_COLUMN_NAME, null, CsvToSqlConfig.Defaults.DATABASE_COLUMN_NAME_MAX_LENGTH);
+				CsvToSqlConfig.getInstance().configure(engine); // charset and selected columns
+				final java.util.List<String> csvColumnNames = engine.getCsvColumnNames(new File(sourceFilesList.getItem(0)));
+				for (int i = 1; i < csvColumnNames.size(); i++) {
+					final String csvColumnName = csvColumnNames.get(i);
+					final TableItem item = new TableItem(csvColumnsTable, SWT.NONE);
+					item.setText(csvColumnName);
+					final Boolean checked = checkedColumns.get(csvColumnName);
+					item.setChecked(checked != null ? checked : engine.isSelectedColumn(csvColumnName));
+				}
+			}
+			catch (final Exception e) {
+				logger.log(Level.FINE, e.toString(), e); // invalid separator or unreadable file, no columns to choose
+			}
+		}
+
+		/**
+		 * Returns the columns checked in the table.
+		 *
+		 * @return the names of the checked columns, an empty list if all the
+		 *         columns are checked, or <code>null</code> if the table is
+		 *         empty and the configured selection applies
+		 */
+		private java.util.List<String> getSelectedColumns() {
+			if (!csvSeparatorText.getText().equals(listedCsvSeparator)) { // the separator may still have the focus
+				updateCsvColumns();
+			}
+			final TableItem[] items = csvColumnsTable.getItems();
+			if (items.length == 0) {
+				return null;
+			}
+			final java.util.List<String> selectedColumns = new ArrayList<>();
+			for (final TableItem item : items) {
+				if (item.getChecked()) {
+					selectedColumns.add(item.getText());
+				}
+			}
+			return selectedColumns.size() < items.length ? selectedColumns : Collections.<String> emptyList();
+		}
+
 		/**
 		 * Opens the file dialog to set the source files.
 		 * 
@@ -650,7 +835,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 		 */
 		private Set<String> selectSourceFiles(final Shell parent) {
 			final FileDialog openDialog = new FileDialog(parent, SWT.OPEN | SWT.MULTI);
-			openDialog.setFilterExtensions(new String[] { "*.CSV;*.csv" });
+			openDialog.setFilterExtensions(new String[] { "*.CSV;*.csv;*.GZ;*.gz;*.ZIP;*.zip" });
 			openDialog.open();
 			final Set<String> fileNames = new TreeSet<>();
 			for (final String fileName : openDialog.getFileNames()) {
@@ -679,6 +864,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 				if (sourceFilesList.getItemCount() == 0) {
 					clearSourceFilesButton.setEnabled(false);
 				}
+				updateCsvColumns();
 				updateProcessButtonStatus();
 			}
 		}
@@ -688,6 +874,7 @@ public class CsvToSqlShellContent implements Multilanguage {
 			if (sourceFilesList.getItemCount() > 0) {
 				sourceFilesList.removeAll();
 				removeSourceFileButton.setEnabled(false);
+				updateCsvColumns();
 				updateProcessButtonStatus();
 			}
 		}
@@ -717,15 +904,28 @@ public class CsvToSqlShellContent implements Multilanguage {
 			try {
 				final String sqlTableName = sqlTableNameText.getText().trim();
 				final String sqlColumnNamesPrefix = sqlColumnNamesPrefixText.getText().trim();
-				final String sqlTimestampColumnName = TIMESTAMP_BASE_COLUMN_NAME;
-				final String sqlResponseTimeColumnName = csvResponseTimeFlag.getSelection() ? RESPONSE_TIME_BASE_COLUMN_NAME : null;
+				final String sqlTimestampColumnName = CsvToSqlConfig.TIMESTAMP_BASE_COLUMN_NAME;
+				final String sqlResponseTimeColumnName = csvResponseTimeFlag.getSelection() ? CsvToSqlConfig.RESPONSE_TIME_BASE_COLUMN_NAME : null;
 				final int sqlMaxLengthColumnNames = Integer.parseInt(sqlMaxLengthColumnNamesText.getText().trim());
 				final String csvSeparator = csvSeparatorText.getText();
 				final String csvTimestampPattern = csvTimestampPatternText.getText().trim();
 
 				final CsvToSqlEngine converter = new CsvToSqlEngine(csvSeparator, csvTimestampPattern, sqlTableName, sqlColumnNamesPrefix, sqlTimestampColumnName, sqlResponseTimeColumnName, sqlMaxLengthColumnNames);
+				CsvToSqlConfig.getInstance().configure(converter);
+				final java.util.List<String> selectedColumns = getSelectedColumns();
+				if (selectedColumns != null) {
+					converter.setSelectedColumns(selectedColumns);
+				}
 
-				final CsvToSqlRunnable runnable = new CsvToSqlRunnable(converter, sourceFilesList.getItems(), destinationDirectoryText.getText().trim());
+				final CsvToSqlRunnable runnable;
+				if (jdbcDestinationButton.getSelection()) {
+					final JdbcSink sink = new JdbcSink(jdbcUrlText.getText().trim(), jdbcUserText.getText().trim(), jdbcPasswordText.getText());
+					CsvToSqlConfig.getInstance().configure(sink);
+					runnable = new CsvToSqlRunnable(converter, sourceFilesList.getItems(), sink);
+				}
+				else {
+					runnable = new CsvToSqlRunnable(converter, sourceFilesList.getItems(), destinationDirectoryText.getText().trim());
+				}
 
 				ProgressMonitorDialog.setDefaultImages(shell.getImages());
 				final IRunnableContext dialog = new ProgressMonitorDialog(shell) {
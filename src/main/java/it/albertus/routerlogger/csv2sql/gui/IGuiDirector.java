@@ -1,5 +1,6 @@
 package it.albertus.routerlogger.csv2sql.gui;
 
+import org.eclipse.swt.events.FocusEvent;
 import org.eclipse.swt.events.KeyEvent;
 import org.eclipse.swt.events.MenuDetectEvent;
 import org.eclipse.swt.events.ModifyEvent;
@@ -17,6 +18,12 @@ interface IGuiDirector {
 
 	void closeButtonSelected(SelectionEvent e);
 
+	void csvColumnsTableSelected(SelectionEvent e);
+
+	void csvSeparatorFocusLost(FocusEvent e);
+
+	void destinationTypeSelected(SelectionEvent e);
+
 	void processButtonSelected(SelectionEvent e);
 
 	void removeSourceFilesButtonSelected(SelectionEvent e);
@@ -24,7 +24,7 @@ import it.albertus.jface.preference.field.ScaleIntegerFieldEditor;
 import it.albertus.jface.preference.page.IPageDefinition;
 import it.albertus.jface.preference.page.LoggingPreferencePage;
 import it.albertus.routerlogger.csv2sql.engine.CsvToSqlConfig;
-import it.albertus.routerlogger.csv2sql.gui.CsvToSqlShellContent;
+import it.albertus.routerlogger.csv2sql.gui.preference.page.DefaultsPreferencePage;
 import it.albertus.routerlogger.csv2sql.gui.preference.page.GeneralPreferencePage;
 import it.albertus.routerlogger.csv2sql.resources.Messages;
 import it.albertus.util.config.LoggingConfig;
@@ -33,14 +33,32 @@ public enum Preference implements IPreference {
 
 	LANGUAGE(new PreferenceDetailsBuilder(GENERAL).defaultValue(Messages.DEFAULT_LANGUAGE).build(), new FieldEditorDetailsBuilder(DefaultComboFieldEditor.class).labelsAndValues(GeneralPreferencePage.getLanguageComboOptions()).build()),
 
-	CSV_FIELD_SEPARATOR(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlShellContent.Defaults.CSV_FIELD_SEPARATOR).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
-	CSV_DATE_PATTERN(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlShellContent.Defaults.CSV_DATE_PATTERN).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
-	CSV_RESPONSE_TIME(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlShellContent.Defaults.CSV_RESPONSE_TIME).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
+	CSV_FIELD_SEPARATOR(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.CSV_FIELD_SEPARATOR).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
+	CSV_DATE_PATTERN(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.CSV_DATE_PATTERN).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
+	CSV_RESPONSE_TIME(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.CSV_RESPONSE_TIME).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
+	CSV_CHARSET(new PreferenceDetailsBuilder(DEFAULTS).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
+	CSV_MEMORY_MAPPED(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.CSV_MEMORY_MAPPED).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
 
 	DATABASE_DIRECTORY(new PreferenceDetailsBuilder(DEFAULTS).separate().build(), new FieldEditorDetailsBuilder(EnhancedDirectoryFieldEditor.class).emptyStringAllowed(true).directoryDialogMessage(() -> Messages.get("lbl.preferences.database.directory")).build()),
-	DATABASE_TABLE_NAME(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlShellContent.Defaults.DATABASE_TABLE_NAME).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).build()),
-	DATABASE_COLUMN_NAME_PREFIX(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlShellContent.Defaults.DATABASE_COLUMN_NAME_PREFIX).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
-	DATABASE_COLUMN_NAME_MAX_LENGTH(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlShellContent.Defaults.DATABASE_COLUMN_NAME_MAX_LENGTH).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(2).numberMinimum(CsvToSqlShellContent.DATABASE_COLUMN_NAME_MIN_LENGTH).build()),
+	DATABASE_TABLE_NAME(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_TABLE_NAME).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).build()),
+	DATABASE_COLUMN_NAME_PREFIX(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_COLUMN_NAME_PREFIX).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
+	DATABASE_COLUMN_NAME_MAX_LENGTH(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_COLUMN_NAME_MAX_LENGTH).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(2).numberMinimum(CsvToSqlConfig.DATABASE_COLUMN_NAME_MIN_LENGTH).build()),
+	DATABASE_CHARSET(new PreferenceDetailsBuilder(DEFAULTS).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
+	DATABASE_OUTPUT_BUFFER_SIZE(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_OUTPUT_BUFFER_SIZE).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(6).numberMinimum(1).build()),
+	DATABASE_OUTPUT_FORMAT(new PreferenceDetailsBuilder(DEFAULTS).separate().defaultValue(CsvToSqlConfig.Defaults.DATABASE_OUTPUT_FORMAT).build(), new FieldEditorDetailsBuilder(DefaultComboFieldEditor.class).labelsAndValues(DefaultsPreferencePage.getOutputFormatComboOptions()).build()),
+	DATABASE_COMPRESSED(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_COMPRESSED).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
+	DATABASE_COMPRESSION_INDEX(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_COMPRESSION_INDEX).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
+	DATABASE_ROWS_PER_STATEMENT(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_ROWS_PER_STATEMENT).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(5).numberMinimum(1).build()),
+	DATABASE_MAX_STATEMENT_SIZE(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_MAX_STATEMENT_SIZE).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(7).numberMinimum(1).build()),
+	DATABASE_COMMIT_ROWS(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_COMMIT_ROWS).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(9).numberMinimum(0).build()),
+	DATABASE_COMMIT_SIZE(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_COMMIT_SIZE).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(9).numberMinimum(0).build()),
+	DATABASE_JDBC(new PreferenceDetailsBuilder(DEFAULTS).separate().defaultValue(CsvToSqlConfig.Defaults.DATABASE_JDBC).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
+	DATABASE_JDBC_URL(new PreferenceDetailsBuilder(DEFAULTS).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).build()),
+	DATABASE_JDBC_USER(new PreferenceDetailsBuilder(DEFAULTS).build(), new FieldEditorDetailsBuilder(EnhancedStringFieldEditor.class).emptyStringAllowed(true).textLimit(Byte.MAX_VALUE).build()),
+	DATABASE_JDBC_BATCH_SIZE(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_JDBC_BATCH_SIZE).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(6).numberMinimum(1).build()),
+	DATABASE_JDBC_COMMIT_INTERVAL(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_JDBC_COMMIT_INTERVAL).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(9).numberMinimum(0).build()),
+	DATABASE_JDBC_CONNECTIONS(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_JDBC_CONNECTIONS).build(), new FieldEditorDetailsBuilder(EnhancedIntegerFieldEditor.class).emptyStringAllowed(false).textLimit(2).numberMinimum(1).build()),
+	DATABASE_JDBC_ORDERED_COMMIT(new PreferenceDetailsBuilder(DEFAULTS).defaultValue(CsvToSqlConfig.Defaults.DATABASE_JDBC_ORDERED_COMMIT).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
 
 	LOGGING_LEVEL(new PreferenceDetailsBuilder(LOGGING).defaultValue(LoggingConfig.DEFAULT_LOGGING_LEVEL.getName()).build(), new FieldEditorDetailsBuilder(DefaultComboFieldEditor.class).labelsAndValues(LoggingPreferencePage.getLoggingLevelComboOptions()).build()),
 	LOGGING_FILES_ENABLED(new PreferenceDetailsBuilder(LOGGING).separate().defaultValue(LoggingConfig.DEFAULT_LOGGING_FILES_ENABLED).build(), new FieldEditorDetailsBuilder(DefaultBooleanFieldEditor.class).build()),
@@ -0,0 +1,20 @@
+package it.albertus.routerlogger.csv2sql.gui.preference.page;
+
+import it.albertus.jface.preference.LocalizedLabelsAndValues;
+import it.albertus.jface.preference.page.BasePreferencePage;
+import it.albertus.routerlogger.csv2sql.engine.OutputFormat;
+import it.albertus.routerlogger.csv2sql.resources.Messages;
+
+public class DefaultsPreferencePage extends BasePreferencePage {
+
+	public static LocalizedLabelsAndValues getOutputFormatComboOptions() {
+		final OutputFormat[] values = OutputFormat.values();
+		final LocalizedLabelsAndValues options = new LocalizedLabelsAndValues(values.length);
+		for (final OutputFormat format : values) {
+			final String value = format.name();
+			options.add(() -> Messages.get("lbl.preferences.database.output.format." + value.toLowerCase().replace('_', '.')), value);
+		}
+		return options;
+	}
+
+}
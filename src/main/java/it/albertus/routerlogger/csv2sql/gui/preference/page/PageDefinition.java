@@ -12,7 +12,7 @@ import it.albertus.routerlogger.csv2sql.resources.Messages;
 public enum PageDefinition implements IPageDefinition {
 
 	GENERAL(new PageDefinitionDetailsBuilder().pageClass(GeneralPreferencePage.class).build()),
-	DEFAULTS,
+	DEFAULTS(new PageDefinitionDetailsBuilder().pageClass(DefaultsPreferencePage.class).build()),
 	LOGGING(new PageDefinitionDetailsBuilder().pageClass(LoggingPreferencePage.class).build());
 
 	private static final String LABEL_KEY_PREFIX = "lbl.preferences.";
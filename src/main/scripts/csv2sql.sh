@@ -11,6 +11,6 @@ while [ -h "$PRG" ]; do
 done
 PRGDIR=`dirname "$PRG"`
 if [ "$JAVA_HOME" != "" ]
-  then "$JAVA_HOME/bin/java" -Xms8m -Xmx32m -classpath "$PRGDIR/csv2sql.jar:$PRGDIR/lib/*" it.albertus.routerlogger.csv2sql.CsvToSqlConverter
-  else java -Xms8m -Xmx32m -classpath "$PRGDIR/csv2sql.jar:$PRGDIR/lib/*" it.albertus.routerlogger.csv2sql.CsvToSqlConverter
+  then "$JAVA_HOME/bin/java" -Xms8m -Xmx32m -classpath "$PRGDIR/csv2sql.jar:$PRGDIR/lib/*" it.albertus.routerlogger.csv2sql.CsvToSqlConverter "$@"
+  else java -Xms8m -Xmx32m -classpath "$PRGDIR/csv2sql.jar:$PRGDIR/lib/*" it.albertus.routerlogger.csv2sql.CsvToSqlConverter "$@"
 fi
@@ -0,0 +1,180 @@
+package it.albertus.routerlogger.csv2sql.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import it.albertus.routerlogger.csv2sql.CsvToSqlConverter;
+
+public class CsvToSqlCliTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	private CsvToSqlCli cli;
+
+	@Before
+	public void before() {
+		cli = new CsvToSqlCli(new PrintStream(out, true), new PrintStream(err, true));
+	}
+
+	@Test
+	public void testConvertGlob() throws IOException {
+		final File sourceDir = temporaryFolder.newFolder("source");
+		final File destDir = temporaryFolder.newFolder("dest");
+		copyResource("test_ok.csv", new File(sourceDir, "a.csv"));
+		copyResource("test_ok.csv", new File(sourceDir, "b.csv"));
+		copyResource("test_ok.csv", new File(sourceDir, "c.txt"));
+
+		final int exitCode = cli.run(sourceDir.getPath() + File.separator + "*.csv", "-d", destDir.getPath(), "--threads=2", "--format", "insert", "--compress=false");
+		Assert.assertEquals(err.toString(), CsvToSqlCli.EXIT_SUCCESS, exitCode);
+		final String[] scripts = destDir.list();
+		Arrays.sort(scripts);
+		Assert.assertArrayEquals(new String[] { "a.sql", "b.sql" }, scripts);
+		Assert.assertTrue(new File(destDir, "a.sql").length() > 0);
+		Assert.assertFalse(out.toString().isEmpty());
+	}
+
+	@Test
+	public void testFailure() throws IOException {
+		final File sourceDir = temporaryFolder.newFolder("source");
+		final File destDir = temporaryFolder.newFolder("dest");
+		copyResource("test_ok.csv", new File(sourceDir, "good.csv"));
+		Files.write(new File(sourceDir, "bad.csv").toPath(), "no;header\nnot a date;1\n".getBytes(StandardCharsets.US_ASCII));
+
+		final int exitCode = cli.run("--destination", destDir.getPath(), "--compress=false", new File(sourceDir, "good.csv").getPath(), new File(sourceDir, "bad.csv").getPath());
+		Assert.assertEquals(CsvToSqlCli.EXIT_FAILURE, exitCode);
+		Assert.assertTrue(new File(destDir, "good.sql").isFile());
+		Assert.assertTrue(err.toString().contains("bad.csv"));
+	}
+
+	@Test
+	public void testTail() throws IOException {
+		final File sourceDir = temporaryFolder.newFolder("source");
+		final File destDir = temporaryFolder.newFolder("dest");
+		final File csvFile = new File(sourceDir, "today.csv");
+		copyResource("test_ok.csv", csvFile);
+		final byte[] csv = Files.readAllBytes(csvFile.toPath());
+		Files.write(csvFile.toPath(), Arrays.copyOf(csv, csv.length / 2));
+
+		Assert.assertEquals(err.toString(), CsvToSqlCli.EXIT_SUCCESS, cli.run("--tail", "-d", destDir.getPath(), "--compress=false", csvFile.getPath()));
+		Assert.assertArrayEquals(new String[] { "today_2.sql" }, destDir.list());
+		final File checkpoints = new File(sourceDir, ".csv2sql.checkpoints");
+		final String checkpoint = new String(Files.readAllBytes(checkpoints.toPath()), StandardCharsets.UTF_8).trim();
+		Assert.assertTrue(checkpoint, checkpoint.endsWith("file=today.csv"));
+
+		Assert.assertEquals(CsvToSqlCli.EXIT_SUCCESS, cli.run("--tail", "-d", destDir.getPath(), "--compress=false", csvFile.getPath()));
+		Assert.assertEquals(1, destDir.list().length); // no new rows
+
+		Files.write(csvFile.toPath(), csv);
+		Assert.assertEquals(CsvToSqlCli.EXIT_SUCCESS, cli.run("--tail", "-d", destDir.getPath(), "--compress=false", csvFile.getPath()));
+		Assert.assertEquals(2, destDir.list().length);
+		Assert.assertNotEquals(checkpoint, new String(Files.readAllBytes(checkpoints.toPath()), StandardCharsets.UTF_8).trim());
+	}
+
+	/** Converts a UTF-8 file with a non-ASCII header in JVMs with different platform charsets. */
+	@Test
+	public void testPlatformCharset() throws IOException, InterruptedException {
+		final File csvFile = new File(temporaryFolder.getRoot(), "umidita.csv");
+		Files.write(csvFile.toPath(), "Data e ora;Tempo di risposta (ms);Umidit\u00e0\n01/09/2017 00:00:03.587;93;Citt\u00e0 \u20ac\n".getBytes(StandardCharsets.UTF_8));
+		byte[] expected = null;
+		for (final String encoding : new String[] { "UTF-8", "ISO-8859-1", "US-ASCII" }) {
+			final File destDir = temporaryFolder.newFolder(encoding);
+			Assert.assertEquals(err.toString(), CsvToSqlCli.EXIT_SUCCESS, launch("-Dfile.encoding=" + encoding, "-d", destDir.getPath(), "--compress=false", csvFile.getPath()));
+			final byte[] script = Files.readAllBytes(new File(destDir, "umidita.sql").toPath());
+			if (expected == null) {
+				expected = script;
+				final String sql = new String(script, StandardCharsets.UTF_8);
+				Assert.assertTrue(sql, sql.contains("'Citt\u00e0 \u20ac'")); // the bytes of the file
+			}
+			else {
+				Assert.assertArrayEquals(encoding, expected, script);
+			}
+		}
+	}
+
+	/** Reads invalid values from the configuration file of a new JVM. */
+	@Test
+	public void testConfigurationErrors() throws IOException, InterruptedException {
+		final File destDir = temporaryFolder.newFolder("dest");
+		final File csvFile = new File(temporaryFolder.getRoot(), "a.csv");
+		copyResource("test_ok.csv", csvFile);
+		for (final String property : new String[] { "csv.charset=unknown", "database.output.format=XML", "database.column.types=uptime:BLOB", "database.jdbc.connections=0" }) {
+			Files.write(getConfigurationFile().toPath(), property.getBytes(StandardCharsets.ISO_8859_1));
+			final String destination = property.startsWith("database.jdbc") ? "--jdbc-url=jdbc:h2:mem:" : "--destination=" + destDir.getPath();
+			Assert.assertEquals(property, CsvToSqlCli.EXIT_CONFIGURATION, launch("-Dfile.encoding=UTF-8", destination, csvFile.getPath()));
+			Assert.assertEquals(property, 0, destDir.list().length);
+			err.reset();
+		}
+	}
+
+	@Test
+	public void testUsageErrors() throws IOException {
+		final String destDir = temporaryFolder.newFolder("dest").getPath();
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("--unknown", "a.csv"));
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("-d", destDir, "--threads", "many", "a.csv"));
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("-d", destDir, "--compress=maybe", "a.csv"));
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("-d", destDir));
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("-d", destDir, "--format", "xml", "a.csv"));
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("-d", new File(destDir, "missing").getPath(), "a.csv"));
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("-d", destDir, "--table"));
+		Assert.assertEquals(CsvToSqlCli.EXIT_USAGE, cli.run("-d", destDir, "--tail", "--resume", "-- csv2sql: offset=10, line=2, file=a.csv", "a.csv"));
+		Assert.assertEquals(CsvToSqlCli.EXIT_SUCCESS, cli.run("--help"));
+	}
+
+	/**
+	 * Runs the converter in a new JVM, with a home directory of its own, and
+	 * collects its output in {@link #err}.
+	 *
+	 * @return the exit code
+	 */
+	private int launch(final String jvmOption, final String... args) throws IOException, InterruptedException {
+		final List<String> command = new ArrayList<>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+		command.add(jvmOption);
+		command.add("-Duser.home=" + getConfigurationFile().getParentFile().getParentFile().getParent());
+		command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), CsvToSqlConverter.class.getName()));
+		command.addAll(Arrays.asList(args));
+		final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		try (final InputStream is = process.getInputStream()) {
+			final byte[] buffer = new byte[8192];
+			int read;
+			while ((read = is.read(buffer)) != -1) {
+				err.write(buffer, 0, read);
+			}
+		}
+		Assert.assertTrue(process.waitFor(1, TimeUnit.MINUTES));
+		return process.exitValue();
+	}
+
+	/** Returns the configuration file of the JVMs started by {@link #launch}. */
+	private File getConfigurationFile() {
+		final File directory = new File(temporaryFolder.getRoot(), "home" + File.separator + "RouterLogger" + File.separator + "CSV2SQL");
+		directory.mkdirs();
+		return new File(directory, "csv2sql.cfg");
+	}
+
+	private void copyResource(final String resourceName, final File target) throws IOException {
+		try (final InputStream is = getClass().getResourceAsStream("/it/albertus/routerlogger/csv2sql/engine/" + resourceName)) {
+			Files.copy(is, target.toPath());
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package it.albertus.routerlogger.csv2sql.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryWatcherTest {
+
+	private static final long NEVER = TimeUnit.DAYS.toMillis(1);
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final List<String> converted = Collections.synchronizedList(new ArrayList<>());
+
+	private Path directory;
+	private Path journal;
+
+	@Before
+	public void before() throws IOException {
+		directory = temporaryFolder.newFolder("watched").toPath();
+		journal = temporaryFolder.getRoot().toPath().resolve("journal");
+	}
+
+	@Test
+	public void testLaterFileCompletesPrevious() throws IOException, InterruptedException {
+		write("routerlogger.20170901.csv", "a");
+		write("routerlogger.20170902.csv", "b");
+		write("notes.txt", "c");
+		final DirectoryWatcher watcher = newWatcher(NEVER, file -> {});
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		Assert.assertEquals(Arrays.asList("routerlogger.20170901.csv"), converted);
+
+		write("routerlogger.20170903.csv", "d");
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		Assert.assertEquals(Arrays.asList("routerlogger.20170901.csv", "routerlogger.20170902.csv"), converted);
+		Assert.assertTrue(watcher.isProcessed("routerlogger.20170902.csv"));
+		Assert.assertFalse(watcher.isProcessed("routerlogger.20170903.csv"));
+	}
+
+	@Test
+	public void testQuietPeriod() throws IOException, InterruptedException {
+		write("routerlogger.20170901.csv", "a");
+		final DirectoryWatcher watcher = newWatcher(0, file -> {});
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		Assert.assertEquals(Arrays.asList("routerlogger.20170901.csv"), converted);
+	}
+
+	@Test
+	public void testJournal() throws IOException, InterruptedException {
+		write("routerlogger.20170901.csv", "a");
+		write("routerlogger.20170902.csv", "b");
+		DirectoryWatcher watcher = newWatcher(0, file -> {});
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		Assert.assertEquals(2, converted.size());
+
+		converted.clear();
+		write("routerlogger.20170903.csv", "c");
+		watcher = newWatcher(0, file -> {});
+		Assert.assertTrue(watcher.isProcessed("routerlogger.20170901.csv"));
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		Assert.assertEquals(Arrays.asList("routerlogger.20170903.csv"), converted);
+		Assert.assertEquals(3, Files.readAllLines(journal).size());
+	}
+
+	@Test
+	public void testFailureRetriedOnlyWhenChanged() throws IOException, InterruptedException {
+		write("routerlogger.20170901.csv", "a");
+		final List<String> attempts = new ArrayList<>();
+		final DirectoryWatcher watcher = newWatcher(0, file -> {
+			attempts.add(file.getName());
+			if (file.length() < 2) {
+				throw new IOException("incomplete");
+			}
+		});
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		Assert.assertEquals(1, attempts.size());
+		Assert.assertFalse(watcher.isProcessed("routerlogger.20170901.csv"));
+
+		Files.write(directory.resolve("routerlogger.20170901.csv"), "b".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+		watcher.scan();
+		watcher.convertCompleteFiles(() -> false);
+		Assert.assertEquals(2, attempts.size());
+		Assert.assertTrue(watcher.isProcessed("routerlogger.20170901.csv"));
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicBoolean canceled = new AtomicBoolean();
+		final DirectoryWatcher watcher = newWatcher(0, file -> latch.countDown());
+		final Thread thread = new Thread(() -> {
+			try {
+				watcher.run(canceled::get);
+			}
+			catch (final IOException | InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		thread.start();
+		try {
+			write("routerlogger.20170901.csv", "a");
+			Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+		}
+		finally {
+			canceled.set(true);
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+		}
+		Assert.assertFalse(thread.isAlive());
+		Assert.assertTrue(watcher.isProcessed("routerlogger.20170901.csv"));
+	}
+
+	private DirectoryWatcher newWatcher(final long quietPeriodMillis, final FileAction action) throws IOException {
+		return new DirectoryWatcher(directory, "*.csv", journal, quietPeriodMillis, (file, status) -> action.apply(file), (file, failure) -> {
+			if (failure == null) {
+				converted.add(file.getName());
+			}
+		});
+	}
+
+	private void write(final String fileName, final String content) throws IOException {
+		Files.write(directory.resolve(fileName), content.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	@FunctionalInterface
+	private interface FileAction {
+		void apply(File file) throws IOException;
+	}
+
+}
@@ -0,0 +1,95 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BgzfChannelTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			text.append("INSERT INTO my_table (prefix_timestamp) VALUES (TIMESTAMP '2017-09-01 00:00:").append(i % 60).append("');\n");
+		}
+		final byte[] random = new byte[BgzfChannel.BLOCK_INPUT_SIZE * 2 + 1];
+		new Random(0).nextBytes(random);
+		for (final byte[] data : new byte[][] { new byte[0], "a".getBytes(StandardCharsets.UTF_8), text.toString().getBytes(StandardCharsets.UTF_8), random }) {
+			for (final int threads : new int[] { 1, 4 }) {
+				assertRoundTrip(data, threads);
+			}
+		}
+	}
+
+	private void assertRoundTrip(final byte[] data, final int threads) throws IOException {
+		final File file = temporaryFolder.newFile();
+		final File indexFile = temporaryFolder.newFile();
+		final BgzfChannel channel = new BgzfChannel(FileChannel.open(file.toPath(), StandardOpenOption.WRITE), FileChannel.open(indexFile.toPath(), StandardOpenOption.WRITE), threads);
+		try {
+			for (int i = 0; i < data.length; i += 1000) { // gathering writes of small buffers
+				channel.write(new ByteBuffer[] { ByteBuffer.wrap(data, i, Math.min(500, data.length - i)), ByteBuffer.wrap(data, Math.min(i + 500, data.length), Math.max(0, Math.min(500, data.length - i - 500))) });
+			}
+		}
+		finally {
+			channel.close();
+		}
+		final byte[] compressed = Files.readAllBytes(file.toPath());
+		try (final InputStream is = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+			Assert.assertArrayEquals(data, readAll(is));
+		}
+		Assert.assertEquals((data.length + BgzfChannel.BLOCK_INPUT_SIZE - 1) / BgzfChannel.BLOCK_INPUT_SIZE, channel.getBlockCount());
+
+		// every block can be decompressed on its own, starting from the offsets of the index
+		final ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+		Assert.assertEquals(Math.max(0, channel.getBlockCount() - 1), index.getLong());
+		final ByteBuffer blocks = ByteBuffer.wrap(compressed).order(ByteOrder.LITTLE_ENDIAN);
+		long uncompressedOffset = 0;
+		for (int i = 0; i <= channel.getBlockCount(); i++) { // including the final empty block
+			final int start = blocks.position();
+			if (i > 0 && i < channel.getBlockCount()) {
+				Assert.assertEquals(start, index.getLong());
+				Assert.assertEquals(uncompressedOffset, index.getLong());
+			}
+			Assert.assertEquals("BC", new String(compressed, start + 12, 2, StandardCharsets.US_ASCII));
+			final int blockSize = (blocks.getShort(start + 16) & 0xFFFF) + 1;
+			try (final InputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed, start, blockSize))) {
+				final byte[] block = readAll(is);
+				Assert.assertArrayEquals(Arrays.copyOfRange(data, (int) uncompressedOffset, (int) uncompressedOffset + block.length), block);
+				uncompressedOffset += block.length;
+			}
+			blocks.position(start + blockSize);
+		}
+		Assert.assertFalse(blocks.hasRemaining());
+		Assert.assertFalse(index.hasRemaining());
+	}
+
+	private static byte[] readAll(final InputStream is) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+		int count;
+		while ((count = is.read(buffer)) != -1) {
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,93 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteLineReaderTest {
+
+	private static final String[] TEXTS = { "", "a", "a\n", "a\r", "a\r\n", "\n\n", "\r\r\n\n", "abc\ndef\r\nghi\rjkl", "\u00E0\u00E8\u00EC\u00F2\u00F9\r\n\u20AC;\u00DF\n" };
+
+	@Test
+	public void testSameAsBufferedReader() throws IOException {
+		for (final Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1 }) {
+			for (final String text : TEXTS) {
+				for (final int chunk : new int[] { 1, 2, 3, ByteLineReader.DEFAULT_BUFFER_SIZE }) {
+					assertSameAsBufferedReader(text, charset, chunk);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < ByteLineReader.DEFAULT_BUFFER_SIZE * (i + 1); j++) {
+				text.append((char) ('a' + j % 26));
+			}
+			text.append("\r\n");
+		}
+		assertSameAsBufferedReader(text.toString(), StandardCharsets.UTF_8, ByteLineReader.DEFAULT_BUFFER_SIZE - 1);
+	}
+
+	@Test
+	public void testOffsets() throws IOException {
+		final byte[] bytes = "h\r\n\u00E0\n\rlast".getBytes(StandardCharsets.UTF_8);
+		final ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, 100, 10);
+		Assert.assertEquals(100, reader.getOffset());
+		Assert.assertEquals("h", reader.readLine().toString());
+		Assert.assertEquals(103, reader.getOffset());
+		Assert.assertEquals(11, reader.getLineNumber());
+		Assert.assertEquals("\u00E0", reader.readLine().toString());
+		Assert.assertEquals(106, reader.getOffset());
+		Assert.assertEquals("", reader.readLine().toString());
+		Assert.assertEquals(107, reader.getOffset());
+		Assert.assertEquals("last", reader.readLine().toString());
+		Assert.assertEquals(100 + bytes.length, reader.getOffset());
+		Assert.assertEquals(14, reader.getLineNumber());
+		Assert.assertNull(reader.readLine());
+		Assert.assertEquals(14, reader.getLineNumber());
+	}
+
+	private static void assertSameAsBufferedReader(final String text, final Charset charset, final int chunk) throws IOException {
+		final byte[] bytes = text.getBytes(charset);
+		final BufferedReader expected = new BufferedReader(new StringReader(new String(bytes, charset)));
+		final ByteLineReader actual = new ByteLineReader(new TrickleInputStream(bytes, chunk), charset, 0, 0);
+		String line;
+		while ((line = expected.readLine()) != null) {
+			Assert.assertEquals(text, line, String.valueOf(actual.readLine()));
+		}
+		Assert.assertNull(actual.readLine());
+		Assert.assertEquals(bytes.length, actual.getOffset());
+	}
+
+	/** Returns at most the provided number of bytes per read. */
+	private static class TrickleInputStream extends InputStream {
+		private final ByteArrayInputStream in;
+		private final int chunk;
+
+		private TrickleInputStream(final byte[] bytes, final int chunk) {
+			this.in = new ByteArrayInputStream(bytes);
+			this.chunk = chunk;
+		}
+
+		@Override
+		public int read() {
+			return in.read();
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+			return in.read(b, off, Math.min(len, chunk));
+		}
+	}
+
+}
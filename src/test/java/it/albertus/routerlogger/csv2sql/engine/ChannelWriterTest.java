@@ -0,0 +1,71 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChannelWriterTest {
+
+	private static final String TEXT = "INSERT INTO t VALUES ('\u00E0\u00E8\u00EC\u00F2\u00F9', '\u20AC', '\uD83D\uDE00\uD83D\uDE01');\r\n";
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSameAsString() throws IOException {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			text.append(TEXT);
+		}
+		for (final Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16BE }) {
+			final byte[] expected = text.toString().getBytes(charset);
+			for (final int bufferSize : new int[] { 8, 9, 100, CsvToSqlEngine.DEFAULT_OUTPUT_BUFFER_SIZE }) {
+				final ByteBufferPool pool = new ByteBufferPool(bufferSize);
+				for (final int writeSize : new int[] { 1, 2, 3, 7, text.length() }) { // surrogate pairs split between writes
+					final File file = temporaryFolder.newFile();
+					try (final ChannelWriter writer = new ChannelWriter(FileChannel.open(file.toPath(), StandardOpenOption.WRITE), charset, pool)) {
+						for (int i = 0; i < text.length(); i += writeSize) {
+							writer.write(text.toString().toCharArray(), i, Math.min(writeSize, text.length() - i));
+							if (i % 1000 == 0) {
+								writer.flush();
+							}
+						}
+					}
+					Assert.assertArrayEquals(charset + ", " + bufferSize + ", " + writeSize, expected, Files.readAllBytes(file.toPath()));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testUnpairedSurrogate() throws IOException {
+		final File file = temporaryFolder.newFile();
+		try (final ChannelWriter writer = new ChannelWriter(FileChannel.open(file.toPath(), StandardOpenOption.WRITE), StandardCharsets.UTF_8, new ByteBufferPool(16))) {
+			writer.write("a\uD83D");
+			writer.write("\uD83Db");
+			writer.write("\uD83D");
+		}
+		Assert.assertArrayEquals("a\uD83D\uD83Db\uD83D".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void testTooSmallBuffers() throws IOException {
+		try (final FileChannel channel = FileChannel.open(temporaryFolder.newFile().toPath(), StandardOpenOption.WRITE)) {
+			new ChannelWriter(channel, StandardCharsets.UTF_8, new ByteBufferPool(5));
+			Assert.fail();
+		}
+		catch (final IllegalArgumentException e) {
+			Assert.assertNotNull(e.getMessage());
+		}
+	}
+
+}
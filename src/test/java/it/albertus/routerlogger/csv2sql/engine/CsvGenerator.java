@@ -0,0 +1,199 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates RouterLogger CSV files of any size, with the header and the value
+ * distributions of <tt>test_ok.csv</tt>: a row every five seconds or so, a
+ * varying response time, noise margin and uptime, and constant values
+ * elsewhere. The output depends only on the seed and the settings.
+ * <p>
+ * Optionally, the rows include the edge cases found in real files: blank
+ * lines, truncated rows, fields padded with spaces and tabs, single quotes
+ * and RFC 4180 quoted fields containing the separator and doubled quotes.
+ */
+class CsvGenerator {
+
+	static final String SEPARATOR = ";";
+	static final String TIMESTAMP_PATTERN = "dd/MM/yyyy HH:mm:ss.SSS";
+
+	static final String[] HEADER = { "Data e ora", "Tempo di risposta (ms)", "enable", "status", "modulationType", "lineEncoding", "dataPath", "interleaveDepth", "lineNumber", "upstreamCurrRate", "downstreamCurrRate", "upstreamMaxRate", "downstreamMaxRate", "upstreamNoiseMargin", "downstreamNoiseMargin", "upstreamAttenuation", "downstreamAttenuation", "upstreamPower", "downstreamPower", "ATURVendor", "ATURCountry", "ATUCVendor", "ATUCCountry", "totalStart", "showtimeStart", "quarterHourStart", "X_TPLINK_Bitswap", "X_TPLINK_SRA", "X_TPLINK_AdslModulationCfg", "X_TPLINK_AnnexType", "X_TPLINK_SupportAdslMode", "X_TPLINK_NCPType", "connectionStatus", "possibleConnectionTypes", "connectionType", "PPPoESessionID", "defaultGateway", "name", "uptime", "lastConnectionError", "idleDisconnectTime", "RSIPAvailable", "NATEnabled", "X_TPLINK_FullconeNATEnabled", "X_TPLINK_FirewallEnabled", "X_TPLINK_IGMPProxyEnabled", "username", "password", "PPPAuthenticationProtocol", "X_TPLINK_IfName", "X_TPLINK_L2IfName", "X_TPLINK_BcastAddr", "X_TPLINK_ConnectionId", "X_TPLINK_UseStaticIP", "externalIPAddress", "remoteIPAddress", "maxMRUSize", "currentMRUSize", "DNSEnabled", "DNSOverrideAllowed", "DNSServers", "MACAddress", "MACAddressOverride", "X_TPLINK_ClonedMACAddress", "transportType", "PPPoEACName", "PPPoEServiceName", "connectionTrigger", "routeProtocolRx", "PPPLCPEcho", "PPPLCPEchoRetry", "portMappingNumberOfEntries" };
+
+	private static final String[] VALUES = { null, null, "1", "Up", "ADSL_G.dmt", "", "", "0", "0", "480", "3072", "836", "3104", "190", null, "310", "543", "123", "185", "", "", "", "", null, null, "0", "On", "On", "Multimode", "Annex A", "T1.413:A,G.dmt:A,ADSL2:A,A/L,ADSL2+:A,M,A/L/M,Auto Sync-up:A,A/L,M,A/L/M", "IPCP", "Connected", "", "IP_Routed", "0", "192.168.100.1", "pppoa_8_35_0_d", null, "ERROR_NONE", "15", "0", "1", "0", "0", "1", null, null, "AUTO_AUTH", "ppp0", "nas0_1", "", "0", "0", "111.112.122.222", "192.168.100.1", "1480", "0", "0", "0", "111.112.122.222,111.112.122.222", "", "0", "", "PPPoA", "", "", "AlwaysOn", "Off", "30", "0", "8" };
+
+	private static final int DOWNSTREAM_NOISE_MARGIN = 14;
+	private static final int TOTAL_START = 23;
+	private static final int SHOWTIME_START = 24;
+	private static final int NAME = 37;
+	private static final int UPTIME = 38;
+	private static final int USERNAME = 46;
+	private static final int PASSWORD = 47;
+
+	private static final LocalDateTime START = LocalDateTime.of(2017, 9, 1, 0, 0, 3, 587000000);
+	private static final String LINE_SEPARATOR = "\r\n";
+	private static final String PADDING = " \t";
+
+	private final long seed;
+
+	private long rowCount = 1000;
+	private int columnCount = HEADER.length;
+	private boolean edgeCases;
+
+	/**
+	 * Creates a new generator.
+	 *
+	 * @param seed the seed of the pseudorandom values; the same seed and
+	 *        settings always produce the same file
+	 */
+	CsvGenerator(final long seed) {
+		this.seed = seed;
+	}
+
+	long getRowCount() {
+		return rowCount;
+	}
+
+	/** Sets the number of rows, excluding the header and the blank lines. */
+	void setRowCount(final long rowCount) {
+		if (rowCount < 0) {
+			throw new IllegalArgumentException("rowCount must not be negative");
+		}
+		this.rowCount = rowCount;
+	}
+
+	int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * Sets the number of columns, including the timestamp and the response
+	 * time. The columns exceeding those of RouterLogger are named
+	 * <tt>extraNNN</tt> and contain numbers.
+	 */
+	void setColumnCount(final int columnCount) {
+		if (columnCount < 2) {
+			throw new IllegalArgumentException("columnCount must be greater than 1");
+		}
+		this.columnCount = columnCount;
+	}
+
+	boolean isEdgeCases() {
+		return edgeCases;
+	}
+
+	void setEdgeCases(final boolean edgeCases) {
+		this.edgeCases = edgeCases;
+	}
+
+	/** Returns the header line, without the line separator. */
+	String getHeader() {
+		final String[] header = Arrays.copyOf(HEADER, columnCount);
+		for (int i = HEADER.length; i < columnCount; i++) {
+			header[i] = String.format("extra%03d", i - HEADER.length + 1);
+		}
+		return String.join(SEPARATOR, header);
+	}
+
+	/**
+	 * Writes the file.
+	 *
+	 * @return the size of the file in bytes
+	 */
+	long write(final File file) throws IOException {
+		try (final BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.ISO_8859_1)) {
+			write(writer);
+		}
+		return file.length();
+	}
+
+	/** Writes the header and the rows, leaving the writer open. */
+	void write(final Writer writer) throws IOException {
+		final Random random = new Random(seed);
+		final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(TIMESTAMP_PATTERN);
+		final String[] fields = new String[columnCount];
+		for (int i = 2; i < columnCount; i++) {
+			fields[i] = i < VALUES.length ? VALUES[i] : Integer.toString(i);
+		}
+		writer.write(getHeader());
+		writer.write(LINE_SEPARATOR);
+		LocalDateTime timestamp = START;
+		for (long row = 0; row < rowCount; row++) {
+			fields[0] = formatter.format(timestamp);
+			fields[1] = Integer.toString(75 + random.nextInt(16) + (random.nextInt(10) == 0 ? random.nextInt(70) : 0));
+			setVaryingFields(fields, row, random);
+			int count = columnCount;
+			if (edgeCases) {
+				if (random.nextInt(100) == 0) {
+					writer.write(LINE_SEPARATOR);
+				}
+				if (random.nextInt(50) == 0) {
+					count = 2 + random.nextInt(columnCount - 1);
+				}
+				fields[0] = pad(fields[0], random);
+				fields[1] = pad(fields[1], random);
+			}
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					writer.write(SEPARATOR);
+				}
+				writer.write(fields[i]);
+			}
+			writer.write(LINE_SEPARATOR);
+			timestamp = timestamp.plusNanos(5_050_000_000L + random.nextInt(200) * 1_000_000L);
+		}
+	}
+
+	private void setVaryingFields(final String[] fields, final long row, final Random random) {
+		if (DOWNSTREAM_NOISE_MARGIN < columnCount) {
+			fields[DOWNSTREAM_NOISE_MARGIN] = Integer.toString(105 + random.nextInt(5));
+		}
+		if (TOTAL_START < columnCount) {
+			fields[TOTAL_START] = Long.toString(263157 + row * 5);
+		}
+		if (SHOWTIME_START < columnCount) {
+			fields[SHOWTIME_START] = Long.toString(3 + row * 5);
+		}
+		if (UPTIME < columnCount) {
+			fields[UPTIME] = Long.toString(99755 + row * 5);
+		}
+		final boolean alice = random.nextInt(20) == 0;
+		if (USERNAME < columnCount) {
+			fields[USERNAME] = alice ? "aliceadsl" : "xxx";
+		}
+		if (PASSWORD < columnCount) {
+			fields[PASSWORD] = alice ? "aliceadsl" : "yyy";
+		}
+		if (edgeCases) {
+			if (USERNAME < columnCount && random.nextInt(100) == 0) {
+				fields[USERNAME] = "o'neill";
+			}
+			if (NAME < columnCount) {
+				fields[NAME] = random.nextInt(100) == 0 ? "\"pppoa" + SEPARATOR + "8 \"\"35\"\"\"" : VALUES[NAME];
+			}
+		}
+	}
+
+	private static String pad(final String value, final Random random) {
+		if (random.nextInt(50) != 0) {
+			return value;
+		}
+		final StringBuilder padded = new StringBuilder(value);
+		for (int i = random.nextInt(4); i >= 0; i--) {
+			padded.insert(0, PADDING.charAt(random.nextInt(PADDING.length())));
+		}
+		for (int i = random.nextInt(4); i >= 0; i--) {
+			padded.append(PADDING.charAt(random.nextInt(PADDING.length())));
+		}
+		return padded.toString();
+	}
+
+}
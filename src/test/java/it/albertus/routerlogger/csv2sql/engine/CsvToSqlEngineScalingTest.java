@@ -0,0 +1,206 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import it.albertus.routerlogger.csv2sql.CsvToSqlConverter;
+import it.albertus.routerlogger.csv2sql.cli.CsvToSqlCli;
+
+/**
+ * Converts generated files of increasing size and checks that the conversion
+ * time grows linearly with the number of rows, and that every file can be
+ * converted within the heap of the launchers. The largest size defaults to
+ * 64,000 rows and can be raised (up to hundreds of millions of rows) with the
+ * <tt>csv2sql.scaling.maxRows</tt> system property.
+ */
+public class CsvToSqlEngineScalingTest {
+
+	private static final long MIN_ROWS = 1000;
+	private static final long DEFAULT_MAX_ROWS = 64000;
+	private static final int GROWTH_FACTOR = 4;
+
+	/** The tolerated increase of the time per row, between the smallest and the largest file. */
+	private static final double MAX_TIME_PER_ROW_RATIO = 3;
+
+	/** The maximum heap size of the launchers. */
+	private static final String MAX_HEAP_OPTION = "-Xmx32m";
+
+	/** The threads of the conversions that split the largest file into chunks. */
+	private static final int CHUNKED_THREADS = 4;
+
+	private static final long PROCESS_TIMEOUT_MINUTES = 10;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testGeneratorIsDeterministic() throws IOException {
+		final CsvGenerator generator = new CsvGenerator(17);
+		generator.setRowCount(MIN_ROWS);
+		generator.setEdgeCases(true);
+		final StringWriter first = new StringWriter();
+		generator.write(first);
+		final StringWriter second = new StringWriter();
+		generator.write(second);
+		Assert.assertEquals(first.toString(), second.toString());
+		Assert.assertTrue(first.toString().startsWith(generator.getHeader() + "\r\n"));
+
+		generator.setColumnCount(100);
+		final StringWriter wider = new StringWriter();
+		generator.write(wider);
+		Assert.assertTrue(generator.getHeader().endsWith(";extra028"));
+		Assert.assertTrue(wider.toString().length() > first.toString().length());
+	}
+
+	@Test
+	public void testConversionTimeIsLinear() throws IOException, InterruptedException {
+		final long maxRows = Long.getLong("csv2sql.scaling.maxRows", DEFAULT_MAX_ROWS);
+		convert(MIN_ROWS); // warm-up
+		double minNanosPerRow = Double.MAX_VALUE;
+		final StringBuilder report = new StringBuilder();
+		for (long rows = MIN_ROWS; rows <= maxRows; rows *= GROWTH_FACTOR) {
+			final double nanosPerRow = (double) convert(rows) / rows;
+			report.append(String.format("%,d rows: %,.0f ns/row%n", rows, nanosPerRow));
+			minNanosPerRow = Math.min(minNanosPerRow, nanosPerRow);
+			Assert.assertTrue(report.toString(), nanosPerRow <= minNanosPerRow * MAX_TIME_PER_ROW_RATIO);
+		}
+	}
+
+	/**
+	 * Converts the largest file with every string layout, sequentially and in
+	 * chunks, with and without sampling all its rows to infer the column
+	 * types. The chunked conversions must write the same script as the
+	 * sequential ones.
+	 */
+	@Test
+	public void testLargestFileFitsInLauncherHeap() throws IOException, InterruptedException {
+		final long maxRows = Long.getLong("csv2sql.scaling.maxRows", DEFAULT_MAX_ROWS);
+		final File csvFile = generate(maxRows);
+		final List<String> typeInference = Arrays.asList("--type-inference-rows", Long.toString(Math.min(maxRows, Integer.MAX_VALUE)));
+		for (final List<String> jvmOptions : getStringLayoutOptions()) {
+			for (final List<String> options : Arrays.asList(Collections.<String> emptyList(), typeInference)) {
+				final File sequential = convertInLauncherHeap(csvFile, jvmOptions, options, 1);
+				Assert.assertTrue(sequential.length() > csvFile.length());
+				assertSameContent(sequential, convertInLauncherHeap(csvFile, jvmOptions, options, CHUNKED_THREADS));
+			}
+		}
+	}
+
+	/** Samples every row of the largest file, compressed, to infer the column types. */
+	@Test
+	public void testCompressedFileFitsInLauncherHeap() throws IOException, InterruptedException {
+		final long maxRows = Long.getLong("csv2sql.scaling.maxRows", DEFAULT_MAX_ROWS);
+		final File csvFile = generate(maxRows);
+		final File gzFile = new File(csvFile.getPath() + ".gz");
+		try (final OutputStream out = new GZIPOutputStream(new FileOutputStream(gzFile))) {
+			Files.copy(csvFile.toPath(), out);
+		}
+		final List<String> jvmOptions = getStringLayoutOptions().get(getStringLayoutOptions().size() - 1); // the largest strings
+		final List<String> options = Arrays.asList("--type-inference-rows", Long.toString(Math.min(maxRows, Integer.MAX_VALUE)));
+		assertSameContent(convertInLauncherHeap(csvFile, jvmOptions, options, 1), convertInLauncherHeap(gzFile, jvmOptions, options, 1));
+	}
+
+	/**
+	 * Returns the JVM options of each string layout: the default one and,
+	 * since Java 9, the two bytes per character of Java 8, that doubles the
+	 * heap used by the Latin-1 strings.
+	 */
+	private static List<List<String>> getStringLayoutOptions() {
+		final List<List<String>> layouts = new ArrayList<>();
+		layouts.add(Collections.<String> emptyList());
+		if (!System.getProperty("java.specification.version").startsWith("1.")) {
+			layouts.add(Collections.singletonList("-XX:-CompactStrings"));
+		}
+		return layouts;
+	}
+
+	/**
+	 * Converts a file in a new JVM with the heap of the launchers.
+	 *
+	 * @param jvmOptions the options of the JVM, other than the heap size
+	 * @param options the options of the command line, other than the
+	 *        destination and the number of threads
+	 * @return the script
+	 */
+	private File convertInLauncherHeap(final File csvFile, final List<String> jvmOptions, final List<String> options, final int threads) throws IOException, InterruptedException {
+		final File destDir = temporaryFolder.newFolder();
+		final String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		final List<String> command = new ArrayList<>(Arrays.asList(java, MAX_HEAP_OPTION));
+		command.addAll(jvmOptions);
+		command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), CsvToSqlConverter.class.getName(), "--destination", destDir.getPath(), "--compress=false", "--threads", Integer.toString(threads)));
+		command.addAll(options);
+		command.add(csvFile.getPath());
+		final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		final String output = readAll(process.getInputStream());
+		Assert.assertTrue(process.waitFor(PROCESS_TIMEOUT_MINUTES, TimeUnit.MINUTES));
+		Assert.assertEquals(jvmOptions + " " + options + " --threads " + threads + System.lineSeparator() + output, CsvToSqlCli.EXIT_SUCCESS, process.exitValue());
+		return new File(destDir, "scaling.sql");
+	}
+
+	/** Returns the conversion time in nanoseconds. */
+	private long convert(final long rows) throws IOException, InterruptedException {
+		final File csvFile = generate(rows);
+		final File destDir = temporaryFolder.newFolder();
+		final CsvToSqlEngine engine = new CsvToSqlEngine(CsvGenerator.SEPARATOR, CsvGenerator.TIMESTAMP_PATTERN, "router_log", "rl_", "timestamp", "response_time_ms", 30);
+		final long start = System.nanoTime();
+		engine.convert(csvFile, destDir.getPath(), () -> false);
+		final long elapsed = System.nanoTime() - start;
+		Assert.assertEquals(rows, engine.getRowCount());
+		Files.delete(csvFile.toPath());
+		return elapsed;
+	}
+
+	private File generate(final long rows) throws IOException {
+		final CsvGenerator generator = new CsvGenerator(rows);
+		generator.setRowCount(rows);
+		generator.setEdgeCases(true);
+		final File csvFile = new File(temporaryFolder.newFolder(), "scaling.csv");
+		generator.write(csvFile);
+		return csvFile;
+	}
+
+	private static void assertSameContent(final File expected, final File actual) throws IOException {
+		Assert.assertEquals(expected.length(), actual.length());
+		try (final InputStream e = new BufferedInputStream(new FileInputStream(expected)); final InputStream a = new BufferedInputStream(new FileInputStream(actual))) {
+			long position = 0;
+			int b;
+			while ((b = e.read()) != -1) {
+				if (b != a.read()) {
+					Assert.fail("The files differ at offset " + position);
+				}
+				position++;
+			}
+		}
+	}
+
+	private static String readAll(final InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return new String(out.toByteArray(), Charset.defaultCharset());
+	}
+
+}
@@ -1,25 +1,54 @@
 package it.albertus.routerlogger.csv2sql.engine;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import it.albertus.routerlogger.csv2sql.resources.Messages;
 import it.albertus.util.IOUtils;
 
 public class CsvToSqlEngineTest {
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void testConvertUsingStreams() throws IOException, InterruptedException {
 		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
@@ -37,6 +66,16 @@ public class CsvToSqlEngineTest {
 		catch (final IOException e) {
 			Assert.assertEquals(ParseException.class, e.getCause().getClass());
 		}
+
+		final CsvToSqlEngine quoting = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", null, 20);
+		try {
+			convert(quoting, "quoted.csv", "Data e ora;name\n01/09/2017 00:00:03.587;\"a\"\n01/09/2017 00:00:08.650;\"b\nc\"\n");
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertEquals(Messages.get("err.csv2sql.runnable", "quoted.csv", 3), e.getMessage()); // quoted line breaks are not supported
+			Assert.assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+		}
 	}
 
 	@Test
@@ -66,6 +105,741 @@ public class CsvToSqlEngineTest {
 		verify(converted, "test_wo_responsetime.sql");
 	}
 
+	@Test
+	public void testPositionalValues() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final String[] expected = convert(converter, "test_ok.csv").split("\\R");
+		converter.setPositionalValues(true);
+		final String[] actual = convert(converter, "test_ok.csv").split("\\R");
+		Assert.assertEquals(expected.length, actual.length);
+		int positional = 0;
+		for (int i = 0; i < expected.length; i++) {
+			if (actual[i].startsWith("INSERT INTO my_table VALUES (")) {
+				Assert.assertEquals(expected[i].substring(expected[i].indexOf(") VALUES (") + 2), actual[i].substring(actual[i].indexOf(" VALUES (") + 1));
+				positional++;
+			}
+			else { // short rows keep the column list
+				Assert.assertEquals(expected[i], actual[i]);
+			}
+		}
+		Assert.assertTrue(positional > 0);
+	}
+
+	@Test
+	public void testRowsPerStatement() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final String expected = convert(converter, "test_ok.csv");
+		final int maxStatementSize = 1000;
+		converter.setRowsPerStatement(3);
+		converter.setMaxStatementSize(maxStatementSize);
+		final String[] lines = convert(converter, "test_ok.csv").split("\\R");
+		final StringBuilder actual = new StringBuilder();
+		String prefix = null;
+		int rows = 0;
+		int size = 0;
+		int statements = 0;
+		for (final String line : lines) {
+			if (line.startsWith("INSERT INTO ")) {
+				statements++;
+				prefix = line.substring(0, line.indexOf(" VALUES (") + 8);
+				rows = 0;
+				size = prefix.length();
+			}
+			if (prefix != null) {
+				final String tuple = line.substring(line.startsWith("(") ? 0 : prefix.length(), line.length() - 1);
+				actual.append(prefix).append(tuple).append(';').append(System.lineSeparator());
+				size += line.length() + System.lineSeparator().length();
+				Assert.assertTrue(++rows <= 3);
+				if (line.endsWith(";")) {
+					Assert.assertTrue(rows == 1 || size - System.lineSeparator().length() <= maxStatementSize);
+					prefix = null;
+				}
+			}
+			else {
+				actual.append(line).append(System.lineSeparator());
+			}
+		}
+		Assert.assertEquals(expected, actual.toString());
+		final int expectedStatements = expected.split("INSERT INTO ").length - 1;
+		Assert.assertTrue(statements >= expectedStatements / 3);
+		Assert.assertTrue(statements < expectedStatements);
+
+		final CsvToSqlEngine utf8 = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", null, 20);
+		utf8.setOutputCharset(StandardCharsets.UTF_8);
+		utf8.setRowsPerStatement(100);
+		utf8.setMaxStatementSize(300);
+		final StringBuilder csv = new StringBuilder("Data e ora;name\n");
+		for (int i = 0; i < 20; i++) {
+			csv.append("01/09/2017 00:00:03.587;Citt\u00e0 \u20ac\u00e8\u00e0\u20ac\u00e8\u00e0\u20ac\u00e8\u00e0\u20ac\u00e8\u00e0\n");
+		}
+		final String[] utf8Statements = convert(utf8, "utf8.csv", csv.toString()).split(";\\R");
+		Assert.assertTrue(utf8Statements.length < 20);
+		for (final String statement : utf8Statements) {
+			Assert.assertTrue(statement, statement.equals("COMMIT") || statement.getBytes(StandardCharsets.UTF_8).length + 1 <= 300); // the limit is in bytes
+		}
+	}
+
+	@Test
+	public void testPeriodicCommits() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		converter.setCommitBytes(500);
+		converter.setChunkSize(100);
+		final File sequentialDir = temporaryFolder.newFolder();
+		final File chunkedDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, sequentialDir.getPath(), () -> false);
+		converter.convert(csvFile, chunkedDir.getPath(), () -> false, 4);
+		final String script = new String(Files.readAllBytes(new File(sequentialDir, "test_ok.sql").toPath()), Charset.defaultCharset());
+		Assert.assertEquals(script, new String(Files.readAllBytes(new File(chunkedDir, "test_ok.sql").toPath()), Charset.defaultCharset()));
+		assertResumable(converter, csvFile, script);
+
+		converter.setCommitBytes(0);
+		converter.setCommitRows(7);
+		final File rowsDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, rowsDir.getPath(), () -> false, 4);
+		assertResumable(converter, csvFile, new String(Files.readAllBytes(new File(rowsDir, "test_ok.sql").toPath()), Charset.defaultCharset()));
+	}
+
+	private void assertResumable(final CsvToSqlEngine converter, final File csvFile, final String script) throws IOException, InterruptedException {
+		final List<String> csvLines = Files.readAllLines(csvFile.toPath(), Charset.defaultCharset());
+		final List<LoadMarker> markers = new ArrayList<>();
+		String previous = null;
+		for (final String line : script.split("\\R")) {
+			if (line.startsWith("--")) {
+				final LoadMarker marker = LoadMarker.parse(line);
+				Assert.assertEquals(line, marker.toString());
+				Assert.assertEquals(csvFile.getName(), marker.getFileName());
+				Assert.assertTrue(markers.isEmpty() ? previous == null : "COMMIT;".equals(previous));
+				final byte[] csvBytes = Files.readAllBytes(csvFile.toPath());
+				Assert.assertEquals(csvLines.get(marker.getLineNumber() - 1), new String(csvBytes, (int) marker.getOffset(), csvLines.get(marker.getLineNumber() - 1).getBytes(Charset.defaultCharset()).length, Charset.defaultCharset()));
+				markers.add(marker);
+			}
+			previous = line;
+		}
+		Assert.assertTrue(markers.size() > 2);
+		final LoadMarker from = markers.get(markers.size() / 2);
+		final File resumeDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, resumeDir.getPath(), () -> false, from);
+		final String resumed = new String(Files.readAllBytes(new File(resumeDir, "test_ok_" + from.getLineNumber() + ".sql").toPath()), Charset.defaultCharset());
+		Assert.assertEquals(script.substring(script.indexOf(from.toString())), resumed);
+	}
+
+	@Test
+	public void testCopy() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final String[] expected = convert(converter, "test_ok.csv").split("\\R");
+		converter.setOutputFormat(OutputFormat.COPY);
+		final List<String> actual = new ArrayList<>();
+		String columns = null;
+		for (final String line : convert(converter, "test_ok.csv").split("\\R")) {
+			if (line.startsWith("COPY my_table (")) {
+				Assert.assertNull(columns);
+				Assert.assertTrue(line.endsWith(") FROM STDIN;"));
+				columns = line.substring("COPY my_table ".length(), line.length() - " FROM STDIN;".length());
+			}
+			else if ("\\.".equals(line)) {
+				Assert.assertNotNull(columns);
+				columns = null;
+			}
+			else if (columns != null) { // rebuild the INSERT statement
+				final String[] values = line.split("\t", -1);
+				final StringBuilder statement = new StringBuilder("INSERT INTO my_table ").append(columns).append(" VALUES (TIMESTAMP '").append(values[0]).append("',").append(values[1]);
+				for (int i = 2; i < values.length; i++) {
+					statement.append(",'").append(values[i]).append('\'');
+				}
+				actual.add(statement.append(");").toString());
+			}
+			else {
+				actual.add(line);
+			}
+		}
+		Assert.assertNull(columns);
+		Assert.assertArrayEquals(expected, actual.toArray());
+
+		final StringWriter escaped = new StringWriter();
+		try (final BufferedWriter bw = new BufferedWriter(escaped)) {
+			converter.convert("escape.csv", new LineNumberReader(new StringReader("a;b;c\n01/09/2017 00:00:03.587;5;C:\\x\ty'z")), bw, () -> false);
+		}
+		Assert.assertTrue(escaped.toString().contains("2017-9-01 00:00:03.587\t5\tC:\\\\x\\ty'z"));
+	}
+
+	@Test
+	public void testCopyBinary() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		converter.setOutputFormat(OutputFormat.COPY_BINARY);
+		final File destDir = temporaryFolder.newFolder();
+		converter.convert(copyResource("test_ok.csv"), destDir.getPath(), () -> false);
+		final List<String> script = Files.readAllLines(new File(destDir, "test_ok.sql").toPath(), Charset.defaultCharset());
+		Assert.assertEquals(2, script.size());
+		Assert.assertTrue(script.get(0).startsWith("\\copy my_table (prefix_timestamp,prefix_response_time,prefix_enable,"));
+		Assert.assertTrue(script.get(0).endsWith(") FROM 'test_ok.bin' WITH (FORMAT binary)"));
+		Assert.assertEquals("COMMIT;", script.get(1));
+
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(destDir, "test_ok.bin"))))) {
+			final byte[] signature = new byte[11];
+			in.readFully(signature);
+			Assert.assertEquals("PGCOPY\n\u00FF\r\n\u0000", new String(signature, StandardCharsets.ISO_8859_1));
+			Assert.assertEquals(0, in.readInt());
+			Assert.assertEquals(0, in.readInt());
+			int tuples = 0;
+			int nulls = 0;
+			short fieldCount;
+			while ((fieldCount = in.readShort()) != -1) {
+				Assert.assertEquals(72, fieldCount);
+				Assert.assertEquals(8, in.readInt());
+				final long timestamp = in.readLong();
+				Assert.assertEquals(4, in.readInt());
+				final int responseTime = in.readInt();
+				if (tuples == 0) {
+					Assert.assertEquals(CopyBinaryWriter.toPostgresMicros(LocalDateTime.of(2017, 9, 1, 0, 0, 3, 587000000)), timestamp);
+					Assert.assertEquals(557539203587000L, timestamp);
+					Assert.assertEquals(93, responseTime);
+				}
+				for (int i = 2; i < fieldCount; i++) {
+					final int length = in.readInt();
+					if (length < 0) {
+						nulls++;
+					}
+					else {
+						final byte[] value = new byte[length];
+						in.readFully(value);
+						if (tuples == 0 && i == 3) {
+							Assert.assertEquals("Up", new String(value, StandardCharsets.UTF_8));
+						}
+					}
+				}
+				tuples++;
+			}
+			Assert.assertEquals(20, tuples);
+			Assert.assertTrue(nulls > 0); // short rows
+			Assert.assertEquals(-1, in.read());
+		}
+
+		final File numbersFile = new File(temporaryFolder.getRoot(), "numbers.csv");
+		Files.write(numbersFile.toPath(), "Data e ora;rt;small;zero;blank\n01/09/2017 00:00:03.587;93;0.00000001;-0;\n".getBytes(StandardCharsets.US_ASCII));
+		converter.setTypeInferenceRows(1);
+		converter.convert(numbersFile, destDir.getPath(), () -> false);
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(destDir, "numbers.bin"))))) {
+			in.skipBytes(11 + 4 + 4 + 2 + 4 + 8 + 4 + 4); // header, field count, timestamp and response time
+			for (final String expected : new String[] { "0.00000001", "-0" }) { // the text of the typed values is kept
+				final byte[] value = new byte[in.readInt()];
+				in.readFully(value);
+				Assert.assertEquals(expected, new String(value, StandardCharsets.UTF_8));
+			}
+			Assert.assertEquals(-1, in.readInt());
+			Assert.assertEquals(-1, in.readShort());
+		}
+	}
+
+	@Test
+	public void testTypedValues() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final String csv = "Data e ora;rt;rate;margin;ip;empty;zip;uptime\n01/09/2017 00:00:03.587;93;480;1.5;192.168.1.1;;007;12\n01/09/2017 00:00:08.650;94; ;-2;10.0.0.1;;008;x\n";
+		converter.setTypeInferenceRows(1);
+		String sql = convert(converter, "typed.csv", csv);
+		Assert.assertTrue(sql, sql.contains(",93,480,1.5,'192.168.1.1',NULL,'007',12);"));
+		Assert.assertTrue(sql, sql.contains(",94,NULL,-2,'10.0.0.1',NULL,'008','x');")); // the values that follow the sample may not match
+
+		converter.setColumnTypes(Collections.singletonMap("uptime", ColumnType.TEXT));
+		sql = convert(converter, "typed.csv", csv);
+		Assert.assertTrue(sql, sql.contains(",93,480,1.5,'192.168.1.1',NULL,'007','12');"));
+		sql = convert(converter, "typed.csv", csv.replace(";uptime\n", "; uptime \n")); // the names are trimmed, as for the column selection
+		Assert.assertTrue(sql, sql.contains(",93,480,1.5,'192.168.1.1',NULL,'007','12');"));
+		converter.setTypeInferenceRows(0);
+		sql = convert(converter, "typed.csv", csv);
+		Assert.assertTrue(sql, sql.contains(",93,'480','1.5','192.168.1.1',NULL,'007','12');"));
+
+		converter.setOutputFormat(OutputFormat.COPY);
+		converter.setTypeInferenceRows(2);
+		sql = convert(converter, "typed.csv", csv);
+		Assert.assertTrue(sql, sql.contains("\t94\t\\N\t-2\t10.0.0.1\t\\N\t008\tx\n"));
+
+		try {
+			converter.setColumnTypes(Collections.singletonMap("rate", ColumnType.TIMESTAMP));
+			Assert.fail();
+		}
+		catch (final IllegalArgumentException e) {
+			Assert.assertNotNull(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testTypedValuesChunked() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		converter.setTypeInferenceRows(10);
+		final File csvFile = copyResource("test_ok.csv");
+		final File sequentialDir = temporaryFolder.newFolder();
+		final File chunkedDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, sequentialDir.getPath(), () -> false);
+		converter.setChunkSize(100);
+		converter.convert(csvFile, chunkedDir.getPath(), () -> false, 4);
+		final byte[] expected = Files.readAllBytes(new File(sequentialDir, "test_ok.sql").toPath());
+		Assert.assertArrayEquals(expected, Files.readAllBytes(new File(chunkedDir, "test_ok.sql").toPath()));
+		final String sql = new String(expected, Charset.defaultCharset());
+		Assert.assertFalse(sql, sql.contains(",''"));
+		Assert.assertTrue(sql, sql.contains(",NULL,"));
+		Assert.assertTrue(convert(new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20), "test_ok.csv").length() > sql.length());
+	}
+
+	@Test
+	public void testCreateTable() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		final String expected = convert(converter, "test_ok.csv");
+		converter.setCreateTable(true);
+		final File sequentialDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, sequentialDir.getPath(), () -> false);
+		final List<String> script = Files.readAllLines(new File(sequentialDir, "test_ok.sql").toPath(), Charset.defaultCharset());
+		final String createTable = script.get(0);
+		Assert.assertTrue(createTable, createTable.startsWith("CREATE TABLE my_table (prefix_timestamp TIMESTAMP, prefix_response_time INTEGER, prefix_enable VARCHAR(1), prefix_status VARCHAR(2), "));
+		Assert.assertTrue(createTable, createTable.endsWith(");"));
+		Assert.assertEquals(Arrays.asList(expected.split("\\R")), script.subList(1, script.size()));
+
+		converter.setTypeInferenceRows(1);
+		final File typedDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, typedDir.getPath(), () -> false);
+		final String typed = new String(Files.readAllBytes(new File(typedDir, "test_ok.sql").toPath()), Charset.defaultCharset());
+		Assert.assertTrue(typed, typed.startsWith("CREATE TABLE my_table (prefix_timestamp TIMESTAMP, prefix_response_time INTEGER, prefix_enable SMALLINT, prefix_status VARCHAR(2), "));
+		Assert.assertTrue(typed, typed.contains(" prefix_uptime INTEGER, "));
+		Assert.assertTrue(typed, typed.contains(" prefix_lineEncoding VARCHAR(1), "));
+		final File chunkedDir = temporaryFolder.newFolder();
+		converter.setChunkSize(100);
+		converter.convert(csvFile, chunkedDir.getPath(), () -> false, 4);
+		Assert.assertEquals(typed, new String(Files.readAllBytes(new File(chunkedDir, "test_ok.sql").toPath()), Charset.defaultCharset()));
+
+		final File gzFile = new File(csvFile.getPath() + ".gz");
+		try (final OutputStream out = new GZIPOutputStream(new FileOutputStream(gzFile))) {
+			Files.copy(csvFile.toPath(), out);
+		}
+		final File gzDir = temporaryFolder.newFolder();
+		converter.convert(gzFile, gzDir.getPath(), () -> false);
+		Assert.assertEquals(typed, new String(Files.readAllBytes(new File(gzDir, "test_ok.sql").toPath()), Charset.defaultCharset()));
+
+		converter.setOutputFormat(OutputFormat.COPY_BINARY);
+		final File binaryDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, binaryDir.getPath(), () -> false);
+		final List<String> binaryScript = Files.readAllLines(new File(binaryDir, "test_ok.sql").toPath(), Charset.defaultCharset());
+		Assert.assertEquals(3, binaryScript.size());
+		Assert.assertTrue(binaryScript.get(0), binaryScript.get(0).startsWith("CREATE TABLE my_table (prefix_timestamp TIMESTAMP, prefix_response_time INTEGER, prefix_enable VARCHAR(1), "));
+		Assert.assertTrue(binaryScript.get(1).startsWith("\\copy my_table "));
+	}
+
+	@Test
+	public void testSelectedColumns() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final String csv = "Data e ora;rt;rate;upNoise;downNoise;uptime\n01/09/2017 00:00:03.587;93;480;1.5;2.5;12\n01/09/2017 00:00:08.650;94;481;1.6;2.6;13;extra;fields\n";
+		converter.setSelectedColumns(Arrays.asList("*NOISE", "missing"));
+		Assert.assertTrue(converter.isSelectedColumn("downNoise"));
+		Assert.assertFalse(converter.isSelectedColumn("uptime"));
+		String sql = convert(converter, "selected.csv", csv);
+		Assert.assertTrue(sql, sql.contains("(prefix_timestamp,prefix_response_time,prefix_upNoise,prefix_downNoise)"));
+		Assert.assertTrue(sql, sql.contains(",93,'1.5','2.5');"));
+		Assert.assertTrue(sql, sql.contains(",94,'1.6','2.6');")); // the fields that follow the selected ones are not split
+		Assert.assertFalse(sql, sql.contains("480"));
+
+		converter.setSelectedColumns(Collections.singletonList("up?ime"));
+		converter.setTypeInferenceRows(2);
+		sql = convert(converter, "selected.csv", csv);
+		Assert.assertTrue(sql, sql.contains("(prefix_timestamp,prefix_response_time,prefix_uptime)"));
+		Assert.assertTrue(sql, sql.contains(",93,12);"));
+
+		converter.setTypeInferenceRows(0);
+		converter.setSelectedColumns(Arrays.asList("downstream*", "uptime"));
+		final File csvFile = copyResource("test_ok.csv");
+		Assert.assertEquals("Data e ora", converter.getCsvColumnNames(csvFile).get(0));
+		Assert.assertEquals("uptime", converter.getCsvColumnNames(csvFile).get(38));
+		final File sequentialDir = temporaryFolder.newFolder();
+		final File chunkedDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, sequentialDir.getPath(), () -> false);
+		converter.setChunkSize(100);
+		converter.convert(csvFile, chunkedDir.getPath(), () -> false, 4);
+		final byte[] expected = Files.readAllBytes(new File(sequentialDir, "test_ok.sql").toPath());
+		Assert.assertArrayEquals(expected, Files.readAllBytes(new File(chunkedDir, "test_ok.sql").toPath()));
+		final String selected = new String(expected, Charset.defaultCharset());
+		Assert.assertTrue(selected, selected.startsWith("INSERT INTO my_table (prefix_timestamp,prefix_response_time,prefix_downstreamCur,prefix_downstreamMax,prefix_downstreamNoi,prefix_downstreamAtt,prefix_downstreamPow,prefix_uptime) VALUES "));
+
+		converter.setOutputFormat(OutputFormat.LOAD_DATA);
+		try {
+			converter.convert(csvFile, temporaryFolder.newFolder().getPath(), () -> false);
+			Assert.fail();
+		}
+		catch (final IllegalStateException e) {
+			Assert.assertNotNull(e.getMessage());
+		}
+		converter.setSelectedColumns(Collections.<String> emptyList());
+		Assert.assertTrue(converter.isSelectedColumn("uptime"));
+	}
+
+	@Test
+	public void testControlScripts() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		final String columns = convert(converter, "test_ok.csv").split("\\R")[0].replaceFirst("^INSERT INTO my_table \\(([^)]*)\\).*$", "$1");
+
+		converter.setOutputFormat(OutputFormat.LOAD_DATA);
+		final File mysqlDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, mysqlDir.getPath(), () -> false);
+		final String mysql = new String(Files.readAllBytes(new File(mysqlDir, "test_ok.sql").toPath()), Charset.defaultCharset());
+		Assert.assertTrue(mysql.startsWith("LOAD DATA LOCAL INFILE '" + csvFile.getAbsolutePath().replace('\\', '/') + "'"));
+		Assert.assertTrue(mysql.contains("FIELDS TERMINATED BY ';' ESCAPED BY ''"));
+		Assert.assertTrue(mysql.contains("IGNORE 1 LINES"));
+		Assert.assertTrue(mysql.contains("SET prefix_timestamp = STR_TO_DATE(TRIM(@f1), '%d/%m/%Y %H:%i:%s.%f'),"));
+		Assert.assertTrue(mysql.contains("prefix_response_time = NULLIF(TRIM(@f2), ''),"));
+		Assert.assertTrue(mysql.contains("prefix_portMappingNu = @f72;"));
+
+		final File backslashFile = new File(temporaryFolder.getRoot(), "backslash.csv");
+		Files.write(backslashFile.toPath(), "Data e ora;Tempo di risposta (ms);path;value\n01/09/2017 00:00:03.587;93;C:\\logs\\router;\\N\n".getBytes(StandardCharsets.US_ASCII));
+		converter.convert(backslashFile, mysqlDir.getPath(), () -> false);
+		final String backslash = new String(Files.readAllBytes(new File(mysqlDir, "backslash.sql").toPath()), Charset.defaultCharset());
+		Assert.assertTrue(backslash, backslash.contains("FIELDS TERMINATED BY ';' ESCAPED BY ''")); // the fields are loaded verbatim, as by the INSERT statements
+		converter.setOutputFormat(OutputFormat.INSERT);
+		final String inserts = convert(converter, "backslash.csv", new String(Files.readAllBytes(backslashFile.toPath()), StandardCharsets.US_ASCII));
+		Assert.assertTrue(inserts, inserts.contains(",'C:\\logs\\router','\\N');"));
+		converter.setOutputFormat(OutputFormat.LOAD_DATA);
+
+		converter.setOutputFormat(OutputFormat.SQL_LOADER);
+		final File oracleDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, oracleDir.getPath(), () -> false);
+		final String oracle = new String(Files.readAllBytes(new File(oracleDir, "test_ok.ctl").toPath()), Charset.defaultCharset());
+		Assert.assertTrue(oracle.startsWith("OPTIONS (SKIP=1)"));
+		Assert.assertTrue(oracle.contains("INTO TABLE my_table"));
+		Assert.assertTrue(oracle.contains("TRAILING NULLCOLS"));
+		Assert.assertTrue(oracle.contains("prefix_timestamp CHAR(4000) \"TO_TIMESTAMP(TRIM(:prefix_timestamp), 'DD/MM/YYYY HH24:MI:SS.FF3')\","));
+
+		converter.setOutputFormat(OutputFormat.FILE_FDW);
+		final File postgresDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, postgresDir.getPath(), () -> false);
+		final String postgres = new String(Files.readAllBytes(new File(postgresDir, "test_ok.sql").toPath()), Charset.defaultCharset());
+		Assert.assertTrue(postgres.contains("INSERT INTO my_table (" + columns + ")"));
+		Assert.assertTrue(postgres.contains("SELECT to_timestamp(trim(f[1]), 'DD/MM/YYYY HH24:MI:SS.MS')::timestamp"));
+		Assert.assertTrue(postgres.contains("string_to_array(line, ';')"));
+
+		Assert.assertEquals("%Y-%m-%dT%H:%i", ControlScriptWriter.translatePattern("yyyy-MM-dd'T'HH:mm", OutputFormat.LOAD_DATA));
+		Assert.assertEquals("YYYY-MM-DD\"T\"HH24:MI", ControlScriptWriter.translatePattern("yyyy-MM-dd'T'HH:mm", OutputFormat.FILE_FDW));
+		Assert.assertEquals("DD MON YY HH12:MI AM", ControlScriptWriter.translatePattern("dd MMM yy hh:mm a", OutputFormat.SQL_LOADER));
+		Assert.assertEquals("%Y%%'%m", ControlScriptWriter.translatePattern("yyyy'%'''MM", OutputFormat.LOAD_DATA));
+		try {
+			ControlScriptWriter.translatePattern("dd/MM/yyyy HH:mm z", OutputFormat.FILE_FDW);
+			Assert.fail();
+		}
+		catch (final IllegalArgumentException e) {
+			Assert.assertNotNull(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testConvertChunked() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		final File sequentialDir = temporaryFolder.newFolder();
+		final File chunkedDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, sequentialDir.getPath(), () -> false);
+		converter.setChunkSize(100);
+		converter.convert(csvFile, chunkedDir.getPath(), () -> false, 4);
+		final byte[] expected = Files.readAllBytes(new File(sequentialDir, "test_ok.sql").toPath());
+		Assert.assertArrayEquals(expected, Files.readAllBytes(new File(chunkedDir, "test_ok.sql").toPath()));
+		verify(new String(expected, Charset.defaultCharset()), "test_ok.sql");
+
+		converter.setRowsPerStatement(3);
+		assertChunkedEqualsSequential(converter, csvFile);
+		converter.setRowsPerStatement(1);
+		converter.setOutputFormat(OutputFormat.COPY);
+		assertChunkedEqualsSequential(converter, csvFile);
+	}
+
+	private void assertChunkedEqualsSequential(final CsvToSqlEngine converter, final File csvFile) throws IOException, InterruptedException {
+		final File sequentialDir = temporaryFolder.newFolder();
+		final File chunkedDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, sequentialDir.getPath(), () -> false);
+		converter.convert(csvFile, chunkedDir.getPath(), () -> false, 4);
+		final String name = csvFile.getName().replace(".csv", ".sql");
+		Assert.assertArrayEquals(Files.readAllBytes(new File(sequentialDir, name).toPath()), Files.readAllBytes(new File(chunkedDir, name).toPath()));
+	}
+
+	@Test
+	public void testConvertChunkedException() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final List<String> lines = new ArrayList<>(Files.readAllLines(copyResource("test_ok.csv").toPath(), Charset.defaultCharset()));
+		lines.set(17, lines.get(17).replaceFirst("/", "-"));
+		final File csvFile = temporaryFolder.newFile("test_ko.csv");
+		Files.write(csvFile.toPath(), lines, Charset.defaultCharset());
+		String sequentialMessage = null;
+		try {
+			converter.convert(csvFile, temporaryFolder.newFolder().getPath(), () -> false);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertEquals(ParseException.class, e.getCause().getClass());
+			sequentialMessage = e.getMessage();
+		}
+		converter.setChunkSize(100);
+		try {
+			converter.convert(csvFile, temporaryFolder.newFolder().getPath(), () -> false, 4);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertEquals(ParseException.class, e.getCause().getClass());
+			Assert.assertEquals(sequentialMessage, e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressed() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		final File plainDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, plainDir.getPath(), () -> false);
+
+		converter.setCompressed(true);
+		converter.setCompressionIndex(true);
+		Assert.assertEquals(0, converter.getCompressionThreads()); // the threads of each file
+		try {
+			converter.setCompressionThreads(-1);
+			Assert.fail();
+		}
+		catch (final IllegalArgumentException e) {
+			Assert.assertNotNull(e.getMessage());
+		}
+		converter.setCompressionThreads(3);
+		final File compressedDir = temporaryFolder.newFolder();
+		Assert.assertEquals(new File(compressedDir, "test_ok.sql.gz"), converter.getDestinationFile(csvFile, compressedDir.getPath()));
+		converter.convert(csvFile, compressedDir.getPath(), () -> false);
+		final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+		try (final InputStream is = new GZIPInputStream(new FileInputStream(new File(compressedDir, "test_ok.sql.gz")))) {
+			IOUtils.copy(is, decompressed, 8192);
+		}
+		Assert.assertArrayEquals(Files.readAllBytes(new File(plainDir, "test_ok.sql").toPath()), decompressed.toByteArray());
+		Assert.assertEquals(8, new File(compressedDir, "test_ok.sql.gz.gzi").length()); // a single block
+
+		Files.delete(new File(compressedDir, "test_ok.sql.gz").toPath());
+		try {
+			converter.getDestinationFile(csvFile, compressedDir.getPath()); // the index is still there
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertTrue(e.getMessage().contains("test_ok.sql.gz.gzi"));
+		}
+	}
+
+	@Test
+	public void testCompressedInputs() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		final File plainDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, plainDir.getPath(), () -> false);
+		final byte[] expected = Files.readAllBytes(new File(plainDir, "test_ok.sql").toPath());
+		final byte[] csv = Files.readAllBytes(csvFile.toPath());
+
+		final File gzFile = temporaryFolder.newFile("test_gz.csv.gz");
+		try (final OutputStream os = new GZIPOutputStream(new FileOutputStream(gzFile))) {
+			os.write(csv);
+		}
+		final File gzDir = temporaryFolder.newFolder();
+		converter.convert(gzFile, gzDir.getPath(), () -> false);
+		Assert.assertArrayEquals(expected, Files.readAllBytes(new File(gzDir, "test_gz.sql").toPath()));
+
+		final File zipFile = temporaryFolder.newFile("test.zip");
+		try (final ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
+			for (final String entryName : new String[] { "test_ok.csv", "dir/test_ok2.CSV", "readme.txt" }) {
+				zos.putNextEntry(new ZipEntry(entryName));
+				zos.write(csv);
+				zos.closeEntry();
+			}
+		}
+		final File zipDir = temporaryFolder.newFolder();
+		converter.convert(zipFile, zipDir.getPath(), () -> false, 2);
+		Assert.assertArrayEquals(expected, Files.readAllBytes(new File(zipDir, "test_ok.sql").toPath()));
+		Assert.assertArrayEquals(expected, Files.readAllBytes(new File(zipDir, "test_ok2.sql").toPath()));
+		Assert.assertEquals(2, zipDir.list().length);
+
+		final File duplicatesFile = temporaryFolder.newFile("duplicates.zip");
+		try (final ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(duplicatesFile))) {
+			for (final String entryName : new String[] { "a/test_ok.csv", "b/test_ok.csv" }) {
+				zos.putNextEntry(new ZipEntry(entryName));
+				zos.write(csv);
+				zos.closeEntry();
+			}
+		}
+		try {
+			converter.convert(duplicatesFile, temporaryFolder.newFolder().getPath(), () -> false, 2);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertNull(e.getCause());
+		}
+
+		final File koFile = temporaryFolder.newFile("ko.zip");
+		try (final ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(koFile))) {
+			zos.putNextEntry(new ZipEntry("ko.csv"));
+			zos.write(new String(csv, StandardCharsets.UTF_8).replaceFirst("(?m)^(\\d\\d)/", "$1-").getBytes(StandardCharsets.UTF_8));
+			zos.closeEntry();
+		}
+		try {
+			converter.convert(koFile, temporaryFolder.newFolder().getPath(), () -> false, 2);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertEquals(ParseException.class, e.getCause().getClass());
+			Assert.assertTrue(e.getMessage().contains("ko.zip!/ko.csv"));
+		}
+	}
+
+	@Test
+	public void testTail() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		final File fullDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, fullDir.getPath(), () -> false);
+		final String full = new String(Files.readAllBytes(new File(fullDir, "test_ok.sql").toPath()), Charset.defaultCharset());
+		final byte[] csv = Files.readAllBytes(csvFile.toPath());
+
+		final File growingFile = new File(temporaryFolder.newFolder(), "growing.csv");
+		final File tailDir = temporaryFolder.newFolder();
+		Files.write(growingFile.toPath(), Arrays.copyOf(csv, 20)); // incomplete header
+		Assert.assertNull(converter.tail(growingFile, tailDir.getPath(), () -> false, null));
+		Assert.assertEquals(0, tailDir.list().length);
+
+		final int cut = csv.length / 2;
+		Files.write(growingFile.toPath(), Arrays.copyOf(csv, cut));
+		final LoadMarker first = converter.tail(growingFile, tailDir.getPath(), () -> false, null);
+		Assert.assertEquals(lastIndexOf(csv, (byte) '\n', cut) + 1, first.getOffset());
+		Assert.assertEquals("growing.csv", first.getFileName());
+
+		Files.write(growingFile.toPath(), csv);
+		final LoadMarker second = converter.tail(growingFile, tailDir.getPath(), () -> false, first);
+		Assert.assertEquals(lastIndexOf(csv, (byte) '\n', csv.length) + 1, second.getOffset());
+		Assert.assertSame(second, converter.tail(growingFile, tailDir.getPath(), () -> false, second));
+		Assert.assertEquals(2, tailDir.list().length);
+
+		final StringBuilder segments = new StringBuilder();
+		for (final LoadMarker from : new LoadMarker[] { new LoadMarker("growing.csv", 0, 2), first }) {
+			final String segment = new String(Files.readAllBytes(new File(tailDir, "growing_" + from.getLineNumber() + ".sql").toPath()), Charset.defaultCharset());
+			Assert.assertTrue(segment.trim().endsWith("COMMIT;"));
+			segments.append(segment.substring(0, segment.lastIndexOf("COMMIT;")));
+		}
+		Assert.assertEquals(full.substring(0, full.lastIndexOf("COMMIT;")), segments.toString());
+
+		Files.write(growingFile.toPath(), Arrays.copyOf(csv, cut - 1));
+		try {
+			converter.tail(growingFile, tailDir.getPath(), () -> false, second);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertNull(e.getCause());
+		}
+	}
+
+	private static int lastIndexOf(final byte[] array, final byte value, final int end) {
+		for (int i = end - 1; i >= 0; i--) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Test
+	public void testProgress() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final File csvFile = copyResource("test_ok.csv");
+		final List<String> lines = Files.readAllLines(csvFile.toPath(), Charset.defaultCharset());
+		final byte[] csv = Files.readAllBytes(csvFile.toPath());
+		final long bodyBytes = csv.length - new String(csv, StandardCharsets.ISO_8859_1).indexOf('\n') - 1;
+		final long rowCount = lines.stream().skip(1).filter(line -> !line.trim().isEmpty()).count();
+		final List<long[]> updates = new ArrayList<>();
+		converter.setProgressListener((bytes, rows) -> updates.add(new long[] { bytes, rows }));
+		converter.setChunkSize(100);
+
+		converter.convert(csvFile, temporaryFolder.newFolder().getPath(), () -> false);
+		Assert.assertEquals(bodyBytes, converter.getByteCount());
+		Assert.assertEquals(rowCount, converter.getRowCount());
+		Assert.assertFalse(updates.isEmpty());
+		Assert.assertTrue(updates.get(0)[0] <= bodyBytes && updates.get(0)[1] <= rowCount);
+
+		converter.convert(csvFile, temporaryFolder.newFolder().getPath(), () -> false, 4);
+		Assert.assertEquals(bodyBytes * 2, converter.getByteCount());
+		Assert.assertEquals(rowCount * 2, converter.getRowCount());
+	}
+
+	@Test
+	public void testMetrics() throws IOException, InterruptedException, JMException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		converter.setCompressed(false);
+		final File csvFile = copyResource("test_ok.csv");
+		final File destDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, destDir.getPath(), () -> false);
+
+		final ConversionMetricsMXBean metrics = converter.getMetrics();
+		Assert.assertEquals(converter.getRowCount(), metrics.getRowCount());
+		Assert.assertEquals(new File(destDir, "test_ok.sql").length(), metrics.getBytesWritten());
+		Assert.assertEquals(0, metrics.getParseErrors());
+		final ConversionStatistics file = metrics.getFiles().get(csvFile.getPath());
+		Assert.assertEquals(metrics.getRowCount(), file.getRowCount());
+		Assert.assertEquals(metrics.getBytesRead(), file.getBytesRead());
+
+		final File badFile = temporaryFolder.newFile("test_bad.csv");
+		Files.write(badFile.toPath(), "Data e ora;Tempo di risposta (ms)\nnot a date;1\n".getBytes(StandardCharsets.US_ASCII));
+		try {
+			converter.convert(badFile, destDir.getPath(), () -> false);
+			Assert.assertTrue(false);
+		}
+		catch (final IOException e) {
+			Assert.assertEquals(1, metrics.getParseErrors());
+			Assert.assertEquals(1, metrics.getFiles().get(badFile.getPath()).getParseErrors());
+		}
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(ConversionMetrics.OBJECT_NAME);
+		converter.registerMBean();
+		try {
+			Assert.assertEquals(metrics.getRowCount(), server.getAttribute(name, "RowCount"));
+			Assert.assertEquals(2, ((TabularData) server.getAttribute(name, "Files")).size());
+			Assert.assertTrue((Double) server.getAttribute(name, "WorkerUtilization") >= 0);
+		}
+		finally {
+			converter.unregisterMBean();
+		}
+		Assert.assertFalse(server.isRegistered(name));
+	}
+
+	@Test
+	public void testCharsets() throws IOException, InterruptedException {
+		final CsvToSqlEngine converter = new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+		final List<String> lines = new ArrayList<>(Files.readAllLines(copyResource("test_ok.csv").toPath(), StandardCharsets.UTF_8));
+		lines.set(5, lines.get(5).replaceFirst(";[^;]*$", ";Citt\u00e0 \u00e8 'n\u00e9'"));
+		final File csvFile = temporaryFolder.newFile("test_latin1.csv");
+		Files.write(csvFile.toPath(), lines, StandardCharsets.ISO_8859_1);
+
+		converter.setCharset(StandardCharsets.ISO_8859_1);
+		converter.setOutputCharset(StandardCharsets.ISO_8859_1);
+		final File latin1Dir = temporaryFolder.newFolder();
+		converter.convert(csvFile, latin1Dir.getPath(), () -> false); // bytes copied as they are
+		final String latin1 = new String(Files.readAllBytes(new File(latin1Dir, "test_latin1.sql").toPath()), StandardCharsets.ISO_8859_1);
+		Assert.assertTrue(latin1.contains("'Citt\u00e0 \u00e8 ''n\u00e9'''"));
+
+		converter.setOutputCharset(StandardCharsets.UTF_8);
+		final File utf8Dir = temporaryFolder.newFolder();
+		converter.convert(csvFile, utf8Dir.getPath(), () -> false); // transcoded
+		Assert.assertEquals(latin1, new String(Files.readAllBytes(new File(utf8Dir, "test_latin1.sql").toPath()), StandardCharsets.UTF_8));
+
+		converter.setCharset(StandardCharsets.UTF_8);
+		final File malformedDir = temporaryFolder.newFolder();
+		converter.convert(csvFile, malformedDir.getPath(), () -> false); // malformed input is copied too
+		Assert.assertArrayEquals(Files.readAllBytes(new File(latin1Dir, "test_latin1.sql").toPath()), Files.readAllBytes(new File(malformedDir, "test_latin1.sql").toPath()));
+
+		Assert.assertTrue(CsvToSqlEngine.isAsciiCompatible(StandardCharsets.UTF_8));
+		Assert.assertTrue(CsvToSqlEngine.isAsciiCompatible(Charset.forName("windows-1252")));
+		Assert.assertFalse(CsvToSqlEngine.isAsciiCompatible(StandardCharsets.UTF_16LE));
+	}
+
+	private File copyResource(final String resourceName) throws IOException {
+		final File file = new File(temporaryFolder.getRoot(), resourceName);
+		try (final InputStream is = getClass().getResourceAsStream(resourceName)) {
+			Files.copy(is, file.toPath());
+		}
+		return file;
+	}
+
 	private String convert(final CsvToSqlEngine converter, final String csvFileName) throws IOException, InterruptedException {
 		InputStream r1 = null;
 		InputStreamReader r2 = null;
@@ -92,6 +866,14 @@ public class CsvToSqlEngineTest {
 		return sql;
 	}
 
+	private static String convert(final CsvToSqlEngine converter, final String csvFileName, final String csv) throws IOException, InterruptedException {
+		final StringWriter sw = new StringWriter();
+		try (final BufferedWriter bw = new BufferedWriter(sw)) {
+			converter.convert(csvFileName, new LineNumberReader(new StringReader(csv)), bw, () -> false);
+		}
+		return sw.toString();
+	}
+
 	private void verify(final String sql, final String sqlFileName) throws IOException {
 		InputStream e1 = null;
 		Reader e2 = null;
@@ -0,0 +1,120 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CsvTokenizerTest {
+
+	private static final String[] LINES = { "a;b;c", "a;b;c;", "a;;;", ";a;b", ";;a;;b;;", "abc", ";", ";;;", " a ; b ; c ", "1;'quoted';c", "a;b;c;;;d" };
+
+	@Test
+	public void testSameAsSplit() {
+		final String[][] separators = { { ";", ";" }, { ",", "," }, { "\\|", "|" }, { ";;", ";;" }, { "[;,]", ";" }, { "\\s*;\\s*", ";" }, { "(?=b)", ";" } }; // regex, actual separator
+		for (final String[] pair : separators) {
+			final String separator = pair[0];
+			final CsvTokenizer tokenizer = new CsvTokenizer(separator);
+			for (final String line : LINES) {
+				final String input = line.replace(";", pair[1]);
+				Assert.assertTrue(tokenizer.tokenize(input));
+				final String[] expected = input.trim().split(separator);
+				Assert.assertEquals(separator + " -> " + input, expected.length, tokenizer.getFieldCount());
+				for (int i = 0; i < expected.length; i++) {
+					Assert.assertEquals(separator + " -> " + input, expected[i], tokenizer.getString(i));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSelectedFields() {
+		final boolean[][] selections = { { true, false, true }, { false, true }, { true, true, false, true }, { false, false, false, false, false, true }, { true, true, true, true, true, true, true, true }, {} };
+		final String[] lines = { "a;b;c", "a;;;", "a;;;d", ";;a;;b;;", "a;b;c;;;d", "\"x;y\";;\"z\"", "a;\"\";;", "a;b;;\"\"" };
+		for (final String separator : new String[] { ";", "[;]" }) {
+			final CsvTokenizer tokenizer = new CsvTokenizer(separator);
+			final CsvTokenizer all = new CsvTokenizer(separator);
+			for (final boolean[] selection : selections) {
+				tokenizer.setSelectedFields(selection);
+				for (final String line : lines) {
+					Assert.assertTrue(tokenizer.tokenize(line));
+					all.tokenize(line);
+					int expected = 0;
+					for (int i = 0; i < all.getFieldCount(); i++) {
+						if (i < selection.length && selection[i]) {
+							Assert.assertEquals(separator + " -> " + line, all.getString(i), tokenizer.getString(expected++));
+						}
+					}
+					Assert.assertEquals(separator + " -> " + line, expected, tokenizer.getFieldCount());
+				}
+			}
+			tokenizer.setSelectedFields(null);
+			Assert.assertTrue(tokenizer.tokenize("a;b;c;;;d"));
+			Assert.assertEquals(6, tokenizer.getFieldCount());
+		}
+	}
+
+	@Test
+	public void testBlank() {
+		final CsvTokenizer tokenizer = new CsvTokenizer(";");
+		Assert.assertFalse(tokenizer.tokenize(""));
+		Assert.assertFalse(tokenizer.tokenize(" \t "));
+		Assert.assertEquals(0, tokenizer.getFieldCount());
+	}
+
+	@Test
+	public void testQuoted() {
+		final CsvTokenizer tokenizer = new CsvTokenizer(";");
+		Assert.assertTrue(tokenizer.tokenize("\"a;b\";\"say \"\"hi\"\"\";c\"d;\"\";\"e\"f;x"));
+		Assert.assertEquals(6, tokenizer.getFieldCount());
+		Assert.assertEquals("a;b", tokenizer.getString(0));
+		Assert.assertTrue(tokenizer.isQuoted(0));
+		Assert.assertEquals("say \"hi\"", tokenizer.getString(1));
+		Assert.assertEquals("c\"d", tokenizer.getString(2));
+		Assert.assertFalse(tokenizer.isQuoted(2));
+		Assert.assertEquals("", tokenizer.getString(3));
+		Assert.assertEquals("ef", tokenizer.getString(4));
+		Assert.assertEquals("x", tokenizer.getString(5));
+
+		Assert.assertTrue(tokenizer.tokenize("a;\"\""));
+		Assert.assertEquals(2, tokenizer.getFieldCount()); // quoted empty fields are kept
+
+		for (final String line : new String[] { "a;\"unterminated;x", "\"", "a;\"say \"\"hi\"\"" }) {
+			try {
+				tokenizer.tokenize(line);
+				Assert.fail(line);
+			}
+			catch (final IllegalArgumentException e) {
+				Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Unterminated quoted field"));
+			}
+		}
+	}
+
+	@Test
+	public void testParseInt() {
+		final CsvTokenizer tokenizer = new CsvTokenizer(";");
+		for (final String value : new String[] { "0", " 93 ", "-1", "+7", "2147483647", "-2147483648" }) {
+			tokenizer.tokenize("x;" + value);
+			Assert.assertEquals(Integer.parseInt(value.trim()), tokenizer.parseInt(1));
+		}
+		for (final String value : new String[] { "2147483648", "-2147483649", "-", "1a", "1.0", "\"\"" }) {
+			tokenizer.tokenize("x;" + value);
+			try {
+				tokenizer.parseInt(1);
+				Assert.fail(value);
+			}
+			catch (final NumberFormatException e) {
+				Assert.assertNotNull(e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void testToLiteral() {
+		Assert.assertEquals(";", CsvTokenizer.toLiteral(";"));
+		Assert.assertEquals("|", CsvTokenizer.toLiteral("\\|"));
+		Assert.assertEquals("::", CsvTokenizer.toLiteral("::"));
+		Assert.assertNull(CsvTokenizer.toLiteral("\\t"));
+		Assert.assertNull(CsvTokenizer.toLiteral("[;,]"));
+		Assert.assertNull(CsvTokenizer.toLiteral("|"));
+	}
+
+}
@@ -0,0 +1,181 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Loads files into an in-memory H2 database, through the real insert, commit
+ * and rollback paths of the driver.
+ */
+public class JdbcSinkH2Test {
+
+	private static final int ROWS = 20; // non-empty data lines of test_ok.csv
+
+	private static int databases;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private String url;
+	private Connection connection; // keeps the database alive
+
+	@Before
+	public void openDatabase() throws SQLException {
+		url = "jdbc:h2:mem:csv2sql" + ++databases;
+		connection = DriverManager.getConnection(url);
+	}
+
+	@After
+	public void closeDatabase() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void testBatches() throws IOException, InterruptedException, SQLException {
+		final File csvFile = copyResource("test_ok.csv");
+		final CsvToSqlEngine engine = newEngine();
+		createTable(engine, csvFile);
+		final JdbcSink sink = new JdbcSink(url, null, null);
+		sink.setBatchSize(3);
+		sink.setCommitInterval(5);
+		sink.setConnections(3);
+		engine.convert(csvFile, sink, () -> false);
+		final List<Timestamp> timestamps = getTimestamps();
+		Assert.assertEquals(ROWS, timestamps.size());
+		Assert.assertEquals(Timestamp.valueOf("2017-09-01 00:00:03.587"), timestamps.get(0));
+		try (final Statement statement = connection.createStatement(); final ResultSet rs = statement.executeQuery("SELECT rl_response_time_ms, rl_status FROM router_log WHERE rl_timestamp = TIMESTAMP '2017-09-01 00:00:08.662'")) {
+			Assert.assertTrue(rs.next());
+			Assert.assertEquals(75, rs.getInt(1));
+			Assert.assertEquals("Up", rs.getString(2));
+		}
+	}
+
+	@Test
+	public void testOrderedCommitFailure() throws IOException, InterruptedException, SQLException {
+		final File csvFile = copyResource("test_ok.csv");
+		final CsvToSqlEngine engine = newEngine();
+		createTable(engine, csvFile);
+		engine.convert(csvFile, new JdbcSink(url, null, null), () -> false);
+		final List<Timestamp> all = getTimestamps();
+		final Timestamp failing = Timestamp.valueOf("2017-09-01 00:01:10.078");
+		try (final Statement statement = connection.createStatement()) {
+			statement.executeUpdate("DELETE FROM router_log");
+			statement.executeUpdate("ALTER TABLE router_log ADD CONSTRAINT not_failing CHECK (rl_timestamp <> TIMESTAMP '" + failing + "')");
+		}
+
+		final JdbcSink sink = new JdbcSink(url, null, null);
+		sink.setBatchSize(1);
+		sink.setCommitInterval(2);
+		sink.setConnections(3);
+		try {
+			engine.convert(csvFile, sink, () -> false);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertTrue(e.getCause() instanceof SQLException);
+		}
+		final List<Timestamp> committed = getTimestamps();
+		Assert.assertEquals(all.subList(0, committed.size()), committed); // a prefix of the file
+		Assert.assertEquals(0, committed.size() % 2); // whole transactions only
+		Assert.assertTrue(committed.size() < all.indexOf(failing));
+	}
+
+	@Test
+	public void testRollback() throws IOException, InterruptedException, SQLException {
+		final File csvFile = copyResource("test_ok.csv");
+		final CsvToSqlEngine engine = newEngine();
+		createTable(engine, csvFile);
+		try (final Statement statement = connection.createStatement()) {
+			statement.executeUpdate("ALTER TABLE router_log ADD CONSTRAINT not_last CHECK (rl_timestamp < TIMESTAMP '2017-09-01 00:01:46.000')");
+		}
+		final JdbcSink sink = new JdbcSink(url, null, null);
+		sink.setBatchSize(4); // the first batches are executed before the failure
+		try {
+			engine.convert(csvFile, sink, () -> false);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertTrue(e.getCause() instanceof SQLException);
+		}
+		Assert.assertEquals(0, getTimestamps().size());
+	}
+
+	@Test
+	public void testTypedNulls() throws IOException, InterruptedException, SQLException {
+		final File csvFile = new File(temporaryFolder.getRoot(), "nulls.csv");
+		Files.write(csvFile.toPath(), "Data e ora;rt;name;rate;margin;uptime\n01/09/2017 00:00:03.587;93;a;480;1.5;12\n01/09/2017 00:00:08.650;94;; ;;13\n".getBytes(StandardCharsets.US_ASCII));
+		final CsvToSqlEngine engine = newEngine();
+		engine.setTypeInferenceRows(1);
+		createTable(engine, csvFile);
+		engine.convert(csvFile, new JdbcSink(url, null, null), () -> false);
+		try (final Statement statement = connection.createStatement(); final ResultSet rs = statement.executeQuery("SELECT rl_name, rl_rate, rl_margin, rl_uptime FROM router_log ORDER BY rl_timestamp")) {
+			Assert.assertTrue(rs.next());
+			Assert.assertEquals("a", rs.getString(1));
+			Assert.assertEquals(480, rs.getInt(2));
+			Assert.assertEquals(new BigDecimal("1.5"), rs.getBigDecimal(3));
+			Assert.assertEquals(12, rs.getInt(4));
+			Assert.assertTrue(rs.next());
+			for (int i = 1; i <= 3; i++) {
+				Assert.assertNull(rs.getObject(i));
+			}
+			Assert.assertEquals(13, rs.getInt(4));
+			Assert.assertFalse(rs.next());
+		}
+	}
+
+	/** Creates the table with the statement written by the engine. */
+	private void createTable(final CsvToSqlEngine engine, final File csvFile) throws IOException, InterruptedException, SQLException {
+		final File destDir = temporaryFolder.newFolder();
+		final boolean createTable = engine.isCreateTable();
+		engine.setCreateTable(true);
+		engine.convert(csvFile, destDir.getPath(), () -> false);
+		engine.setCreateTable(createTable);
+		final String sql = Files.readAllLines(new File(destDir, csvFile.getName().replace(".csv", ".sql")).toPath(), Charset.defaultCharset()).get(0);
+		try (final Statement statement = connection.createStatement()) {
+			statement.executeUpdate(sql.substring(0, sql.length() - 1)); // without the semicolon
+		}
+	}
+
+	private List<Timestamp> getTimestamps() throws SQLException {
+		final List<Timestamp> timestamps = new ArrayList<>();
+		try (final Statement statement = connection.createStatement(); final ResultSet rs = statement.executeQuery("SELECT rl_timestamp FROM router_log ORDER BY rl_timestamp")) {
+			while (rs.next()) {
+				timestamps.add(rs.getTimestamp(1));
+			}
+		}
+		return timestamps;
+	}
+
+	private static CsvToSqlEngine newEngine() {
+		return new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "router_log", "rl_", "timestamp", "response_time_ms", 30);
+	}
+
+	private File copyResource(final String resourceName) throws IOException {
+		final File file = new File(temporaryFolder.getRoot(), resourceName);
+		try (final InputStream is = getClass().getResourceAsStream(resourceName)) {
+			Files.copy(is, file.toPath());
+		}
+		return file;
+	}
+
+}
@@ -0,0 +1,209 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JdbcSinkTest {
+
+	private static final int ROWS = 20; // non-empty data lines of test_ok.csv
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSingleTransaction() throws IOException, InterruptedException {
+		final FakeDatabase database = new FakeDatabase(null);
+		final JdbcSink sink = new JdbcSink(database::getConnection);
+		sink.setBatchSize(4);
+		sink.setConnections(3); // ignored without a commit interval
+		newEngine().convert(copyResource("test_ok.csv"), sink, () -> false);
+		Assert.assertEquals(1, database.commits.size());
+		Assert.assertEquals(ROWS, database.commits.get(0).size());
+		Assert.assertEquals(1, database.connections);
+		Assert.assertEquals(1, database.closed);
+	}
+
+	@Test
+	public void testOrderedCommit() throws IOException, InterruptedException {
+		final File csvFile = copyResource("test_ok.csv");
+		for (final boolean ordered : new boolean[] { true, false }) {
+			final FakeDatabase database = new FakeDatabase(null);
+			final JdbcSink sink = new JdbcSink(database::getConnection);
+			sink.setBatchSize(2);
+			sink.setCommitInterval(5);
+			sink.setConnections(3);
+			sink.setOrderedCommit(ordered);
+			newEngine().convert(csvFile, sink, () -> false);
+			final List<Timestamp> all = new ArrayList<>();
+			for (final List<Object[]> commit : database.commits) {
+				Assert.assertTrue(commit.size() <= 5);
+				final List<Timestamp> timestamps = new ArrayList<>();
+				for (final Object[] row : commit) {
+					timestamps.add((Timestamp) row[0]);
+				}
+				Collections.sort(timestamps); // rows with different field counts use different statements
+				all.addAll(timestamps);
+			}
+			Assert.assertEquals(ROWS, all.size());
+			Assert.assertEquals(4, database.commits.size());
+			Assert.assertEquals(3, database.connections);
+			Assert.assertEquals(3, database.closed);
+			if (ordered) {
+				final List<Timestamp> sorted = new ArrayList<>(all);
+				Collections.sort(sorted);
+				Assert.assertEquals(sorted, all);
+			}
+		}
+	}
+
+	@Test
+	public void testFailure() throws IOException, InterruptedException {
+		final Timestamp failing = Timestamp.valueOf("2017-09-01 00:00:49.517");
+		final FakeDatabase database = new FakeDatabase(failing);
+		final JdbcSink sink = new JdbcSink(database::getConnection);
+		sink.setBatchSize(1);
+		sink.setCommitInterval(2);
+		sink.setConnections(2);
+		try {
+			newEngine().convert(copyResource("test_ok.csv"), sink, () -> false);
+			Assert.fail();
+		}
+		catch (final IOException e) {
+			Assert.assertEquals(SQLException.class, e.getCause().getClass());
+		}
+		for (final List<Object[]> commit : database.commits) {
+			for (final Object[] row : commit) {
+				Assert.assertTrue(((Timestamp) row[0]).before(failing)); // committed rows are a prefix
+			}
+		}
+		Assert.assertEquals(database.connections, database.closed);
+	}
+
+	@Test
+	public void testNulls() throws IOException, InterruptedException {
+		final File csvFile = new File(temporaryFolder.getRoot(), "nulls.csv");
+		Files.write(csvFile.toPath(), "Data e ora;rt;name;rate;margin;uptime\n01/09/2017 00:00:03.587;93;a;480;1.5;12\n01/09/2017 00:00:08.650;94;; ;;13\n".getBytes(StandardCharsets.US_ASCII));
+		final FakeDatabase database = new FakeDatabase(null);
+		final CsvToSqlEngine engine = newEngine();
+		engine.setTypeInferenceRows(1);
+		engine.convert(csvFile, new JdbcSink(database::getConnection), () -> false);
+		Assert.assertEquals(1, database.commits.size());
+		final List<Object[]> rows = database.commits.get(0);
+		Assert.assertArrayEquals(new Object[] { "a", 480L, new BigDecimal("1.5"), 12L }, Arrays.copyOfRange(rows.get(0), 2, 6));
+		Assert.assertArrayEquals(new Object[] { JDBCType.VARCHAR, JDBCType.BIGINT, JDBCType.DECIMAL, 13L }, Arrays.copyOfRange(rows.get(1), 2, 6)); // typed nulls
+	}
+
+	private static CsvToSqlEngine newEngine() {
+		return new CsvToSqlEngine(";", "dd/MM/yyyy HH:mm:ss.SSS", "my_table", "prefix_", "timestamp", "response_time_ms", 20);
+	}
+
+	private File copyResource(final String resourceName) throws IOException {
+		final File file = new File(temporaryFolder.getRoot(), resourceName);
+		try (final InputStream is = getClass().getResourceAsStream(resourceName)) {
+			Files.copy(is, file.toPath());
+		}
+		return file;
+	}
+
+	/** Records the committed rows; uncommitted rows are kept per connection. */
+	private static class FakeDatabase {
+		private final Timestamp failing;
+		private final List<List<Object[]>> commits = new ArrayList<>();
+		private int connections;
+		private int closed;
+
+		private FakeDatabase(final Timestamp failing) {
+			this.failing = failing;
+		}
+
+		private synchronized Connection getConnection() {
+			connections++;
+			final List<Object[]> uncommitted = new ArrayList<>();
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+				switch (method.getName()) {
+				case "prepareStatement":
+					Assert.assertTrue(((String) args[0]).startsWith("INSERT INTO my_table ("));
+					return newStatement(uncommitted);
+				case "commit":
+					synchronized (this) {
+						commits.add(new ArrayList<>(uncommitted));
+					}
+					uncommitted.clear();
+					return null;
+				case "rollback":
+					uncommitted.clear();
+					return null;
+				case "close":
+					synchronized (this) {
+						closed++;
+					}
+					return null;
+				default:
+					return null;
+				}
+			});
+		}
+
+		private PreparedStatement newStatement(final List<Object[]> uncommitted) {
+			final List<Object[]> batch = new ArrayList<>();
+			final Object[][] parameters = { new Object[0] };
+			return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+				switch (method.getName()) {
+				case "setNull": // records the type of the null
+					setParameter(parameters, (Integer) args[0], JDBCType.valueOf((Integer) args[1]));
+					return null;
+				case "setObject":
+					Assert.assertNotNull(args[1]);
+					setParameter(parameters, (Integer) args[0], args[1]);
+					return null;
+				case "addBatch":
+					batch.add(parameters[0]);
+					parameters[0] = new Object[0];
+					return null;
+				case "executeBatch":
+					for (final Object[] row : batch) {
+						if (row[0].equals(failing)) {
+							batch.clear();
+							throw new SQLException("Simulated failure");
+						}
+					}
+					uncommitted.addAll(batch);
+					final int[] counts = new int[batch.size()];
+					batch.clear();
+					return counts;
+				default:
+					return null;
+				}
+			});
+		}
+
+		private static void setParameter(final Object[][] parameters, final int index, final Object value) {
+			if (parameters[0].length < index) {
+				final Object[] larger = new Object[index];
+				System.arraycopy(parameters[0], 0, larger, 0, parameters[0].length);
+				parameters[0] = larger;
+			}
+			parameters[0][index - 1] = value;
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LookaheadLineReaderTest {
+
+	private static final int LINES = 100;
+
+	@Test
+	public void testReplay() throws IOException {
+		for (final int count : new int[] { 0, 1, 64, 65, LINES, Integer.MAX_VALUE }) {
+			final AtomicLong budget = new AtomicLong(LookaheadLineReader.MAX_CHARS);
+			final LookaheadLineReader reader = new LookaheadLineReader(newReader(), count, budget);
+			Assert.assertEquals(Math.min(count, LINES), reader.getLines().size());
+			assertLines(reader);
+			Assert.assertEquals(LookaheadLineReader.MAX_CHARS, budget.get());
+		}
+	}
+
+	@Test
+	public void testBudget() throws IOException {
+		final AtomicLong budget = new AtomicLong(20);
+		final LookaheadLineReader reader = new LookaheadLineReader(newReader(), Integer.MAX_VALUE, budget);
+		Assert.assertEquals(4, reader.getLines().size()); // the fourth line exhausts the budget
+		Assert.assertEquals("line 3", reader.getLines().get(3));
+		Assert.assertEquals(-4, budget.get());
+		Assert.assertEquals(0, new LookaheadLineReader(newReader(), Integer.MAX_VALUE, budget).getLines().size());
+		assertLines(reader);
+		Assert.assertEquals(20, budget.get());
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		final AtomicLong budget = new AtomicLong(LookaheadLineReader.MAX_CHARS);
+		final LookaheadLineReader reader = new LookaheadLineReader(newReader(), 10, budget);
+		Assert.assertEquals("line 0", reader.readLine().toString());
+		Assert.assertEquals(LookaheadLineReader.MAX_CHARS - 9 * "line 0".length(), budget.get());
+		reader.close();
+		Assert.assertEquals(LookaheadLineReader.MAX_CHARS, budget.get());
+	}
+
+	private static void assertLines(final LookaheadLineReader reader) throws IOException {
+		final ByteLineReader expected = newReader();
+		Assert.assertEquals(0, reader.getLineNumber());
+		for (int i = 0; i <= LINES; i++) {
+			Assert.assertEquals(expected.getOffset(), reader.getOffset());
+			Assert.assertEquals(toString(expected.readLine()), toString(reader.readLine()));
+			Assert.assertEquals(expected.getLineNumber(), reader.getLineNumber());
+		}
+	}
+
+	private static ByteLineReader newReader() {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < LINES; i++) {
+			text.append("line ").append(i).append('\n');
+		}
+		return new ByteLineReader(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII)), StandardCharsets.US_ASCII, 0, 0);
+	}
+
+	private static String toString(final CharSequence line) {
+		return line != null ? line.toString() : null;
+	}
+
+}
@@ -0,0 +1,89 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedLineReaderTest {
+
+	private static final String[] TEXTS = { "", "a", "a\n", "a\r", "a\r\n", "\n\n", "\r\r\n\n", "abc\ndef\r\nghi\rjkl", "\u00E0\u00E8\u00EC\u00F2\u00F9\r\n\u20AC;\u00DF\n" };
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSameAsBufferedReader() throws IOException {
+		for (final Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1 }) {
+			for (final String text : TEXTS) {
+				for (final int windowSize : new int[] { 2, 3, 4, MappedLineReader.DEFAULT_WINDOW_SIZE }) {
+					assertSameAsBufferedReader(text, charset, windowSize);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 1000 * (i + 1); j++) {
+				text.append((char) ('a' + j % 26));
+			}
+			text.append("\r\n");
+		}
+		assertSameAsBufferedReader(text.toString(), StandardCharsets.UTF_8, 999);
+	}
+
+	@Test
+	public void testOffsets() throws IOException {
+		final byte[] bytes = "skip\nh\r\n\u00E0\n\rlast".getBytes(StandardCharsets.UTF_8);
+		try (final FileChannel channel = open(bytes)) {
+			final MappedLineReader reader = new MappedLineReader(channel, StandardCharsets.UTF_8, 5, 10, 4);
+			Assert.assertEquals(5, reader.getOffset());
+			Assert.assertEquals("h", reader.readLine().toString());
+			Assert.assertEquals(8, reader.getOffset());
+			Assert.assertEquals(11, reader.getLineNumber());
+			Assert.assertEquals("\u00E0", reader.readLine().toString());
+			Assert.assertEquals(11, reader.getOffset());
+			Assert.assertEquals("", reader.readLine().toString());
+			Assert.assertEquals(12, reader.getOffset());
+			Assert.assertEquals("last", reader.readLine().toString());
+			Assert.assertEquals(bytes.length, reader.getOffset());
+			Assert.assertEquals(14, reader.getLineNumber());
+			Assert.assertNull(reader.readLine());
+			Assert.assertEquals(14, reader.getLineNumber());
+		}
+	}
+
+	private void assertSameAsBufferedReader(final String text, final Charset charset, final int windowSize) throws IOException {
+		final byte[] bytes = text.getBytes(charset);
+		final BufferedReader expected = new BufferedReader(new StringReader(new String(bytes, charset)));
+		try (final FileChannel channel = open(bytes)) {
+			final MappedLineReader actual = new MappedLineReader(channel, charset, 0, 0, windowSize);
+			String line;
+			while ((line = expected.readLine()) != null) {
+				Assert.assertEquals(text, line, String.valueOf(actual.readLine()));
+			}
+			Assert.assertNull(actual.readLine());
+			Assert.assertEquals(bytes.length, actual.getOffset());
+		}
+	}
+
+	private FileChannel open(final byte[] bytes) throws IOException {
+		final File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), bytes);
+		return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+}
@@ -0,0 +1,86 @@
+package it.albertus.routerlogger.csv2sql.engine;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimestampTranscoderTest {
+
+	@Test
+	public void testDefaultPattern() throws IOException {
+		final String pattern = "dd/MM/yyyy HH:mm:ss.SSS";
+		final TimestampTranscoder transcoder = new TimestampTranscoder(pattern);
+		Assert.assertTrue(transcoder.isCompiled());
+		for (final String text : new String[] { "01/09/2017 00:00:03.587", "01/09/2017 00:00:03.588", "01/09/2017 00:00:04.001", "02/09/2017 00:00:04.001", " 1/9/2017 0:0:3.5 ", "29/02/2016 23:59:59.999", "29/02/2017 10:00:00.000", "31/04/2017 10:00:00.000", "01/13/2017 10:00:00.000", "00/12/2017 10:00:00.000", "01/12/0000 10:00:00.000", "01/12/2017 24:00:00.000", "01/12/2017 10:60:00.000", "01/12/2017 10:00:60.000", "01/12/2017 10:00:00.1000", "01/12/2017 10:00:00.000xyz", "01-12-2017 10:00:00.000", "01/12/2017", "04/10/1582 10:00:00.000", "15/10/1582 10:00:00.000", "29/02/1500 10:00:00.000", "01/01/12345 10:00:00.000", "" }) {
+			assertSameAsSimpleDateFormat(transcoder, pattern, text);
+		}
+	}
+
+	@Test
+	public void testDaylightSavingTime() throws IOException {
+		final String pattern = "dd/MM/yyyy HH:mm:ss.SSS";
+		final TimestampTranscoder transcoder = new TimestampTranscoder(pattern);
+		for (final String day : new String[] { "26/03/2017", "29/10/2017", "12/03/2017", "05/11/2017" }) {
+			for (int minutes = 0; minutes < 24 * 60; minutes += 15) {
+				assertSameAsSimpleDateFormat(transcoder, pattern, String.format("%s %02d:%02d:00.000", day, minutes / 60, minutes % 60));
+			}
+		}
+	}
+
+	@Test
+	public void testAbuttingFields() throws IOException {
+		final String pattern = "yyyyMMddHHmmssSSS";
+		final TimestampTranscoder transcoder = new TimestampTranscoder(pattern);
+		Assert.assertTrue(transcoder.isCompiled());
+		for (final String text : new String[] { "20170901000003587", "2017090100000358", "2017090100000", "201709010000035879", "2017 0901000003587", "2017 901000003587", "20170 901000003587" }) {
+			assertSameAsSimpleDateFormat(transcoder, pattern, text);
+		}
+	}
+
+	@Test
+	public void testQuotedLiterals() throws IOException {
+		final String pattern = "yyyy-MM-dd'T'HH:mm:ss''SSS";
+		final TimestampTranscoder transcoder = new TimestampTranscoder(pattern);
+		Assert.assertTrue(transcoder.isCompiled());
+		for (final String text : new String[] { "2017-09-01T00:00:03'587", "2017-09-01 00:00:03'587" }) {
+			assertSameAsSimpleDateFormat(transcoder, pattern, text);
+		}
+	}
+
+	@Test
+	public void testFallback() throws IOException {
+		for (final String pattern : new String[] { "dd MMM yyyy HH:mm", "dd/MM/yy HH:mm", "dd/MM/yyyy hh:mm a" }) {
+			final TimestampTranscoder transcoder = new TimestampTranscoder(pattern);
+			Assert.assertFalse(transcoder.isCompiled());
+			final String text = new SimpleDateFormat(pattern).format(new java.util.Date(1504224003587L));
+			assertSameAsSimpleDateFormat(transcoder, pattern, text);
+		}
+	}
+
+	private static void assertSameAsSimpleDateFormat(final TimestampTranscoder transcoder, final String pattern, final String text) throws IOException {
+		final DateFormat csvDateFormat = new SimpleDateFormat(pattern, Locale.getDefault());
+		csvDateFormat.setLenient(false);
+		String expected;
+		try {
+			expected = new SimpleDateFormat(TimestampTranscoder.ANSI_SQL_TIMESTAMP_PATTERN).format(csvDateFormat.parse(text.trim()));
+		}
+		catch (final ParseException e) {
+			expected = null;
+		}
+		final StringWriter actual = new StringWriter();
+		try {
+			transcoder.transcode(text.toCharArray(), 0, text.length(), actual);
+			Assert.assertEquals(text, expected, actual.toString());
+		}
+		catch (final ParseException e) {
+			Assert.assertNull(text + " -> " + expected, expected);
+		}
+	}
+
+}